@@ -0,0 +1,371 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.binary;
+
+import org.uncommons.maths.binary.BitString;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>A fixed-length bit string packed into an array of 64-bit words.  It has the same
+ * indexing and string form as {@link BitString} (bit zero is the least significant and is
+ * written last), but its bulk operations work a word at a time, so that cross-over, mutation
+ * and counting cost a small fraction of a method call per bit.  It is intended for genomes
+ * of hundreds of thousands or millions of bits.</p>
+ *
+ * <p>Unused bits of the last word are always zero.</p>
+ */
+public final class PackedBitString implements Cloneable, Serializable {
+  private static final long serialVersionUID = 1L;
+  private static final int WORD_BITS = 64;
+  private static final int ADDRESS_BITS = 6;
+
+  private final int length;
+  private long[] words;
+
+
+  /**
+   * Creates a bit string of the specified length with all bits initially zero.
+   *
+   * @param length The number of bits.
+   */
+  public PackedBitString(int length) {
+    if (length < 0) {
+      throw new IllegalArgumentException("Length must be non-negative.");
+    }
+    this.length = length;
+    this.words = new long[(length >>> ADDRESS_BITS) + ((length & (WORD_BITS - 1)) == 0 ? 0 : 1)];
+  }
+
+
+  /**
+   * Creates a bit string of the specified length with each bit set randomly (the
+   * distribution of bits is uniform so long as the output from the provided RNG is also
+   * uniform).
+   *
+   * @param length The number of bits.
+   * @param rng    A source of randomness.
+   */
+  public PackedBitString(int length, Random rng) {
+    this(length);
+    for (int i = 0; i < words.length; i++) {
+      words[i] = rng.nextLong();
+    }
+    clearUnusedBits();
+  }
+
+
+  /**
+   * Initialises the bit string from a character string of 1s and 0s in big-endian order,
+   * as produced by {@link #toString()}.
+   *
+   * @param value A character string of ones and zeros.
+   */
+  public PackedBitString(String value) {
+    this(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(value.length() - (i + 1));
+      if (c == '1') {
+        setBit(i, true);
+      } else if (c != '0') {
+        throw new IllegalArgumentException("Illegal character at position " + i);
+      }
+    }
+  }
+
+
+  /**
+   * @param bitString A bit string to convert.
+   * @return A packed bit string with the same bits.
+   */
+  public static PackedBitString fromBitString(BitString bitString) {
+    PackedBitString packed = new PackedBitString(bitString.getLength());
+    for (int i = 0; i < bitString.getLength(); i++) {
+      if (bitString.getBit(i)) {
+        packed.words[i >>> ADDRESS_BITS] |= 1L << i;
+      }
+    }
+    return packed;
+  }
+
+
+  /**
+   * @return A {@link BitString} with the same bits as this one.
+   */
+  public BitString toBitString() {
+    BitString bitString = new BitString(length);
+    for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+      bitString.setBit(i, true);
+    }
+    return bitString;
+  }
+
+
+  /**
+   * @return The length of this bit string.
+   */
+  public int getLength() {
+    return length;
+  }
+
+
+  /**
+   * Returns the bit at the specified index.
+   *
+   * @param index The index of the bit to look-up (0 is the least-significant bit).
+   * @return A boolean indicating whether the bit is set or not.
+   * @throws IndexOutOfBoundsException If the specified index is not a bit
+   *                                   position in this bit string.
+   */
+  public boolean getBit(int index) {
+    assertValidIndex(index);
+    return (words[index >>> ADDRESS_BITS] & (1L << index)) != 0;
+  }
+
+
+  /**
+   * Sets the bit at the specified index.
+   *
+   * @param index The index of the bit to set (0 is the least-significant bit).
+   * @param set   A boolean indicating whether the bit should be set or not.
+   * @throws IndexOutOfBoundsException If the specified index is not a bit
+   *                                   position in this bit string.
+   */
+  public void setBit(int index, boolean set) {
+    assertValidIndex(index);
+    if (set) {
+      words[index >>> ADDRESS_BITS] |= 1L << index;
+    } else {
+      words[index >>> ADDRESS_BITS] &= ~(1L << index);
+    }
+  }
+
+
+  /**
+   * Inverts the value of the bit at the specified index.
+   *
+   * @param index The bit to flip (0 is the least-significant bit).
+   * @throws IndexOutOfBoundsException If the specified index is not a bit
+   *                                   position in this bit string.
+   */
+  public void flipBit(int index) {
+    assertValidIndex(index);
+    words[index >>> ADDRESS_BITS] ^= 1L << index;
+  }
+
+
+  /**
+   * Inverts the value of each of the bits at the specified indices.  An index that
+   * appears twice is flipped twice.
+   *
+   * @param indices The bits to flip.
+   * @throws IndexOutOfBoundsException If any of the indices is not a bit
+   *                                   position in this bit string.
+   */
+  public void flipBits(int... indices) {
+    for (int index : indices) {
+      flipBit(index);
+    }
+  }
+
+
+  /**
+   * @param fromIndex The index at which to start looking.
+   * @return The index of the first set bit at or after {@code fromIndex}, or -1 if there
+   * is none.
+   */
+  public int nextSetBit(int fromIndex) {
+    if (fromIndex >= length) {
+      return -1;
+    }
+    int wordIndex = fromIndex >>> ADDRESS_BITS;
+    long word = words[wordIndex] & (-1L << fromIndex);
+    while (word == 0) {
+      if (++wordIndex == words.length) {
+        return -1;
+      }
+      word = words[wordIndex];
+    }
+    return (wordIndex << ADDRESS_BITS) + Long.numberOfTrailingZeros(word);
+  }
+
+
+  /**
+   * @return The number of bits that are 1s rather than 0s.
+   */
+  public int countSetBits() {
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+
+  /**
+   * @return The number of bits that are 0s rather than 1s.
+   */
+  public int countUnsetBits() {
+    return length - countSetBits();
+  }
+
+
+  /**
+   * Counts the positions at which this bit string and another have the same value.  This
+   * is the length minus the Hamming distance, and is a common fitness measure for
+   * bit string problems with a known target.
+   *
+   * @param other A bit string of the same length.
+   * @return The number of matching bits.
+   */
+  public int countMatchingBits(PackedBitString other) {
+    assertSameLength(other);
+    int differences = 0;
+    for (int i = 0; i < words.length; i++) {
+      differences += Long.bitCount(words[i] ^ other.words[i]);
+    }
+    return length - differences;
+  }
+
+
+  /**
+   * An efficient method for exchanging data between two bit strings.  Both bit strings must
+   * be long enough that they contain the full length of the specified substring.
+   *
+   * @param other  The bit string with which this bit string should swap bits.
+   * @param start  The start position for the substrings to be exchanged.  All bit
+   *               indices are big-endian, which means position 0 is the rightmost bit.
+   * @param length The number of contiguous bits to swap.
+   */
+  public void swapSubstring(PackedBitString other, int start, int length) {
+    assertSameLength(other);
+    if (start < 0 || length < 0 || start + length > this.length) {
+      throw new IndexOutOfBoundsException("Invalid substring: start " + start + ", length " + length);
+    }
+    if (length == 0) {
+      return;
+    }
+    int end = start + length - 1; // Inclusive.
+    int firstWord = start >>> ADDRESS_BITS;
+    int lastWord = end >>> ADDRESS_BITS;
+    for (int i = firstWord; i <= lastWord; i++) {
+      long mask = -1L;
+      if (i == firstWord) {
+        mask &= -1L << start;
+      }
+      if (i == lastWord) {
+        mask &= -1L >>> (WORD_BITS - 1 - (end & (WORD_BITS - 1)));
+      }
+      swapMasked(other, i, mask);
+    }
+  }
+
+
+  /**
+   * Exchanges each bit with the corresponding bit of another bit string with probability
+   * one half, as in uniform cross-over.  One random long is used per 64 bits.
+   *
+   * @param other The bit string with which this bit string should swap bits.
+   * @param rng   A source of randomness.
+   */
+  public void swapRandomBits(PackedBitString other, Random rng) {
+    assertSameLength(other);
+    for (int i = 0; i < words.length; i++) {
+      swapMasked(other, i, rng.nextLong());
+    }
+  }
+
+
+  private void swapMasked(PackedBitString other, int wordIndex, long mask) {
+    long difference = (words[wordIndex] ^ other.words[wordIndex]) & mask;
+    words[wordIndex] ^= difference;
+    other.words[wordIndex] ^= difference;
+  }
+
+
+  private void clearUnusedBits() {
+    if ((length & (WORD_BITS - 1)) != 0) {
+      words[words.length - 1] &= -1L >>> (WORD_BITS - (length & (WORD_BITS - 1)));
+    }
+  }
+
+
+  private void assertValidIndex(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Invalid index: " + index + " (length: " + length + ")");
+    }
+  }
+
+
+  private void assertSameLength(PackedBitString other) {
+    if (other.length != length) {
+      throw new IllegalArgumentException("Bit strings must be the same length.");
+    }
+  }
+
+
+  /**
+   * Creates a textual representation of this bit string in big-endian order (index 0 is
+   * the right-most bit).
+   *
+   * @return This bit string rendered as a String of 1s and 0s.
+   */
+  @Override
+  public String toString() {
+    StringBuilder buffer = new StringBuilder(length);
+    for (int i = length - 1; i >= 0; i--) {
+      buffer.append((words[i >>> ADDRESS_BITS] & (1L << i)) != 0 ? '1' : '0');
+    }
+    return buffer.toString();
+  }
+
+
+  /**
+   * @return An identical copy of this bit string.
+   */
+  @Override
+  public PackedBitString clone() {
+    try {
+      PackedBitString clone = (PackedBitString) super.clone();
+      clone.words = words.clone();
+      return clone;
+    } catch (CloneNotSupportedException ex) {
+      // Not possible.
+      throw (Error) new InternalError("Cloning failed.").initCause(ex);
+    }
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PackedBitString other = (PackedBitString) o;
+    return length == other.length && Arrays.equals(words, other.words);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return 31 * length + Arrays.hashCode(words);
+  }
+}
@@ -0,0 +1,133 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of asynchronous operations that are in progress at once.
+ * Operations submitted while the limit is reached are queued and started, in
+ * submission order, as earlier operations complete.  No thread is blocked while
+ * waiting for a permit; queued operations are started by whichever thread completes
+ * the operation that frees the permit.
+ */
+public class ConcurrencyLimiter {
+  private final int limit;
+  private final Queue<Runnable> queue = new ArrayDeque<>();
+  private int active = 0;
+
+  // Set while a thread is starting queued operations.  Operations that complete
+  // synchronously would otherwise start the next one recursively.
+  private final ThreadLocal<Boolean> draining = ThreadLocal.withInitial(() -> false);
+
+
+  /**
+   * @param limit The maximum number of operations in progress at once.
+   */
+  public ConcurrencyLimiter(int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    this.limit = limit;
+  }
+
+
+  /**
+   * Starts an operation now if the limit permits, or later otherwise.
+   *
+   * @param operation Starts the operation and returns its pending result.  If it
+   *                  throws an exception, the returned future completes exceptionally.
+   * @param <R>       The type of the operation's result.
+   * @return A future that completes with the operation's result.
+   */
+  public <R> CompletableFuture<R> submit(Supplier<? extends CompletionStage<R>> operation) {
+    CompletableFuture<R> result = new CompletableFuture<>();
+    Runnable start = () -> {
+      CompletionStage<R> stage;
+      try {
+        stage = operation.get();
+      } catch (RuntimeException | Error ex) {
+        release();
+        result.completeExceptionally(ex);
+        return;
+      }
+      stage.whenComplete((value, failure) -> {
+        release();
+        if (failure != null) {
+          result.completeExceptionally(failure);
+        } else {
+          result.complete(value);
+        }
+      });
+    };
+    synchronized (this) {
+      queue.add(start);
+    }
+    drain();
+    return result;
+  }
+
+
+  /**
+   * @return The number of operations in progress.
+   */
+  public synchronized int getActiveCount() {
+    return active;
+  }
+
+
+  /**
+   * @return The number of operations waiting to start.
+   */
+  public synchronized int getQueuedCount() {
+    return queue.size();
+  }
+
+
+  private void release() {
+    synchronized (this) {
+      --active;
+    }
+    drain();
+  }
+
+
+  private void drain() {
+    if (draining.get()) {
+      return; // An outer call on this thread will pick up any newly-startable operations.
+    }
+    draining.set(true);
+    try {
+      while (true) {
+        Runnable next;
+        synchronized (this) {
+          if (active >= limit || queue.isEmpty()) {
+            return;
+          }
+          ++active;
+          next = queue.poll();
+        }
+        next.run();
+      }
+    } finally {
+      draining.set(false);
+    }
+  }
+}
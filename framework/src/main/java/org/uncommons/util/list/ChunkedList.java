@@ -0,0 +1,280 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.list;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * <p>An immutable list stored as fixed-size chunks that are shared between lists.
+ * Modified copies, made with {@link #with(int, Object)}, {@link #edit()} or
+ * {@link #splice(ChunkedList, int, int)}, copy only the chunks that change plus the
+ * array of chunk references, so an offspring that differs from its parent in a few
+ * places costs a small fraction of a full copy.  For a list of 10<sup>5</sup> elements
+ * the chunk array is about 1,600 references, against 10<sup>5</sup> for a copy.</p>
+ *
+ * <p>Chunk boundaries fall at the same indices in every list, so any two lists can share
+ * the chunks that cover the same range of positions.  Chunks are never modified once a
+ * list has been built, which makes the lists safe to share between threads and between
+ * candidates of a population.</p>
+ *
+ * @param <E> The type of the elements.
+ */
+public final class ChunkedList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+  private static final long serialVersionUID = 1L;
+
+  static final int CHUNK_SHIFT = 6;
+  static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final ChunkedList<Object> EMPTY = new ChunkedList<>(new Object[0][], 0);
+
+  // Every chunk is full except possibly the last, which is exactly as long as needed.
+  private final Object[][] chunks;
+  private final int size;
+
+
+  private ChunkedList(Object[][] chunks, int size) {
+    this.chunks = chunks;
+    this.size = size;
+  }
+
+
+  /**
+   * @param <E> The type of the elements.
+   * @return An empty list.
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> ChunkedList<E> empty() {
+    return (ChunkedList<E>) EMPTY;
+  }
+
+
+  /**
+   * @param elements The elements of the list, in order.
+   * @param <E>      The type of the elements.
+   * @return A list of the elements.  If the collection is already a chunked list, it is
+   * returned without copying.
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> ChunkedList<E> copyOf(Collection<? extends E> elements) {
+    if (elements instanceof ChunkedList) {
+      return (ChunkedList<E>) elements;
+    }
+    Object[] array = elements.toArray();
+    Object[][] chunks = new Object[chunkCount(array.length)][];
+    for (int i = 0; i < chunks.length; i++) {
+      int start = i << CHUNK_SHIFT;
+      chunks[i] = new Object[Math.min(CHUNK_SIZE, array.length - start)];
+      System.arraycopy(array, start, chunks[i], 0, chunks[i].length);
+    }
+    return new ChunkedList<>(chunks, array.length);
+  }
+
+
+  private static int chunkCount(int size) {
+    return (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+  }
+
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    checkIndex(index, size);
+    return (E) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+  }
+
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+
+  /**
+   * @param index The index of the element to replace.
+   * @param value The new element.
+   * @return A list equal to this one except at the specified index.  This list is not
+   * modified.
+   */
+  public ChunkedList<E> with(int index, E value) {
+    Editor<E> editor = edit();
+    editor.set(index, value);
+    return editor.build();
+  }
+
+
+  /**
+   * @return An editor for making several changes to a copy of this list, each changed
+   * chunk being copied only once.
+   */
+  public Editor<E> edit() {
+    return new Editor<>(chunks.clone(), size);
+  }
+
+
+  /**
+   * Creates a list that takes the elements in a range of positions from another list and
+   * all other elements from this list, as used by cross-over.  Chunks that lie entirely
+   * within the range are shared with the other list and chunks that lie entirely outside
+   * it are shared with this list.  Only the (at most two) chunks that straddle the ends of
+   * the range are copied.
+   *
+   * @param other The list that provides the elements in the range.
+   * @param from  The first position taken from the other list (inclusive).
+   * @param to    The last position taken from the other list (exclusive).  Must be no
+   *              greater than the size of either list.
+   * @return A list of the same size as this one.
+   */
+  public ChunkedList<E> splice(ChunkedList<? extends E> other, int from, int to) {
+    if (from < 0 || from > to || to > size || to > other.size) {
+      throw new IndexOutOfBoundsException("Invalid range: [" + from + ", " + to + ")");
+    }
+    if (from == to) {
+      return this;
+    }
+    Object[][] result = chunks.clone();
+    int firstChunk = from >>> CHUNK_SHIFT;
+    int lastChunk = (to - 1) >>> CHUNK_SHIFT;
+    for (int i = firstChunk; i <= lastChunk; i++) {
+      int start = Math.max(from, i << CHUNK_SHIFT) & CHUNK_MASK;
+      int end = Math.min(to - (i << CHUNK_SHIFT), CHUNK_SIZE);
+      if (start == 0 && end == chunks[i].length && end == other.chunks[i].length) {
+        result[i] = other.chunks[i];
+      } else {
+        result[i] = chunks[i].clone();
+        System.arraycopy(other.chunks[i], start, result[i], start, end - start);
+      }
+    }
+    return new ChunkedList<>(result, size);
+  }
+
+
+  /**
+   * @param other Another list.
+   * @return The number of chunks at the same position in both lists that are shared
+   * rather than copied.
+   */
+  int countSharedChunks(ChunkedList<?> other) {
+    int shared = 0;
+    for (int i = 0; i < Math.min(chunks.length, other.chunks.length); i++) {
+      if (chunks[i] == other.chunks[i]) {
+        ++shared;
+      }
+    }
+    return shared;
+  }
+
+
+  private static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+
+  /**
+   * Accumulates changes to a copy of a {@link ChunkedList}.  A chunk is copied the first
+   * time one of its elements is changed and is modified in place after that.  An editor
+   * is not thread-safe and cannot be used after {@link #build()}.
+   *
+   * @param <E> The type of the elements.
+   */
+  public static final class Editor<E> {
+    private Object[][] chunks;
+    private final boolean[] copied;
+    private final int size;
+
+
+    private Editor(Object[][] chunks, int size) {
+      this.chunks = chunks;
+      this.copied = new boolean[chunks.length];
+      this.size = size;
+    }
+
+
+    /**
+     * @return The number of elements.
+     */
+    public int size() {
+      return size;
+    }
+
+
+    /**
+     * @param index The index of an element.
+     * @return The element, including any change made by this editor.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+      checkIndex(index, size);
+      return (E) chunks()[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+
+    /**
+     * @param index The index of the element to replace.
+     * @param value The new element.
+     */
+    public void set(int index, E value) {
+      checkIndex(index, size);
+      writableChunk(index >>> CHUNK_SHIFT)[index & CHUNK_MASK] = value;
+    }
+
+
+    /**
+     * Exchanges two elements.
+     *
+     * @param index1 The index of one element.
+     * @param index2 The index of the other element.
+     */
+    public void swap(int index1, int index2) {
+      E temp = get(index1);
+      set(index1, get(index2));
+      set(index2, temp);
+    }
+
+
+    /**
+     * @return A list of the edited elements.  The editor cannot be used afterwards.
+     */
+    public ChunkedList<E> build() {
+      ChunkedList<E> list = new ChunkedList<>(chunks(), size);
+      chunks = null;
+      return list;
+    }
+
+
+    private Object[][] chunks() {
+      if (chunks == null) {
+        throw new IllegalStateException("Editor has already been built.");
+      }
+      return chunks;
+    }
+
+
+    private Object[] writableChunk(int chunk) {
+      Object[][] current = chunks();
+      if (!copied[chunk]) {
+        current[chunk] = current[chunk].clone();
+        copied[chunk] = true;
+      }
+      return current[chunk];
+    }
+  }
+}
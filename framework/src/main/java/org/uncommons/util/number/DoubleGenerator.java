@@ -0,0 +1,56 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.number;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+
+/**
+ * A source of {@code double} values, possibly constant, possibly random.  Unlike a
+ * {@code NumberGenerator<Double>}, values are returned without boxing.
+ */
+public interface DoubleGenerator {
+  /**
+   * @return The next value.
+   */
+  double nextDouble();
+
+
+  /**
+   * @param value The value to return every time.
+   * @return A generator that always returns the same value.
+   */
+  static DoubleGenerator constant(double value) {
+    return () -> value;
+  }
+
+
+  /**
+   * @param generator A generator of boxed values.
+   * @return A generator of the same values.  Constant generators are unwrapped so that
+   * the value is only unboxed once.  Other generators cannot be sampled during parallel
+   * breeding (see {@link ParallelSampling}).
+   */
+  static DoubleGenerator of(NumberGenerator<Double> generator) {
+    if (generator instanceof ConstantGenerator) {
+      return constant(generator.nextValue());
+    }
+    return () -> {
+      ParallelSampling.checkUnrestricted();
+      return generator.nextValue();
+    };
+  }
+}
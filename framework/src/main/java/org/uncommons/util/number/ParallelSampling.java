@@ -0,0 +1,68 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.number;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>Marks the threads on which the non-constant generators created by this package
+ * must not be sampled.</p>
+ *
+ * <p>Parallel breeding evolves chunks of the population on several threads at once,
+ * with a separate source of randomness for each chunk.  A generator that wraps a
+ * random {@link org.uncommons.maths.number.NumberGenerator} has its own source of
+ * randomness, which would be shared by all of the chunks and would hand out its values
+ * in an order that depends on thread scheduling.  Only constant generators can
+ * therefore be sampled while a chunk is being evolved.</p>
+ */
+public final class ParallelSampling {
+  private static final ThreadLocal<Boolean> RESTRICTED = new ThreadLocal<>();
+
+
+  private ParallelSampling() {
+    // Prevent instantiation.
+  }
+
+
+  /**
+   * Performs an operation during which the calling thread may only sample constant
+   * generators.
+   *
+   * @param operation The operation to perform.
+   * @param <R>       The type of result.
+   * @return The result of the operation.
+   */
+  public static <R> R restrict(Supplier<R> operation) {
+    Boolean previous = RESTRICTED.get();
+    RESTRICTED.set(Boolean.TRUE);
+    try {
+      return operation.get();
+    } finally {
+      RESTRICTED.set(previous);
+    }
+  }
+
+
+  /**
+   * @throws IllegalStateException If the calling thread is performing a restricted
+   *                               operation.
+   */
+  static void checkUnrestricted() {
+    if (RESTRICTED.get() != null) {
+      throw new IllegalStateException("Only constant random variables can be used when breeding in parallel.");
+    }
+  }
+}
@@ -0,0 +1,74 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.number;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * A source of probabilities, possibly constant, possibly random, as {@code double}s
+ * in the range zero to one.  Unlike a {@code NumberGenerator<Probability>}, values are
+ * returned without allocating a {@link Probability} object.
+ */
+public interface ProbabilityGenerator {
+  /**
+   * @return The next probability, between zero and one inclusive.
+   */
+  double nextProbability();
+
+
+  /**
+   * Generates a probability and then decides whether an event with that probability
+   * occurs, in the same way as {@link Probability#nextEvent(Random)}.
+   *
+   * @param rng The source of randomness used to decide.
+   * @return True if the event occurs.
+   */
+  default boolean nextEvent(Random rng) {
+    double probability = nextProbability();
+    return probability == 1 || rng.nextDouble() < probability;
+  }
+
+
+  /**
+   * @param probability The probability to return every time.
+   * @return A generator that always returns the same probability.
+   */
+  static ProbabilityGenerator constant(Probability probability) {
+    double value = probability.doubleValue();
+    return () -> value;
+  }
+
+
+  /**
+   * @param generator A generator of {@link Probability} objects.
+   * @return A generator of the same probabilities.  Constant generators are unwrapped so
+   * that the value is only extracted once.  Other generators cannot be sampled during
+   * parallel breeding (see {@link ParallelSampling}).
+   */
+  static ProbabilityGenerator of(NumberGenerator<Probability> generator) {
+    if (generator instanceof ConstantGenerator) {
+      return constant(generator.nextValue());
+    }
+    return () -> {
+      ParallelSampling.checkUnrestricted();
+      return generator.nextValue().doubleValue();
+    };
+  }
+}
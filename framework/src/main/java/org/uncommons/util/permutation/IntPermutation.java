@@ -0,0 +1,173 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.permutation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>An immutable permutation of the integers 0 to n-1, backed by an {@code int[]}.  It
+ * is a compact alternative to a {@code List} of objects for evolving orderings: the
+ * elements being ordered are referred to by index, so operators need no boxing or
+ * hashing and can index arrays by element.</p>
+ *
+ * <p>Operators that build permutations in their own arrays can hand them over with
+ * {@link #wrap(int[])} to avoid a second copy.</p>
+ */
+public final class IntPermutation implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final int[] order;
+
+
+  /**
+   * @param order The elements in order.  Must contain each integer from 0 to
+   *              {@code order.length - 1} exactly once.  The array is copied.
+   */
+  public IntPermutation(int... order) {
+    if (!isPermutation(order)) {
+      throw new IllegalArgumentException("Not a permutation: " + Arrays.toString(order));
+    }
+    this.order = order.clone();
+  }
+
+
+  private IntPermutation(int[] order, boolean trusted) {
+    assert trusted && isPermutation(order) : "Not a permutation.";
+    this.order = order;
+  }
+
+
+  /**
+   * Creates a permutation that takes ownership of an array without copying or checking
+   * it.  The caller must ensure that the array is a permutation (this is checked if
+   * assertions are enabled) and must not modify it afterwards.
+   *
+   * @param order The elements in order.
+   * @return A permutation backed by the array.
+   */
+  public static IntPermutation wrap(int[] order) {
+    return new IntPermutation(order, true);
+  }
+
+
+  /**
+   * @param size The number of elements.
+   * @return The permutation in which every element is in its own position.
+   */
+  public static IntPermutation identity(int size) {
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    return new IntPermutation(order, true);
+  }
+
+
+  /**
+   * @param size The number of elements.
+   * @param rng  A source of randomness.
+   * @return A permutation chosen uniformly at random.
+   */
+  public static IntPermutation random(int size, Random rng) {
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      // Inside-out Fisher-Yates shuffle.
+      int j = rng.nextInt(i + 1);
+      order[i] = order[j];
+      order[j] = i;
+    }
+    return new IntPermutation(order, true);
+  }
+
+
+  /**
+   * @return The number of elements.
+   */
+  public int size() {
+    return order.length;
+  }
+
+
+  /**
+   * @param index A position in the permutation.
+   * @return The element at that position.
+   */
+  public int get(int index) {
+    return order[index];
+  }
+
+
+  /**
+   * Copies the elements, in order, into the start of an array.
+   *
+   * @param destination An array at least as long as this permutation.
+   */
+  public void copyTo(int[] destination) {
+    System.arraycopy(order, 0, destination, 0, order.length);
+  }
+
+
+  /**
+   * @return A copy of the elements in order.
+   */
+  public int[] toArray() {
+    return order.clone();
+  }
+
+
+  /**
+   * @return An array that maps each element to its position in this permutation.
+   */
+  public int[] inverse() {
+    int[] positions = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      positions[order[i]] = i;
+    }
+    return positions;
+  }
+
+
+  private static boolean isPermutation(int[] order) {
+    boolean[] seen = new boolean[order.length];
+    for (int element : order) {
+      if (element < 0 || element >= order.length || seen[element]) {
+        return false;
+      }
+      seen[element] = true;
+    }
+    return true;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof IntPermutation && Arrays.equals(order, ((IntPermutation) o).order));
+  }
+
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(order);
+  }
+
+
+  @Override
+  public String toString() {
+    return Arrays.toString(order);
+  }
+}
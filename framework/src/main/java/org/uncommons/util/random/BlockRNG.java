@@ -0,0 +1,239 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.random;
+
+import java.util.Random;
+
+/**
+ * <p>A {@link Random} for the inner loops of evolutionary operators, which may need a
+ * random value for every gene of every candidate.  Calling a shared generator that often
+ * is expensive: most of the generators in the Uncommons Maths library acquire a lock for
+ * every value, and each call has its own overhead.  A block generator instead takes a
+ * single seed from the shared generator for each block of values, fills a buffer with the
+ * whole block at once using the SplitMix64 algorithm, and then hands out values from the
+ * buffer.</p>
+ *
+ * <p>Values are still completely determined by the shared generator, so evolution remains
+ * repeatable for a given seed.  Like any buffered source, a block generator draws from the
+ * shared generator ahead of need, so it should be created for a batch of work, such as one
+ * invocation of an operator, and then discarded.  Instances are not thread-safe and should
+ * be confined to the thread that created them.</p>
+ *
+ * <p>A block generator produces a different sequence from the generator that seeds it.
+ * So that existing runs can be repeated, the operators that predate it (and those that
+ * must reproduce their results) only draw from a block generator when one is passed to
+ * them.  Other operators wrap whatever generator they are given (see {@link #wrap(Random)}).</p>
+ */
+public class BlockRNG extends Random {
+  private static final long serialVersionUID = 1L;
+
+  // The number of 32-bit values generated for each seed taken from the shared generator.
+  private static final int BLOCK_SIZE = 512;
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+  // Above this mean, Poisson counts are approximated by a normal distribution.
+  private static final double POISSON_INVERSION_LIMIT = 30;
+
+  private final Random source;
+  private final int[] buffer = new int[BLOCK_SIZE];
+  private int index = BLOCK_SIZE;
+
+
+  /**
+   * @param source The shared generator that provides a seed for each block of values.
+   */
+  public BlockRNG(Random source) {
+    this.source = source;
+  }
+
+
+  /**
+   * @param rng A source of randomness passed to an operator.
+   * @return The same generator if it is already a block generator, otherwise a new block
+   * generator that draws from it.
+   */
+  public static BlockRNG wrap(Random rng) {
+    return rng instanceof BlockRNG ? (BlockRNG) rng : new BlockRNG(rng);
+  }
+
+
+  private void refill() {
+    long state = source.nextLong();
+    for (int i = 0; i < BLOCK_SIZE; i += 2) {
+      state += GOLDEN_GAMMA;
+      long z = state;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      z ^= z >>> 31;
+      buffer[i] = (int) (z >>> 32);
+      buffer[i + 1] = (int) z;
+    }
+    index = 0;
+  }
+
+
+  /**
+   * Block generators cannot be re-seeded.
+   *
+   * @param seed Ignored.
+   * @throws UnsupportedOperationException Always, unless invoked during construction.
+   */
+  @Override
+  public void setSeed(long seed) {
+    // The superclass constructor sets the seed before the source has been assigned.
+    if (source != null) {
+      throw new UnsupportedOperationException("Block generators cannot be re-seeded.");
+    }
+  }
+
+
+  @Override
+  protected int next(int bits) {
+    return nextInt() >>> (32 - bits);
+  }
+
+
+  @Override
+  public int nextInt() {
+    if (index == BLOCK_SIZE) {
+      refill();
+    }
+    return buffer[index++];
+  }
+
+
+  /**
+   * Returns a uniformly distributed value between zero (inclusive) and the bound
+   * (exclusive), using multiplication rather than division in all but a small
+   * proportion of calls.
+   *
+   * @param bound The upper bound (exclusive).  Must be positive.
+   * @return The next value.
+   */
+  @Override
+  public int nextInt(int bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("Bound must be positive.");
+    }
+    long product = (nextInt() & 0xFFFFFFFFL) * bound;
+    int low = (int) product;
+    if (Integer.compareUnsigned(low, bound) < 0) {
+      // Reject the few values that would make the result biased.
+      int threshold = Integer.remainderUnsigned(-bound, bound);
+      while (Integer.compareUnsigned(low, threshold) < 0) {
+        product = (nextInt() & 0xFFFFFFFFL) * bound;
+        low = (int) product;
+      }
+    }
+    return (int) (product >>> 32);
+  }
+
+
+  @Override
+  public long nextLong() {
+    return ((long) nextInt() << 32) | (nextInt() & 0xFFFFFFFFL);
+  }
+
+
+  @Override
+  public double nextDouble() {
+    return (nextLong() >>> 11) * DOUBLE_UNIT;
+  }
+
+
+  @Override
+  public boolean nextBoolean() {
+    return nextInt() < 0;
+  }
+
+
+  /**
+   * @param probability The probability of success, between zero and one.
+   * @return True with the specified probability.
+   */
+  public boolean nextBernoulli(double probability) {
+    return nextDouble() < probability;
+  }
+
+
+  /**
+   * Fills an array with uniformly distributed values between zero (inclusive) and a bound
+   * (exclusive).
+   *
+   * @param values The array to fill.
+   * @param bound  The upper bound (exclusive).  Must be positive.
+   */
+  public void nextInts(int[] values, int bound) {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = nextInt(bound);
+    }
+  }
+
+
+  /**
+   * Fills an array with uniformly distributed values between zero (inclusive) and one
+   * (exclusive).
+   *
+   * @param values The array to fill.
+   */
+  public void nextDoubles(double[] values) {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = nextDouble();
+    }
+  }
+
+
+  /**
+   * Returns a normally-distributed value, sampled with the ziggurat method rather than
+   * the polar method of the superclass.
+   *
+   * @return A value with mean zero and standard deviation one.
+   * @see ZigguratGaussian
+   */
+  @Override
+  public double nextGaussian() {
+    return ZigguratGaussian.nextGaussian(this);
+  }
+
+
+  /**
+   * Samples a Poisson-distributed count, such as the number of genes to mutate when each
+   * of many genes is mutated with a small probability.  Counts are exact for means up to
+   * 30 and approximated by a rounded normal distribution above that.
+   *
+   * @param mean The mean count.  Must be non-negative.
+   * @return A non-negative count.
+   */
+  public int nextPoisson(double mean) {
+    if (mean < 0) {
+      throw new IllegalArgumentException("Mean must be non-negative.");
+    }
+    if (mean > POISSON_INVERSION_LIMIT) {
+      return (int) Math.max(0, Math.round(mean + Math.sqrt(mean) * nextGaussian()));
+    }
+    // Inversion by sequential search.
+    double u = nextDouble();
+    double p = Math.exp(-mean);
+    double cumulative = p;
+    int count = 0;
+    while (u > cumulative && p > 0) {
+      ++count;
+      p *= mean / count;
+      cumulative += p;
+    }
+    return count;
+  }
+}
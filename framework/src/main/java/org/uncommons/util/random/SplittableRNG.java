@@ -0,0 +1,121 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.random;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * <p>A {@link Random} backed by a {@link SplittableRandom}, so that it can be split into
+ * statistically independent generators for use on different threads.  Because splitting
+ * is itself deterministic, work that is divided into a fixed set of pieces, each given a
+ * generator split from the same parent in the same order, produces identical results no
+ * matter how many threads carry out the pieces or in which order they run.</p>
+ *
+ * <p>Unlike {@link Random}, instances are not thread-safe.  Each thread should use its
+ * own generator, obtained by {@link #split() splitting}.</p>
+ */
+public class SplittableRNG extends Random {
+  private static final long serialVersionUID = 1L;
+
+  private final SplittableRandom source;
+
+
+  /**
+   * @param seed The seed, which determines the complete sequence of values generated by
+   *             this generator and by any generators split from it.
+   */
+  public SplittableRNG(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+
+  private SplittableRNG(SplittableRandom source) {
+    this.source = source;
+  }
+
+
+  /**
+   * Creates a splittable generator seeded from another generator, which may be of any type.
+   * Exactly one {@code long} is taken from the other generator.
+   *
+   * @param rng The generator from which to take the seed.
+   * @return A new splittable generator.
+   */
+  public static SplittableRNG from(Random rng) {
+    return new SplittableRNG(rng.nextLong());
+  }
+
+
+  /**
+   * @return A new generator that shares no state with this one.  The values it generates
+   * are determined by the state of this generator at the time of the call.
+   */
+  public SplittableRNG split() {
+    return new SplittableRNG(source.split());
+  }
+
+
+  /**
+   * Splittable generators cannot be re-seeded.
+   *
+   * @param seed Ignored.
+   * @throws UnsupportedOperationException Always, unless invoked during construction.
+   */
+  @Override
+  public void setSeed(long seed) {
+    // The superclass constructor sets the seed before the source has been assigned.
+    if (source != null) {
+      throw new UnsupportedOperationException("Splittable generators cannot be re-seeded.");
+    }
+  }
+
+
+  @Override
+  protected int next(int bits) {
+    return (int) (source.nextLong() >>> (64 - bits));
+  }
+
+
+  @Override
+  public int nextInt() {
+    return source.nextInt();
+  }
+
+
+  @Override
+  public int nextInt(int bound) {
+    return source.nextInt(bound);
+  }
+
+
+  @Override
+  public long nextLong() {
+    return source.nextLong();
+  }
+
+
+  @Override
+  public double nextDouble() {
+    return source.nextDouble();
+  }
+
+
+  @Override
+  public boolean nextBoolean() {
+    return source.nextBoolean();
+  }
+}
@@ -0,0 +1,138 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.vector;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>A fixed-length vector of doubles, for evolving real-valued parameters.  Unlike a
+ * bare {@code double[]}, a vector has value semantics for {@link #equals(Object)} and
+ * {@link #hashCode()}, so it can be used in sets and maps of candidates.</p>
+ *
+ * <p>Vectors are mutable so that operators can modify a copy in place, but, as with
+ * other candidate types, operators never modify the candidates that they are given.
+ * Operators that build values in their own arrays can hand them over with
+ * {@link #wrap(double[])} to avoid a second copy.</p>
+ */
+public final class DoubleVector implements Cloneable, Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private double[] values;
+
+
+  /**
+   * Creates a vector of the specified size with all elements zero.
+   *
+   * @param size The number of elements.
+   */
+  public DoubleVector(int size) {
+    this.values = new double[size];
+  }
+
+
+  /**
+   * @param values The elements of the vector.  The array is copied.
+   */
+  public DoubleVector(double... values) {
+    this.values = values.clone();
+  }
+
+
+  /**
+   * Creates a vector that takes ownership of an array without copying it.  The caller
+   * must not use the array afterwards.
+   *
+   * @param values The elements of the vector.
+   * @return A vector backed by the array.
+   */
+  public static DoubleVector wrap(double[] values) {
+    DoubleVector vector = new DoubleVector(0);
+    vector.values = values;
+    return vector;
+  }
+
+
+  /**
+   * @return The number of elements.
+   */
+  public int size() {
+    return values.length;
+  }
+
+
+  /**
+   * @param index The position of an element.
+   * @return The value of the element.
+   */
+  public double get(int index) {
+    return values[index];
+  }
+
+
+  /**
+   * @param index The position of an element.
+   * @param value The new value of the element.
+   */
+  public void set(int index, double value) {
+    values[index] = value;
+  }
+
+
+  /**
+   * Copies the elements into the start of an array.
+   *
+   * @param destination An array at least as long as this vector.
+   */
+  public void copyTo(double[] destination) {
+    System.arraycopy(values, 0, destination, 0, values.length);
+  }
+
+
+  /**
+   * @return A copy of the elements.
+   */
+  public double[] toArray() {
+    return values.clone();
+  }
+
+
+  /**
+   * @return An identical copy of this vector.
+   */
+  @Override
+  public DoubleVector clone() {
+    return wrap(values.clone());
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof DoubleVector && Arrays.equals(values, ((DoubleVector) o).values));
+  }
+
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+
+  @Override
+  public String toString() {
+    return Arrays.toString(values);
+  }
+}
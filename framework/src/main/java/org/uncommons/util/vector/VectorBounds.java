@@ -0,0 +1,102 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.vector;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The permitted range of each element of a {@link DoubleVector}.  Used by factories to
+ * generate vectors and by operators to keep offspring within range.
+ */
+public final class VectorBounds implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final double[] minimum;
+  private final double[] maximum;
+
+
+  /**
+   * @param minimum The smallest permitted value of each element.
+   * @param maximum The largest permitted value of each element.  Must be the same length
+   *                as {@code minimum}, and no element may be smaller than the
+   *                corresponding minimum.
+   */
+  public VectorBounds(double[] minimum, double[] maximum) {
+    if (minimum.length != maximum.length) {
+      throw new IllegalArgumentException("Minimum and maximum must be the same length.");
+    }
+    for (int i = 0; i < minimum.length; i++) {
+      if (!(minimum[i] <= maximum[i])) {
+        throw new IllegalArgumentException("Invalid range for element " + i + ": "
+                                           + minimum[i] + " to " + maximum[i]);
+      }
+    }
+    this.minimum = minimum.clone();
+    this.maximum = maximum.clone();
+  }
+
+
+  /**
+   * @param size    The number of elements.
+   * @param minimum The smallest permitted value of every element.
+   * @param maximum The largest permitted value of every element.
+   * @return Bounds with the same range for every element.
+   */
+  public static VectorBounds uniform(int size, double minimum, double maximum) {
+    double[] minima = new double[size];
+    double[] maxima = new double[size];
+    Arrays.fill(minima, minimum);
+    Arrays.fill(maxima, maximum);
+    return new VectorBounds(minima, maxima);
+  }
+
+
+  /**
+   * @return The number of elements.
+   */
+  public int size() {
+    return minimum.length;
+  }
+
+
+  /**
+   * @param index The position of an element.
+   * @return The smallest permitted value of the element.
+   */
+  public double getMinimum(int index) {
+    return minimum[index];
+  }
+
+
+  /**
+   * @param index The position of an element.
+   * @return The largest permitted value of the element.
+   */
+  public double getMaximum(int index) {
+    return maximum[index];
+  }
+
+
+  /**
+   * @param index The position of an element.
+   * @param value A value for the element.
+   * @return The nearest permitted value.
+   */
+  public double clamp(int index, double value) {
+    return Math.max(minimum[index], Math.min(maximum[index], value));
+  }
+}
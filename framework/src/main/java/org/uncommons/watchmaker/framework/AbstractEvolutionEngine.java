@@ -15,17 +15,21 @@
 //=============================================================================
 package org.uncommons.watchmaker.framework;
 
+import org.uncommons.util.concurrent.ConcurrencyLimiter;
+import org.uncommons.util.random.SplittableRNG;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Base class for {@link EvolutionEngine} implementations.
@@ -45,7 +49,19 @@ public abstract class AbstractEvolutionEngine<T> implements EvolutionEngine<T> {
   private final CandidateFactory<T> candidateFactory;
   private final FitnessEvaluator<? super T> fitnessEvaluator;
 
-  private volatile boolean singleThreaded = false;
+  private volatile EvaluationStrategy evaluationStrategy = EvaluationStrategy.PER_CANDIDATE;
+  private volatile EvaluationStrategySelector strategySelector = new EvaluationStrategySelector();
+  private volatile long evaluationTimeoutNanos = 0;
+  private volatile double timeoutPenaltyFitness = 0;
+
+  private volatile ParallelFitnessEvaluation.Speculation speculation = null;
+  private volatile int maxConcurrentAsyncEvaluations = 1024;
+  private volatile EvaluationCostModel<T> costModel = null;
+  private volatile GenomePool genomePool = null;
+  private volatile boolean parallelInitialisation = false;
+  private volatile boolean streamingInitialEvaluation = false;
+
+  private final EvaluationCounters counters = new EvaluationCounters();
 
   private List<TerminationCondition> satisfiedTerminationConditions;
 
@@ -125,43 +141,183 @@ public abstract class AbstractEvolutionEngine<T> implements EvolutionEngine<T> {
     }
 
     satisfiedTerminationConditions = null;
+    counters.reset();
     int currentGenerationIndex = 0;
     long startTime = System.currentTimeMillis();
 
-    List<T> population = candidateFactory.generateInitialPopulation(populationSize,
-        seedCandidates,
-        rng);
-
-    // Calculate the fitness scores for each member of the initial population.
-    List<EvaluatedCandidate<T>> evaluatedPopulation = evaluatePopulation(population);
-    EvolutionUtils.sortEvaluatedPopulation(evaluatedPopulation, fitnessEvaluator.isNatural());
-    PopulationData<T> data = EvolutionUtils.getPopulationData(evaluatedPopulation,
-        fitnessEvaluator.isNatural(),
-        eliteCount,
-        currentGenerationIndex,
-        startTime);
+    // Create the initial population and calculate the fitness scores for each member.
+    List<EvaluatedCandidate<T>> evaluatedPopulation;
+    if (parallelInitialisation) {
+      evaluatedPopulation = initialiseInParallel(populationSize, seedCandidates);
+    } else {
+      List<T> population = candidateFactory.generateInitialPopulation(populationSize,
+          seedCandidates,
+          rng);
+      evaluatedPopulation = evaluatePopulation(population);
+    }
+    PopulationData<T> data = summarise(evaluatedPopulation, eliteCount, currentGenerationIndex, startTime);
     // Notify observers of the state of the population.
     notifyPopulationChange(data);
 
     List<TerminationCondition> satisfiedConditions = EvolutionUtils.shouldContinue(data, conditions);
     while (satisfiedConditions == null) {
       ++currentGenerationIndex;
+      List<EvaluatedCandidate<T>> previousPopulation = evaluatedPopulation;
       evaluatedPopulation = nextEvolutionStep(evaluatedPopulation, eliteCount, rng);
-      EvolutionUtils.sortEvaluatedPopulation(evaluatedPopulation, fitnessEvaluator.isNatural());
-      data = EvolutionUtils.getPopulationData(evaluatedPopulation,
-          fitnessEvaluator.isNatural(),
-          eliteCount,
-          currentGenerationIndex,
-          startTime);
+      recycleDiscardedGenomes(previousPopulation, evaluatedPopulation, data.getBestCandidate(), seedCandidates);
+      data = summarise(evaluatedPopulation, eliteCount, currentGenerationIndex, startTime);
       // Notify observers of the state of the population.
       notifyPopulationChange(data);
       satisfiedConditions = EvolutionUtils.shouldContinue(data, conditions);
     }
+    if (!evaluatedPopulation.stream().allMatch(EvaluatedCandidate::isEvaluated)) {
+      // The final population is returned complete and sorted.
+      EvaluatedCandidate.evaluateAll(evaluatedPopulation);
+      EvolutionUtils.sortEvaluatedPopulation(evaluatedPopulation, fitnessEvaluator.isNatural());
+    }
     this.satisfiedTerminationConditions = satisfiedConditions;
     return evaluatedPopulation;
   }
 
 
+  /**
+   * Sorts the population, fittest first, and calculates its statistics.  If the population
+   * contains lazily evaluated candidates that have not been evaluated, they are moved to
+   * the end, unsorted and still unevaluated, and the statistics (apart from the population
+   * size) describe only the evaluated candidates.
+   */
+  private PopulationData<T> summarise(List<EvaluatedCandidate<T>> evaluatedPopulation,
+                                      int eliteCount,
+                                      int generation,
+                                      long startTime) {
+    boolean natural = fitnessEvaluator.isNatural();
+    // Stable partition, evaluated candidates first.
+    List<EvaluatedCandidate<T>> unevaluated = new ArrayList<>();
+    int evaluatedCount = 0;
+    for (int i = 0; i < evaluatedPopulation.size(); i++) {
+      EvaluatedCandidate<T> candidate = evaluatedPopulation.get(i);
+      if (candidate.isEvaluated()) {
+        evaluatedPopulation.set(evaluatedCount++, candidate);
+      } else {
+        unevaluated.add(candidate);
+      }
+    }
+    if (unevaluated.isEmpty()) {
+      EvolutionUtils.sortEvaluatedPopulation(evaluatedPopulation, natural);
+      return EvolutionUtils.getPopulationData(evaluatedPopulation, natural, eliteCount, generation, startTime);
+    }
+    for (int i = 0; i < unevaluated.size(); i++) {
+      evaluatedPopulation.set(evaluatedCount + i, unevaluated.get(i));
+    }
+    if (evaluatedCount == 0) {
+      // There must be a best candidate to report.
+      evaluatedPopulation.get(0).getFitness();
+      evaluatedCount = 1;
+    }
+    List<EvaluatedCandidate<T>> evaluated = evaluatedPopulation.subList(0, evaluatedCount);
+    EvolutionUtils.sortEvaluatedPopulation(evaluated, natural);
+    PopulationData<T> data = EvolutionUtils.getPopulationData(evaluated, natural, eliteCount, generation, startTime);
+    return new PopulationData<>(data.getBestCandidate(),
+        data.getBestCandidateFitness(),
+        data.getMeanFitness(),
+        data.getFitnessStandardDeviation(),
+        natural,
+        evaluatedPopulation.size(),
+        eliteCount,
+        generation,
+        data.getElapsedTime());
+  }
+
+
+  /**
+   * Wraps the candidates of a new generation so that each is only evaluated when its
+   * fitness is first read.
+   *
+   * @param population The candidates to evaluate on demand.
+   * @return The lazily evaluated candidates.
+   */
+  List<EvaluatedCandidate<T>> deferEvaluation(List<T> population) {
+    return new LazyEvaluation<T>(fitnessEvaluator, population, createIncrementalEvaluation(), counters)
+        .defer(population);
+  }
+
+
+  /**
+   * Creates the initial population with a parallel stream from the candidate factory.  If
+   * streaming evaluation is enabled and possible, each candidate is submitted to the
+   * evaluation worker by the thread that created it, as soon as it has been created.
+   */
+  private List<EvaluatedCandidate<T>> initialiseInParallel(int populationSize, Collection<T> seedCandidates) {
+    Stream<T> candidates = candidateFactory.streamInitialPopulation(populationSize,
+        seedCandidates,
+        SplittableRNG.from(rng));
+    ParallelFitnessEvaluation<T> evaluation = streamingInitialEvaluation && !fitnessEvaluator.dependsOnPopulation()
+                                              ? createIncrementalEvaluation()
+                                              : null;
+    if (evaluation == null) {
+      return evaluatePopulation(candidates.collect(Collectors.toList()));
+    }
+    List<FitnessEvalutationTask<T>> tasks = candidates
+        .map(candidate -> {
+          List<T> population = Collections.singletonList(candidate);
+          return evaluation.submit(population, population).get(0);
+        })
+        .collect(Collectors.toList());
+    List<EvaluatedCandidate<T>> evaluatedPopulation = evaluation.collect(tasks);
+    countEvaluations(evaluatedPopulation.size());
+    return evaluatedPopulation;
+  }
+
+
+  /**
+   * Returns the genomes that have dropped out of the population to the genome pool, if
+   * there is one.  Seed candidates belong to the caller and the previous generation's
+   * fittest candidate may have been kept by an observer, so they are never recycled.
+   * Nor is anything recycled if evaluations may still be running after a timeout or a
+   * speculative duplicate has finished, if the fitness evaluator keeps references to
+   * candidates, or if the engine itself may still read discarded candidates.
+   */
+  private void recycleDiscardedGenomes(List<EvaluatedCandidate<T>> previousPopulation,
+                                       List<EvaluatedCandidate<T>> nextPopulation,
+                                       T previousBest,
+                                       Collection<T> seedCandidates) {
+    GenomePool pool = genomePool;
+    if (pool == null
+        || evaluationTimeoutNanos > 0
+        || speculation != null
+        || fitnessEvaluator.retainsCandidates()
+        || retainsDiscardedCandidates()) {
+      return;
+    }
+    // Arrays use identity for equality, but other candidate types may not.
+    Set<Object> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (EvaluatedCandidate<T> candidate : nextPopulation) {
+      pool.checkNotRecycled(candidate.getCandidate());
+      retained.add(candidate.getCandidate());
+    }
+    retained.add(previousBest);
+    retained.addAll(seedCandidates);
+    for (EvaluatedCandidate<T> candidate : previousPopulation) {
+      // Adding to the retained set ensures that a candidate selected more than once is
+      // only recycled once.
+      if (retained.add(candidate.getCandidate())) {
+        pool.recycle(candidate.getCandidate());
+      }
+    }
+  }
+
+
+  /**
+   * Specifies whether candidates that have left the population may still be read, in
+   * which case their genomes must not be recycled.  This implementation returns false.
+   *
+   * @return True if the engine may read candidates from earlier generations.
+   */
+  protected boolean retainsDiscardedCandidates() {
+    return false;
+  }
+
+
   /**
    * This method performs a single step/iteration of the evolutionary process.
    *
@@ -182,6 +338,15 @@ public abstract class AbstractEvolutionEngine<T> implements EvolutionEngine<T> {
    * fitness (descending order of fitness score for natural scores, ascending
    * order of scores for non-natural scores).
    *
+   * If the fitness evaluator is a {@link BatchFitnessEvaluator}, the whole population
+   * is passed to it in a single call (in descending order of estimated cost, if there is
+   * an {@link #setEvaluationCostEstimator(EvaluationCostEstimator) estimator}), and the
+   * estimates of a {@link NoisyFitnessEvaluator} are attached to the candidates.  Otherwise,
+   * unless the engine is single-threaded, the evaluations of an {@link AsyncFitnessEvaluator}
+   * are started from the calling thread and any other evaluator's are distributed among
+   * worker threads according to the {@link #setEvaluationStrategy(EvaluationStrategy)
+   * evaluation strategy}.
+   *
    * @param population The population to evaluate (each candidate is assigned
    *                   a fitness score).
    * @return The evaluated population (a list of candidates with attached fitness
@@ -190,43 +355,132 @@ public abstract class AbstractEvolutionEngine<T> implements EvolutionEngine<T> {
   protected List<EvaluatedCandidate<T>> evaluatePopulation(List<T> population) {
     List<EvaluatedCandidate<T>> evaluatedPopulation;
 
-    if (singleThreaded) { // Do fitness evaluations on the request thread.
-      evaluatedPopulation = population.stream()
-          .map(candidate -> new EvaluatedCandidate<>(candidate, fitnessEvaluator.getFitness(candidate, population)))
-          .collect(Collectors.toList());
-    } else {
-      // Divide the required number of fitness evaluations equally among the
-      // available processors and coordinate the threads so that we do not
-      // proceed until all threads have finished processing.
+    if (fitnessEvaluator instanceof BatchFitnessEvaluator) {
+      // The evaluator manages its own concurrency, so hand it the whole population at once.
       List<T> unmodifiablePopulation = Collections.unmodifiableList(population);
-
-      // Submit tasks for execution and wait until all threads have finished fitness evaluations.
-      List<Future<EvaluatedCandidate<T>>> results =
-          population.stream()
-              .map(candidate ->
-                  getSharedWorker().submit(
-                      new FitnessEvalutationTask<>(fitnessEvaluator, candidate, unmodifiablePopulation)
-                  )
-              ).collect(Collectors.toList());
-
-      evaluatedPopulation = results.stream().map(result -> {
-        try {
-          return result.get();
-        } catch (InterruptedException e) {
-          // Restore the interrupted status, allows methods further up the call-stack
-          // to abort processing if appropriate.
-          Thread.currentThread().interrupt();
-          return null;
-        } catch (ExecutionException e) {
-          throw new IllegalStateException("Fitness evaluation task execution failed.", e);
+      EvaluationCostModel<T> model = costModel;
+      List<T> batch = unmodifiablePopulation;
+      List<Integer> order = null;
+      if (model != null) {
+        order = EvaluationCostModel.longestFirst(model.estimate(population));
+        batch = new ArrayList<>(population.size());
+        for (int index : order) {
+          batch.add(population.get(index));
+        }
+      }
+      evaluatedPopulation = new ArrayList<>(Collections.nCopies(batch.size(), null));
+      if (fitnessEvaluator instanceof NoisyFitnessEvaluator) {
+        ConfidenceInterval[] estimates = ((NoisyFitnessEvaluator<? super T>) fitnessEvaluator).estimateBatch(batch,
+            unmodifiablePopulation);
+        for (int i = 0; i < estimates.length; i++) {
+          int index = order == null ? i : order.get(i);
+          evaluatedPopulation.set(index, new EvaluatedCandidate<>(population.get(index), estimates[i]));
+        }
+      } else {
+        double[] scores = ((BatchFitnessEvaluator<? super T>) fitnessEvaluator).evaluateBatch(batch,
+            unmodifiablePopulation);
+        for (int i = 0; i < scores.length; i++) {
+          int index = order == null ? i : order.get(i);
+          evaluatedPopulation.set(index, new EvaluatedCandidate<>(population.get(index), scores[i]));
         }
-      }).collect(Collectors.toList());
+      }
+    } else if (evaluationStrategy == EvaluationStrategy.SINGLE_THREADED) {
+      evaluatedPopulation = evaluateInline(population);
+    } else if (fitnessEvaluator instanceof AsyncFitnessEvaluator) {
+      // Start the evaluations from this thread and let them complete wherever the
+      // evaluator completes them.
+      long timeoutNanos = evaluationTimeoutNanos;
+      evaluatedPopulation = new AsyncFitnessEvaluation<T>((AsyncFitnessEvaluator<? super T>) fitnessEvaluator,
+          new ConcurrencyLimiter(maxConcurrentAsyncEvaluations),
+          timeoutNanos > 0 ? getSharedWorker().getWatchdog() : null,
+          counters,
+          timeoutNanos,
+          timeoutPenaltyFitness).evaluate(population);
+    } else {
+      EvaluationStrategy strategy = evaluationStrategy;
+      EvaluationStrategySelector selector = null;
+      if (strategy == EvaluationStrategy.AUTO) {
+        // Timeouts and speculation are only supported for per-candidate tasks.
+        if (evaluationTimeoutNanos > 0 || speculation != null) {
+          strategy = EvaluationStrategy.PER_CANDIDATE;
+        } else {
+          selector = strategySelector;
+          strategy = selector.next();
+        }
+      }
+      long startTime = System.nanoTime();
+      if (strategy == EvaluationStrategy.SINGLE_THREADED) {
+        evaluatedPopulation = evaluateInline(population);
+      } else {
+        ParallelFitnessEvaluation<T> evaluation = new ParallelFitnessEvaluation<T>(getSharedWorker(),
+            fitnessEvaluator,
+            counters,
+            evaluationTimeoutNanos,
+            timeoutPenaltyFitness,
+            speculation,
+            costModel);
+        evaluatedPopulation = strategy == EvaluationStrategy.CHUNKED
+            ? evaluation.evaluateChunked(population)
+            : evaluation.evaluate(population);
+      }
+      if (selector != null) {
+        selector.record(strategy, population.size(), System.nanoTime() - startTime);
+      }
     }
 
+    counters.evaluated(population.size());
     return evaluatedPopulation;
   }
 
 
+  /**
+   * Creates an evaluation that can start evaluating candidates before the rest of the
+   * population exists, for engines that overlap breeding with evaluation.  Results must be
+   * counted with {@link #countEvaluations(int)}.
+   *
+   * @return The evaluation, or null if the fitness evaluator or the engine's settings
+   * require the whole population to be evaluated at once: batch and asynchronous
+   * evaluators, single-threaded engines and speculative execution.
+   */
+  ParallelFitnessEvaluation<T> createIncrementalEvaluation() {
+    if (fitnessEvaluator instanceof BatchFitnessEvaluator
+        || fitnessEvaluator instanceof AsyncFitnessEvaluator
+        || evaluationStrategy == EvaluationStrategy.SINGLE_THREADED
+        || speculation != null) {
+      return null;
+    }
+    return new ParallelFitnessEvaluation<T>(getSharedWorker(),
+        fitnessEvaluator,
+        counters,
+        evaluationTimeoutNanos,
+        timeoutPenaltyFitness,
+        null,
+        null);
+  }
+
+
+  /**
+   * Updates the evaluation statistics after an incremental evaluation.
+   *
+   * @param count The number of candidates evaluated.
+   */
+  void countEvaluations(int count) {
+    counters.evaluated(count);
+  }
+
+
+  /**
+   * Evaluates the population on the request thread.
+   */
+  private List<EvaluatedCandidate<T>> evaluateInline(List<T> population) {
+    List<T> unmodifiablePopulation = Collections.unmodifiableList(population);
+    return population.stream()
+        .map(candidate -> new EvaluatedCandidate<>(candidate,
+            fitnessEvaluator.getFitness(candidate, unmodifiablePopulation)))
+        .collect(Collectors.toList());
+  }
+
+
   /**
    * <p>Returns a list of all {@link TerminationCondition}s that are satisfied by the current
    * state of the evolution engine.  Usually this list will contain only one item, but it
@@ -300,9 +554,233 @@ public abstract class AbstractEvolutionEngine<T> implements EvolutionEngine<T> {
    *
    * @param singleThreaded If true, fitness evaluations will be performed synchronously on the
    *                       request thread.  If false, fitness evaluations will be performed by worker threads.
+   * @see #setEvaluationStrategy(EvaluationStrategy)
    */
   public void setSingleThreaded(boolean singleThreaded) {
-    this.singleThreaded = singleThreaded;
+    setEvaluationStrategy(singleThreaded ? EvaluationStrategy.SINGLE_THREADED : EvaluationStrategy.PER_CANDIDATE);
+  }
+
+
+  /**
+   * <p>Sets how fitness evaluations are distributed among threads.  The default is
+   * {@link EvaluationStrategy#PER_CANDIDATE}.  For cheap fitness functions, the cost of
+   * handing each candidate to another thread can exceed the cost of evaluating it, in which
+   * case {@link EvaluationStrategy#CHUNKED} or {@link EvaluationStrategy#SINGLE_THREADED}
+   * evaluation is faster.  {@link EvaluationStrategy#AUTO} measures the alternatives and
+   * picks whichever is fastest for the current fitness function and population.</p>
+   *
+   * <p>The strategy does not apply to {@link BatchFitnessEvaluator}s, which manage their
+   * own execution, and only {@link EvaluationStrategy#SINGLE_THREADED} applies to
+   * {@link AsyncFitnessEvaluator}s.</p>
+   *
+   * @param strategy The evaluation strategy.
+   */
+  public void setEvaluationStrategy(EvaluationStrategy strategy) {
+    if (strategy == null) {
+      throw new IllegalArgumentException("Evaluation strategy must not be null.");
+    }
+    if (strategy == EvaluationStrategy.AUTO) {
+      // Start measuring afresh.
+      this.strategySelector = new EvaluationStrategySelector();
+    }
+    this.evaluationStrategy = strategy;
+  }
+
+
+  /**
+   * <p>Sets a deadline for each individual fitness evaluation.  The deadline is measured
+   * from the moment that a worker thread starts evaluating the candidate, so time spent
+   * queued behind other evaluations does not count.  A candidate whose evaluation exceeds
+   * the deadline is assigned the penalty score and the thread evaluating it is interrupted.
+   * Fitness evaluators that may run for a long time should check
+   * {@link Thread#isInterrupted()} periodically and give up when it is set.  An evaluator
+   * that ignores interruption continues to occupy its worker thread until it returns,
+   * but evolution proceeds without waiting for it and its eventual score is discarded.</p>
+   *
+   * <p>Deadlines apply to multi-threaded evaluation and to {@link AsyncFitnessEvaluator}s
+   * (whose deadlines run from when each evaluation is started and which are cancelled,
+   * rather than interrupted, when they expire).  They are not enforced when the engine is
+   * {@link #setSingleThreaded(boolean) single-threaded} or when the fitness evaluator is a
+   * {@link BatchFitnessEvaluator}, which manages its own execution.</p>
+   *
+   * @param timeout        The maximum duration of a single evaluation, or zero for no limit.
+   * @param unit           The unit of the timeout.
+   * @param penaltyFitness The score assigned to candidates whose evaluation times out.
+   *                       This should be a poor score (low for natural fitness, high for
+   *                       non-natural fitness) and must be non-negative.
+   * @see #getEvaluationMetrics()
+   */
+  public void setEvaluationTimeout(long timeout, TimeUnit unit, double penaltyFitness) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Timeout must be non-negative.");
+    }
+    if (penaltyFitness < 0) {
+      throw new IllegalArgumentException("Penalty fitness must be non-negative.");
+    }
+    this.timeoutPenaltyFitness = penaltyFitness;
+    this.evaluationTimeoutNanos = unit.toNanos(timeout);
+  }
+
+
+  /**
+   * @return Fitness evaluation statistics for the current evolution run or, if no run is
+   * in progress, for the most recent one.
+   */
+  public EvaluationMetrics getEvaluationMetrics() {
+    return counters.snapshot();
+  }
+
+
+  /**
+   * Turns speculative re-execution of straggling fitness evaluations on or off.  When
+   * turned on, once three quarters of a generation has been evaluated, any evaluation
+   * that has been running for more than twice the 90th percentile of completed evaluation
+   * times is re-submitted.  See {@link #setSpeculativeExecution(double, double, double)}.
+   *
+   * @param enabled Whether to re-submit straggling evaluations.
+   */
+  public void setSpeculativeExecution(boolean enabled) {
+    this.speculation = enabled ? new ParallelFitnessEvaluation.Speculation(0.75, 0.9, 2) : null;
+  }
+
+
+  /**
+   * <p>Turns on speculative re-execution of straggling fitness evaluations.  Because
+   * no generation can proceed until every candidate has been evaluated, one evaluation
+   * that is delayed for reasons that have nothing to do with the candidate (a busy host,
+   * a long garbage collection pause) holds up the whole run.  With speculative execution,
+   * once most of the population has been evaluated, evaluations that have been running
+   * much longer than is typical are submitted again on an idle worker thread.  Whichever
+   * copy finishes first provides the score and the other is interrupted.</p>
+   *
+   * <p>This is only safe for deterministic fitness evaluators, since either copy's score
+   * may be used.  It only applies to multi-threaded evaluation, not to single-threaded
+   * engines or {@link BatchFitnessEvaluator}s.</p>
+   *
+   * @param completedFraction The proportion of the population, between zero and one, that
+   *                          must have been evaluated before any evaluation is re-submitted.
+   * @param latencyPercentile The percentile, between zero and one, of completed evaluation
+   *                          times that is taken as the typical evaluation time.
+   * @param slowdownFactor    How many times longer than typical an evaluation must have been
+   *                          running before it is re-submitted.  Must be at least one.
+   * @see EvaluationMetrics#getSpeculativeLaunchCount()
+   */
+  public void setSpeculativeExecution(double completedFraction, double latencyPercentile, double slowdownFactor) {
+    if (completedFraction <= 0 || completedFraction > 1 || latencyPercentile <= 0 || latencyPercentile > 1) {
+      throw new IllegalArgumentException("Completed fraction and latency percentile must be in the range (0, 1].");
+    }
+    if (slowdownFactor < 1) {
+      throw new IllegalArgumentException("Slowdown factor must be at least 1.");
+    }
+    this.speculation = new ParallelFitnessEvaluation.Speculation(completedFraction, latencyPercentile, slowdownFactor);
+  }
+
+
+  /**
+   * Sets the maximum number of evaluations that may be in flight at once when the fitness
+   * evaluator is an {@link AsyncFitnessEvaluator}.  Further evaluations are started as
+   * earlier ones complete.  The default limit is 1024.
+   *
+   * @param limit The maximum number of concurrent asynchronous evaluations.
+   */
+  public void setMaxConcurrentAsyncEvaluations(int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive.");
+    }
+    this.maxConcurrentAsyncEvaluations = limit;
+  }
+
+
+  /**
+   * <p>Sets an estimator of how expensive each candidate is to evaluate.  Because no
+   * generation can proceed until every candidate has been evaluated, an expensive candidate
+   * that happens to be evaluated last extends the whole generation.  With an estimator, the
+   * engine starts evaluations in descending order of expected cost, so that the cheap
+   * evaluations fill in around the expensive ones.</p>
+   *
+   * <p>Estimates are calibrated against measured evaluation times as evolution proceeds.
+   * Once calibrated, they are also used by {@link #setSpeculativeExecution(boolean)
+   * speculative execution}, so that candidates that are expected to be slow are not
+   * re-submitted merely for being slower than typical.  Measurements are only available
+   * for multi-threaded evaluation; {@link BatchFitnessEvaluator}s are given their
+   * candidates in order of the uncalibrated estimates.</p>
+   *
+   * @param estimator The cost estimator, or null to evaluate candidates in population order.
+   */
+  public void setEvaluationCostEstimator(EvaluationCostEstimator<? super T> estimator) {
+    this.costModel = estimator == null ? null : new EvaluationCostModel<T>(estimator);
+  }
+
+
+  /**
+   * <p>Turns on recycling of array genomes.  After each generation, the genomes of
+   * candidates that are no longer in the population are returned to the pool, from which
+   * operators that have been given the same pool, such as
+   * {@link org.uncommons.watchmaker.framework.operators.AbstractArrayCrossover}, take the
+   * arrays for their offspring.  This avoids allocating a new generation's worth of large
+   * arrays each generation.</p>
+   *
+   * <p>Recycling is only safe if nothing outside the population keeps references to
+   * candidates.  Seed candidates and the fittest candidate reported to observers are never
+   * recycled, and recycling is suspended while an evaluation timeout or speculative
+   * execution is in effect, because abandoned evaluations may still be reading their
+   * candidates.  Nor is anything recycled with a fitness evaluator that
+   * {@link FitnessEvaluator#retainsCandidates() retains candidates}, such as a
+   * {@link CachingFitnessEvaluator}, whose cache is keyed on the candidates' identities and
+   * would return the scores of the genomes' previous contents, or while an engine option
+   * that reads earlier generations' candidates, such as
+   * {@link GenerationalEvolutionEngine#setLazyEvaluation(boolean) lazy evaluation}, is
+   * in effect.  See {@link GenomePool} for further restrictions and for debug checks.</p>
+   *
+   * @param genomePool The pool to return discarded genomes to, or null to leave them to
+   *                   the garbage collector (the default).
+   */
+  public void setGenomePool(GenomePool genomePool) {
+    this.genomePool = genomePool;
+  }
+
+
+  /**
+   * <p>Turns parallel creation of the initial population on or off.  By default, the
+   * candidate factory creates the whole initial population on the request thread, which
+   * can take a long time for expensive factories.  With parallel initialisation, the
+   * population is created with {@link CandidateFactory#streamInitialPopulation} and a
+   * {@link SplittableRNG} seeded from the engine's source of randomness, which
+   * {@link org.uncommons.watchmaker.framework.factories.AbstractCandidateFactory}
+   * uses to generate candidates in parallel.  The initial population is then the same for
+   * a given seed regardless of how many threads are available, although it is not the
+   * same as with sequential initialisation.  The factory must be safe to use from
+   * multiple threads at once.</p>
+   *
+   * @param parallelInitialisation Whether to create the initial population in parallel.
+   * @see #setStreamingInitialEvaluation(boolean)
+   */
+  public void setParallelInitialisation(boolean parallelInitialisation) {
+    this.parallelInitialisation = parallelInitialisation;
+  }
+
+
+  /**
+   * <p>Turns streaming evaluation of the initial population on or off.  When enabled
+   * together with {@link #setParallelInitialisation(boolean) parallel initialisation},
+   * the thread that creates each initial candidate hands it to the engine's evaluation
+   * threads as soon as it is created, so evaluation starts without waiting for the whole
+   * population.</p>
+   *
+   * <p>Candidates are evaluated with the usual {@link #setEvaluationTimeout evaluation
+   * timeout}.  Since the population does not exist yet, the fitness evaluator is passed a
+   * population containing only the candidate being evaluated, so streaming is only used if
+   * the evaluator declares that its scores do not
+   * {@link FitnessEvaluator#dependsOnPopulation() depend on the population}.  Evaluation
+   * also falls back to the usual, non-streaming, mechanism for batch and asynchronous
+   * evaluators, for single-threaded engines and while speculative execution is in
+   * effect.</p>
+   *
+   * @param streamingInitialEvaluation Whether to evaluate initial candidates as they are
+   *                                   created.
+   */
+  public void setStreamingInitialEvaluation(boolean streamingInitialEvaluation) {
+    this.streamingInitialEvaluation = streamingInitialEvaluation;
   }
 
 
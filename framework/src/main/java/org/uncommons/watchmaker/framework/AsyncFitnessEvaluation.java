@@ -0,0 +1,138 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import org.uncommons.util.concurrent.ConcurrencyLimiter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Evaluates a population with an {@link AsyncFitnessEvaluator}, starting evaluations
+ * from the calling thread, subject to a {@link ConcurrencyLimiter}, and waiting for all
+ * of the results.  Used by {@link AbstractEvolutionEngine}.
+ *
+ * @param <T> The type of entity for which fitness is calculated.
+ */
+final class AsyncFitnessEvaluation<T> {
+  private final AsyncFitnessEvaluator<? super T> fitnessEvaluator;
+  private final ConcurrencyLimiter limiter;
+  private final ScheduledExecutorService watchdog;
+  private final EvaluationCounters counters;
+  private final long timeoutNanos;
+  private final double penaltyFitness;
+
+
+  /**
+   * @param fitnessEvaluator The fitness function.
+   * @param limiter          Bounds the number of evaluations in flight.
+   * @param watchdog         Enforces deadlines.  Only used if there is a timeout.
+   * @param counters         Statistics to update.
+   * @param timeoutNanos     The deadline for each evaluation, measured from when it is
+   *                         started, or zero for no limit.
+   * @param penaltyFitness   The score assigned to evaluations that exceed the deadline.
+   */
+  AsyncFitnessEvaluation(AsyncFitnessEvaluator<? super T> fitnessEvaluator,
+                         ConcurrencyLimiter limiter,
+                         ScheduledExecutorService watchdog,
+                         EvaluationCounters counters,
+                         long timeoutNanos,
+                         double penaltyFitness) {
+    this.fitnessEvaluator = fitnessEvaluator;
+    this.limiter = limiter;
+    this.watchdog = watchdog;
+    this.counters = counters;
+    this.timeoutNanos = timeoutNanos;
+    this.penaltyFitness = penaltyFitness;
+  }
+
+
+  /**
+   * @param population The candidates to evaluate.
+   * @return The evaluated candidates, in the same order as the population.  If the calling
+   * thread is interrupted, its interrupt flag is restored and the entries for unfinished
+   * evaluations are null.
+   */
+  List<EvaluatedCandidate<T>> evaluate(List<T> population) {
+    List<T> unmodifiablePopulation = Collections.unmodifiableList(population);
+    List<EvaluatedCandidate<T>> penalties = new ArrayList<>(population.size());
+    List<CompletableFuture<EvaluatedCandidate<T>>> results = new ArrayList<>(population.size());
+    for (T candidate : population) {
+      EvaluatedCandidate<T> penalty = new EvaluatedCandidate<>(candidate, penaltyFitness);
+      penalties.add(penalty);
+      results.add(limiter.submit(() -> start(candidate, unmodifiablePopulation, penalty)));
+    }
+
+    List<EvaluatedCandidate<T>> evaluatedPopulation = new ArrayList<>(results.size());
+    for (int i = 0; i < results.size(); i++) {
+      try {
+        EvaluatedCandidate<T> evaluated = results.get(i).get();
+        evaluatedPopulation.add(evaluated);
+        // Counted here rather than by the watchdog so that the count is up-to-date
+        // by the time evaluation returns.
+        if (evaluated == penalties.get(i)) {
+          counters.timedOut();
+        }
+      } catch (InterruptedException ex) {
+        // Restore the interrupted status, allows methods further up the call-stack
+        // to abort processing if appropriate.
+        Thread.currentThread().interrupt();
+        evaluatedPopulation.add(null);
+      } catch (ExecutionException ex) {
+        throw new IllegalStateException("Asynchronous fitness evaluation failed.", ex.getCause());
+      }
+    }
+    return evaluatedPopulation;
+  }
+
+
+  private CompletionStage<EvaluatedCandidate<T>> start(T candidate,
+                                                       List<T> population,
+                                                       EvaluatedCandidate<T> penalty) {
+    CompletableFuture<Double> fitness = fitnessEvaluator.getFitnessAsync(candidate, population).toCompletableFuture();
+    if (timeoutNanos <= 0) {
+      return fitness.thenApply(score -> new EvaluatedCandidate<>(candidate, score));
+    }
+    CompletableFuture<EvaluatedCandidate<T>> result = new CompletableFuture<>();
+    AtomicBoolean expired = new AtomicBoolean(false);
+    // The stage is cancelled before the result is completed, so that the cancellation is
+    // visible to anybody who has seen the penalty.
+    ScheduledFuture<?> alarm = watchdog.schedule(() -> {
+      expired.set(true);
+      fitness.cancel(true);
+      result.complete(penalty);
+    }, timeoutNanos, TimeUnit.NANOSECONDS);
+    fitness.whenComplete((score, failure) -> {
+      alarm.cancel(false);
+      if (failure == null) {
+        result.complete(new EvaluatedCandidate<>(candidate, score));
+      } else if (expired.get()) {
+        result.complete(penalty); // Cancelled by the watchdog.
+      } else {
+        result.completeExceptionally(failure);
+      }
+    });
+    return result;
+  }
+}
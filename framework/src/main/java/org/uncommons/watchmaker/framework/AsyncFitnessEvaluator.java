@@ -0,0 +1,55 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>A {@link FitnessEvaluator} whose evaluations complete asynchronously.  This
+ * suits fitness functions that spend most of their time waiting for I/O (for example,
+ * requests to a simulation service): rather than tying up a thread per evaluation,
+ * an engine starts many evaluations from its request thread and collects the results
+ * as they complete.</p>
+ *
+ * <p>Evolution engines bound the number of evaluations in flight at once (see
+ * {@link AbstractEvolutionEngine#setMaxConcurrentAsyncEvaluations(int)}).  If an
+ * evaluation deadline is set and exceeded, the candidate is given the penalty score
+ * and the evaluation's future is cancelled, which implementations may use to abandon
+ * the work.</p>
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ */
+public interface AsyncFitnessEvaluator<T> extends FitnessEvaluator<T> {
+  /**
+   * Starts calculating a fitness score for the given candidate.  This method should
+   * return promptly; the work should happen elsewhere.
+   *
+   * @param candidate  The candidate solution to calculate fitness for.
+   * @param population The entire population.  See {@link #getFitness(Object, List)}.
+   * @return The pending fitness score, which must be non-negative.
+   */
+  CompletionStage<Double> getFitnessAsync(T candidate, List<? extends T> population);
+
+
+  /**
+   * Calculates a fitness score by waiting for the asynchronous evaluation to complete.
+   * Used by single-threaded engines.
+   */
+  default double getFitness(T candidate, List<? extends T> population) {
+    return getFitnessAsync(candidate, population).toCompletableFuture().join();
+  }
+}
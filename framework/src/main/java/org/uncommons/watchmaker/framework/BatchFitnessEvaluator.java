@@ -0,0 +1,45 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.List;
+
+/**
+ * <p>A {@link FitnessEvaluator} that can score many candidates in a single call.
+ * Evolution engines that are given a batch evaluator hand it the whole population
+ * in one go instead of scheduling one task per candidate on their own worker threads.
+ * This suits evaluators that have a high fixed cost per call (for example, those
+ * that ship candidates to another process or machine) and evaluators that manage
+ * their own concurrency.</p>
+ *
+ * <p>The single-candidate {@link #getFitness(Object, List)} method must still be
+ * implemented and must be consistent with the batch method.</p>
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ */
+public interface BatchFitnessEvaluator<T> extends FitnessEvaluator<T> {
+  /**
+   * Calculates fitness scores for several candidates.
+   *
+   * @param candidates The candidates to evaluate.
+   * @param population The entire population.  This will include all of the specified
+   *                   candidates.  See {@link #getFitness(Object, List)}.
+   * @return The fitness scores, in the same order as {@code candidates}.  All scores
+   * must be non-negative.
+   */
+  double[] evaluateBatch(List<? extends T> candidates,
+                         List<? extends T> population);
+}
@@ -94,4 +94,18 @@ public class CachingFitnessEvaluator<T> implements FitnessEvaluator<T> {
   public boolean isNatural() {
     return delegate.isNatural();
   }
+
+  /**
+   * @return False, since caching is only valid for isolated fitness evaluations.
+   */
+  public boolean dependsOnPopulation() {
+    return false;
+  }
+
+  /**
+   * @return True, since the cache identifies candidates by reference.
+   */
+  public boolean retainsCandidates() {
+    return true;
+  }
 }
@@ -18,6 +18,7 @@ package org.uncommons.watchmaker.framework;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Stream;
 
 /**
  * Creates new populations of candidates.  For most implementations it
@@ -64,6 +65,31 @@ public interface CandidateFactory<T> {
                                     Collection<T> seedCandidates,
                                     Random rng);
 
+  /**
+   * <p>Creates an initial population, seeded with some initial candidates, as a stream
+   * whose elements may be consumed as soon as they are created, such as by starting their
+   * fitness evaluations while the rest of the population is still being generated.  The
+   * seed candidates come first and the stream's encounter order is the population's
+   * order.</p>
+   *
+   * <p>The stream may be parallel, in which case the factory must be safe to use from
+   * several threads at once.  The default implementation generates the whole population
+   * with {@link #generateInitialPopulation(int, Collection, Random)} and streams it
+   * sequentially.</p>
+   *
+   * @param populationSize The size of the initial population.
+   * @param seedCandidates Candidates to seed the population with.  Number
+   *                       of candidates must be no bigger than the population size.
+   * @param rng            The random number generator to use when creating additional
+   *                       candidates.
+   * @return A stream of exactly {@code populationSize} candidates.
+   */
+  default Stream<T> streamInitialPopulation(int populationSize,
+                                            Collection<T> seedCandidates,
+                                            Random rng) {
+    return generateInitialPopulation(populationSize, seedCandidates, rng).stream();
+  }
+
   /**
    * Randomly create a single candidate solution.
    *
@@ -0,0 +1,87 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+/**
+ * An estimate of a noisy fitness score: the mean of several samples and a confidence
+ * interval for the true (expected) score.
+ *
+ * @see NoisyFitnessEvaluator
+ */
+public final class ConfidenceInterval {
+  private final double mean;
+  private final double lowerBound;
+  private final double upperBound;
+  private final int sampleCount;
+
+
+  /**
+   * @param mean        The mean of the samples.
+   * @param lowerBound  The lower end of the interval.
+   * @param upperBound  The upper end of the interval.
+   * @param sampleCount The number of samples from which the estimate was made.
+   */
+  public ConfidenceInterval(double mean, double lowerBound, double upperBound, int sampleCount) {
+    if (lowerBound > mean || upperBound < mean) {
+      throw new IllegalArgumentException("Interval must contain the mean.");
+    }
+    if (sampleCount <= 0) {
+      throw new IllegalArgumentException("Sample count must be positive.");
+    }
+    this.mean = mean;
+    this.lowerBound = lowerBound;
+    this.upperBound = upperBound;
+    this.sampleCount = sampleCount;
+  }
+
+
+  /**
+   * @return The mean of the samples, which is used as the fitness score.
+   */
+  public double getMean() {
+    return mean;
+  }
+
+
+  /**
+   * @return The lower end of the interval.
+   */
+  public double getLowerBound() {
+    return lowerBound;
+  }
+
+
+  /**
+   * @return The upper end of the interval.
+   */
+  public double getUpperBound() {
+    return upperBound;
+  }
+
+
+  /**
+   * @return The number of samples from which the estimate was made.
+   */
+  public int getSampleCount() {
+    return sampleCount;
+  }
+
+
+  @Override
+  public String toString() {
+    return mean + " [" + lowerBound + ", " + upperBound + "] (n = " + sampleCount + ')';
+  }
+}
@@ -15,16 +15,41 @@
 //=============================================================================
 package org.uncommons.watchmaker.framework;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Immutable wrapper class for associating a candidate solution with its
- * fitness score.
+ * <p>Wrapper class for associating a candidate solution with its fitness score.  The
+ * candidate and, once known, its score never change.</p>
+ *
+ * <p>A candidate created by an engine with
+ * {@link GenerationalEvolutionEngine#setLazyEvaluation(boolean) lazy evaluation} is not
+ * evaluated until its fitness is first read, by {@link #getFitness()} or
+ * {@link #compareTo(EvaluatedCandidate)}.  The score is then calculated once and
+ * remembered.  Apart from {@link #isEvaluated()}, the only other difference is that a
+ * lazily evaluated candidate is only {@link #equals(Object) equal} to itself, so that it
+ * can be hashed without being evaluated.  Selection strategies can use
+ * {@link #evaluateAll(Collection)} to have the candidates that they are about to compare
+ * evaluated in parallel.</p>
+ *
+ * <p>A candidate evaluated by a {@link NoisyFitnessEvaluator} also carries the
+ * {@link #getConfidenceInterval() confidence interval} of its estimated score.</p>
  *
  * @param <T> The candidate type.
  * @author Daniel Dyer.
  */
 public final class EvaluatedCandidate<T> implements Comparable<EvaluatedCandidate<T>> {
   private final T candidate;
-  private final double fitness;
+  private double fitness;
+  private final ConfidenceInterval confidenceInterval;
+  // True if the fitness is calculated on demand, whether or not that has happened yet.
+  private final boolean deferred;
+  // Non-null until the fitness of a lazily evaluated candidate has been calculated.  The
+  // fitness is written before this is cleared, so it is visible to any thread that sees null.
+  private volatile LazyEvaluation<T> evaluation = null;
 
 
   /**
@@ -37,6 +62,59 @@ public final class EvaluatedCandidate<T> implements Comparable<EvaluatedCandidat
     }
     this.candidate = candidate;
     this.fitness = fitness;
+    this.confidenceInterval = null;
+    this.deferred = false;
+  }
+
+
+  /**
+   * Creates a candidate whose fitness is an estimate from noisy samples.  The fitness
+   * score is the mean of the estimate.
+   *
+   * @param candidate The evolved candidate.
+   * @param estimate  The estimated fitness, as produced by a {@link NoisyFitnessEvaluator}.
+   */
+  public EvaluatedCandidate(T candidate, ConfidenceInterval estimate) {
+    if (estimate.getMean() < 0) {
+      throw new IllegalArgumentException("Fitness score must be greater than or equal to zero.");
+    }
+    this.candidate = candidate;
+    this.fitness = estimate.getMean();
+    this.confidenceInterval = estimate;
+    this.deferred = false;
+  }
+
+
+  /**
+   * Creates a candidate whose fitness is calculated on demand.
+   *
+   * @param candidate  The evolved candidate.
+   * @param evaluation Calculates the fitness when it is needed.
+   */
+  EvaluatedCandidate(T candidate, LazyEvaluation<T> evaluation) {
+    this.candidate = candidate;
+    this.evaluation = evaluation;
+    this.confidenceInterval = null;
+    this.deferred = true;
+  }
+
+
+  /**
+   * Evaluates any of the candidates that have not been evaluated yet, in parallel if the
+   * engine that created them is multi-threaded.
+   *
+   * @param candidates Candidates whose fitness scores are about to be read.
+   */
+  @SuppressWarnings("unchecked")
+  public static void evaluateAll(Collection<? extends EvaluatedCandidate<?>> candidates) {
+    Map<LazyEvaluation<?>, List<EvaluatedCandidate<?>>> pending = new IdentityHashMap<>();
+    for (EvaluatedCandidate<?> candidate : candidates) {
+      LazyEvaluation<?> lazy = candidate.evaluation;
+      if (lazy != null) {
+        pending.computeIfAbsent(lazy, key -> new ArrayList<>()).add(candidate);
+      }
+    }
+    pending.forEach((lazy, group) -> ((LazyEvaluation<Object>) lazy).evaluateAll((List<EvaluatedCandidate<Object>>) (List<?>) group));
   }
 
 
@@ -52,10 +130,52 @@ public final class EvaluatedCandidate<T> implements Comparable<EvaluatedCandidat
    * @return The fitness score for the associated candidate.
    */
   public double getFitness() {
+    LazyEvaluation<T> lazy = evaluation;
+    if (lazy != null) {
+      lazy.evaluate(this);
+    }
     return fitness;
   }
 
 
+  /**
+   * @return The interval within which the true fitness is expected to lie, if the score
+   * was estimated by a {@link NoisyFitnessEvaluator}, or null if the score is exact.
+   */
+  public ConfidenceInterval getConfidenceInterval() {
+    return confidenceInterval;
+  }
+
+
+  /**
+   * @return False if this candidate is lazily evaluated and its fitness has not been
+   * read yet, true otherwise.
+   */
+  public boolean isEvaluated() {
+    return evaluation == null;
+  }
+
+
+  /**
+   * Records the fitness of a lazily evaluated candidate, unless another thread has
+   * already done so.
+   *
+   * @param fitness The fitness score.
+   * @return True if the score was recorded.
+   */
+  synchronized boolean setFitness(double fitness) {
+    if (evaluation == null) {
+      return false;
+    }
+    if (fitness < 0) {
+      throw new IllegalArgumentException("Fitness score must be greater than or equal to zero.");
+    }
+    this.fitness = fitness;
+    evaluation = null;
+    return true;
+  }
+
+
   /**
    * Compares this candidate's fitness score with that of the specified
    * candidate.
@@ -67,12 +187,14 @@ public final class EvaluatedCandidate<T> implements Comparable<EvaluatedCandidat
    * a natural fitness score or not.
    */
   public int compareTo(EvaluatedCandidate<T> evaluatedCandidate) {
-    return Double.compare(fitness, evaluatedCandidate.getFitness());
+    return Double.compare(getFitness(), evaluatedCandidate.getFitness());
   }
 
 
   /**
-   * Over-ridden to be consistent with {@link #compareTo(EvaluatedCandidate)}.
+   * Over-ridden to be consistent with {@link #compareTo(EvaluatedCandidate)}, except that
+   * a lazily evaluated candidate is only equal to itself.  Checking equality never
+   * evaluates a candidate.
    *
    * @param o The object to check for equality.
    * @return true If this object is logically equivalent to {code o}.
@@ -86,17 +208,21 @@ public final class EvaluatedCandidate<T> implements Comparable<EvaluatedCandidat
       return false;
     }
     final EvaluatedCandidate<?> that = (EvaluatedCandidate<?>) o;
-    return Double.compare(that.getFitness(), fitness) == 0;
+    return !deferred && !that.deferred && Double.compare(that.fitness, fitness) == 0;
   }
 
 
   /**
-   * Over-ridden to be consistent with {@link #equals(Object)}.
+   * Over-ridden to be consistent with {@link #equals(Object)}.  Never evaluates a
+   * lazily evaluated candidate.
    *
    * @return This object's hash code.
    */
   @Override
   public int hashCode() {
+    if (deferred) {
+      return System.identityHashCode(this);
+    }
     final long temp = fitness == 0.0d ? 0L : Double.doubleToLongBits(fitness);
     return (int) (temp ^ (temp >>> 32));
   }
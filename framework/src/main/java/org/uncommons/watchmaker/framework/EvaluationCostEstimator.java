@@ -0,0 +1,41 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+/**
+ * Estimates how expensive a candidate will be to evaluate, for example from the
+ * number of nodes in an evolved program or the number of shapes in an evolved image.
+ * An evolution engine that is given an estimator starts the most expensive evaluations
+ * first, so that a costly candidate near the end of the population does not hold up
+ * the whole generation.
+ *
+ * <p>Estimates only need to be roughly proportional to evaluation time.  The engine
+ * calibrates them against measured evaluation times as evolution proceeds.</p>
+ *
+ * @param <T> The type of evolvable entity whose cost is estimated.
+ * @see AbstractEvolutionEngine#setEvaluationCostEstimator(EvaluationCostEstimator)
+ */
+public interface EvaluationCostEstimator<T> {
+  /**
+   * Estimates the cost of evaluating a candidate.  This is called once per candidate
+   * per generation, on the request thread, so it should be much cheaper than the
+   * evaluation itself.
+   *
+   * @param candidate The candidate that is about to be evaluated.
+   * @return A non-negative estimate of the candidate's evaluation cost, in arbitrary units.
+   */
+  double estimateCost(T candidate);
+}
@@ -0,0 +1,130 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts an {@link EvaluationCostEstimator}'s estimates into predicted evaluation
+ * times.  The prediction is a straight-line fit of measured evaluation times against
+ * estimates, so it accounts for both the per-unit cost and any fixed per-candidate
+ * overhead.  It is refitted online from exponentially decayed sums so that it tracks
+ * changes in the population (and in the host) as evolution proceeds.
+ *
+ * @param <T> The type of entity whose evaluation cost is predicted.
+ */
+final class EvaluationCostModel<T> {
+  // Each new measurement is weighted as if the model had seen this many before it.
+  private static final double DECAY = 1 - 1.0 / 1000;
+  // The number of measurements required before predictions are trusted.
+  private static final double MIN_WEIGHT = 10;
+
+  private final EvaluationCostEstimator<? super T> estimator;
+
+  // Decayed sums of weight, estimate, time, estimate squared and estimate times time.
+  private double n;
+  private double sumX;
+  private double sumY;
+  private double sumXX;
+  private double sumXY;
+
+  // The current fit, valid once calibrated.
+  private double intercept;
+  private double slope;
+
+
+  EvaluationCostModel(EvaluationCostEstimator<? super T> estimator) {
+    this.estimator = estimator;
+  }
+
+
+  /**
+   * @param population The candidates to estimate.
+   * @return The estimated cost of each candidate, in the same order as the population.
+   */
+  double[] estimate(List<? extends T> population) {
+    double[] estimates = new double[population.size()];
+    for (int i = 0; i < estimates.length; i++) {
+      estimates[i] = estimator.estimateCost(population.get(i));
+    }
+    return estimates;
+  }
+
+
+  /**
+   * @return Whether enough measurements have been recorded for {@link #predictNanos(double)}
+   * to be meaningful.
+   */
+  synchronized boolean isCalibrated() {
+    return n >= MIN_WEIGHT;
+  }
+
+
+  /**
+   * @param estimate An estimate returned by {@link #estimate(List)}.
+   * @return The predicted evaluation time in nanoseconds or, if the model is not yet
+   * calibrated, the estimate itself.
+   */
+  synchronized double predictNanos(double estimate) {
+    return isCalibrated() ? Math.max(0, intercept + slope * estimate) : estimate;
+  }
+
+
+  /**
+   * Refits the model to include a measured evaluation time.
+   *
+   * @param estimate The candidate's estimated cost.
+   * @param nanos    How long the candidate actually took to evaluate.
+   */
+  synchronized void record(double estimate, long nanos) {
+    n = n * DECAY + 1;
+    sumX = sumX * DECAY + estimate;
+    sumY = sumY * DECAY + nanos;
+    sumXX = sumXX * DECAY + estimate * estimate;
+    sumXY = sumXY * DECAY + estimate * nanos;
+
+    double variance = n * sumXX - sumX * sumX;
+    if (variance > 1e-9 * n * sumXX) {
+      slope = (n * sumXY - sumX * sumY) / variance;
+    } else {
+      slope = sumXX > 0 ? sumXY / sumXX : 0; // All estimates equal, so fit through the origin.
+    }
+    if (slope <= 0) {
+      // Estimates don't predict evaluation time, so predict the mean for everything.
+      slope = 0;
+      intercept = sumY / n;
+    } else {
+      intercept = (sumY - slope * sumX) / n;
+    }
+  }
+
+
+  /**
+   * @param predictions The predicted cost of each candidate.
+   * @return The candidates' indices in descending order of predicted cost.  Candidates
+   * with equal predictions retain their relative order.
+   */
+  static List<Integer> longestFirst(double[] predictions) {
+    List<Integer> order = new ArrayList<>(predictions.length);
+    for (int i = 0; i < predictions.length; i++) {
+      order.add(i);
+    }
+    Collections.sort(order, (a, b) -> Double.compare(predictions[b], predictions[a]));
+    return order;
+  }
+}
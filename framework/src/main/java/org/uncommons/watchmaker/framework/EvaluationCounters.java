@@ -0,0 +1,64 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mutable, thread-safe counters from which {@link EvaluationMetrics} snapshots are taken.
+ */
+final class EvaluationCounters {
+  private final AtomicLong evaluations = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong speculativeLaunches = new AtomicLong();
+  private final AtomicLong speculativeWins = new AtomicLong();
+
+
+  void reset() {
+    evaluations.set(0);
+    timeouts.set(0);
+    speculativeLaunches.set(0);
+    speculativeWins.set(0);
+  }
+
+
+  void evaluated(int count) {
+    evaluations.addAndGet(count);
+  }
+
+
+  void timedOut() {
+    timeouts.incrementAndGet();
+  }
+
+
+  void speculativeLaunch() {
+    speculativeLaunches.incrementAndGet();
+  }
+
+
+  void speculativeWin() {
+    speculativeWins.incrementAndGet();
+  }
+
+
+  EvaluationMetrics snapshot() {
+    return new EvaluationMetrics(evaluations.get(),
+        timeouts.get(),
+        speculativeLaunches.get(),
+        speculativeWins.get());
+  }
+}
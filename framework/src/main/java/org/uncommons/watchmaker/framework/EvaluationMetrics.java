@@ -0,0 +1,86 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+/**
+ * Immutable snapshot of an evolution engine's fitness evaluation statistics for
+ * the most recent (or current) evolution run.
+ *
+ * @see AbstractEvolutionEngine#getEvaluationMetrics()
+ */
+public final class EvaluationMetrics {
+  private final long evaluationCount;
+  private final long timeoutCount;
+  private final long speculativeLaunchCount;
+  private final long speculativeWinCount;
+
+
+  EvaluationMetrics(long evaluationCount,
+                    long timeoutCount,
+                    long speculativeLaunchCount,
+                    long speculativeWinCount) {
+    this.evaluationCount = evaluationCount;
+    this.timeoutCount = timeoutCount;
+    this.speculativeLaunchCount = speculativeLaunchCount;
+    this.speculativeWinCount = speculativeWinCount;
+  }
+
+
+  /**
+   * @return The number of candidates that have been assigned a fitness score,
+   * including those that were assigned a penalty score after timing out.
+   */
+  public long getEvaluationCount() {
+    return evaluationCount;
+  }
+
+
+  /**
+   * @return The number of evaluations that exceeded the evaluation timeout and
+   * were assigned the penalty score.
+   * @see AbstractEvolutionEngine#setEvaluationTimeout(long, java.util.concurrent.TimeUnit, double)
+   */
+  public long getTimeoutCount() {
+    return timeoutCount;
+  }
+
+
+  /**
+   * @return The number of straggling evaluations that were speculatively re-submitted.
+   * @see AbstractEvolutionEngine#setSpeculativeExecution(double, double, double)
+   */
+  public long getSpeculativeLaunchCount() {
+    return speculativeLaunchCount;
+  }
+
+
+  /**
+   * @return The number of speculatively re-submitted evaluations that finished before
+   * the original evaluation.
+   */
+  public long getSpeculativeWinCount() {
+    return speculativeWinCount;
+  }
+
+
+  @Override
+  public String toString() {
+    return "EvaluationMetrics[evaluations=" + evaluationCount
+           + ", timeouts=" + timeoutCount
+           + ", speculativeLaunches=" + speculativeLaunchCount
+           + ", speculativeWins=" + speculativeWinCount + ']';
+  }
+}
@@ -0,0 +1,53 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+/**
+ * How an evolution engine distributes fitness evaluations among threads.
+ *
+ * @see AbstractEvolutionEngine#setEvaluationStrategy(EvaluationStrategy)
+ */
+public enum EvaluationStrategy {
+  /**
+   * Evaluate every candidate on the request thread.  This avoids all thread
+   * co-ordination and is fastest when evaluations are trivially cheap.
+   */
+  SINGLE_THREADED,
+
+  /**
+   * Divide the population into a few chunks per worker thread and evaluate each chunk
+   * as a single task.  This amortises the cost of handing work to another thread over
+   * many cheap evaluations.  Evaluation timeouts and speculative execution are not
+   * applied to chunked evaluations.
+   */
+  CHUNKED,
+
+  /**
+   * Submit each candidate to the worker threads as a separate task.  This balances the
+   * load best when evaluation times vary and supports evaluation timeouts and
+   * speculative execution, but costs a thread hand-off per candidate.
+   */
+  PER_CANDIDATE,
+
+  /**
+   * Time each of the other strategies during the first few evaluations and then use
+   * whichever evaluated candidates fastest, re-checking periodically and whenever
+   * evaluation times change markedly (for example as evolved genomes grow).  If an
+   * evaluation timeout or speculative execution is configured, {@link #PER_CANDIDATE}
+   * is always used.
+   */
+  AUTO
+}
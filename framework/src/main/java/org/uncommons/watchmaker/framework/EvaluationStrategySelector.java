@@ -0,0 +1,96 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses a concrete {@link EvaluationStrategy} for an engine that has been configured
+ * with {@link EvaluationStrategy#AUTO}.  The strategies are tried in turn for the first
+ * few evaluations and the one with the lowest time per candidate is used from then on.
+ * The trials are repeated periodically, and as soon as the time per candidate drifts
+ * far from what was measured when the choice was made, because the cheapest strategy
+ * depends on how expensive evaluations are relative to the cost of co-ordinating threads.
+ */
+final class EvaluationStrategySelector {
+  private static final List<EvaluationStrategy> CANDIDATES = Arrays.asList(EvaluationStrategy.SINGLE_THREADED,
+      EvaluationStrategy.CHUNKED,
+      EvaluationStrategy.PER_CANDIDATE);
+  // Each strategy is timed this many times per trial and its best time is used, so that
+  // a single evaluation slowed by class loading or JIT compilation doesn't decide the trial.
+  private static final int ROUNDS_PER_TRIAL = 2;
+  private static final int RECHECK_INTERVAL = 100;
+  private static final double DRIFT_FACTOR = 2;
+  private static final double SMOOTHING = 0.2;
+
+  private final Map<EvaluationStrategy, Double> trialNanos = new EnumMap<>(EvaluationStrategy.class);
+  private int trialIndex = 0;
+  private EvaluationStrategy chosen = null;
+  private double chosenNanos;
+  // Smoothed time per candidate since the choice was made, so that one noisy
+  // measurement doesn't trigger a new trial.
+  private double recentNanos;
+  private int evaluationsSinceTrial;
+
+
+  /**
+   * @return The strategy to use for the next evaluation.
+   */
+  synchronized EvaluationStrategy next() {
+    return chosen != null ? chosen : CANDIDATES.get(trialIndex % CANDIDATES.size());
+  }
+
+
+  /**
+   * Records how long an evaluation took.
+   *
+   * @param strategy   The strategy returned by {@link #next()} for the evaluation.
+   * @param candidates The number of candidates evaluated.
+   * @param nanos      The elapsed time.
+   */
+  synchronized void record(EvaluationStrategy strategy, int candidates, long nanos) {
+    if (candidates == 0) {
+      return;
+    }
+    double nanosPerCandidate = (double) nanos / candidates;
+    if (chosen == null) {
+      trialNanos.merge(strategy, nanosPerCandidate, Math::min);
+      if (++trialIndex == CANDIDATES.size() * ROUNDS_PER_TRIAL) {
+        chosen = EvaluationStrategy.PER_CANDIDATE;
+        for (EvaluationStrategy candidate : CANDIDATES) {
+          if (trialNanos.get(candidate) < trialNanos.get(chosen)) {
+            chosen = candidate;
+          }
+        }
+        chosenNanos = trialNanos.get(chosen);
+        recentNanos = chosenNanos;
+        evaluationsSinceTrial = 0;
+      }
+    } else if (strategy == chosen) {
+      ++evaluationsSinceTrial;
+      recentNanos = SMOOTHING * nanosPerCandidate + (1 - SMOOTHING) * recentNanos;
+      boolean drifted = recentNanos > DRIFT_FACTOR * chosenNanos || recentNanos * DRIFT_FACTOR < chosenNanos;
+      if (evaluationsSinceTrial >= RECHECK_INTERVAL || drifted) {
+        chosen = null;
+        trialIndex = 0;
+        trialNanos.clear();
+      }
+    }
+  }
+}
@@ -19,9 +19,14 @@ import org.uncommons.util.concurrent.ConfigurableThreadFactory;
 import org.uncommons.util.id.IDSource;
 import org.uncommons.util.id.IntSequenceIDSource;
 import org.uncommons.util.id.StringPrefixIDSource;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+import org.uncommons.watchmaker.framework.remote.RemoteFitnessEvaluator;
+import org.uncommons.watchmaker.framework.remote.RemoteFitnessWorker;
 
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -30,7 +35,8 @@ import java.util.concurrent.TimeUnit;
  * {@link EvolutionEngine}.  This responsibility is abstracted away from
  * the evolution engine to permit the possibility of creating multiple instances
  * across several machines, all fed by a single shared work queue, using Terracotta
- * (http://www.terracotta.org) or similar.
+ * (http://www.terracotta.org) or similar.  Run standalone, it can also act as a worker
+ * for a {@link RemoteFitnessEvaluator} (see {@link #main(String[])}).
  *
  * @author Daniel Dyer
  */
@@ -51,55 +57,129 @@ public class FitnessEvaluationWorker {
   private final ThreadPoolExecutor executor;
 
 
+  /**
+   * Enforces evaluation deadlines.
+   */
+  private final ScheduledThreadPoolExecutor watchdog;
+
+
   /**
    * Creates a FitnessEvaluationWorker that uses daemon threads.
    */
   FitnessEvaluationWorker() {
-    this(true);
+    this(Runtime.getRuntime().availableProcessors(), true);
   }
 
 
   /**
+   * @param threadCount         The number of worker threads.
    * @param daemonWorkerThreads If true, any worker threads created will be daemon threads.
    */
-  private FitnessEvaluationWorker(boolean daemonWorkerThreads) {
+  FitnessEvaluationWorker(int threadCount, boolean daemonWorkerThreads) {
     ConfigurableThreadFactory threadFactory = new ConfigurableThreadFactory(WORKER_ID_SOURCE.nextID(),
         Thread.NORM_PRIORITY,
         daemonWorkerThreads);
-    this.executor = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
-        Runtime.getRuntime().availableProcessors(),
+    this.executor = new ThreadPoolExecutor(threadCount,
+        threadCount,
         60,
         TimeUnit.SECONDS,
         workQueue,
         threadFactory);
     executor.prestartAllCoreThreads();
+    this.watchdog = new ScheduledThreadPoolExecutor(1, new ConfigurableThreadFactory("FitnessEvaluationWatchdog",
+        Thread.MAX_PRIORITY,
+        true));
+    // Most deadlines are cancelled because the evaluation finishes in time, don't keep them around.
+    watchdog.setRemoveOnCancelPolicy(true);
   }
 
 
-  public <T> Future<EvaluatedCandidate<T>> submit(FitnessEvalutationTask<T> task) {
-    return executor.submit(task);
+  public <T> CompletableFuture<EvaluatedCandidate<T>> submit(FitnessEvalutationTask<T> task) {
+    executor.execute(() -> task.evaluate(watchdog));
+    return task.getResult();
   }
 
 
   /**
-   * Entry-point for running this class standalone, as an additional node for fitness evaluations.
-   * If this method is invoked without using Terracotta (or similar) to share the work queue, the
-   * program will do nothing.
+   * Runs an arbitrary job, such as the evaluation of several candidates, on a worker thread.
    *
-   * @param args Program arguments, should be empty.
+   * @param job The job to run.
+   */
+  void execute(Runnable job) {
+    executor.execute(job);
+  }
+
+
+  /**
+   * @return The number of worker threads.
+   */
+  int getThreadCount() {
+    return executor.getMaximumPoolSize();
+  }
+
+
+  /**
+   * @return The scheduler used to enforce evaluation deadlines.
    */
-  public static void main(String[] args) {
-    // The program will not exit immediately upon completion of the main method because
-    // the worker is configured to use non-daemon threads that keep the JVM alive.
-    new FitnessEvaluationWorker(false);
+  ScheduledExecutorService getWatchdog() {
+    return watchdog;
   }
 
+
+  /**
+   * @return True if at least one worker thread is idle and there are no queued tasks
+   * waiting for a thread.  The answer is only a snapshot and may be out-of-date by the
+   * time the caller acts on it.
+   */
+  boolean hasIdleThread() {
+    return workQueue.isEmpty() && executor.getActiveCount() < executor.getMaximumPoolSize();
+  }
+
+
+  /**
+   * <p>Entry-point for running this class standalone, as an additional node for fitness evaluations.</p>
+   *
+   * <p>When invoked with the arguments {@code host port evaluatorClass codecClass}, the node
+   * connects to a {@link RemoteFitnessEvaluator} at the specified address and evaluates
+   * candidates for it until the evaluator shuts down.  The named {@link FitnessEvaluator}
+   * and {@link CandidateCodec} classes must have public no-argument constructors.</p>
+   *
+   * <p>If this method is invoked without arguments and without using Terracotta (or similar)
+   * to share the work queue, the program will do nothing.</p>
+   *
+   * @param args Program arguments, either empty or the address of the remote evaluator
+   *             followed by the fitness evaluator and codec class names.
+   * @throws Exception If the worker cannot be created or the connection to the remote
+   *                   evaluator fails.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      // The program will not exit immediately upon completion of the main method because
+      // the worker is configured to use non-daemon threads that keep the JVM alive.
+      new FitnessEvaluationWorker(Runtime.getRuntime().availableProcessors(), false);
+    } else if (args.length == 4) {
+      FitnessEvaluator<Object> evaluator = instantiate(args[2]);
+      CandidateCodec<Object> codec = instantiate(args[3]);
+      new RemoteFitnessWorker<>(evaluator, codec).run(args[0], Integer.parseInt(args[1]));
+    } else {
+      throw new IllegalArgumentException("Expected arguments: host port evaluatorClass codecClass");
+    }
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private static <T> T instantiate(String className) throws ReflectiveOperationException {
+    return (T) Class.forName(className).getConstructor().newInstance();
+  }
+
+
   /**
    * A FitnessWorker cannot be garbage-collected if its thread pool has not been shutdown.
    * This method shuts down the thread pool so that the threads can be released.
    */
   public void shutdown() {
     executor.shutdown();
+    watchdog.shutdown();
   }
 
   /**
@@ -112,6 +192,7 @@ public class FitnessEvaluationWorker {
   @Override
   protected void finalize() throws Throwable {
     executor.shutdown();
+    watchdog.shutdown();
     super.finalize();
   }
 }
@@ -77,4 +77,33 @@ public interface FitnessEvaluator<T> {
    * or false if a low fitness score means a fitter candidate.
    */
   boolean isNatural();
+
+
+  /**
+   * <p>Specifies whether scores depend on the population argument passed to
+   * {@link #getFitness(Object, List)}.  Some evolution engine options, such as
+   * streaming evaluation of the initial population and pipelined evaluation, start
+   * evaluating candidates before the whole population exists and so cannot pass it.
+   * They are only used with evaluators that declare that they ignore it.</p>
+   *
+   * @return True if scores may depend on the rest of the population (the default),
+   * false if each score depends only on the candidate being evaluated.
+   */
+  default boolean dependsOnPopulation() {
+    return true;
+  }
+
+
+  /**
+   * <p>Specifies whether the evaluator keeps references to candidates after evaluating
+   * them, for example to cache their scores.  A {@link GenomePool} re-uses the genomes of
+   * candidates that leave the population, which would change candidates that such an
+   * evaluator still holds, so engines do not recycle genomes when it returns true.</p>
+   *
+   * @return True if candidates may be retained after evaluation, false if they are not
+   * (the default).
+   */
+  default boolean retainsCandidates() {
+    return false;
+  }
 }
@@ -16,18 +16,40 @@
 package org.uncommons.watchmaker.framework;
 
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Callable task for performing parallel fitness evaluations.
+ * Task for performing parallel fitness evaluations.  A task may have a deadline,
+ * measured from the moment that evaluation starts rather than from when the task was
+ * submitted.  If the deadline passes, the task's result is completed with a penalty
+ * score and the evaluating thread is interrupted so that fitness functions that check
+ * for interruption can give up.  Any score subsequently returned by the fitness
+ * function is discarded.
  *
  * @param <T> The type of entity for which fitness is calculated.
  * @author Daniel Dyer
  */
-class FitnessEvalutationTask<T> implements Callable<EvaluatedCandidate<T>> {
+class FitnessEvalutationTask<T> {
   private final FitnessEvaluator<? super T> fitnessEvaluator;
   private final T candidate;
   private final List<T> population;
+  private final long timeoutNanos;
+  // The result used if the deadline passes.  Shared with duplicates so that a timeout can be
+  // recognised whichever task completes the result.
+  private final EvaluatedCandidate<T> penalty;
+  private final CompletableFuture<EvaluatedCandidate<T>> result = new CompletableFuture<>();
+
+  // The thread currently evaluating the candidate, if any, and whether the watchdog has
+  // interrupted it.  Guarded by this task's monitor.
+  private Thread evaluatingThread;
+  private boolean interrupted = false;
+
+  // Set when evaluation starts and when the fitness function returns, for latency statistics.
+  private volatile long startTime = -1;
+  private volatile long duration = -1;
 
   /**
    * Creates a task for performing fitness evaluations.
@@ -41,14 +63,141 @@ class FitnessEvalutationTask<T> implements Callable<EvaluatedCandidate<T>> {
   FitnessEvalutationTask(FitnessEvaluator<? super T> fitnessEvaluator,
                          T candidate,
                          List<T> population) {
+    this(fitnessEvaluator, candidate, population, 0, 0);
+  }
+
+
+  /**
+   * Creates a task for performing fitness evaluations with a deadline.
+   *
+   * @param fitnessEvaluator The fitness function used to determine candidate fitness.
+   * @param candidate        The candidate to evaluate.
+   * @param population       The entire current population.
+   * @param timeoutNanos     The maximum time allowed for the evaluation, or zero for no limit.
+   * @param penaltyFitness   The score assigned to the candidate if the evaluation times out.
+   */
+  FitnessEvalutationTask(FitnessEvaluator<? super T> fitnessEvaluator,
+                         T candidate,
+                         List<T> population,
+                         long timeoutNanos,
+                         double penaltyFitness) {
+    this(fitnessEvaluator, candidate, population, timeoutNanos, new EvaluatedCandidate<>(candidate, penaltyFitness));
+  }
+
+
+  private FitnessEvalutationTask(FitnessEvaluator<? super T> fitnessEvaluator,
+                                 T candidate,
+                                 List<T> population,
+                                 long timeoutNanos,
+                                 EvaluatedCandidate<T> penalty) {
     this.fitnessEvaluator = fitnessEvaluator;
     this.candidate = candidate;
     this.population = population;
+    this.timeoutNanos = timeoutNanos;
+    this.penalty = penalty;
   }
 
 
-  public EvaluatedCandidate<T> call() {
-    return new EvaluatedCandidate<>(candidate,
-        fitnessEvaluator.getFitness(candidate, population));
+  /**
+   * @return The result of the evaluation, completed when the evaluation finishes or
+   * its deadline passes.
+   */
+  CompletableFuture<EvaluatedCandidate<T>> getResult() {
+    return result;
+  }
+
+
+  /**
+   * @return The {@link System#nanoTime()} at which evaluation started, or -1 if it has
+   * not started.
+   */
+  long getStartTime() {
+    return startTime;
+  }
+
+
+  /**
+   * @return The number of nanoseconds that the fitness function took to return, or -1
+   * if it has not returned (including if it was abandoned after a timeout).
+   */
+  long getDuration() {
+    return duration;
+  }
+
+
+  /**
+   * @return True if the result has been completed with the penalty score because the
+   * deadline passed (for this task or for a duplicate whose result was passed on).
+   */
+  boolean isTimedOut() {
+    return result.isDone() && !result.isCompletedExceptionally() && result.join() == penalty;
+  }
+
+
+  /**
+   * Creates a second, independent task for the same candidate, with the same deadline.
+   */
+  FitnessEvalutationTask<T> duplicate() {
+    return new FitnessEvalutationTask<>(fitnessEvaluator, candidate, population, timeoutNanos, penalty);
+  }
+
+
+  /**
+   * Interrupts the thread evaluating this task, if there is one, to tell the fitness
+   * function that its result is no longer needed.
+   */
+  synchronized void interruptIfRunning() {
+    if (evaluatingThread != null && !interrupted) {
+      evaluatingThread.interrupt();
+      interrupted = true;
+    }
+  }
+
+
+  /**
+   * Performs the evaluation on the calling thread.
+   *
+   * @param watchdog Used to enforce the deadline, if there is one.
+   */
+  void evaluate(ScheduledExecutorService watchdog) {
+    synchronized (this) {
+      if (result.isDone()) {
+        return; // Another task for the same candidate has already finished.
+      }
+      evaluatingThread = Thread.currentThread();
+    }
+    startTime = System.nanoTime();
+    ScheduledFuture<?> alarm = timeoutNanos > 0
+                               ? watchdog.schedule(this::expire, timeoutNanos, TimeUnit.NANOSECONDS)
+                               : null;
+    try {
+      double fitness = fitnessEvaluator.getFitness(candidate, population);
+      duration = System.nanoTime() - startTime;
+      result.complete(new EvaluatedCandidate<>(candidate, fitness));
+    } catch (Throwable ex) {
+      result.completeExceptionally(ex);
+    } finally {
+      if (alarm != null) {
+        alarm.cancel(false);
+      }
+      synchronized (this) {
+        evaluatingThread = null;
+        if (interrupted) {
+          // Clear the interrupt so that it does not leak into the next task on this thread.
+          Thread.interrupted();
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Invoked by the watchdog when the deadline passes.  Interrupting while holding the
+   * monitor guarantees that the interrupt cannot hit a later task on the same thread.
+   */
+  private synchronized void expire() {
+    if (evaluatingThread != null && result.complete(penalty)) {
+      interruptIfRunning();
+    }
   }
 }
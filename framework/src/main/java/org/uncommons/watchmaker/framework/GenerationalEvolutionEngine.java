@@ -15,9 +15,11 @@
 //=============================================================================
 package org.uncommons.watchmaker.framework;
 
+import org.uncommons.util.random.SplittableRNG;
 import org.uncommons.watchmaker.framework.interactive.InteractiveSelection;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -49,6 +51,10 @@ public class GenerationalEvolutionEngine<T> extends AbstractEvolutionEngine<T> {
   private final FitnessEvaluator<? super T> fitnessEvaluator;
   private final SelectionStrategy<? super T> selectionStrategy;
 
+  private volatile boolean parallelBreeding = false;
+  private volatile int pipelineBatchSize = 0;
+  private volatile boolean lazyEvaluation = false;
+
   /**
    * Creates a new evolution engine by specifying the various components required by
    * a generational evolutionary algorithm.
@@ -108,6 +114,17 @@ public class GenerationalEvolutionEngine<T> extends AbstractEvolutionEngine<T> {
   protected List<EvaluatedCandidate<T>> nextEvolutionStep(List<EvaluatedCandidate<T>> evaluatedPopulation,
                                                           int eliteCount,
                                                           Random rng) {
+    if (lazyEvaluation) {
+      return nextLazyStep(evaluatedPopulation, eliteCount, rng);
+    }
+    int batchSize = pipelineBatchSize;
+    ParallelFitnessEvaluation<T> evaluation = batchSize > 0 && !fitnessEvaluator.dependsOnPopulation()
+                                              ? createIncrementalEvaluation()
+                                              : null;
+    if (evaluation != null) {
+      return nextPipelinedStep(evaluatedPopulation, eliteCount, batchSize, evaluation, rng);
+    }
+
     List<T> population = new ArrayList<>(evaluatedPopulation.size());
 
     // First perform any elitist selection. (The evaluated population is ordered)
@@ -122,9 +139,156 @@ public class GenerationalEvolutionEngine<T> extends AbstractEvolutionEngine<T> {
         evaluatedPopulation.size() - eliteCount,
         rng));
     // Then evolve the population.
-    population = evolutionScheme.apply(population, rng);
+    population = evolutionScheme.apply(population, parallelBreeding ? SplittableRNG.from(rng) : rng);
     // When the evolution is finished, add the elite to the population.
     population.addAll(elite);
     return evaluatePopulation(population);
   }
+
+
+  /**
+   * Breeds the next generation without evaluating it.  The elite keep their existing
+   * scores (or lack of them) rather than being evaluated again.
+   */
+  private List<EvaluatedCandidate<T>> nextLazyStep(List<EvaluatedCandidate<T>> evaluatedPopulation,
+                                                   int eliteCount,
+                                                   Random rng) {
+    List<EvaluatedCandidate<T>> elite = new ArrayList<>(evaluatedPopulation.subList(0, eliteCount));
+    List<T> population = selectionStrategy.select(evaluatedPopulation,
+        fitnessEvaluator.isNatural(),
+        evaluatedPopulation.size() - eliteCount,
+        rng);
+    population = evolutionScheme.apply(population, parallelBreeding ? SplittableRNG.from(rng) : rng);
+    List<EvaluatedCandidate<T>> nextPopulation = deferEvaluation(population);
+    nextPopulation.addAll(elite);
+    return nextPopulation;
+  }
+
+
+  /**
+   * Breeds the next generation in batches, submitting each batch of offspring for
+   * evaluation as soon as it has been bred so that evaluation of one batch overlaps with
+   * breeding of the next.
+   */
+  private List<EvaluatedCandidate<T>> nextPipelinedStep(List<EvaluatedCandidate<T>> evaluatedPopulation,
+                                                        int eliteCount,
+                                                        int batchSize,
+                                                        ParallelFitnessEvaluation<T> evaluation,
+                                                        Random rng) {
+    // The elite need no breeding, so the workers can start on them straight away.
+    List<T> elite = evaluatedPopulation.stream().limit(eliteCount)
+        .map(EvaluatedCandidate::getCandidate)
+        .collect(Collectors.toList());
+    List<FitnessEvalutationTask<T>> eliteTasks = evaluation.submit(elite, Collections.unmodifiableList(elite));
+
+    List<T> selection = new ArrayList<>(selectionStrategy.select(evaluatedPopulation,
+        fitnessEvaluator.isNatural(),
+        evaluatedPopulation.size() - eliteCount,
+        rng));
+    // Shuffle so that the batches are not influenced by any ordering of the selection.
+    Collections.shuffle(selection, rng);
+    List<FitnessEvalutationTask<T>> tasks = new ArrayList<>(evaluatedPopulation.size());
+    for (int start = 0; start < selection.size(); start += batchSize) {
+      List<T> batch = new ArrayList<>(selection.subList(start, Math.min(selection.size(), start + batchSize)));
+      List<T> offspring = evolutionScheme.apply(batch, parallelBreeding ? SplittableRNG.from(rng) : rng);
+      tasks.addAll(evaluation.submit(offspring, Collections.unmodifiableList(offspring)));
+    }
+    tasks.addAll(eliteTasks);
+    List<EvaluatedCandidate<T>> nextPopulation = evaluation.collect(tasks);
+    countEvaluations(nextPopulation.size());
+    return nextPopulation;
+  }
+
+
+  /**
+   * <p>Turns pipelined evaluation on or off.  By default, the whole next generation is bred
+   * before any of it is evaluated, so the evaluation threads are idle during breeding and
+   * vice versa.  With pipelining, the selected candidates are shuffled and divided into
+   * batches of the specified size, and each batch is passed through the evolution scheme
+   * and submitted for evaluation before the next batch is bred.  The generation boundary
+   * is preserved: the next generation is only complete once every batch has been
+   * evaluated.</p>
+   *
+   * <p>Operators that combine candidates, such as cross-over, only combine candidates from
+   * the same batch.  Since the generation does not exist yet when the first batches are
+   * evaluated, the fitness evaluator is passed the candidate's batch as the population, so
+   * pipelining is only used if the evaluator declares that its scores do not
+   * {@link FitnessEvaluator#dependsOnPopulation() depend on the population}.  Each candidate
+   * is evaluated by its own task, whatever the {@link #setEvaluationStrategy evaluation
+   * strategy}.  Pipelining is not used for batch or asynchronous fitness evaluators,
+   * single-threaded engines or with speculative execution either.</p>
+   *
+   * @param batchSize The number of selected candidates bred at a time, or zero to turn
+   *                  pipelining off.
+   */
+  public void setPipelinedEvaluation(int batchSize) {
+    if (batchSize < 0) {
+      throw new IllegalArgumentException("Batch size must not be negative.");
+    }
+    this.pipelineBatchSize = batchSize;
+  }
+
+
+  /**
+   * <p>Turns lazy evaluation on or off.  By default, every candidate is evaluated as soon
+   * as it is bred.  With lazy evaluation, offspring are only evaluated when their fitness
+   * is first read, typically by the selection strategy, and each score is calculated at
+   * most once.  Selection strategies that only compare a sample of the population, such as
+   * {@link org.uncommons.watchmaker.framework.selection.TournamentSelection}, then never
+   * pay for the evaluation of candidates that they do not sample, which helps with small
+   * tournaments and expensive fitness functions.  Strategies that look at every candidate,
+   * such as roulette wheel selection, gain nothing.</p>
+   *
+   * <p>The initial population is evaluated in full.  After that, the elite are the
+   * fittest of the candidates that have been evaluated, and the
+   * {@link PopulationData statistics} passed to observers and termination conditions
+   * describe only those candidates, apart from the population size.  The final population
+   * returned by the engine is evaluated in full.</p>
+   *
+   * <p>Elite candidates whose evaluation has been deferred are evaluated against the
+   * generation that bred them, so no genomes are {@link #setGenomePool(GenomePool)
+   * recycled} while lazy evaluation is on.</p>
+   *
+   * @param lazyEvaluation Whether to evaluate offspring on demand.
+   */
+  public void setLazyEvaluation(boolean lazyEvaluation) {
+    this.lazyEvaluation = lazyEvaluation;
+  }
+
+
+  /**
+   * @return True while lazy evaluation is on, since deferred evaluations read the
+   * generations that bred their candidates.
+   */
+  @Override
+  protected boolean retainsDiscardedCandidates() {
+    return lazyEvaluation;
+  }
+
+
+  /**
+   * <p>Turns parallel breeding on or off.  By default, selected candidates are evolved
+   * on the request thread, which can become the bottleneck for large populations once
+   * fitness evaluation is multi-threaded.  With parallel breeding, the evolution scheme
+   * is given a {@link SplittableRNG} seeded from the engine's source of randomness, and
+   * the operators that support it ({@link org.uncommons.watchmaker.framework.operators.EvolutionPipeline},
+   * {@link org.uncommons.watchmaker.framework.operators.SplitEvolution} and
+   * {@link org.uncommons.watchmaker.framework.operators.AbstractCrossover cross-over}) divide
+   * the work into fixed-size chunks that are evolved in parallel.</p>
+   *
+   * <p>Because each chunk has its own generator, split in a fixed order, evolution
+   * remains repeatable for a given seed regardless of how many threads are available,
+   * although it does not produce the same results as sequential breeding.  All operators
+   * in the evolution scheme must be safe to use from multiple threads at once.  For the
+   * same reasons, random variables (such as a mutation probability given as a
+   * {@code NumberGenerator}) that are sampled inside a chunk must be constant, otherwise
+   * breeding fails with an {@link IllegalStateException}.  This includes every variable
+   * of the operators in an {@link org.uncommons.watchmaker.framework.operators.EvolutionPipeline}
+   * that is divided into chunks.</p>
+   *
+   * @param parallelBreeding Whether to evolve selected candidates in parallel.
+   */
+  public void setParallelBreeding(boolean parallelBreeding) {
+    this.parallelBreeding = parallelBreeding;
+  }
 }
@@ -0,0 +1,206 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A pool of array genomes from discarded generations, so that operators can reuse
+ * them for offspring instead of allocating new arrays.  With large array genomes, the
+ * garbage from each replaced generation can otherwise dominate garbage collection.</p>
+ *
+ * <p>Recycling is opt-in.  The same pool is given to an engine with
+ * {@link AbstractEvolutionEngine#setGenomePool(GenomePool)}, which recycles the genomes
+ * that drop out of the population each generation, and to the operators that create
+ * offspring, such as {@link org.uncommons.watchmaker.framework.operators.AbstractArrayCrossover}.
+ * It is only safe if nothing else keeps references to candidates once they have left the
+ * population.  Engines therefore recycle nothing when their fitness evaluator is, or
+ * wraps, a {@link CachingFitnessEvaluator}, whose cache could return the fitness of a
+ * genome's previous contents, or while lazy evaluation is on, since deferred elite
+ * candidates are evaluated against the generation that bred them.  Other evaluators that
+ * keep candidates must declare so with {@link FitnessEvaluator#retainsCandidates()}.</p>
+ *
+ * <p>Arrays are pooled separately for each array type and length, with a limit on the
+ * number held for each.  Pools are thread-safe.  With debug checks enabled (the default
+ * when assertions are enabled for this class), the pool remembers which arrays it holds
+ * and fails fast with an {@link IllegalStateException} if one is recycled twice, is copied
+ * or is found in a population while it is in the pool.</p>
+ */
+public final class GenomePool {
+  private final int capacity;
+  private final ConcurrentMap<Shape, Queue<Object>> pools = new ConcurrentHashMap<>();
+  // Identity set of the arrays currently pooled, for debug checks.  Arrays do not
+  // override equals and hashCode.
+  private final Set<Object> pooled = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private final AtomicLong reuseCount = new AtomicLong();
+  private volatile boolean debugChecks = GenomePool.class.desiredAssertionStatus();
+
+
+  /**
+   * @param capacity The maximum number of arrays held for each array type and length.
+   *                 Roughly the population size is usually enough.
+   */
+  public GenomePool(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+    this.capacity = capacity;
+  }
+
+
+  /**
+   * @param debugChecks Whether to detect genomes being used after they have been recycled.
+   *                    Checks cost a hash lookup per genome per generation.
+   */
+  public void setDebugChecks(boolean debugChecks) {
+    this.debugChecks = debugChecks;
+    if (!debugChecks) {
+      pooled.clear();
+    }
+  }
+
+
+  /**
+   * @return The number of arrays that have been reused rather than allocated.
+   */
+  public long getReuseCount() {
+    return reuseCount.get();
+  }
+
+
+  /**
+   * Returns an array of the same type and length as a template, taken from the pool if
+   * possible.  The contents of the array are undefined.
+   *
+   * @param template An array.
+   * @param <A>      The array type.
+   * @return An array that the caller now owns.
+   */
+  @SuppressWarnings("unchecked")
+  public <A> A take(A template) {
+    Class<?> type = template.getClass();
+    int length = Array.getLength(template);
+    Queue<Object> pool = pools.get(new Shape(type, length));
+    Object array = pool == null ? null : pool.poll();
+    if (array == null) {
+      return (A) Array.newInstance(type.getComponentType(), length);
+    }
+    if (debugChecks) {
+      pooled.remove(array);
+    }
+    reuseCount.incrementAndGet();
+    return (A) array;
+  }
+
+
+  /**
+   * Returns a copy of an array, in an array taken from the pool if possible.
+   *
+   * @param array The array to copy.
+   * @param <A>   The array type.
+   * @return A copy that the caller now owns.
+   * @throws IllegalStateException If debug checks are enabled and the array to copy has
+   *                               been recycled.
+   */
+  public <A> A copyOf(A array) {
+    checkNotRecycled(array);
+    A copy = take(array);
+    System.arraycopy(array, 0, copy, 0, Array.getLength(array));
+    return copy;
+  }
+
+
+  /**
+   * Returns a genome to the pool.  Genomes that are not arrays, and arrays for which the
+   * pool is full, are left to the garbage collector.  The caller must not use the genome
+   * afterwards.
+   *
+   * @param genome A genome that is no longer referenced.
+   * @throws IllegalStateException If debug checks are enabled and the genome is already
+   *                               in the pool.
+   */
+  public void recycle(Object genome) {
+    Class<?> type = genome.getClass();
+    if (!type.isArray()) {
+      return;
+    }
+    if (debugChecks && !pooled.add(genome)) {
+      throw new IllegalStateException("Genome recycled twice.");
+    }
+    if (genome instanceof Object[]) {
+      // Do not keep the elements alive while the array is pooled.
+      Arrays.fill((Object[]) genome, null);
+    }
+    Queue<Object> pool = pools.computeIfAbsent(new Shape(type, Array.getLength(genome)),
+        shape -> new ArrayBlockingQueue<>(capacity));
+    if (!pool.offer(genome) && debugChecks) {
+      pooled.remove(genome);
+    }
+  }
+
+
+  /**
+   * Checks that a genome is not in the pool.  Does nothing unless debug checks are enabled.
+   *
+   * @param genome A genome that is about to be used.
+   * @throws IllegalStateException If debug checks are enabled and the genome has been
+   *                               recycled.
+   */
+  public void checkNotRecycled(Object genome) {
+    if (debugChecks && pooled.contains(genome)) {
+      throw new IllegalStateException("Genome used after it was recycled.");
+    }
+  }
+
+
+  /**
+   * The array type and length that arrays are pooled by.
+   */
+  private static final class Shape {
+    private final Class<?> type;
+    private final int length;
+
+
+    Shape(Class<?> type, int length) {
+      this.type = type;
+      this.length = length;
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Shape)) {
+        return false;
+      }
+      Shape other = (Shape) o;
+      return type == other.type && length == other.length;
+    }
+
+
+    @Override
+    public int hashCode() {
+      return 31 * type.hashCode() + length;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Calculates the fitness of the lazily evaluated candidates of one generation on demand.
+ * Candidates evaluated one at a time are evaluated on the calling thread; batches are
+ * evaluated on the engine's worker threads if the engine is multi-threaded.
+ *
+ * @param <T> The type of entity for which fitness is calculated.
+ */
+final class LazyEvaluation<T> {
+  private final FitnessEvaluator<? super T> fitnessEvaluator;
+  private final List<T> population;
+  private final ParallelFitnessEvaluation<T> parallelEvaluation;
+  private final EvaluationCounters counters;
+
+
+  /**
+   * @param fitnessEvaluator   The fitness function.
+   * @param population         The generation, passed to the fitness function.
+   * @param parallelEvaluation Evaluates batches in parallel, or null to evaluate them on
+   *                           the calling thread.
+   * @param counters           Statistics to update.
+   */
+  LazyEvaluation(FitnessEvaluator<? super T> fitnessEvaluator,
+                 List<T> population,
+                 ParallelFitnessEvaluation<T> parallelEvaluation,
+                 EvaluationCounters counters) {
+    this.fitnessEvaluator = fitnessEvaluator;
+    this.population = Collections.unmodifiableList(population);
+    this.parallelEvaluation = parallelEvaluation;
+    this.counters = counters;
+  }
+
+
+  /**
+   * @param candidates The candidates of the generation.
+   * @return The candidates, each with a fitness score calculated by this evaluation when
+   * it is first read.
+   */
+  List<EvaluatedCandidate<T>> defer(List<T> candidates) {
+    List<EvaluatedCandidate<T>> deferred = new ArrayList<>(candidates.size());
+    for (T candidate : candidates) {
+      deferred.add(new EvaluatedCandidate<>(candidate, this));
+    }
+    return deferred;
+  }
+
+
+  /**
+   * Evaluates a single candidate on the calling thread.
+   *
+   * @param candidate The candidate to evaluate.
+   */
+  void evaluate(EvaluatedCandidate<T> candidate) {
+    double fitness = fitnessEvaluator.getFitness(candidate.getCandidate(), population);
+    if (candidate.setFitness(fitness)) {
+      counters.evaluated(1);
+    }
+  }
+
+
+  /**
+   * Evaluates those candidates that have not been evaluated yet.
+   *
+   * @param candidates The candidates to evaluate, possibly including duplicates.
+   */
+  void evaluateAll(List<EvaluatedCandidate<T>> candidates) {
+    Set<EvaluatedCandidate<T>> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<EvaluatedCandidate<T>> pending = new ArrayList<>(candidates.size());
+    for (EvaluatedCandidate<T> candidate : candidates) {
+      if (!candidate.isEvaluated() && unique.add(candidate)) {
+        pending.add(candidate);
+      }
+    }
+    if (parallelEvaluation == null || pending.size() < 2) {
+      for (EvaluatedCandidate<T> candidate : pending) {
+        evaluate(candidate);
+      }
+      return;
+    }
+    List<T> batch = new ArrayList<>(pending.size());
+    for (EvaluatedCandidate<T> candidate : pending) {
+      batch.add(candidate.getCandidate());
+    }
+    List<EvaluatedCandidate<T>> results = parallelEvaluation.collect(parallelEvaluation.submit(batch, population));
+    int count = 0;
+    for (int i = 0; i < results.size(); i++) {
+      // A null result means that the thread was interrupted, the candidate will be
+      // evaluated on demand instead.
+      if (results.get(i) != null && pending.get(i).setFitness(results.get(i).getFitness())) {
+        ++count;
+      }
+    }
+    counters.evaluated(count);
+  }
+}
@@ -0,0 +1,41 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.List;
+
+/**
+ * A {@link BatchFitnessEvaluator} for fitness functions that only give noisy samples of a
+ * candidate's fitness, which estimates each score with a confidence interval.  Evolution
+ * engines attach the intervals to the {@link EvaluatedCandidate}s that they create, where
+ * they are available from {@link EvaluatedCandidate#getConfidenceInterval()}.
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ * @see RacingFitnessEvaluator
+ */
+public interface NoisyFitnessEvaluator<T> extends BatchFitnessEvaluator<T> {
+  /**
+   * Estimates fitness scores for several candidates.
+   *
+   * @param candidates The candidates to evaluate.
+   * @param population The entire population.  This will include all of the specified
+   *                   candidates.
+   * @return The estimates, in the same order as {@code candidates}.  All means must be
+   * non-negative.
+   */
+  ConfidenceInterval[] estimateBatch(List<? extends T> candidates,
+                                     List<? extends T> population);
+}
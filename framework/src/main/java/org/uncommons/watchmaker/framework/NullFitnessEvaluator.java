@@ -45,4 +45,11 @@ class NullFitnessEvaluator implements FitnessEvaluator<Object> {
   public boolean isNatural() {
     return true;
   }
+
+  /**
+   * @return False, all candidates get the same score.
+   */
+  public boolean dependsOnPopulation() {
+    return false;
+  }
 }
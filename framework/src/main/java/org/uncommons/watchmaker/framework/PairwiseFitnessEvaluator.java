@@ -0,0 +1,338 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Base class for competitive fitness functions, in which a candidate's fitness is its
+ * mean score from interactions (games, contests, co-operation trials) with the other
+ * members of the population.  Calling {@link #getFitness(Object, List)} for every
+ * candidate would play each pair twice and pay the whole population loop per candidate.
+ * As a {@link BatchFitnessEvaluator}, this class is instead handed the whole generation
+ * at once and plays each unordered pair of candidates once, adding the scores to running
+ * totals rather than storing a matrix of interaction scores.</p>
+ *
+ * <p>The pairs are divided into square tiles of the upper triangle of the matrix.  The
+ * tiles are played in rounds, and no two tiles in a round share a candidate, so the tiles
+ * of a round are played in parallel and every total is accumulated in the same order
+ * every time.  The games are played by a parallel stream, on the common fork-join pool
+ * (or on the pool of the calling thread, if that is a fork-join pool), not by the
+ * evolution engine's evaluation threads, and {@link #getScore(Object, Object)} must be
+ * safe to call from several threads at once.  Each pair is played by
+ * {@link #getScore(Object, Object)} and the
+ * opponent's score is derived by {@link #getOpponentScore(Object, Object, double)},
+ * which plays the reverse interaction unless overridden.  Symmetric and constant-sum
+ * games should override it to derive the opponent's score without playing again.</p>
+ *
+ * <p>For large populations, the cost can be bounded by having each candidate play a
+ * fixed number of randomly sampled opponents instead of the whole population.  Each
+ * sampled pair is still played once and counts towards both candidates' scores.</p>
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ */
+public abstract class PairwiseFitnessEvaluator<T> implements BatchFitnessEvaluator<T> {
+  // The side of the square tiles into which the score matrix is divided.
+  private static final int TILE_SIZE = 64;
+
+  private final int opponents;
+  private final Random rng;
+
+
+  /**
+   * Creates an evaluator that plays every candidate against every other member of the
+   * population.
+   */
+  protected PairwiseFitnessEvaluator() {
+    this.opponents = 0;
+    this.rng = null;
+  }
+
+
+  /**
+   * Creates an evaluator that plays every candidate against a random sample of the
+   * population.
+   *
+   * @param opponents The number of distinct opponents chosen for each candidate.  If the
+   *                  population is not larger than this, every pair is played.
+   * @param rng       The source of randomness used to choose opponents.
+   */
+  protected PairwiseFitnessEvaluator(int opponents, Random rng) {
+    if (opponents <= 0) {
+      throw new IllegalArgumentException("Number of opponents must be positive.");
+    }
+    this.opponents = opponents;
+    this.rng = rng;
+  }
+
+
+  /**
+   * Plays one interaction.
+   *
+   * @param candidate The candidate whose score is returned.
+   * @param opponent  The member of the population it interacts with.
+   * @return The candidate's score from the interaction.  Must be non-negative.
+   */
+  protected abstract double getScore(T candidate, T opponent);
+
+
+  /**
+   * Determines the opponent's score from an interaction.  By default, this plays the
+   * interaction the other way round.  Symmetric games (in which both players receive the
+   * same score) and constant-sum games (in which the scores add up to a fixed total)
+   * should override this to derive the score without playing again.
+   *
+   * @param candidate The candidate whose score was calculated.
+   * @param opponent  The opponent whose score is required.
+   * @param score     The candidate's score against the opponent.
+   * @return The opponent's score against the candidate.  Must be non-negative.
+   */
+  protected double getOpponentScore(T candidate, T opponent, double score) {
+    return getScore(opponent, candidate);
+  }
+
+
+  /**
+   * Plays the candidate against every other member of the population.
+   *
+   * @return The candidate's mean score, or zero if it has no opponents.
+   */
+  public double getFitness(T candidate, List<? extends T> population) {
+    double sum = 0;
+    int games = 0;
+    boolean skippedSelf = false;
+    for (T opponent : population) {
+      if (opponent == candidate && !skippedSelf) {
+        skippedSelf = true;
+      } else {
+        sum += getScore(candidate, opponent);
+        ++games;
+      }
+    }
+    return games == 0 ? 0 : sum / games;
+  }
+
+
+  /**
+   * Calculates the mean scores of the candidates from one pass over the pairs of the
+   * population.
+   */
+  public double[] evaluateBatch(List<? extends T> candidates, List<? extends T> population) {
+    int[] positions = locate(candidates, population);
+    boolean[] needed = new boolean[population.size()];
+    for (int position : positions) {
+      needed[position] = true;
+    }
+    double[] means = opponents > 0 && opponents < population.size() - 1
+                     ? playSampled(population, needed)
+                     : playAll(population, needed);
+    double[] scores = new double[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      scores[i] = means[positions[i]];
+    }
+    return scores;
+  }
+
+
+  /**
+   * Plays every pair in which at least one member's score is needed, one tile of the
+   * upper triangle of the score matrix at a time.  The tiles are scheduled in rounds, like
+   * a round-robin tournament between the blocks of the population, so that the tiles of a
+   * round can add to the totals of their members without sharing any of them.
+   *
+   * @return The mean score of each member of the population (zero for unneeded members).
+   */
+  private double[] playAll(List<? extends T> population, boolean[] needed) {
+    int size = population.size();
+    int blocks = (size + TILE_SIZE - 1) / TILE_SIZE;
+    boolean[] blockNeeded = new boolean[blocks];
+    for (int i = 0; i < size; i++) {
+      blockNeeded[i / TILE_SIZE] |= needed[i];
+    }
+    double[] sums = new double[size];
+    // The first round is the tiles on the diagonal.
+    List<int[]> round = new ArrayList<>(blocks);
+    for (int block = 0; block < blocks; block++) {
+      if (blockNeeded[block]) {
+        round.add(new int[]{block, block});
+      }
+    }
+    playRound(population, needed, sums, round);
+    // Circle method: with an even number of positions, the last stays fixed while the
+    // others rotate.  With an odd number of blocks, the extra position is a bye.
+    int positions = blocks + blocks % 2;
+    for (int r = 0; r < positions - 1; r++) {
+      round.clear();
+      for (int k = 0; k < positions / 2; k++) {
+        int first = k == 0 ? positions - 1 : (r + k) % (positions - 1);
+        int second = (r - k + positions - 1) % (positions - 1);
+        if (first < blocks && second < blocks && (blockNeeded[first] || blockNeeded[second])) {
+          round.add(new int[]{Math.min(first, second), Math.max(first, second)});
+        }
+      }
+      playRound(population, needed, sums, round);
+    }
+
+    double[] means = new double[size];
+    if (size > 1) {
+      for (int i = 0; i < size; i++) {
+        if (needed[i]) {
+          means[i] = sums[i] / (size - 1);
+        }
+      }
+    }
+    return means;
+  }
+
+
+  private void playRound(List<? extends T> population, boolean[] needed, double[] sums, List<int[]> round) {
+    // The tiles of a round cover disjoint blocks, so they write to disjoint totals.
+    round.parallelStream().forEach(tile -> playTile(population, needed, sums, tile[0], tile[1]));
+  }
+
+
+  private void playTile(List<? extends T> population,
+                        boolean[] needed,
+                        double[] sums,
+                        int rowBlock,
+                        int columnBlock) {
+    int rowEnd = Math.min(population.size(), (rowBlock + 1) * TILE_SIZE);
+    int columnEnd = Math.min(population.size(), (columnBlock + 1) * TILE_SIZE);
+    for (int i = rowBlock * TILE_SIZE; i < rowEnd; i++) {
+      T candidate = population.get(i);
+      for (int j = Math.max(i + 1, columnBlock * TILE_SIZE); j < columnEnd; j++) {
+        if (needed[i] || needed[j]) {
+          T opponent = population.get(j);
+          double score = getScore(candidate, opponent);
+          if (needed[i]) {
+            sums[i] += score;
+          }
+          if (needed[j]) {
+            sums[j] += getOpponentScore(candidate, opponent, score);
+          }
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Chooses opponents for the needed members on the calling thread, so that the choice
+   * depends only on the RNG, then plays the distinct pairs in parallel.
+   *
+   * @return The mean score of each member of the population over all of the games that
+   * it took part in.
+   * @throws IllegalArgumentException If there are too many needed members to sample
+   *                                  opponents for in one batch.
+   */
+  private double[] playSampled(List<? extends T> population, boolean[] needed) {
+    int size = population.size();
+    long neededCount = 0;
+    for (boolean isNeeded : needed) {
+      neededCount += isNeeded ? 1 : 0;
+    }
+    long capacity = neededCount * opponents;
+    if (capacity > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Too many games to sample: " + capacity);
+    }
+    long[] pairs = new long[(int) capacity];
+    int count = 0;
+    Set<Integer> chosen = new HashSet<>();
+    for (int i = 0; i < size; i++) {
+      if (needed[i]) {
+        chosen.clear();
+        while (chosen.size() < opponents) {
+          int j = rng.nextInt(size - 1);
+          if (j >= i) {
+            ++j; // Skip the candidate itself.
+          }
+          if (chosen.add(j)) {
+            pairs[count++] = ((long) Math.min(i, j) << 32) | Math.max(i, j);
+          }
+        }
+      }
+    }
+    // Pairs chosen from both ends are played once.
+    Arrays.sort(pairs, 0, count);
+    int distinct = 0;
+    for (int p = 0; p < count; p++) {
+      if (distinct == 0 || pairs[p] != pairs[distinct - 1]) {
+        pairs[distinct++] = pairs[p];
+      }
+    }
+
+    double[] forward = new double[distinct];
+    double[] reverse = new double[distinct];
+    IntStream.range(0, distinct).parallel().forEach(p -> {
+      T candidate = population.get((int) (pairs[p] >>> 32));
+      T opponent = population.get((int) pairs[p]);
+      forward[p] = getScore(candidate, opponent);
+      reverse[p] = getOpponentScore(candidate, opponent, forward[p]);
+    });
+
+    double[] sums = new double[size];
+    int[] games = new int[size];
+    for (int p = 0; p < distinct; p++) {
+      int i = (int) (pairs[p] >>> 32);
+      int j = (int) pairs[p];
+      sums[i] += forward[p];
+      ++games[i];
+      sums[j] += reverse[p];
+      ++games[j];
+    }
+    double[] means = new double[size];
+    for (int i = 0; i < size; i++) {
+      means[i] = games[i] == 0 ? 0 : sums[i] / games[i];
+    }
+    return means;
+  }
+
+
+  /**
+   * Finds the position of each candidate in the population, by identity where possible so
+   * that each occurrence of a repeated candidate is matched to a distinct position.
+   */
+  private static <T> int[] locate(List<? extends T> candidates, List<? extends T> population) {
+    Map<T, Deque<Integer>> positions = new IdentityHashMap<>();
+    for (int i = 0; i < population.size(); i++) {
+      positions.computeIfAbsent(population.get(i), key -> new ArrayDeque<>()).add(i);
+    }
+    int[] located = new int[candidates.size()];
+    for (int i = 0; i < located.length; i++) {
+      T candidate = candidates.get(i);
+      Deque<Integer> free = positions.get(candidate);
+      Integer position = free == null ? null : free.poll();
+      if (position == null) {
+        position = population.indexOf(candidate);
+        if (position < 0) {
+          throw new IllegalArgumentException("Candidate is not a member of the population.");
+        }
+      }
+      located[i] = position;
+    }
+    return located;
+  }
+}
@@ -0,0 +1,398 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Evaluates a population on a {@link FitnessEvaluationWorker}'s threads, either one task
+ * per candidate or one task per chunk of candidates, and waits for all of the results.
+ * Used by {@link AbstractEvolutionEngine} for multi-threaded evaluation.
+ *
+ * @param <T> The type of entity for which fitness is calculated.
+ */
+final class ParallelFitnessEvaluation<T> {
+  private static final long MIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long MAX_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+  // More chunks than threads, so that a thread that finishes early can take another.
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final FitnessEvaluationWorker worker;
+  private final FitnessEvaluator<? super T> fitnessEvaluator;
+  private final EvaluationCounters counters;
+  private final long timeoutNanos;
+  private final double penaltyFitness;
+  private final Speculation speculation;
+  private final EvaluationCostModel<T> costModel;
+
+
+  /**
+   * @param worker           The threads that perform the evaluations.
+   * @param fitnessEvaluator The fitness function.
+   * @param counters         Statistics to update.
+   * @param timeoutNanos     The deadline for each evaluation, or zero for no limit.
+   * @param penaltyFitness   The score assigned to evaluations that exceed the deadline.
+   * @param speculation      When to re-submit straggling evaluations, or null to never do so.
+   * @param costModel        Predicts evaluation times so that the longest evaluations can be
+   *                         started first, or null to start evaluations in population order.
+   *                         The model is updated with the measured times.
+   */
+  ParallelFitnessEvaluation(FitnessEvaluationWorker worker,
+                            FitnessEvaluator<? super T> fitnessEvaluator,
+                            EvaluationCounters counters,
+                            long timeoutNanos,
+                            double penaltyFitness,
+                            Speculation speculation,
+                            EvaluationCostModel<T> costModel) {
+    this.worker = worker;
+    this.fitnessEvaluator = fitnessEvaluator;
+    this.counters = counters;
+    this.timeoutNanos = timeoutNanos;
+    this.penaltyFitness = penaltyFitness;
+    this.speculation = speculation;
+    this.costModel = costModel;
+  }
+
+
+  /**
+   * @param population The candidates to evaluate.
+   * @return The evaluated candidates, in the same order as the population.  If the calling
+   * thread is interrupted, its interrupt flag is restored and the entries for unfinished
+   * evaluations are null.
+   */
+  List<EvaluatedCandidate<T>> evaluate(List<T> population) {
+    List<T> unmodifiablePopulation = Collections.unmodifiableList(population);
+    List<FitnessEvalutationTask<T>> tasks = new ArrayList<>(population.size());
+    for (T candidate : population) {
+      tasks.add(new FitnessEvalutationTask<>(fitnessEvaluator,
+          candidate,
+          unmodifiablePopulation,
+          timeoutNanos,
+          penaltyFitness));
+    }
+
+    double[] estimates = null;
+    double[] expectedNanos = null;
+    if (costModel == null) {
+      for (FitnessEvalutationTask<T> task : tasks) {
+        worker.submit(task);
+      }
+    } else {
+      // The worker's queue is first-in, first-out, so submitting the longest evaluations
+      // first keeps them off the end of the generation's critical path.
+      estimates = costModel.estimate(population);
+      double[] predictions = new double[estimates.length];
+      for (int i = 0; i < predictions.length; i++) {
+        predictions[i] = costModel.predictNanos(estimates[i]);
+      }
+      if (costModel.isCalibrated()) {
+        expectedNanos = predictions;
+      }
+      for (int index : EvaluationCostModel.longestFirst(predictions)) {
+        worker.submit(tasks.get(index));
+      }
+    }
+
+    if (speculation != null) {
+      awaitWithSpeculation(tasks, expectedNanos);
+    }
+
+    List<EvaluatedCandidate<T>> evaluatedPopulation = collect(tasks);
+
+    if (costModel != null) {
+      for (int i = 0; i < tasks.size(); i++) {
+        long duration = tasks.get(i).getDuration();
+        if (duration >= 0) {
+          costModel.record(estimates[i], duration);
+        }
+      }
+    }
+    return evaluatedPopulation;
+  }
+
+
+  /**
+   * Starts evaluating some candidates, one task per candidate, without waiting for the
+   * results.  Used to evaluate a population in batches as it is bred; the cost model and
+   * speculation do not apply.
+   *
+   * @param candidates The candidates to evaluate.
+   * @param population The population passed to the fitness function with each candidate.
+   * @return The tasks, for {@link #collect(List)}.
+   */
+  List<FitnessEvalutationTask<T>> submit(List<T> candidates, List<T> population) {
+    List<FitnessEvalutationTask<T>> tasks = new ArrayList<>(candidates.size());
+    for (T candidate : candidates) {
+      FitnessEvalutationTask<T> task = new FitnessEvalutationTask<>(fitnessEvaluator,
+          candidate,
+          population,
+          timeoutNanos,
+          penaltyFitness);
+      tasks.add(task);
+      worker.submit(task);
+    }
+    return tasks;
+  }
+
+
+  /**
+   * Waits for submitted tasks to finish.
+   *
+   * @param tasks The tasks.
+   * @return The evaluated candidates, in the same order as the tasks.  If the calling
+   * thread is interrupted, its interrupt flag is restored and the entries for unfinished
+   * evaluations are null.
+   */
+  List<EvaluatedCandidate<T>> collect(List<FitnessEvalutationTask<T>> tasks) {
+    List<EvaluatedCandidate<T>> evaluatedPopulation = new ArrayList<>(tasks.size());
+    for (FitnessEvalutationTask<T> task : tasks) {
+      try {
+        evaluatedPopulation.add(task.getResult().get());
+        // Counted here rather than by the watchdog so that the count is up-to-date
+        // by the time evaluation returns.
+        if (task.isTimedOut()) {
+          counters.timedOut();
+        }
+      } catch (InterruptedException ex) {
+        // Restore the interrupted status, allows methods further up the call-stack
+        // to abort processing if appropriate.
+        Thread.currentThread().interrupt();
+        evaluatedPopulation.add(null);
+      } catch (ExecutionException ex) {
+        throw new IllegalStateException("Fitness evaluation task execution failed.", ex);
+      }
+    }
+    return evaluatedPopulation;
+  }
+
+
+  /**
+   * Evaluates the population in a few chunks per worker thread, each chunk evaluated
+   * sequentially by a single task.  If there is a cost model, the chunks are balanced by
+   * predicted cost, otherwise they are contiguous ranges of equal size.  Timeouts and
+   * speculation do not apply.
+   *
+   * @param population The candidates to evaluate.
+   * @return The evaluated candidates, in the same order as the population.  If the calling
+   * thread is interrupted, its interrupt flag is restored and the entries for unfinished
+   * chunks are null.
+   */
+  List<EvaluatedCandidate<T>> evaluateChunked(List<T> population) {
+    List<T> unmodifiablePopulation = Collections.unmodifiableList(population);
+    int chunkCount = Math.min(population.size(), worker.getThreadCount() * CHUNKS_PER_THREAD);
+    double[] estimates = costModel == null ? null : costModel.estimate(population);
+    List<List<Integer>> chunks = estimates == null
+        ? contiguousChunks(population.size(), chunkCount)
+        : balancedChunks(estimates, chunkCount);
+
+    List<CompletableFuture<List<EvaluatedCandidate<T>>>> results = new ArrayList<>(chunks.size());
+    for (List<Integer> chunk : chunks) {
+      CompletableFuture<List<EvaluatedCandidate<T>>> result = new CompletableFuture<>();
+      results.add(result);
+      worker.execute(() -> {
+        try {
+          List<EvaluatedCandidate<T>> evaluatedChunk = new ArrayList<>(chunk.size());
+          for (int index : chunk) {
+            T candidate = population.get(index);
+            long startTime = estimates == null ? 0 : System.nanoTime();
+            double fitness = fitnessEvaluator.getFitness(candidate, unmodifiablePopulation);
+            if (estimates != null) {
+              costModel.record(estimates[index], System.nanoTime() - startTime);
+            }
+            evaluatedChunk.add(new EvaluatedCandidate<>(candidate, fitness));
+          }
+          result.complete(evaluatedChunk);
+        } catch (RuntimeException | Error ex) {
+          result.completeExceptionally(ex);
+        }
+      });
+    }
+
+    List<EvaluatedCandidate<T>> evaluatedPopulation = new ArrayList<>(Collections.nCopies(population.size(), null));
+    for (int i = 0; i < chunks.size(); i++) {
+      try {
+        List<EvaluatedCandidate<T>> evaluatedChunk = results.get(i).get();
+        List<Integer> chunk = chunks.get(i);
+        for (int j = 0; j < chunk.size(); j++) {
+          evaluatedPopulation.set(chunk.get(j), evaluatedChunk.get(j));
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException ex) {
+        throw new IllegalStateException("Fitness evaluation task execution failed.", ex);
+      }
+    }
+    return evaluatedPopulation;
+  }
+
+
+  private static List<List<Integer>> contiguousChunks(int size, int chunkCount) {
+    List<List<Integer>> chunks = new ArrayList<>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      int start = (int) ((long) size * i / chunkCount);
+      int end = (int) ((long) size * (i + 1) / chunkCount);
+      List<Integer> chunk = new ArrayList<>(end - start);
+      for (int index = start; index < end; index++) {
+        chunk.add(index);
+      }
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+
+  /**
+   * Assigns candidates, most expensive first, to whichever chunk has the lowest total
+   * cost so far.  Each chunk therefore also evaluates its own candidates longest first.
+   */
+  private List<List<Integer>> balancedChunks(double[] estimates, int chunkCount) {
+    double[] predictions = new double[estimates.length];
+    for (int i = 0; i < predictions.length; i++) {
+      predictions[i] = costModel.predictNanos(estimates[i]);
+    }
+    List<List<Integer>> chunks = new ArrayList<>(chunkCount);
+    double[] loads = new double[chunkCount];
+    for (int i = 0; i < chunkCount; i++) {
+      chunks.add(new ArrayList<>());
+    }
+    for (int index : EvaluationCostModel.longestFirst(predictions)) {
+      int lightest = 0;
+      for (int i = 1; i < chunkCount; i++) {
+        boolean tied = loads[i] == loads[lightest] && chunks.get(i).size() < chunks.get(lightest).size();
+        if (loads[i] < loads[lightest] || tied) {
+          lightest = i;
+        }
+      }
+      chunks.get(lightest).add(index);
+      loads[lightest] += predictions[index];
+    }
+    return chunks;
+  }
+
+
+  /**
+   * Waits for the tasks to finish, periodically looking for stragglers to re-submit.
+   * Returns early if the calling thread is interrupted or any task fails.
+   *
+   * @param expectedNanos The predicted duration of each task, or null if there are no
+   *                      reliable predictions.
+   */
+  private void awaitWithSpeculation(List<FitnessEvalutationTask<T>> tasks, double[] expectedNanos) {
+    CompletableFuture<?>[] results = new CompletableFuture<?>[tasks.size()];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = tasks.get(i).getResult();
+    }
+    CompletableFuture<Void> all = CompletableFuture.allOf(results);
+    boolean[] speculated = new boolean[tasks.size()];
+    long pollNanos = MIN_POLL_NANOS;
+    while (!all.isDone()) {
+      try {
+        all.get(pollNanos, TimeUnit.NANOSECONDS);
+      } catch (TimeoutException ex) {
+        pollNanos = speculate(tasks, speculated, expectedNanos);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException ex) {
+        return; // The failure is reported when the individual results are collected.
+      }
+    }
+  }
+
+
+  /**
+   * Re-submits any running evaluation that has taken much longer than most, provided that
+   * enough of the population has been evaluated to know what "most" means and that there
+   * is a thread free to run the copy.  Whichever copy finishes first provides the result
+   * and the other is interrupted.  If predicted durations are available, an evaluation that
+   * is expected to take longer than is typical is judged against its own prediction, so
+   * that candidates that are expected to be slow are not mistaken for stragglers.
+   *
+   * @return How long to wait before checking again.
+   */
+  private long speculate(List<FitnessEvalutationTask<T>> tasks, boolean[] speculated, double[] expectedNanos) {
+    long[] durations = new long[tasks.size()];
+    int finished = 0;
+    for (FitnessEvalutationTask<T> task : tasks) {
+      long duration = task.getDuration();
+      if (duration >= 0) {
+        durations[finished++] = duration;
+      }
+    }
+    if (finished == 0 || finished < speculation.completedFraction * tasks.size()) {
+      return MIN_POLL_NANOS;
+    }
+    Arrays.sort(durations, 0, finished);
+    long percentile = durations[Math.max(0, (int) Math.ceil(speculation.latencyPercentile * finished) - 1)];
+
+    long now = System.nanoTime();
+    for (int i = 0; i < tasks.size() && worker.hasIdleThread(); i++) {
+      FitnessEvalutationTask<T> original = tasks.get(i);
+      long startTime = original.getStartTime();
+      double expected = expectedNanos == null ? percentile : Math.max(percentile, expectedNanos[i]);
+      double threshold = speculation.slowdownFactor * expected;
+      if (!speculated[i] && startTime >= 0 && !original.getResult().isDone() && now - startTime > threshold) {
+        speculated[i] = true;
+        FitnessEvalutationTask<T> copy = original.duplicate();
+        copy.getResult().thenAccept(result -> {
+          if (original.getResult().complete(result)) {
+            counters.speculativeWin();
+            original.interruptIfRunning();
+          }
+        });
+        original.getResult().whenComplete((result, failure) -> {
+          copy.getResult().cancel(false);
+          copy.interruptIfRunning();
+        });
+        counters.speculativeLaunch();
+        worker.submit(copy);
+      }
+    }
+    return Math.max(MIN_POLL_NANOS, Math.min(MAX_POLL_NANOS, percentile / 4));
+  }
+
+
+  /**
+   * When to speculatively re-submit straggling evaluations.
+   */
+  static final class Speculation {
+    private final double completedFraction;
+    private final double latencyPercentile;
+    private final double slowdownFactor;
+
+    /**
+     * @param completedFraction The proportion of the population that must have been
+     *                          evaluated before any evaluation is re-submitted.
+     * @param latencyPercentile The percentile of completed evaluation times used as the
+     *                          typical evaluation time.
+     * @param slowdownFactor    How many times longer than typical an evaluation must have
+     *                          been running to be re-submitted.
+     */
+    Speculation(double completedFraction, double latencyPercentile, double slowdownFactor) {
+      this.completedFraction = completedFraction;
+      this.latencyPercentile = latencyPercentile;
+      this.slowdownFactor = slowdownFactor;
+    }
+  }
+}
@@ -0,0 +1,318 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Estimates noisy fitness scores by racing: rather than averaging a fixed number of
+ * samples for every candidate, candidates are sampled in rounds and stop being sampled as
+ * soon as the confidence intervals show where they stand.  The race is to identify the
+ * best few candidates of each batch (the <em>contenders</em>), so a candidate stops when
+ * at least that many others are certainly better (it is out) or when fewer than that
+ * many others could be better (it is in).  Clearly poor candidates therefore drop out
+ * after the minimum number of samples, while close contenders are sampled up to the
+ * maximum.</p>
+ *
+ * <p>Each interval is {@code mean &plusmn; t&middot;s/&radic;n}, where {@code s} is the
+ * sample standard deviation and {@code t} is the Student's t quantile for the confidence
+ * level with {@code n - 1} degrees of freedom, so intervals from few samples are suitably
+ * wide.  With fewer than two samples the interval is unbounded.  Each round
+ * samples all candidates still in the race in parallel, so the sampling fitness function
+ * must be safe to call from several threads at once.</p>
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ */
+public class RacingFitnessEvaluator<T> implements NoisyFitnessEvaluator<T> {
+  private final FitnessEvaluator<? super T> sampler;
+  private final int minSamples;
+  private final int maxSamples;
+  private final int contenders;
+  // The t quantile for each sample count, used to size the intervals.
+  private final double[] quantiles;
+
+  private final AtomicLong samplesTaken = new AtomicLong();
+
+
+  /**
+   * @param sampler         A fitness function whose scores are single noisy samples.
+   * @param minSamples      The number of samples taken for every candidate.  Must be at
+   *                        least 2 for racing to be able to stop any candidate early.
+   * @param maxSamples      The most samples taken for any candidate.
+   * @param contenders      The number of best candidates in each batch that the race
+   *                        should separate from the rest, e.g. the number that survive
+   *                        selection.
+   * @param confidenceLevel The probability that each interval contains the true score,
+   *                        such as 0.95.
+   */
+  public RacingFitnessEvaluator(FitnessEvaluator<? super T> sampler,
+                                int minSamples,
+                                int maxSamples,
+                                int contenders,
+                                double confidenceLevel) {
+    if (minSamples <= 0 || maxSamples < minSamples) {
+      throw new IllegalArgumentException("Sample counts must be positive, with minimum no greater than maximum.");
+    }
+    if (contenders <= 0) {
+      throw new IllegalArgumentException("Number of contenders must be positive.");
+    }
+    if (confidenceLevel <= 0 || confidenceLevel >= 1) {
+      throw new IllegalArgumentException("Confidence level must be between 0 and 1.");
+    }
+    this.sampler = sampler;
+    this.minSamples = minSamples;
+    this.maxSamples = maxSamples;
+    this.contenders = contenders;
+    this.quantiles = new double[maxSamples + 1];
+    for (int n = 2; n <= maxSamples; n++) {
+      quantiles[n] = studentQuantile((1 + confidenceLevel) / 2, n - 1);
+    }
+  }
+
+
+  /**
+   * Estimates a single candidate's fitness, without anything to race against, as the mean
+   * of the maximum number of samples.
+   */
+  public double getFitness(T candidate, List<? extends T> population) {
+    double sum = 0;
+    for (int i = 0; i < maxSamples; i++) {
+      sum += sampler.getFitness(candidate, population);
+    }
+    samplesTaken.addAndGet(maxSamples);
+    return sum / maxSamples;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isNatural() {
+    return sampler.isNatural();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean retainsCandidates() {
+    return sampler.retainsCandidates();
+  }
+
+
+  /**
+   * @return The means of the raced estimates.
+   */
+  public double[] evaluateBatch(List<? extends T> candidates, List<? extends T> population) {
+    ConfidenceInterval[] estimates = estimateBatch(candidates, population);
+    double[] scores = new double[estimates.length];
+    for (int i = 0; i < scores.length; i++) {
+      scores[i] = estimates[i].getMean();
+    }
+    return scores;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public ConfidenceInterval[] estimateBatch(List<? extends T> candidates, List<? extends T> population) {
+    int size = candidates.size();
+    int[] counts = new int[size];
+    double[] means = new double[size];
+    double[] squares = new double[size]; // Sums of squared differences from the mean.
+    boolean[] racing = new boolean[size];
+    Arrays.fill(racing, true);
+
+    for (int round = 0; round < maxSamples; round++) {
+      int[] active = IntStream.range(0, size).filter(i -> racing[i]).toArray();
+      if (active.length == 0) {
+        break;
+      }
+      double[] samples = IntStream.of(active).parallel()
+          .mapToDouble(i -> sampler.getFitness(candidates.get(i), population))
+          .toArray();
+      samplesTaken.addAndGet(active.length);
+      for (int j = 0; j < active.length; j++) {
+        // Welford's update of the running mean and sum of squares.
+        int i = active[j];
+        ++counts[i];
+        double delta = samples[j] - means[i];
+        means[i] += delta / counts[i];
+        squares[i] += delta * (samples[j] - means[i]);
+      }
+      if (round + 1 >= minSamples) {
+        eliminate(counts, means, squares, racing);
+      }
+    }
+
+    ConfidenceInterval[] estimates = new ConfidenceInterval[size];
+    for (int i = 0; i < size; i++) {
+      double halfWidth = halfWidth(counts[i], squares[i]);
+      estimates[i] = new ConfidenceInterval(means[i],
+          Math.max(0, means[i] - halfWidth),
+          means[i] + halfWidth,
+          counts[i]);
+    }
+    return estimates;
+  }
+
+
+  /**
+   * @return The total number of samples taken by this evaluator.
+   */
+  public long getSamplesTaken() {
+    return samplesTaken.get();
+  }
+
+
+  /**
+   * Stops racing the candidates that are certainly in or certainly out of the contenders.
+   * Intervals are compared in terms of "goodness", so that higher is always better.
+   */
+  private void eliminate(int[] counts, double[] means, double[] squares, boolean[] racing) {
+    int size = counts.length;
+    if (size <= contenders) {
+      Arrays.fill(racing, false); // Every candidate is a contender.
+      return;
+    }
+    double sign = isNatural() ? 1 : -1;
+    double[] lows = new double[size];
+    double[] highs = new double[size];
+    for (int i = 0; i < size; i++) {
+      double halfWidth = halfWidth(counts[i], squares[i]);
+      lows[i] = sign * means[i] - halfWidth;
+      highs[i] = sign * means[i] + halfWidth;
+    }
+    double[] sortedLows = lows.clone();
+    double[] sortedHighs = highs.clone();
+    Arrays.sort(sortedLows);
+    Arrays.sort(sortedHighs);
+    for (int i = 0; i < size; i++) {
+      if (racing[i]) {
+        int certainlyBetter = size - upperBound(sortedLows, highs[i]);
+        // Other candidates whose intervals reach this one's lower bound (excluding itself).
+        int possiblyBetter = size - lowerBound(sortedHighs, lows[i]) - 1;
+        if (certainlyBetter >= contenders || possiblyBetter < contenders) {
+          racing[i] = false;
+        }
+      }
+    }
+  }
+
+
+  private double halfWidth(int count, double squares) {
+    return count < 2 ? Double.POSITIVE_INFINITY : quantiles[count] * Math.sqrt(Math.max(0, squares) / (count - 1) / count);
+  }
+
+
+  /**
+   * @return The number of values in the sorted array that are no greater than the key.
+   */
+  private static int upperBound(double[] sorted, double key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] <= key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+
+  /**
+   * @return The number of values in the sorted array that are less than the key.
+   */
+  private static int lowerBound(double[] sorted, double key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+
+  /**
+   * The inverse of the cumulative distribution function of Student's t distribution,
+   * exact for one and two degrees of freedom and otherwise by the Cornish-Fisher expansion
+   * about the normal quantile (within 1% from three degrees of freedom).
+   *
+   * @param p       A probability between 0 and 1 (exclusive).
+   * @param degrees The number of degrees of freedom.
+   * @return The value below which a t variate falls with probability p.
+   */
+  static double studentQuantile(double p, int degrees) {
+    if (degrees == 1) {
+      return Math.tan(Math.PI * (p - 0.5));
+    } else if (degrees == 2) {
+      return (2 * p - 1) / Math.sqrt(2 * p * (1 - p));
+    }
+    double z = normalQuantile(p);
+    double z2 = z * z;
+    double v = degrees;
+    return z
+        + z * (z2 + 1) / (4 * v)
+        + z * ((5 * z2 + 16) * z2 + 3) / (96 * v * v)
+        + z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / (384 * v * v * v);
+  }
+
+
+  /**
+   * The inverse of the standard normal cumulative distribution function, by Acklam's
+   * rational approximation (relative error below 1.2e-9).
+   *
+   * @param p A probability between 0 and 1 (exclusive).
+   * @return The value below which a standard normal variate falls with probability p.
+   */
+  static double normalQuantile(double p) {
+    final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                        1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+    final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                        6.680131188771972e+01, -1.328068155288572e+01};
+    final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                        -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+    final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                        3.754408661907416e+00};
+    final double low = 0.02425;
+    if (p < low) {
+      double q = Math.sqrt(-2 * Math.log(p));
+      return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+          / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+    } else if (p <= 1 - low) {
+      double q = p - 0.5;
+      double r = q * q;
+      return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+          / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    } else {
+      double q = Math.sqrt(-2 * Math.log(1 - p));
+      return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+          / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+    }
+  }
+}
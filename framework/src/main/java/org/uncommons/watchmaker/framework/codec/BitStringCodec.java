@@ -0,0 +1,54 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.codec;
+
+import org.uncommons.maths.binary.BitString;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec for {@link BitString} candidates.  Bits are packed eight to a byte,
+ * so the encoded form is only slightly larger than the in-memory representation.
+ */
+public class BitStringCodec implements CandidateCodec<BitString> {
+  public void encode(BitString candidate, DataOutput out) throws IOException {
+    int length = candidate.getLength();
+    out.writeInt(length);
+    byte[] packed = new byte[(length + 7) / 8];
+    for (int i = 0; i < length; i++) {
+      if (candidate.getBit(i)) {
+        packed[i >>> 3] |= 1 << (i & 7);
+      }
+    }
+    out.write(packed);
+  }
+
+
+  public BitString decode(DataInput in) throws IOException {
+    int length = CodecUtils.readLength(in);
+    byte[] packed = new byte[(length + 7) / 8];
+    in.readFully(packed);
+    BitString bitString = new BitString(length);
+    for (int i = 0; i < length; i++) {
+      if ((packed[i >>> 3] & (1 << (i & 7))) != 0) {
+        bitString.setBit(i, true);
+      }
+    }
+    return bitString;
+  }
+}
@@ -0,0 +1,37 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec for candidates that are arrays of primitive bytes.
+ */
+public class ByteArrayCodec implements CandidateCodec<byte[]> {
+  public void encode(byte[] candidate, DataOutput out) throws IOException {
+    out.writeInt(candidate.length);
+    out.write(candidate);
+  }
+
+
+  public byte[] decode(DataInput in) throws IOException {
+    byte[] candidate = new byte[CodecUtils.readLength(in)];
+    in.readFully(candidate);
+    return candidate;
+  }
+}
@@ -0,0 +1,50 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts candidates to and from a compact binary form so that they can be
+ * transferred between processes (e.g. migrants moving between islands hosted by
+ * different JVMs).  Implementations must be able to decode anything that they
+ * encode, and must write exactly the bytes that a subsequent call to
+ * {@link #decode(DataInput)} will consume.
+ *
+ * @param <T> The type of candidate that this codec handles.
+ */
+public interface CandidateCodec<T> {
+  /**
+   * Writes the binary form of a single candidate.
+   *
+   * @param candidate The candidate to encode.
+   * @param out       The destination for the encoded bytes.
+   * @throws IOException If there is a problem writing to the output.
+   */
+  void encode(T candidate, DataOutput out) throws IOException;
+
+
+  /**
+   * Reads a single candidate that was previously written by {@link #encode(Object, DataOutput)}.
+   *
+   * @param in The source of the encoded bytes.
+   * @return The decoded candidate.
+   * @throws IOException If there is a problem reading from the input.
+   */
+  T decode(DataInput in) throws IOException;
+}
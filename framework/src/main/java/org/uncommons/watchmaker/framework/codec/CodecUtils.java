@@ -0,0 +1,52 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.codec;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * Helpers shared by the codecs in this package.
+ */
+final class CodecUtils {
+  /**
+   * The largest number of elements that a codec will accept in a length prefix.  Encoded
+   * candidates may arrive from another process, so a corrupt or hostile length must not be
+   * able to make the decoder allocate an arbitrarily large array.
+   */
+  static final int MAX_LENGTH = 1 << 24;
+
+
+  private CodecUtils() {
+    // Prevents instantiation of utility class.
+  }
+
+
+  /**
+   * Reads a length prefix and checks that it is in the range 0 to {@link #MAX_LENGTH}.
+   *
+   * @param in The source of the encoded bytes.
+   * @return The length.
+   * @throws IOException If the length cannot be read or is out of range.
+   */
+  static int readLength(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > MAX_LENGTH) {
+      throw new IOException("Invalid encoded length: " + length);
+    }
+    return length;
+  }
+}
@@ -0,0 +1,127 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>Fall-back codec for any {@link Serializable} candidate type.  Standard Java
+ * serialization is considerably more verbose than a type-specific codec, so this
+ * should only be used for candidate types that don't have a dedicated codec.</p>
+ *
+ * <p>Deserializing arbitrary classes from another process is a well-known route to
+ * remote code execution, so decoding only accepts the candidate type, the classes
+ * passed to the constructor, strings, boxed primitives and arrays of any of these
+ * (or of primitives).  Every other class that appears in the serialized form,
+ * including the serializable superclasses and field types of the candidate type,
+ * must be listed explicitly.</p>
+ *
+ * @param <T> The type of candidate that this codec handles.
+ */
+public class SerializableCodec<T extends Serializable> implements CandidateCodec<T> {
+  private static final Set<Class<?>> STANDARD_CLASSES = new HashSet<>(Arrays.<Class<?>>asList(String.class,
+      Boolean.class,
+      Byte.class,
+      Character.class,
+      Short.class,
+      Integer.class,
+      Long.class,
+      Float.class,
+      Double.class,
+      Number.class));
+
+  private final Class<T> type;
+  private final Set<Class<?>> allowedClasses = new HashSet<>(STANDARD_CLASSES);
+
+  /**
+   * @param type           The candidate type, used to check decoded objects.
+   * @param allowedClasses Any other classes that may appear in the serialized form of
+   *                       a candidate.
+   */
+  public SerializableCodec(Class<T> type, Class<?>... allowedClasses) {
+    this.type = type;
+    this.allowedClasses.add(type);
+    Collections.addAll(this.allowedClasses, allowedClasses);
+  }
+
+
+  public void encode(T candidate, DataOutput out) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectStream = new ObjectOutputStream(buffer)) {
+      objectStream.writeObject(candidate);
+    }
+    out.writeInt(buffer.size());
+    out.write(buffer.toByteArray());
+  }
+
+
+  public T decode(DataInput in) throws IOException {
+    byte[] bytes = new byte[CodecUtils.readLength(in)];
+    in.readFully(bytes);
+    try (ObjectInputStream objectStream = new RestrictedObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return type.cast(objectStream.readObject());
+    } catch (ClassNotFoundException ex) {
+      throw new IOException("Cannot decode candidate of unknown class.", ex);
+    } catch (ClassCastException ex) {
+      throw new IOException("Decoded object is not a " + type.getName(), ex);
+    }
+  }
+
+
+  /**
+   * Refuses to resolve any class that is not on the codec's allow-list, before an
+   * instance of it can be created.
+   */
+  private final class RestrictedObjectInputStream extends ObjectInputStream {
+    RestrictedObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+      Class<?> resolved = super.resolveClass(description);
+      Class<?> elementType = resolved;
+      while (elementType.isArray()) {
+        elementType = elementType.getComponentType();
+      }
+      if (!elementType.isPrimitive() && !allowedClasses.contains(elementType)) {
+        throw new InvalidClassException(resolved.getName(), "Class is not allowed in a decoded candidate.");
+      }
+      return resolved;
+    }
+
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+      throw new InvalidClassException("Proxy classes are not allowed in a decoded candidate.");
+    }
+  }
+}
@@ -0,0 +1,41 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec for string candidates.  Strings are written as a length prefix followed
+ * by one 16-bit value per character, so there is no limit on the string length
+ * (unlike {@link DataOutput#writeUTF(String)}).
+ */
+public class StringCodec implements CandidateCodec<String> {
+  public void encode(String candidate, DataOutput out) throws IOException {
+    out.writeInt(candidate.length());
+    out.writeChars(candidate);
+  }
+
+
+  public String decode(DataInput in) throws IOException {
+    char[] chars = new char[CodecUtils.readLength(in)];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = in.readChar();
+    }
+    return new String(chars);
+  }
+}
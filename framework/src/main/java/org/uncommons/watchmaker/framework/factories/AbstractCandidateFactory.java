@@ -15,6 +15,7 @@
 //=============================================================================
 package org.uncommons.watchmaker.framework.factories;
 
+import org.uncommons.util.random.SplittableRNG;
 import org.uncommons.watchmaker.framework.CandidateFactory;
 
 import java.util.ArrayList;
@@ -22,6 +23,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Convenient base class for implementations of
@@ -31,6 +34,13 @@ import java.util.Random;
  * @author Daniel Dyer
  */
 public abstract class AbstractCandidateFactory<T> implements CandidateFactory<T> {
+  /**
+   * The number of random candidates generated sequentially by each parallel task when
+   * streaming with a {@link SplittableRNG}.
+   */
+  static final int CHUNK_SIZE = 16;
+
+
   /**
    * Randomly, create an initial population of candidates.  If some
    * control is required over the composition of the initial population,
@@ -70,4 +80,38 @@ public abstract class AbstractCandidateFactory<T> implements CandidateFactory<T>
     }
     return Collections.unmodifiableList(population);
   }
+
+
+  /**
+   * {@inheritDoc}
+   * Random candidates are generated lazily, as the stream is consumed.  If the source of
+   * randomness is a {@link SplittableRNG}, the stream is parallel: the random candidates
+   * are generated in fixed-size chunks, each with its own generator split from it in
+   * chunk order, so the population is the same however many threads are available.
+   * {@link #generateRandomCandidate(Random)} must then be safe to call from several
+   * threads at once.
+   */
+  public Stream<T> streamInitialPopulation(int populationSize,
+                                           Collection<T> seedCandidates,
+                                           Random rng) {
+    if (seedCandidates.size() > populationSize) {
+      throw new IllegalArgumentException("Too many seed candidates for specified population size.");
+    }
+    int count = populationSize - seedCandidates.size();
+    Stream<T> randomCandidates;
+    if (rng instanceof SplittableRNG) {
+      int chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      // Split up front and sequentially, so that each chunk's generator is independent of scheduling.
+      List<Random> generators = new ArrayList<>(chunkCount);
+      for (int i = 0; i < chunkCount; i++) {
+        generators.add(((SplittableRNG) rng).split());
+      }
+      randomCandidates = IntStream.range(0, chunkCount).parallel().boxed().flatMap(
+          chunk -> IntStream.range(chunk * CHUNK_SIZE, Math.min(count, (chunk + 1) * CHUNK_SIZE))
+              .mapToObj(i -> generateRandomCandidate(generators.get(chunk))));
+    } else {
+      randomCandidates = IntStream.range(0, count).mapToObj(i -> generateRandomCandidate(rng));
+    }
+    return Stream.concat(new ArrayList<>(seedCandidates).stream(), randomCandidates);
+  }
 }
@@ -0,0 +1,52 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.factories;
+
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+
+import java.util.Random;
+
+/**
+ * Generates random vectors with each element uniformly distributed within its bounds.
+ *
+ * @see DoubleVector
+ */
+public class DoubleVectorFactory extends AbstractCandidateFactory<DoubleVector> {
+  private final VectorBounds bounds;
+
+
+  /**
+   * @param bounds The range of each element, which also determines the vector length.
+   */
+  public DoubleVectorFactory(VectorBounds bounds) {
+    this.bounds = bounds;
+  }
+
+
+  /**
+   * @param rng A source of randomness.
+   * @return A random vector within the bounds configured for this factory.
+   */
+  public DoubleVector generateRandomCandidate(Random rng) {
+    double[] values = new double[bounds.size()];
+    for (int i = 0; i < values.length; i++) {
+      double minimum = bounds.getMinimum(i);
+      values[i] = bounds.clamp(i, minimum + rng.nextDouble() * (bounds.getMaximum(i) - minimum));
+    }
+    return DoubleVector.wrap(values);
+  }
+}
@@ -0,0 +1,50 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.factories;
+
+import org.uncommons.util.permutation.IntPermutation;
+
+import java.util.Random;
+
+/**
+ * Generates random permutations of the integers 0 to n-1.  Candidates typically refer
+ * to the elements being ordered by index.
+ *
+ * @see IntPermutation
+ */
+public class IntPermutationFactory extends AbstractCandidateFactory<IntPermutation> {
+  private final int size;
+
+
+  /**
+   * @param size The number of elements in each permutation.
+   */
+  public IntPermutationFactory(int size) {
+    this.size = size;
+  }
+
+
+  /**
+   * Generates a random permutation.
+   *
+   * @param rng A source of randomness used to generate the random
+   *            permutation.
+   * @return A random permutation.
+   */
+  public IntPermutation generateRandomCandidate(Random rng) {
+    return IntPermutation.random(size, rng);
+  }
+}
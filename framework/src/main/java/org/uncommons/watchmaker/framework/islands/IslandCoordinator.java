@@ -0,0 +1,450 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.islands;
+
+import org.uncommons.util.concurrent.ConfigurableThreadFactory;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.TerminationCondition;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>Manages an island evolution in which the islands are hosted by several
+ * {@link IslandNode}s, usually running in separate JVMs on one or more hosts.
+ * This is the networked counterpart of {@link IslandEvolution}.</p>
+ *
+ * <p>The coordinator listens for a fixed number of nodes to connect, tells each node
+ * where to send its emigrants, and then aggregates the statistics that each node
+ * reports at the end of each of its epochs.  When every node has reported a given epoch
+ * the coordinator calculates the {@link PopulationData} for the global population and
+ * checks the termination conditions.  Registered {@link IslandEvolutionObserver}s receive
+ * the global updates and also the per-generation updates of every individual island,
+ * with islands numbered consecutively across nodes in the order that the nodes connected.</p>
+ *
+ * <p>The coordinator does not do any evolution itself and never sees more of the population
+ * than the fittest candidate of each node.</p>
+ *
+ * <p><em>Neither the coordinator nor the nodes authenticate the processes that connect
+ * to them, and candidates are decoded from whatever those processes send.  These
+ * endpoints must never be exposed to untrusted peers.</em>  By default the coordinator
+ * only listens on the loopback interface; to run nodes on other hosts, bind it to an
+ * address on a trusted private network.</p>
+ *
+ * @param <T> The type of entity that is to be evolved.
+ * @see IslandNode
+ */
+public class IslandCoordinator<T> implements Closeable {
+  // Not a protocol message, used internally to signal that a node's connection has been lost.
+  private static final byte DISCONNECTED = 0;
+
+  private final ServerSocket serverSocket;
+  private final int nodeCount;
+  private final CandidateCodec<T> codec;
+  private final boolean naturalFitness;
+  private final ThreadFactory threadFactory = new ConfigurableThreadFactory("IslandCoordinator",
+      Thread.NORM_PRIORITY,
+      true);
+
+  private final Set<IslandEvolutionObserver<? super T>> observers = new CopyOnWriteArraySet<>();
+
+  private List<TerminationCondition> satisfiedTerminationConditions;
+
+
+  /**
+   * Creates a coordinator and starts listening for nodes on the loopback interface, so
+   * that only nodes running on the same host can connect.
+   *
+   * @param port           The port on which to listen for nodes.  Zero means that any free
+   *                       port may be used (see {@link #getPort()}).
+   * @param nodeCount      The number of nodes that must connect before evolution starts.
+   * @param codec          Decodes the candidates reported by nodes.
+   * @param naturalFitness If true, indicates that higher fitness values mean fitter
+   *                       individuals.  If false, indicates that fitter individuals will have lower scores.
+   * @throws IOException If the coordinator cannot listen on the specified port.
+   * @see #IslandCoordinator(InetAddress, int, int, CandidateCodec, boolean)
+   */
+  public IslandCoordinator(int port,
+                           int nodeCount,
+                           CandidateCodec<T> codec,
+                           boolean naturalFitness) throws IOException {
+    this(InetAddress.getLoopbackAddress(), port, nodeCount, codec, naturalFitness);
+  }
+
+
+  /**
+   * Creates a coordinator and starts listening for nodes.
+   *
+   * @param bindAddress    The local address on which to listen for nodes.  This must
+   *                       only be reachable from trusted hosts.
+   * @param port           The port on which to listen for nodes.  Zero means that any free
+   *                       port may be used (see {@link #getPort()}).
+   * @param nodeCount      The number of nodes that must connect before evolution starts.
+   * @param codec          Decodes the candidates reported by nodes.
+   * @param naturalFitness If true, indicates that higher fitness values mean fitter
+   *                       individuals.  If false, indicates that fitter individuals will have lower scores.
+   * @throws IOException If the coordinator cannot listen on the specified port.
+   */
+  public IslandCoordinator(InetAddress bindAddress,
+                           int port,
+                           int nodeCount,
+                           CandidateCodec<T> codec,
+                           boolean naturalFitness) throws IOException {
+    if (nodeCount <= 0) {
+      throw new IllegalArgumentException("Node count must be positive.");
+    }
+    this.serverSocket = new ServerSocket(port, 50, bindAddress);
+    this.nodeCount = nodeCount;
+    this.codec = codec;
+    this.naturalFitness = naturalFitness;
+  }
+
+
+  /**
+   * @return The port on which this coordinator listens for nodes.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+
+  /**
+   * <p>Waits for all of the nodes to connect, starts the evolution on each of them and
+   * returns the fittest candidate so far at the point that any of the termination conditions
+   * is satisfied.  At that point all nodes are told to stop.</p>
+   *
+   * <p><em>If you interrupt the request thread before this method returns, the
+   * method will return prematurely (with the best individual found so far, or null if
+   * no epoch has completed).  After returning in this way, the current thread's interrupted
+   * flag will be set.</em></p>
+   *
+   * @param populationSize The population size <em>for each island</em>.
+   * @param eliteCount     The number of candidates preserved via elitism <em>on each island</em>.
+   * @param epochLength    The number of generations that make up an epoch.
+   * @param migrantCount   The number of individuals that will be migrated from each island at the
+   *                       end of each epoch, both between the islands hosted by a node and from each
+   *                       node to the next node in the ring.
+   * @param conditions     One or more conditions that may cause the evolution to terminate.
+   *                       They are evaluated against the global population data for each epoch.
+   * @return The fittest solution found by the evolutionary process on any of the islands.
+   */
+  public T evolve(int populationSize,
+                  int eliteCount,
+                  int epochLength,
+                  int migrantCount,
+                  TerminationCondition... conditions) {
+    if (conditions.length == 0) {
+      throw new IllegalArgumentException("At least one TerminationCondition must be specified.");
+    }
+    satisfiedTerminationConditions = null;
+    List<NodeConnection> nodes = new ArrayList<>(nodeCount);
+    BlockingQueue<NodeMessage> messages = new LinkedBlockingQueue<>();
+    try {
+      connectNodes(nodes, populationSize, eliteCount, epochLength, migrantCount);
+      long startTime = System.currentTimeMillis();
+      for (NodeConnection node : nodes) {
+        threadFactory.newThread(() -> node.readMessages(messages)).start();
+      }
+
+      Map<Integer, List<NodeMessage>> epochReports = new HashMap<>();
+      int currentEpochIndex = 0;
+      PopulationData<T> data = null;
+      List<TerminationCondition> satisfiedConditions = null;
+      while (satisfiedConditions == null) {
+        NodeMessage message;
+        try {
+          message = messages.take();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          satisfiedConditions = Collections.emptyList();
+          break;
+        }
+        if (message.type == IslandProtocol.ISLAND_UPDATE) {
+          for (IslandEvolutionObserver<? super T> observer : observers) {
+            observer.islandPopulationUpdate(message.islandIndex, message.data);
+          }
+        } else if (message.type == IslandProtocol.EPOCH) {
+          epochReports.computeIfAbsent(message.epochIndex, index -> new ArrayList<>(nodeCount)).add(message);
+          // Nodes are not synchronised, so several epochs may have been completed by the time
+          // the slowest node reports.
+          while (satisfiedConditions == null && epochReports.containsKey(currentEpochIndex)
+              && epochReports.get(currentEpochIndex).size() == nodeCount) {
+            data = aggregate(epochReports.remove(currentEpochIndex), eliteCount, currentEpochIndex, startTime);
+            for (IslandEvolutionObserver<? super T> observer : observers) {
+              observer.populationUpdate(data);
+            }
+            satisfiedConditions = EvolutionUtils.shouldContinue(data, conditions);
+            ++currentEpochIndex;
+          }
+        } else {
+          throw new IllegalStateException("Lost connection to island node " + message.nodeIndex + ".");
+        }
+      }
+      this.satisfiedTerminationConditions = satisfiedConditions;
+      return data == null ? null : data.getBestCandidate();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      for (NodeConnection node : nodes) {
+        node.stop();
+      }
+    }
+  }
+
+
+  /**
+   * Waits for the expected number of nodes and then tells each of them where it fits in
+   * the ring.
+   */
+  private void connectNodes(List<NodeConnection> nodes,
+                            int populationSize,
+                            int eliteCount,
+                            int epochLength,
+                            int migrantCount) throws IOException {
+    int islandOffset = 0;
+    while (nodes.size() < nodeCount) {
+      Socket socket = serverSocket.accept();
+      NodeConnection node = new NodeConnection(nodes.size(), islandOffset, socket);
+      if (node.input.readByte() != IslandProtocol.HELLO) {
+        socket.close();
+        throw new IOException("Unexpected message from island node.");
+      }
+      node.islandCount = node.input.readInt();
+      node.migrationPort = node.input.readInt();
+      if (node.islandCount <= 0 || node.islandCount > IslandProtocol.MAX_ISLANDS
+          || node.migrationPort <= 0 || node.migrationPort > 0xFFFF) {
+        socket.close();
+        throw new IOException("Invalid registration from island node.");
+      }
+      islandOffset += node.islandCount;
+      nodes.add(node);
+    }
+    for (NodeConnection node : nodes) {
+      NodeConnection next = nodes.get((node.nodeIndex + 1) % nodes.size());
+      synchronized (node.output) {
+        node.output.writeByte(IslandProtocol.START);
+        node.output.writeInt(node.nodeIndex);
+        node.output.writeInt(populationSize);
+        node.output.writeInt(eliteCount);
+        node.output.writeInt(epochLength);
+        node.output.writeInt(migrantCount);
+        node.output.writeBoolean(next != node);
+        node.output.writeUTF(next.socket.getInetAddress().getHostAddress());
+        node.output.writeInt(next.migrationPort);
+        node.output.flush();
+      }
+    }
+  }
+
+
+  /**
+   * Combine the epoch summaries from each node into statistics for the global population.
+   */
+  private PopulationData<T> aggregate(List<NodeMessage> reports,
+                                      int eliteCount,
+                                      int epochIndex,
+                                      long startTime) {
+    int size = 0;
+    double sum = 0;
+    double sumOfSquares = 0;
+    NodeMessage best = null;
+    for (NodeMessage report : reports) {
+      size += report.size;
+      sum += report.sum;
+      sumOfSquares += report.sumOfSquares;
+      if (best == null
+          || (naturalFitness ? report.bestFitness > best.bestFitness : report.bestFitness < best.bestFitness)) {
+        best = report;
+      }
+    }
+    double mean = sum / size;
+    double variance = Math.max(0, sumOfSquares / size - mean * mean);
+    return new PopulationData<>(best.bestCandidate,
+        best.bestFitness,
+        mean,
+        Math.sqrt(variance),
+        naturalFitness,
+        size,
+        eliteCount,
+        epochIndex,
+        System.currentTimeMillis() - startTime);
+  }
+
+
+  /**
+   * <p>Returns a list of all {@link TerminationCondition}s that are satisfied by the current
+   * state of the island evolution.</p>
+   *
+   * <p>If the evolution terminated because the request thread was interrupted before any
+   * termination conditions were satisfied then this method will return an empty list.</p>
+   *
+   * @return A list of statisfied conditions.  The list is guaranteed to be non-null.
+   * @throws IllegalStateException If this method is invoked on a coordinator before
+   *                               evolution is started or while it is still in progress.
+   */
+  public List<TerminationCondition> getSatisfiedTerminationConditions() {
+    if (satisfiedTerminationConditions == null) {
+      throw new IllegalStateException("EvolutionEngine has not terminated.");
+    } else {
+      return Collections.unmodifiableList(satisfiedTerminationConditions);
+    }
+  }
+
+
+  /**
+   * <p>Adds an observer to the evolution.  Observers receive updates from each individual
+   * island at the end of each generation, and updates for the combined global population
+   * at the end of each epoch.</p>
+   *
+   * <p>Updates are dispatched synchronously on the request thread.</p>
+   *
+   * @param observer The callback that will be notified at the end of each generation and epoch.
+   * @see #removeEvolutionObserver(IslandEvolutionObserver)
+   */
+  public void addEvolutionObserver(IslandEvolutionObserver<? super T> observer) {
+    observers.add(observer);
+  }
+
+
+  /**
+   * Remove the specified observer.
+   *
+   * @param observer The observer to remove (if it is registered).
+   * @see #addEvolutionObserver(IslandEvolutionObserver)
+   */
+  public void removeEvolutionObserver(IslandEvolutionObserver<? super T> observer) {
+    observers.remove(observer);
+  }
+
+
+  /**
+   * Stops listening for nodes.
+   *
+   * @throws IOException If there is a problem closing the server socket.
+   */
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+
+
+  /**
+   * A message received from a node, decoded on that node's reader thread.
+   */
+  private final class NodeMessage {
+    private final int nodeIndex;
+    private final byte type;
+    private int islandIndex;
+    private PopulationData<T> data;
+    private int epochIndex;
+    private int size;
+    private double sum;
+    private double sumOfSquares;
+    private double bestFitness;
+    private T bestCandidate;
+
+    NodeMessage(int nodeIndex, byte type) {
+      this.nodeIndex = nodeIndex;
+      this.type = type;
+    }
+  }
+
+
+  private final class NodeConnection {
+    private final int nodeIndex;
+    private final int islandOffset;
+    private final Socket socket;
+    private final DataInputStream input;
+    private final DataOutputStream output;
+    private int islandCount;
+    private int migrationPort;
+    private volatile boolean stopped;
+
+    NodeConnection(int nodeIndex, int islandOffset, Socket socket) throws IOException {
+      this.nodeIndex = nodeIndex;
+      this.islandOffset = islandOffset;
+      this.socket = socket;
+      socket.setTcpNoDelay(true);
+      this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+
+    void readMessages(BlockingQueue<NodeMessage> messages) {
+      try {
+        while (true) {
+          byte type = input.readByte();
+          NodeMessage message = new NodeMessage(nodeIndex, type);
+          if (type == IslandProtocol.ISLAND_UPDATE) {
+            message.islandIndex = islandOffset + input.readInt();
+            message.data = IslandProtocol.readPopulationData(codec, input);
+          } else if (type == IslandProtocol.EPOCH) {
+            message.epochIndex = input.readInt();
+            message.size = input.readInt();
+            message.sum = input.readDouble();
+            message.sumOfSquares = input.readDouble();
+            message.bestFitness = input.readDouble();
+            message.bestCandidate = codec.decode(input);
+          } else {
+            throw new IOException("Unexpected message from island node.");
+          }
+          messages.add(message);
+        }
+      } catch (IOException ex) {
+        if (!stopped) {
+          messages.add(new NodeMessage(nodeIndex, DISCONNECTED));
+        }
+      }
+    }
+
+
+    void stop() {
+      stopped = true;
+      try {
+        synchronized (output) {
+          output.writeByte(IslandProtocol.STOP);
+          output.flush();
+        }
+      } catch (IOException ex) {
+        // The node has already gone.
+      }
+      try {
+        socket.close();
+      } catch (IOException ex) {
+        // Nothing we can do.
+      }
+    }
+  }
+}
@@ -132,9 +132,9 @@ public class IslandEvolution<T> {
 
   /**
    * Helper method used by the constructor to create the individual islands if they haven't
-   * been provided already (via the other constructor).
+   * been provided already (via the other constructor).  Also used by {@link IslandNode}.
    */
-  private static <T> List<EvolutionEngine<T>> createIslands(int islandCount,
+  static <T> List<EvolutionEngine<T>> createIslands(int islandCount,
                                                             CandidateFactory<T> candidateFactory,
                                                             EvolutionaryOperator<T> evolutionScheme,
                                                             FitnessEvaluator<? super T> fitnessEvaluator,
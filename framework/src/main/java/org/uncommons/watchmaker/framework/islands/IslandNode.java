@@ -0,0 +1,515 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.islands;
+
+import org.uncommons.util.concurrent.ConfigurableThreadFactory;
+import org.uncommons.watchmaker.framework.CandidateFactory;
+import org.uncommons.watchmaker.framework.EvaluatedCandidate;
+import org.uncommons.watchmaker.framework.EvolutionEngine;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.SelectionStrategy;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+import org.uncommons.watchmaker.framework.termination.GenerationCount;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>One process in a networked island system.  Each node hosts one or more islands
+ * (instances of {@link EvolutionEngine}) and takes part in an evolution that is managed
+ * by an {@link IslandCoordinator}, which may be running in a different JVM on the same
+ * host or on a different host.</p>
+ *
+ * <p>The nodes are arranged in a ring.  At the end of each epoch a node applies the
+ * configured {@link Migration} strategy to its own islands and then sends a further
+ * {@code migrantCount} randomly-chosen individuals from each of its islands to the next
+ * node in the ring.  Migration between nodes is asynchronous: migrants are sent on a
+ * background thread and a node never waits for immigrants to arrive.  Immigrants that
+ * arrive during an epoch are absorbed at the end of that epoch, taking the places
+ * vacated by the emigrants.  If fewer immigrants than emigrants are available, the
+ * vacancies are filled with new randomly-generated candidates.  At most one epoch's worth
+ * of immigrants is held, so immigrants that arrive while that many are waiting (from a
+ * peer that hosts more islands or runs faster epochs) are dropped, as are any left over
+ * once the vacancies are filled.  Candidates travel between processes in the binary form
+ * defined by the supplied {@link CandidateCodec}.</p>
+ *
+ * <p>Epochs are not synchronised between nodes.  Each node reports summary statistics
+ * to the coordinator at the end of every epoch and keeps evolving until the coordinator
+ * tells it to stop.  Reports are written by a background thread so that a slow
+ * coordinator does not hold up evolution; if per-generation island updates back up, the
+ * surplus updates are skipped (epoch reports never are).</p>
+ *
+ * <p><em>Nodes do not authenticate the peers that send them migrants, and decode
+ * whatever those peers send.  The migration endpoint must never be exposed to untrusted
+ * peers.</em>  By default it only listens on the loopback interface; to run nodes on
+ * several hosts, bind it to an address on a trusted private network.</p>
+ *
+ * @param <T> The type of entity that is to be evolved.
+ * @see IslandCoordinator
+ */
+public class IslandNode<T> {
+  private final List<EvolutionEngine<T>> islands;
+  private final Migration<? super T> migration;
+  private final CandidateCodec<T> codec;
+  private final boolean naturalFitness;
+  private final Random rng;
+
+  private final ThreadFactory threadFactory = new ConfigurableThreadFactory("IslandNode", Thread.NORM_PRIORITY, true);
+  // Island updates queued for the coordinator but not yet written.
+  private final AtomicInteger pendingUpdates = new AtomicInteger();
+
+  // Replaced at the start of each run, when the number of migrants is known.
+  private volatile BlockingQueue<T> immigrants = new LinkedBlockingQueue<>(1);
+  private volatile DataOutputStream coordinatorOutput;
+  private volatile ExecutorService reportSender;
+  private volatile boolean stopped;
+
+
+  /**
+   * Create a node that hosts the specified number of identically-configured islands.
+   *
+   * @param islandCount       The number of islands hosted by this node.
+   * @param migration         A migration strategy for moving individuals between the islands
+   *                          hosted by this node at the end of an epoch.
+   * @param candidateFactory  Generates the initial population for each island.
+   * @param evolutionScheme   The evolutionary operator, or combination of evolutionary operators,
+   *                          used on each island.
+   * @param fitnessEvaluator  The fitness function used on each island.
+   * @param selectionStrategy The selection strategy used on each island.
+   * @param codec             Encodes migrants and reported candidates for transfer to other processes.
+   * @param rng               A source of randomness, used by all islands.
+   * @see #IslandNode(List, Migration, CandidateCodec, boolean, Random)
+   */
+  public IslandNode(int islandCount,
+                    Migration<? super T> migration,
+                    CandidateFactory<T> candidateFactory,
+                    EvolutionaryOperator<T> evolutionScheme,
+                    FitnessEvaluator<? super T> fitnessEvaluator,
+                    SelectionStrategy<? super T> selectionStrategy,
+                    CandidateCodec<T> codec,
+                    Random rng) {
+    this(IslandEvolution.createIslands(islandCount,
+        candidateFactory,
+        evolutionScheme,
+        fitnessEvaluator,
+        selectionStrategy,
+        rng),
+        migration,
+        codec,
+        fitnessEvaluator.isNatural(),
+        rng);
+  }
+
+
+  /**
+   * Create a node from a list of pre-configured islands.
+   *
+   * @param islands        A list of pre-configured islands.
+   * @param migration      A migration strategy for moving individuals between the islands
+   *                       hosted by this node at the end of an epoch.
+   * @param codec          Encodes migrants and reported candidates for transfer to other processes.
+   * @param naturalFitness If true, indicates that higher fitness values mean fitter
+   *                       individuals.  If false, indicates that fitter individuals will have lower scores.
+   * @param rng            A source of randomness, used by all islands.
+   */
+  public IslandNode(List<EvolutionEngine<T>> islands,
+                    Migration<? super T> migration,
+                    CandidateCodec<T> codec,
+                    boolean naturalFitness,
+                    Random rng) {
+    if (islands.isEmpty()) {
+      throw new IllegalArgumentException("A node must host at least one island.");
+    }
+    this.islands = islands;
+    this.migration = migration;
+    this.codec = codec;
+    this.naturalFitness = naturalFitness;
+    this.rng = rng;
+
+    for (int i = 0; i < islands.size(); i++) {
+      final int islandIndex = i;
+      islands.get(islandIndex).addEvolutionObserver(populationData -> {
+        DataOutputStream output = coordinatorOutput;
+        ExecutorService sender = reportSender;
+        // Updates are only progress reports, so skip this one rather than let a slow
+        // coordinator's backlog grow without limit.
+        if (output != null && sender != null && pendingUpdates.get() < islands.size()) {
+          pendingUpdates.incrementAndGet();
+          sender.execute(() -> {
+            try {
+              synchronized (output) {
+                output.writeByte(IslandProtocol.ISLAND_UPDATE);
+                output.writeInt(islandIndex);
+                IslandProtocol.writePopulationData(populationData, codec, output);
+                output.flush();
+              }
+            } catch (IOException ex) {
+              // If we can't talk to the coordinator there is nobody to evolve for.
+              stopped = true;
+            } finally {
+              pendingUpdates.decrementAndGet();
+            }
+          });
+        }
+      });
+    }
+  }
+
+
+  /**
+   * Connects to the coordinator and takes part in the evolution until the coordinator
+   * signals that a termination condition has been satisfied (or until the connection
+   * to the coordinator is lost).  This method blocks for the duration of the evolution.
+   *
+   * @param coordinatorHost The host on which the {@link IslandCoordinator} is listening.
+   * @param coordinatorPort The port on which the {@link IslandCoordinator} is listening.
+   * @throws IOException If the node cannot register with the coordinator.
+   * @see #run(String, int, InetAddress)
+   */
+  public void run(String coordinatorHost, int coordinatorPort) throws IOException {
+    run(coordinatorHost, coordinatorPort, InetAddress.getLoopbackAddress());
+  }
+
+
+  /**
+   * Connects to the coordinator and takes part in the evolution until the coordinator
+   * signals that a termination condition has been satisfied (or until the connection
+   * to the coordinator is lost).  This method blocks for the duration of the evolution.
+   *
+   * @param coordinatorHost The host on which the {@link IslandCoordinator} is listening.
+   * @param coordinatorPort The port on which the {@link IslandCoordinator} is listening.
+   * @param bindAddress     The local address on which to accept migrants from the previous
+   *                        node in the ring.  The coordinator passes that node the address
+   *                        from which this node connected, so the two should match.  This
+   *                        must only be reachable from trusted hosts.
+   * @throws IOException If the node cannot register with the coordinator.
+   */
+  public void run(String coordinatorHost, int coordinatorPort, InetAddress bindAddress) throws IOException {
+    stopped = false;
+    pendingUpdates.set(0);
+    ExecutorService threadPool = Executors.newFixedThreadPool(islands.size(), threadFactory);
+    ExecutorService migrationSender = Executors.newSingleThreadExecutor(threadFactory);
+    // Separate from the migration sender so that a slow peer cannot delay reports.
+    ExecutorService coordinatorSender = Executors.newSingleThreadExecutor(threadFactory);
+    try (Socket coordinator = new Socket(coordinatorHost, coordinatorPort);
+         ServerSocket migrationServer = new ServerSocket(0, 50, bindAddress)) {
+      coordinator.setTcpNoDelay(true);
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(coordinator.getOutputStream()));
+      DataInputStream input = new DataInputStream(new BufferedInputStream(coordinator.getInputStream()));
+      output.writeByte(IslandProtocol.HELLO);
+      output.writeInt(islands.size());
+      output.writeInt(migrationServer.getLocalPort());
+      output.flush();
+
+      if (input.readByte() != IslandProtocol.START) {
+        throw new IOException("Unexpected message from coordinator.");
+      }
+      input.readInt(); // This node's index, only of interest to the coordinator.
+      int populationSize = input.readInt();
+      int eliteCount = input.readInt();
+      int epochLength = input.readInt();
+      int migrantCount = input.readInt();
+      boolean hasPeer = input.readBoolean();
+      String peerHost = input.readUTF();
+      int peerPort = input.readInt();
+
+      immigrants = new LinkedBlockingQueue<>(Math.max(1, migrantCount * islands.size()));
+      threadFactory.newThread(() -> acceptMigrants(migrationServer)).start();
+      threadFactory.newThread(() -> awaitStop(input)).start();
+      MigrantSender sender = hasPeer ? new MigrantSender(peerHost, peerPort) : null;
+      coordinatorOutput = output;
+      reportSender = coordinatorSender;
+
+      evolve(threadPool, migrationSender, coordinatorSender, sender, output, populationSize, eliteCount, epochLength, migrantCount);
+
+      if (sender != null) {
+        migrationSender.submit(sender::close);
+      }
+      // Let the final reports reach the coordinator before the connection is closed.
+      coordinatorSender.shutdown();
+      try {
+        coordinatorSender.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    } finally {
+      coordinatorOutput = null;
+      reportSender = null;
+      stopped = true;
+      threadPool.shutdownNow();
+      migrationSender.shutdown();
+      coordinatorSender.shutdownNow();
+    }
+  }
+
+
+  private void evolve(ExecutorService threadPool,
+                      ExecutorService migrationSender,
+                      ExecutorService coordinatorSender,
+                      MigrantSender sender,
+                      DataOutputStream output,
+                      int populationSize,
+                      int eliteCount,
+                      int epochLength,
+                      int migrantCount) {
+    List<List<T>> islandPopulations = new ArrayList<>(islands.size());
+    int currentEpochIndex = 0;
+    while (!stopped && !Thread.currentThread().isInterrupted()) {
+      List<Callable<List<EvaluatedCandidate<T>>>> islandEpochs = new ArrayList<>(islands.size());
+      for (int i = 0; i < islands.size(); i++) {
+        islandEpochs.add(new Epoch<>(islands.get(i),
+            populationSize,
+            eliteCount,
+            islandPopulations.isEmpty() ? Collections.emptyList() : islandPopulations.get(i),
+            new GenerationCount(epochLength)));
+      }
+      List<List<EvaluatedCandidate<T>>> evaluatedPopulations = new ArrayList<>(islands.size());
+      try {
+        for (Future<List<EvaluatedCandidate<T>>> future : threadPool.invokeAll(islandEpochs)) {
+          evaluatedPopulations.add(new ArrayList<>(future.get()));
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException ex) {
+        throw new IllegalStateException(ex);
+      }
+
+      reportEpoch(coordinatorSender, output, currentEpochIndex, evaluatedPopulations);
+
+      if (islands.size() > 1) {
+        migration.migrate(evaluatedPopulations, migrantCount, rng);
+      }
+      if (sender != null && migrantCount > 0) {
+        List<T> emigrants = new ArrayList<>(migrantCount * islands.size());
+        for (List<EvaluatedCandidate<T>> island : evaluatedPopulations) {
+          Collections.shuffle(island, rng);
+          for (int i = 0; i < migrantCount && !island.isEmpty(); i++) {
+            emigrants.add(island.remove(island.size() - 1).getCandidate());
+          }
+        }
+        migrationSender.submit(() -> sender.send(emigrants));
+      }
+
+      islandPopulations.clear();
+      for (List<EvaluatedCandidate<T>> evaluatedPopulation : evaluatedPopulations) {
+        List<T> candidates = new ArrayList<>(populationSize);
+        for (EvaluatedCandidate<T> evaluatedCandidate : evaluatedPopulation) {
+          candidates.add(evaluatedCandidate.getCandidate());
+        }
+        islandPopulations.add(candidates);
+      }
+      // Absorb any immigrants that have arrived, up to the number of places vacated.  Any
+      // remaining vacancies are filled by the candidate factory at the start of the next epoch.
+      Queue<T> immigrants = this.immigrants;
+      boolean vacancies = true;
+      while (vacancies) {
+        vacancies = false;
+        for (List<T> island : islandPopulations) {
+          if (island.size() < populationSize) {
+            T immigrant = immigrants.poll();
+            if (immigrant == null) {
+              break;
+            }
+            island.add(immigrant);
+            vacancies = true;
+          }
+        }
+      }
+      // Immigrants beyond the vacancies would only grow stale, so make room for fresh ones.
+      immigrants.clear();
+      ++currentEpochIndex;
+    }
+  }
+
+
+  /**
+   * Sends the coordinator the information it needs to calculate global statistics
+   * without sending it the entire population.  The statistics are calculated on the
+   * calling thread and written by the coordinator sender, after any earlier updates.
+   */
+  private void reportEpoch(ExecutorService coordinatorSender,
+                           DataOutputStream output,
+                           int epochIndex,
+                           List<List<EvaluatedCandidate<T>>> evaluatedPopulations) {
+    List<EvaluatedCandidate<T>> combined = new ArrayList<>();
+    double sum = 0;
+    double sumOfSquares = 0;
+    for (List<EvaluatedCandidate<T>> island : evaluatedPopulations) {
+      for (EvaluatedCandidate<T> candidate : island) {
+        sum += candidate.getFitness();
+        sumOfSquares += candidate.getFitness() * candidate.getFitness();
+      }
+      combined.addAll(island);
+    }
+    EvolutionUtils.sortEvaluatedPopulation(combined, naturalFitness);
+    int size = combined.size();
+    double finalSum = sum;
+    double finalSumOfSquares = sumOfSquares;
+    EvaluatedCandidate<T> best = combined.get(0);
+    coordinatorSender.execute(() -> {
+      try {
+        synchronized (output) {
+          output.writeByte(IslandProtocol.EPOCH);
+          output.writeInt(epochIndex);
+          output.writeInt(size);
+          output.writeDouble(finalSum);
+          output.writeDouble(finalSumOfSquares);
+          output.writeDouble(best.getFitness());
+          codec.encode(best.getCandidate(), output);
+          output.flush();
+        }
+      } catch (IOException ex) {
+        // Either the coordinator has told us to stop and closed the connection, or it has
+        // gone away.  Either way there is nobody left to evolve for.
+        stopped = true;
+      }
+    });
+  }
+
+
+  /**
+   * Listens for the stop signal from the coordinator.  Losing the connection to the
+   * coordinator is treated in the same way.
+   */
+  private void awaitStop(DataInputStream input) {
+    try {
+      while (input.readByte() != IslandProtocol.STOP) {
+        // Ignore anything else.
+      }
+    } catch (IOException ex) {
+      // Connection closed, nothing more to do.
+    }
+    stopped = true;
+  }
+
+
+  /**
+   * Accepts connections from the previous node in the ring and queues the migrants
+   * that it sends until the end of the current epoch.
+   */
+  private void acceptMigrants(ServerSocket migrationServer) {
+    while (!migrationServer.isClosed()) {
+      try {
+        Socket connection = migrationServer.accept();
+        threadFactory.newThread(() -> receiveMigrants(connection)).start();
+      } catch (IOException ex) {
+        // The server socket has been closed, the node has finished.
+        return;
+      }
+    }
+  }
+
+
+  private void receiveMigrants(Socket connection) {
+    try (Socket socket = connection) {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      while (!stopped) {
+        if (input.readByte() != IslandProtocol.MIGRANTS) {
+          throw new IOException("Unexpected message from peer.");
+        }
+        int count = input.readInt();
+        if (count < 0 || count > IslandProtocol.MAX_MIGRANTS) {
+          throw new IOException("Invalid migrant count: " + count);
+        }
+        Queue<T> queue = immigrants;
+        for (int i = 0; i < count; i++) {
+          // Dropped if a full epoch's worth of immigrants is already waiting.
+          queue.offer(codec.decode(input));
+        }
+      }
+    } catch (EOFException ex) {
+      // The peer has finished.
+    } catch (IOException ex) {
+      // Migration is best-effort, losing a batch of migrants is not fatal.
+    }
+  }
+
+
+  /**
+   * Holds the (lazily-opened) connection to the next node in the ring.  Only ever
+   * used from the single migration thread.
+   */
+  private final class MigrantSender {
+    private final String host;
+    private final int port;
+    private Socket socket;
+    private DataOutputStream output;
+
+    MigrantSender(String host, int port) {
+      this.host = host;
+      this.port = port;
+    }
+
+
+    void send(List<T> emigrants) {
+      try {
+        if (socket == null) {
+          socket = new Socket(host, port);
+          socket.setTcpNoDelay(true);
+          output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+        output.writeByte(IslandProtocol.MIGRANTS);
+        output.writeInt(emigrants.size());
+        for (T emigrant : emigrants) {
+          codec.encode(emigrant, output);
+        }
+        output.flush();
+      } catch (IOException ex) {
+        // The next node may already have stopped.  Migration is best-effort, so drop
+        // this batch and try to reconnect for the next one.
+        close();
+      }
+    }
+
+
+    void close() {
+      if (socket != null) {
+        try {
+          socket.close();
+        } catch (IOException ex) {
+          // Nothing we can do.
+        }
+        socket = null;
+        output = null;
+      }
+    }
+  }
+}
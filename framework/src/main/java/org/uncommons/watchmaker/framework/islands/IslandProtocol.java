@@ -0,0 +1,106 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.islands;
+
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Message types and encoding helpers shared by {@link IslandCoordinator} and
+ * {@link IslandNode}.  Every message is a single type byte followed by a
+ * type-specific payload.
+ */
+final class IslandProtocol {
+  /**
+   * Node to coordinator: number of hosted islands and the port on which the node
+   * accepts migrants.
+   */
+  static final byte HELLO = 1;
+
+  /**
+   * Coordinator to node: the node's position in the system, the evolution
+   * parameters and the address of the node that receives its emigrants.
+   */
+  static final byte START = 2;
+
+  /**
+   * Node to coordinator: the state of one hosted island at the end of a generation.
+   */
+  static final byte ISLAND_UPDATE = 3;
+
+  /**
+   * Node to coordinator: summary statistics for all hosted islands at the end of an epoch.
+   */
+  static final byte EPOCH = 4;
+
+  /**
+   * Coordinator to node: a termination condition has been satisfied.
+   */
+  static final byte STOP = 5;
+
+  /**
+   * Node to node: a batch of migrants.
+   */
+  static final byte MIGRANTS = 6;
+
+  /**
+   * The most islands that a single node may report that it hosts.
+   */
+  static final int MAX_ISLANDS = 1 << 16;
+
+  /**
+   * The most migrants that a node will accept in a single batch.
+   */
+  static final int MAX_MIGRANTS = 1 << 20;
+
+
+  private IslandProtocol() {
+    // Prevents instantiation of utility class.
+  }
+
+
+  static <T> void writePopulationData(PopulationData<? extends T> data,
+                                      CandidateCodec<T> codec,
+                                      DataOutput out) throws IOException {
+    codec.encode(data.getBestCandidate(), out);
+    out.writeDouble(data.getBestCandidateFitness());
+    out.writeDouble(data.getMeanFitness());
+    out.writeDouble(data.getFitnessStandardDeviation());
+    out.writeBoolean(data.isNaturalFitness());
+    out.writeInt(data.getPopulationSize());
+    out.writeInt(data.getEliteCount());
+    out.writeInt(data.getGenerationNumber());
+    out.writeLong(data.getElapsedTime());
+  }
+
+
+  static <T> PopulationData<T> readPopulationData(CandidateCodec<T> codec,
+                                                  DataInput in) throws IOException {
+    return new PopulationData<>(codec.decode(in),
+        in.readDouble(),
+        in.readDouble(),
+        in.readDouble(),
+        in.readBoolean(),
+        in.readInt(),
+        in.readInt(),
+        in.readInt(),
+        in.readLong());
+  }
+}
@@ -0,0 +1,85 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.operators.MutationKernel;
+
+import java.util.Random;
+
+/**
+ * Mutates each gene of an off-heap genome independently with a fixed probability.
+ * Bits are flipped, bytes are replaced with random bytes and ints are replaced with
+ * values from a range.  The genes to mutate are chosen by a {@link MutationKernel}, so
+ * the cost is proportional to the number of mutations rather than the genome length.
+ */
+public class GeneMutation implements GenomeMutation {
+  private final GeneType geneType;
+  private final double probability;
+  private final int minimum;
+  private final int range;
+
+
+  /**
+   * Creates a mutation that flips bits or replaces bytes.
+   *
+   * @param geneType    {@link GeneType#BIT} or {@link GeneType#BYTE}.
+   * @param probability The probability that any given gene is mutated.
+   */
+  public GeneMutation(GeneType geneType, Probability probability) {
+    if (geneType == GeneType.INT) {
+      throw new IllegalArgumentException("Int mutation requires a range.");
+    }
+    this.geneType = geneType;
+    this.probability = probability.doubleValue();
+    this.minimum = 0;
+    this.range = 0;
+  }
+
+
+  /**
+   * Creates a mutation that replaces ints with values chosen uniformly from a range.
+   *
+   * @param minimum     The smallest permitted value.
+   * @param maximum     The largest permitted value.
+   * @param probability The probability that any given int is replaced.
+   */
+  public GeneMutation(int minimum, int maximum, Probability probability) {
+    if (maximum < minimum || (long) maximum - minimum >= Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Range must be non-empty and narrower than Integer.MAX_VALUE.");
+    }
+    this.geneType = GeneType.INT;
+    this.probability = probability.doubleValue();
+    this.minimum = minimum;
+    this.range = maximum - minimum + 1;
+  }
+
+
+  public void mutate(GenomeView genome, Random rng) {
+    switch (geneType) {
+      case BIT:
+        MutationKernel.forEachMutation(genome.getBitCount(), probability, rng, genome::flipBit);
+        break;
+      case BYTE:
+        MutationKernel.forEachMutation(genome.getLength(), probability, rng,
+            i -> genome.setByte(i, (byte) rng.nextInt()));
+        break;
+      default:
+        MutationKernel.forEachMutation(genome.getIntCount(), probability, rng,
+            i -> genome.setInt(i, minimum + rng.nextInt(range)));
+    }
+  }
+}
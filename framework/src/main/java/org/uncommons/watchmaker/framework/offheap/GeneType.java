@@ -0,0 +1,60 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+/**
+ * The units in which a genome is interpreted by operators: individual bits, bytes or
+ * (native byte order) ints.
+ */
+public enum GeneType {
+  BIT(1),
+  BYTE(Byte.SIZE),
+  INT(Integer.SIZE);
+
+  private final int bits;
+
+
+  GeneType(int bits) {
+    this.bits = bits;
+  }
+
+
+  /**
+   * @param genome A genome.
+   * @return The number of whole genes of this type in the genome.
+   */
+  public int count(GenomeView genome) {
+    return genome.getBitCount() / bits;
+  }
+
+
+  /**
+   * Exchanges a range of genes of this type between two genomes.
+   *
+   * @param genome1 One genome.
+   * @param genome2 The other genome.
+   * @param from    The first gene to exchange (inclusive).
+   * @param to      The last gene to exchange (exclusive).
+   */
+  void swap(GenomeView genome1, GenomeView genome2, int from, int to) {
+    if (this == BIT) {
+      genome1.swapBits(genome2, from, to);
+    } else {
+      int bytes = bits / Byte.SIZE;
+      genome1.swapBytes(genome2, from * bytes, to * bytes);
+    }
+  }
+}
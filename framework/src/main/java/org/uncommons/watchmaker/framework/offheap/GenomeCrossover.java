@@ -0,0 +1,36 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import java.util.Random;
+
+/**
+ * Combines two parent genomes into two offspring, written in place into the next
+ * generation's storage.
+ */
+public interface GenomeCrossover {
+  /**
+   * Implementations must not modify the parents and must be safe to call from several
+   * threads at once, for different offspring.
+   *
+   * @param parent1    The first parent.
+   * @param parent2    The second parent.
+   * @param offspring1 The genome to overwrite with the first offspring.
+   * @param offspring2 The genome to overwrite with the second offspring.
+   * @param rng        A source of randomness.
+   */
+  void mate(GenomeView parent1, GenomeView parent2, GenomeView offspring1, GenomeView offspring2, Random rng);
+}
@@ -0,0 +1,33 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import java.util.Random;
+
+/**
+ * Creates the initial genomes of an {@link OffHeapEvolutionEngine}'s population, by
+ * writing them directly into the population's storage.
+ */
+public interface GenomeFactory {
+  /**
+   * Writes a random genome.  Implementations must be safe to call from several threads
+   * at once, for different genomes.
+   *
+   * @param genome The genome to initialise, with undefined initial contents.
+   * @param rng    A source of randomness.
+   */
+  void initialise(GenomeView genome, Random rng);
+}
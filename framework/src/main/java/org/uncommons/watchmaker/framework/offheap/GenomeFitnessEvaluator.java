@@ -0,0 +1,39 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+/**
+ * Calculates the fitness of genomes in place.  The off-heap counterpart of
+ * {@link org.uncommons.watchmaker.framework.FitnessEvaluator}, except that the fitness
+ * of a genome may not depend on the rest of the population.
+ */
+public interface GenomeFitnessEvaluator {
+  /**
+   * Implementations must be safe to call from several threads at once, for different
+   * genomes, and must not modify the genome.
+   *
+   * @param genome The genome to evaluate.
+   * @return The fitness score, which must be non-negative.
+   */
+  double getFitness(GenomeView genome);
+
+
+  /**
+   * @return True if higher fitness scores are better, false if lower scores are better.
+   * @see org.uncommons.watchmaker.framework.FitnessEvaluator#isNatural()
+   */
+  boolean isNatural();
+}
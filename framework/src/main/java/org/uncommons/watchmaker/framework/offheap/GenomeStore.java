@@ -0,0 +1,172 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>Storage for a fixed number of fixed-length genomes outside the Java heap, in direct
+ * or memory-mapped {@link ByteBuffer}s.  Each genome occupies a slot, identified by its
+ * index, whose size is the genome length rounded up to a multiple of eight bytes so that
+ * genomes can be copied a long at a time.  A single buffer is limited to 2GB, so large
+ * stores are divided into slabs of whole slots.</p>
+ *
+ * <p>Genomes are read and written through {@link GenomeView}s.  A store does no locking:
+ * different threads may safely work on different genomes at the same time.</p>
+ */
+public final class GenomeStore {
+  // Keep slabs comfortably below the 2GB limit on a single buffer.
+  private static final int MAX_SLAB_BYTES = 1 << 30;
+
+  private final int genomeBytes;
+  private final int slotBytes;
+  private final int capacity;
+  private final int slotsPerSlab;
+  private final ByteBuffer[] slabs;
+
+
+  private GenomeStore(int genomeBytes, int capacity, ByteBuffer[] slabs, int slotsPerSlab) {
+    this.genomeBytes = genomeBytes;
+    this.slotBytes = slotBytes(genomeBytes);
+    this.capacity = capacity;
+    this.slabs = slabs;
+    this.slotsPerSlab = slotsPerSlab;
+  }
+
+
+  /**
+   * Creates a store in direct memory.  Genomes are initially all zeros.
+   *
+   * @param genomeBytes The length of each genome, in bytes.
+   * @param capacity    The number of genomes.
+   * @return A new store.
+   */
+  public static GenomeStore allocateDirect(int genomeBytes, int capacity) {
+    int slotsPerSlab = slotsPerSlab(genomeBytes, capacity);
+    ByteBuffer[] slabs = new ByteBuffer[slabCount(capacity, slotsPerSlab)];
+    for (int i = 0; i < slabs.length; i++) {
+      int slots = Math.min(slotsPerSlab, capacity - i * slotsPerSlab);
+      slabs[i] = ByteBuffer.allocateDirect(slots * slotBytes(genomeBytes)).order(ByteOrder.nativeOrder());
+    }
+    return new GenomeStore(genomeBytes, capacity, slabs, slotsPerSlab);
+  }
+
+
+  /**
+   * Creates a store backed by a memory-mapped file, which is created or extended as
+   * necessary.  This allows populations larger than physical memory, with the operating
+   * system paging genomes in and out.  The mapping remains valid until the store is
+   * garbage collected.
+   *
+   * @param file        The file to map.  Any existing contents are used as the initial
+   *                    genomes.
+   * @param genomeBytes The length of each genome, in bytes.
+   * @param capacity    The number of genomes.
+   * @return A new store.
+   * @throws IOException If the file cannot be opened or mapped.
+   */
+  public static GenomeStore map(Path file, int genomeBytes, int capacity) throws IOException {
+    int slotsPerSlab = slotsPerSlab(genomeBytes, capacity);
+    ByteBuffer[] slabs = new ByteBuffer[slabCount(capacity, slotsPerSlab)];
+    try (FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long position = 0;
+      for (int i = 0; i < slabs.length; i++) {
+        int slots = Math.min(slotsPerSlab, capacity - i * slotsPerSlab);
+        long size = (long) slots * slotBytes(genomeBytes);
+        slabs[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, size).order(ByteOrder.nativeOrder());
+        position += size;
+      }
+    }
+    return new GenomeStore(genomeBytes, capacity, slabs, slotsPerSlab);
+  }
+
+
+  private static int slotBytes(int genomeBytes) {
+    if (genomeBytes <= 0 || genomeBytes > MAX_SLAB_BYTES) {
+      throw new IllegalArgumentException("Genome length must be positive and at most " + MAX_SLAB_BYTES);
+    }
+    return (genomeBytes + 7) & ~7;
+  }
+
+
+  private static int slotsPerSlab(int genomeBytes, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+    return Math.min(capacity, MAX_SLAB_BYTES / slotBytes(genomeBytes));
+  }
+
+
+  private static int slabCount(int capacity, int slotsPerSlab) {
+    return (capacity + slotsPerSlab - 1) / slotsPerSlab;
+  }
+
+
+  /**
+   * @return The number of genomes in the store.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+
+  /**
+   * @return The length of each genome, in bytes.
+   */
+  public int getGenomeBytes() {
+    return genomeBytes;
+  }
+
+
+  /**
+   * @return The number of bytes reserved for each genome, a multiple of eight.
+   */
+  int getSlotBytes() {
+    return slotBytes;
+  }
+
+
+  /**
+   * @param index The index of a genome.
+   * @return The buffer that holds the genome.
+   */
+  ByteBuffer slab(int index) {
+    checkIndex(index);
+    return slabs[index / slotsPerSlab];
+  }
+
+
+  /**
+   * @param index The index of a genome.
+   * @return The position of the genome within its {@link #slab(int) slab}.
+   */
+  int offset(int index) {
+    return (index % slotsPerSlab) * slotBytes;
+  }
+
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= capacity) {
+      throw new IndexOutOfBoundsException("Invalid genome index: " + index + " (capacity: " + capacity + ")");
+    }
+  }
+}
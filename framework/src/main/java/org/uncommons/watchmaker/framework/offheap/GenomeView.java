@@ -0,0 +1,274 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>A reusable cursor over the genomes in a {@link GenomeStore}.  A view is positioned
+ * on one genome at a time with {@link #moveTo(int)} and then reads and writes that
+ * genome's bytes, ints or bits in place, so that a whole population can be processed
+ * with a handful of views rather than an object per candidate.</p>
+ *
+ * <p>Ints are stored in native byte order.  Bit {@code i} is bit {@code i % 8} (counting
+ * from the least significant) of byte {@code i / 8}.  Views are not thread-safe; each
+ * thread should use its own.</p>
+ */
+public final class GenomeView {
+  private final GenomeStore store;
+  private final int length;
+  private ByteBuffer slab;
+  private int offset;
+  private int index = -1;
+
+
+  /**
+   * Creates a view that is not yet positioned on a genome.
+   *
+   * @param store The genomes to view.
+   */
+  public GenomeView(GenomeStore store) {
+    this.store = store;
+    this.length = store.getGenomeBytes();
+  }
+
+
+  /**
+   * @param index The index of the genome to view.
+   * @return This view, for chaining.
+   */
+  public GenomeView moveTo(int index) {
+    this.slab = store.slab(index);
+    this.offset = store.offset(index);
+    this.index = index;
+    return this;
+  }
+
+
+  /**
+   * @return The index of the genome being viewed, or -1 if none.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+
+  /**
+   * @return The store that this view reads and writes.
+   */
+  public GenomeStore getStore() {
+    return store;
+  }
+
+
+  /**
+   * @return The length of the genome, in bytes.
+   */
+  public int getLength() {
+    return length;
+  }
+
+
+  /**
+   * @return The number of whole ints in the genome.
+   */
+  public int getIntCount() {
+    return length / Integer.BYTES;
+  }
+
+
+  /**
+   * @return The number of bits in the genome.
+   */
+  public int getBitCount() {
+    return length * Byte.SIZE;
+  }
+
+
+  /**
+   * @param i The index of the byte.
+   * @return The value of the byte.
+   */
+  public byte getByte(int i) {
+    checkBounds(i, 1);
+    return slab.get(offset + i);
+  }
+
+
+  /**
+   * @param i     The index of the byte.
+   * @param value The new value of the byte.
+   */
+  public void setByte(int i, byte value) {
+    checkBounds(i, 1);
+    slab.put(offset + i, value);
+  }
+
+
+  /**
+   * @param i The index of the int, in units of ints.
+   * @return The value of the int.
+   */
+  public int getInt(int i) {
+    checkBounds(i * Integer.BYTES, Integer.BYTES);
+    return slab.getInt(offset + i * Integer.BYTES);
+  }
+
+
+  /**
+   * @param i     The index of the int, in units of ints.
+   * @param value The new value of the int.
+   */
+  public void setInt(int i, int value) {
+    checkBounds(i * Integer.BYTES, Integer.BYTES);
+    slab.putInt(offset + i * Integer.BYTES, value);
+  }
+
+
+  /**
+   * @param i The index of the bit.
+   * @return Whether the bit is set.
+   */
+  public boolean getBit(int i) {
+    return (getByte(i >>> 3) & (1 << (i & 7))) != 0;
+  }
+
+
+  /**
+   * Inverts a bit.
+   *
+   * @param i The index of the bit.
+   */
+  public void flipBit(int i) {
+    checkBounds(i >>> 3, 1);
+    int position = offset + (i >>> 3);
+    slab.put(position, (byte) (slab.get(position) ^ (1 << (i & 7))));
+  }
+
+
+  /**
+   * @return The number of bits that are set, counted a long at a time.
+   */
+  public int countSetBits() {
+    int count = 0;
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      count += Long.bitCount(slab.getLong(offset + i));
+    }
+    for (; i < length; i++) {
+      count += Integer.bitCount(slab.get(offset + i) & 0xFF);
+    }
+    return count;
+  }
+
+
+  /**
+   * Overwrites this genome with another of the same length, a long at a time.
+   *
+   * @param source The genome to copy.
+   */
+  public void copyFrom(GenomeView source) {
+    checkSameLength(source);
+    // Slots are padded to a multiple of eight bytes, so whole longs can be copied.
+    for (int i = 0; i < length; i += Long.BYTES) {
+      slab.putLong(offset + i, source.slab.getLong(source.offset + i));
+    }
+  }
+
+
+  /**
+   * Exchanges a range of bytes with another genome of the same length.
+   *
+   * @param other The genome to exchange bytes with.
+   * @param from  The first byte to exchange (inclusive).
+   * @param to    The last byte to exchange (exclusive).
+   */
+  public void swapBytes(GenomeView other, int from, int to) {
+    checkSameLength(other);
+    checkBounds(from, to - from);
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      long mine = slab.getLong(offset + i);
+      slab.putLong(offset + i, other.slab.getLong(other.offset + i));
+      other.slab.putLong(other.offset + i, mine);
+    }
+    for (; i < to; i++) {
+      byte mine = slab.get(offset + i);
+      slab.put(offset + i, other.slab.get(other.offset + i));
+      other.slab.put(other.offset + i, mine);
+    }
+  }
+
+
+  /**
+   * Exchanges a range of bits with another genome of the same length.  Whole bytes are
+   * exchanged with {@link #swapBytes(GenomeView, int, int)} and partial bytes at either
+   * end are masked.
+   *
+   * @param other The genome to exchange bits with.
+   * @param from  The first bit to exchange (inclusive).
+   * @param to    The last bit to exchange (exclusive).
+   */
+  public void swapBits(GenomeView other, int from, int to) {
+    if (from >= to) {
+      return;
+    }
+    int firstByte = from >>> 3;
+    int lastByte = (to - 1) >>> 3;
+    if (firstByte == lastByte) {
+      swapMasked(other, firstByte, (0xFF << (from & 7)) & (0xFF >>> (7 - ((to - 1) & 7))));
+      return;
+    }
+    swapMasked(other, firstByte, 0xFF << (from & 7));
+    swapBytes(other, firstByte + 1, lastByte);
+    swapMasked(other, lastByte, 0xFF >>> (7 - ((to - 1) & 7)));
+  }
+
+
+  private void swapMasked(GenomeView other, int i, int mask) {
+    checkSameLength(other);
+    checkBounds(i, 1);
+    int difference = (slab.get(offset + i) ^ other.slab.get(other.offset + i)) & mask;
+    slab.put(offset + i, (byte) (slab.get(offset + i) ^ difference));
+    other.slab.put(other.offset + i, (byte) (other.slab.get(other.offset + i) ^ difference));
+  }
+
+
+  /**
+   * @return A copy of the genome on the heap.
+   */
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = slab.get(offset + i);
+    }
+    return bytes;
+  }
+
+
+  private void checkBounds(int start, int count) {
+    if (start < 0 || count < 0 || start + count > length) {
+      throw new IndexOutOfBoundsException("Invalid range " + start + " + " + count + " (length: " + length + ")");
+    }
+  }
+
+
+  private void checkSameLength(GenomeView other) {
+    if (other.length != length) {
+      throw new IllegalArgumentException("Genomes must be the same length.");
+    }
+  }
+}
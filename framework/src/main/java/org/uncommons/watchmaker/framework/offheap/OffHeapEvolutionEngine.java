@@ -0,0 +1,447 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.random.SplittableRNG;
+import org.uncommons.watchmaker.framework.EvolutionObserver;
+import org.uncommons.watchmaker.framework.EvolutionUtils;
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.TerminationCondition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Generational evolution of fixed-length genomes that are stored off the Java heap.
+ * Two {@link GenomeStore}s hold the current and the next generation, and are swapped
+ * after each generation, so a run allocates no genomes at all and very large
+ * populations put no pressure on the garbage collector.  Fitness scores are kept in a
+ * {@code double[]} indexed like the stores.</p>
+ *
+ * <p>Each generation, the elite genomes are copied unchanged.  The rest of the next
+ * generation is bred from parents chosen by tournament selection: the crossover writes
+ * the offspring straight into the next store, where they are then mutated.  Breeding
+ * and evaluation are done in parallel, in chunks of a fixed size.  Each chunk has its own
+ * generator, split in chunk order from one seeded by the engine's generator, so a run is
+ * reproducible regardless of the number of threads.</p>
+ *
+ * <p>By default the stores are direct buffers.  With
+ * {@link #setStorageDirectory(Path)}, they are memory-mapped files instead, so the
+ * population may be larger than physical memory and remains on disk after the run.</p>
+ */
+public class OffHeapEvolutionEngine {
+  /**
+   * The number of genomes in each chunk of parallel work.
+   */
+  static final int CHUNK_SIZE = 256;
+
+  private final Set<EvolutionObserver<? super byte[]>> observers = new CopyOnWriteArraySet<>();
+
+  private final int genomeBytes;
+  private final GenomeFactory factory;
+  private final GenomeCrossover crossover;
+  private final GenomeMutation mutation;
+  private final GenomeFitnessEvaluator fitnessEvaluator;
+  private final double tournamentProbability;
+  private final Random rng;
+
+  private Path storageDirectory = null;
+  private List<TerminationCondition> satisfiedTerminationConditions;
+
+
+  /**
+   * @param genomeBytes           The length of every genome, in bytes.
+   * @param factory               Creates the initial population.
+   * @param crossover             Breeds offspring from pairs of parents.
+   * @param mutation              Mutates each offspring.
+   * @param fitnessEvaluator      The fitness function.
+   * @param tournamentProbability The probability that the fitter of two randomly chosen
+   *                              genomes is selected as a parent.  Must be greater than 0.5.
+   * @param rng                   The source of randomness.
+   */
+  public OffHeapEvolutionEngine(int genomeBytes,
+                                GenomeFactory factory,
+                                GenomeCrossover crossover,
+                                GenomeMutation mutation,
+                                GenomeFitnessEvaluator fitnessEvaluator,
+                                Probability tournamentProbability,
+                                Random rng) {
+    if (genomeBytes <= 0) {
+      throw new IllegalArgumentException("Genome length must be positive.");
+    }
+    if (tournamentProbability.doubleValue() <= 0.5) {
+      throw new IllegalArgumentException("Tournament selection probability must be greater than 0.5.");
+    }
+    this.genomeBytes = genomeBytes;
+    this.factory = factory;
+    this.crossover = crossover;
+    this.mutation = mutation;
+    this.fitnessEvaluator = fitnessEvaluator;
+    this.tournamentProbability = tournamentProbability.doubleValue();
+    this.rng = rng;
+  }
+
+
+  /**
+   * Stores the population in two memory-mapped files, {@code generation-a.bin} and
+   * {@code generation-b.bin}, in the given directory.  Existing files are overwritten.
+   *
+   * @param storageDirectory An existing directory, or null to use direct buffers.
+   */
+  public void setStorageDirectory(Path storageDirectory) {
+    this.storageDirectory = storageDirectory;
+  }
+
+
+  /**
+   * Evolves the population until a termination condition is satisfied.
+   *
+   * @param populationSize The number of genomes in each generation.
+   * @param eliteCount     The number of the fittest genomes copied unchanged into each
+   *                       new generation.
+   * @param conditions     One or more conditions that may cause the evolution to terminate.
+   * @return The fittest genome of the final generation.
+   */
+  public byte[] evolve(int populationSize, int eliteCount, TerminationCondition... conditions) {
+    OffHeapPopulation population = evolvePopulation(populationSize, eliteCount, conditions);
+    return population.getGenome(population.getBestIndex());
+  }
+
+
+  /**
+   * Evolves the population until a termination condition is satisfied.
+   *
+   * @param populationSize The number of genomes in each generation.
+   * @param eliteCount     The number of the fittest genomes copied unchanged into each
+   *                       new generation.
+   * @param conditions     One or more conditions that may cause the evolution to terminate.
+   * @return The final generation.
+   */
+  public OffHeapPopulation evolvePopulation(int populationSize, int eliteCount, TerminationCondition... conditions) {
+    if (populationSize <= 0) {
+      throw new IllegalArgumentException("Population size must be positive.");
+    }
+    if (eliteCount < 0 || eliteCount >= populationSize) {
+      throw new IllegalArgumentException("Elite count must be non-negative and less than population size.");
+    }
+    if (conditions.length == 0) {
+      throw new IllegalArgumentException("At least one TerminationCondition is required.");
+    }
+    satisfiedTerminationConditions = null;
+    // One spare slot receives the unwanted second offspring when an odd number are bred.
+    GenomeStore current = createStore("generation-a.bin", populationSize + 1);
+    GenomeStore next = createStore("generation-b.bin", populationSize + 1);
+    double[] fitness = new double[populationSize];
+    double[] nextFitness = new double[populationSize];
+    SplittableRNG source = SplittableRNG.from(rng);
+
+    long startTime = System.currentTimeMillis();
+    GenomeStore initial = current;
+    forEachChunk(0, populationSize, source, (start, end, chunkRNG) -> {
+      GenomeView genome = new GenomeView(initial);
+      for (int i = start; i < end; i++) {
+        factory.initialise(genome.moveTo(i), chunkRNG);
+      }
+    });
+    evaluate(current, fitness, 0, populationSize);
+
+    int generation = 0;
+    while (true) {
+      PopulationData<byte[]> data = getPopulationData(current, fitness, populationSize, eliteCount,
+                                                      generation, startTime);
+      for (EvolutionObserver<? super byte[]> observer : observers) {
+        observer.populationUpdate(data);
+      }
+      satisfiedTerminationConditions = EvolutionUtils.shouldContinue(data, conditions);
+      if (satisfiedTerminationConditions != null) {
+        break;
+      }
+      breed(current, fitness, next, nextFitness, populationSize, eliteCount, source);
+      evaluate(next, nextFitness, eliteCount, populationSize);
+
+      GenomeStore swapStore = current;
+      current = next;
+      next = swapStore;
+      double[] swapFitness = fitness;
+      fitness = nextFitness;
+      nextFitness = swapFitness;
+      ++generation;
+    }
+    return new OffHeapPopulation(current, fitness, populationSize, fitnessEvaluator.isNatural());
+  }
+
+
+  private GenomeStore createStore(String fileName, int capacity) {
+    if (storageDirectory == null) {
+      return GenomeStore.allocateDirect(genomeBytes, capacity);
+    }
+    try {
+      return GenomeStore.map(storageDirectory.resolve(fileName), genomeBytes, capacity);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to map population storage.", ex);
+    }
+  }
+
+
+  private void breed(GenomeStore current,
+                     double[] fitness,
+                     GenomeStore next,
+                     double[] nextFitness,
+                     int populationSize,
+                     int eliteCount,
+                     SplittableRNG source) {
+    int[] elite = fittest(fitness, populationSize, eliteCount, fitnessEvaluator.isNatural());
+    GenomeView from = new GenomeView(current);
+    GenomeView to = new GenomeView(next);
+    for (int i = 0; i < elite.length; i++) {
+      to.moveTo(i).copyFrom(from.moveTo(elite[i]));
+      nextFitness[i] = fitness[elite[i]];
+    }
+    // Chunks cover pairs of offspring, so that each pair is bred by a single chunk.
+    int pairs = (populationSize - eliteCount + 1) / 2;
+    boolean natural = fitnessEvaluator.isNatural();
+    forEachChunk(0, pairs, source, (start, end, chunkRNG) -> {
+      GenomeView parent1 = new GenomeView(current);
+      GenomeView parent2 = new GenomeView(current);
+      GenomeView offspring1 = new GenomeView(next);
+      GenomeView offspring2 = new GenomeView(next);
+      for (int pair = start; pair < end; pair++) {
+        int index = eliteCount + 2 * pair;
+        parent1.moveTo(select(fitness, populationSize, natural, chunkRNG));
+        parent2.moveTo(select(fitness, populationSize, natural, chunkRNG));
+        offspring1.moveTo(index);
+        offspring2.moveTo(index + 1); // The spare slot if the population is full.
+        crossover.mate(parent1, parent2, offspring1, offspring2, chunkRNG);
+        mutation.mutate(offspring1, chunkRNG);
+        if (index + 1 < populationSize) {
+          mutation.mutate(offspring2, chunkRNG);
+        }
+      }
+    });
+  }
+
+
+  private int select(double[] fitness, int populationSize, boolean natural, Random rng) {
+    int candidate1 = rng.nextInt(populationSize);
+    int candidate2 = rng.nextInt(populationSize);
+    boolean firstIsFitter = natural
+                            ? fitness[candidate1] >= fitness[candidate2]
+                            : fitness[candidate1] <= fitness[candidate2];
+    boolean selectFitter = rng.nextDouble() < tournamentProbability;
+    return firstIsFitter == selectFitter ? candidate1 : candidate2;
+  }
+
+
+  private void evaluate(GenomeStore store, double[] fitness, int start, int end) {
+    int chunkCount = (end - start + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+      GenomeView genome = new GenomeView(store);
+      int chunkEnd = Math.min(end, start + (chunk + 1) * CHUNK_SIZE);
+      for (int i = start + chunk * CHUNK_SIZE; i < chunkEnd; i++) {
+        fitness[i] = fitnessEvaluator.getFitness(genome.moveTo(i));
+      }
+    });
+  }
+
+
+  private PopulationData<byte[]> getPopulationData(GenomeStore store,
+                                                   double[] fitness,
+                                                   int populationSize,
+                                                   int eliteCount,
+                                                   int generation,
+                                                   long startTime) {
+    int best = bestIndex(fitness, populationSize, fitnessEvaluator.isNatural());
+    double sum = 0;
+    for (int i = 0; i < populationSize; i++) {
+      sum += fitness[i];
+    }
+    double mean = sum / populationSize;
+    double squares = 0;
+    for (int i = 0; i < populationSize; i++) {
+      double difference = fitness[i] - mean;
+      squares += difference * difference;
+    }
+    return new PopulationData<>(new GenomeView(store).moveTo(best).toByteArray(),
+                                fitness[best],
+                                mean,
+                                Math.sqrt(squares / populationSize),
+                                fitnessEvaluator.isNatural(),
+                                populationSize,
+                                eliteCount,
+                                generation,
+                                System.currentTimeMillis() - startTime);
+  }
+
+
+  /**
+   * @return The index of the fittest of the first {@code size} scores.
+   */
+  static int bestIndex(double[] fitness, int size, boolean natural) {
+    int best = 0;
+    for (int i = 1; i < size; i++) {
+      if (natural ? fitness[i] > fitness[best] : fitness[i] < fitness[best]) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+
+  /**
+   * Finds the fittest scores with a bounded heap, which avoids sorting (and boxing) the
+   * whole population when only a few elite candidates are needed.
+   *
+   * @return The indices of the fittest {@code count} of the first {@code size} scores,
+   * fittest first.  Equal scores are ordered by index.
+   */
+  static int[] fittest(double[] fitness, int size, int count, boolean natural) {
+    if (count == 0) {
+      return new int[0];
+    }
+    // The fittest indices found so far, with the least fit at the root.
+    int[] heap = new int[count];
+    for (int i = 0; i < size; i++) {
+      if (i < count) {
+        heap[i] = i;
+        siftUp(heap, i, fitness, natural);
+      } else if (isFitter(i, heap[0], fitness, natural)) {
+        heap[0] = i;
+        siftDown(heap, 0, count, fitness, natural);
+      }
+    }
+    // Moving the least fit to the end of the shrinking heap leaves the fittest first.
+    for (int end = count - 1; end > 0; end--) {
+      int least = heap[0];
+      heap[0] = heap[end];
+      heap[end] = least;
+      siftDown(heap, 0, end, fitness, natural);
+    }
+    return heap;
+  }
+
+
+  private static boolean isFitter(int index1, int index2, double[] fitness, boolean natural) {
+    int comparison = Double.compare(fitness[index1], fitness[index2]);
+    if (comparison != 0) {
+      return natural ? comparison > 0 : comparison < 0;
+    }
+    return index1 < index2;
+  }
+
+
+  private static void siftUp(int[] heap, int position, double[] fitness, boolean natural) {
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (!isFitter(heap[parent], heap[position], fitness, natural)) {
+        break;
+      }
+      swap(heap, parent, position);
+      position = parent;
+    }
+  }
+
+
+  private static void siftDown(int[] heap, int position, int size, double[] fitness, boolean natural) {
+    while (2 * position + 1 < size) {
+      int child = 2 * position + 1;
+      if (child + 1 < size && isFitter(heap[child], heap[child + 1], fitness, natural)) {
+        child++;
+      }
+      if (!isFitter(heap[position], heap[child], fitness, natural)) {
+        break;
+      }
+      swap(heap, position, child);
+      position = child;
+    }
+  }
+
+
+  private static void swap(int[] heap, int i, int j) {
+    int temp = heap[i];
+    heap[i] = heap[j];
+    heap[j] = temp;
+  }
+
+
+  private void forEachChunk(int start, int end, SplittableRNG source, ChunkBody body) {
+    int chunkCount = (end - start + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    // Split sequentially, so that each chunk's generator is independent of scheduling.
+    List<SplittableRNG> generators = new ArrayList<>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      generators.add(source.split());
+    }
+    IntStream.range(0, chunkCount).parallel().forEach(
+        chunk -> body.apply(start + chunk * CHUNK_SIZE,
+                            Math.min(end, start + (chunk + 1) * CHUNK_SIZE),
+                            generators.get(chunk)));
+  }
+
+
+  /**
+   * Returns a list of all {@link TerminationCondition}s that are satisfied by the current
+   * state of the evolution engine.
+   *
+   * @return A list of satisfied conditions.  The list is guaranteed to be non-null.  The
+   * list may be empty because it is possible for evolution to terminate without any conditions
+   * being matched.  The only situation in which this occurs is when the request thread is
+   * interrupted.
+   * @throws IllegalStateException If this method is invoked on an evolution engine before
+   *                               evolution is started or while it is still in progress.
+   */
+  public List<TerminationCondition> getSatisfiedTerminationConditions() {
+    if (satisfiedTerminationConditions == null) {
+      throw new IllegalStateException("EvolutionEngine has not terminated.");
+    }
+    return Collections.unmodifiableList(satisfiedTerminationConditions);
+  }
+
+
+  /**
+   * Adds a listener to receive status updates on the evolution progress.  The best
+   * candidate in each update is a copy of the fittest genome.
+   *
+   * @param observer An evolution observer call-back.
+   */
+  public void addEvolutionObserver(EvolutionObserver<? super byte[]> observer) {
+    observers.add(observer);
+  }
+
+
+  /**
+   * Removes an evolution progress listener.
+   *
+   * @param observer An evolution observer call-back.
+   */
+  public void removeEvolutionObserver(EvolutionObserver<? super byte[]> observer) {
+    observers.remove(observer);
+  }
+
+
+  /**
+   * Work done on one chunk of a generation.
+   */
+  private interface ChunkBody {
+    void apply(int start, int end, Random rng);
+  }
+}
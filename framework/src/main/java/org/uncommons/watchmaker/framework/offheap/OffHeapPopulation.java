@@ -0,0 +1,84 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+/**
+ * The final population of an {@link OffHeapEvolutionEngine}: the genomes, still in
+ * their off-heap storage, and their fitness scores.
+ */
+public final class OffHeapPopulation {
+  private final GenomeStore store;
+  private final double[] fitness;
+  private final int size;
+  private final boolean naturalFitness;
+
+
+  OffHeapPopulation(GenomeStore store, double[] fitness, int size, boolean naturalFitness) {
+    this.store = store;
+    this.fitness = fitness;
+    this.size = size;
+    this.naturalFitness = naturalFitness;
+  }
+
+
+  /**
+   * @return The number of genomes in the population.
+   */
+  public int getSize() {
+    return size;
+  }
+
+
+  /**
+   * @return The storage holding the genomes.  It may have spare capacity beyond
+   * {@link #getSize()}, the contents of which are undefined.
+   */
+  public GenomeStore getStore() {
+    return store;
+  }
+
+
+  /**
+   * @param index The index of a genome.
+   * @return The genome's fitness score.
+   */
+  public double getFitness(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Invalid genome index: " + index);
+    }
+    return fitness[index];
+  }
+
+
+  /**
+   * @param index The index of a genome.
+   * @return A copy of the genome.
+   */
+  public byte[] getGenome(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Invalid genome index: " + index);
+    }
+    return new GenomeView(store).moveTo(index).toByteArray();
+  }
+
+
+  /**
+   * @return The index of the fittest genome.
+   */
+  public int getBestIndex() {
+    return OffHeapEvolutionEngine.bestIndex(fitness, size, naturalFitness);
+  }
+}
@@ -0,0 +1,65 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Cross-over with a fixed number of points for off-heap genomes.  The points fall
+ * between genes of the configured type, and the offspring exchange the genes before an
+ * odd number of the points, just as repeated single-point cross-over would.  The
+ * exchanged ranges are swapped a long at a time.
+ */
+public class PointCrossover implements GenomeCrossover {
+  private final GeneType geneType;
+  private final int crossoverPoints;
+
+
+  /**
+   * @param geneType        The units between which cross-over points may fall.
+   * @param crossoverPoints The number of cross-over points.
+   */
+  public PointCrossover(GeneType geneType, int crossoverPoints) {
+    if (crossoverPoints <= 0) {
+      throw new IllegalArgumentException("Number of cross-over points must be positive.");
+    }
+    this.geneType = geneType;
+    this.crossoverPoints = crossoverPoints;
+  }
+
+
+  public void mate(GenomeView parent1, GenomeView parent2, GenomeView offspring1, GenomeView offspring2, Random rng) {
+    offspring1.copyFrom(parent1);
+    offspring2.copyFrom(parent2);
+    int genes = geneType.count(parent1);
+    if (genes < 2) {
+      return;
+    }
+    int[] points = new int[crossoverPoints];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = 1 + rng.nextInt(genes - 1);
+    }
+    Arrays.sort(points);
+    int start = 0;
+    for (int i = 0; i < points.length; i++) {
+      if ((points.length - i) % 2 == 1) {
+        geneType.swap(offspring1, offspring2, start, points[i]);
+      }
+      start = points[i];
+    }
+  }
+}
@@ -0,0 +1,70 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import java.util.Random;
+
+/**
+ * Creates genomes with uniformly random contents: either random bytes (and so random
+ * bits) or ints chosen uniformly from a range.
+ */
+public class RandomGenomeFactory implements GenomeFactory {
+  private final boolean ints;
+  private final int minimum;
+  private final int range;
+
+
+  /**
+   * Creates a factory for genomes of random bytes.
+   */
+  public RandomGenomeFactory() {
+    this.ints = false;
+    this.minimum = 0;
+    this.range = 0;
+  }
+
+
+  /**
+   * Creates a factory for genomes of ints.  Any bytes after the last whole int are zero.
+   *
+   * @param minimum The smallest permitted value.
+   * @param maximum The largest permitted value.
+   */
+  public RandomGenomeFactory(int minimum, int maximum) {
+    if (maximum < minimum || (long) maximum - minimum >= Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Range must be non-empty and narrower than Integer.MAX_VALUE.");
+    }
+    this.ints = true;
+    this.minimum = minimum;
+    this.range = maximum - minimum + 1;
+  }
+
+
+  public void initialise(GenomeView genome, Random rng) {
+    if (ints) {
+      for (int i = 0; i < genome.getIntCount(); i++) {
+        genome.setInt(i, minimum + rng.nextInt(range));
+      }
+      for (int i = genome.getIntCount() * Integer.BYTES; i < genome.getLength(); i++) {
+        genome.setByte(i, (byte) 0);
+      }
+    } else {
+      for (int i = 0; i < genome.getLength(); i++) {
+        genome.setByte(i, (byte) rng.nextInt());
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+/**
+ * Evolution of very large populations of fixed-length genomes stored outside the Java
+ * heap.  Genomes are held in {@link org.uncommons.watchmaker.framework.offheap.GenomeStore}s
+ * and accessed through reusable {@link org.uncommons.watchmaker.framework.offheap.GenomeView}s,
+ * so that there is no object per candidate, and operators read and write genomes in place.
+ */
+package org.uncommons.watchmaker.framework.offheap;
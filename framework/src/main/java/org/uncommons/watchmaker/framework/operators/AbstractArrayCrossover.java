@@ -0,0 +1,140 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.GenomePool;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cross-over with a configurable number of points (fixed or random) for
+ * arrays of any type.  Offspring are created as copies of their parents and
+ * then exchange the sections of their arrays before each cross-over point.
+ * If a {@link GenomePool} is {@link #setGenomePool(GenomePool) set}, the
+ * offspring arrays are taken from it rather than allocated.
+ *
+ * @param <T> The array type of the candidates that are being evolved.
+ */
+public abstract class AbstractArrayCrossover<T> extends AbstractCrossover<T> {
+  private volatile GenomePool genomePool = null;
+
+
+  /**
+   * @param crossoverPoints The constant number of cross-over points
+   *                        to use for all cross-over operations.
+   */
+  protected AbstractArrayCrossover(int crossoverPoints) {
+    super(crossoverPoints);
+  }
+
+
+  /**
+   * @param crossoverPoints      The constant number of cross-over points
+   *                             to use for all cross-over operations.
+   * @param crossoverProbability The probability that, once selected,
+   *                             a pair of parents will be subjected to cross-over rather than
+   *                             being copied, unchanged, into the output population.
+   */
+  protected AbstractArrayCrossover(int crossoverPoints, Probability crossoverProbability) {
+    super(crossoverPoints, crossoverProbability);
+  }
+
+
+  /**
+   * @param crossoverPointsVariable A random variable that provides a number
+   *                                of cross-over points for each cross-over operation.
+   */
+  protected AbstractArrayCrossover(NumberGenerator<Integer> crossoverPointsVariable) {
+    super(crossoverPointsVariable);
+  }
+
+
+  /**
+   * @param crossoverPointsVariable      A variable that provides a (possibly constant,
+   *                                     possibly random) number of cross-over points for each cross-over operation.
+   * @param crossoverProbabilityVariable A variable that controls the probability
+   *                                     that, once selected, a pair of parents will be subjected to cross-over rather
+   *                                     than being copied, unchanged, into the output population.
+   */
+  protected AbstractArrayCrossover(NumberGenerator<Integer> crossoverPointsVariable,
+                                   NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(crossoverPointsVariable, crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * @param genomePool The pool from which to take offspring arrays, or null to allocate
+   *                   new arrays.  Should be the same pool that is given to the engine.
+   */
+  public void setGenomePool(GenomePool genomePool) {
+    this.genomePool = genomePool;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected List<T> mate(T parent1,
+                         T parent2,
+                         int numberOfCrossoverPoints,
+                         Random rng) {
+    int length = Array.getLength(parent1);
+    if (length != Array.getLength(parent2)) {
+      throw new IllegalArgumentException("Cannot perform cross-over with different length parents.");
+    }
+    GenomePool pool = genomePool;
+    // Copies have the same, most specific, array type as their parents.
+    T offspring1 = pool == null ? copyOf(parent1, length) : pool.copyOf(parent1);
+    T offspring2 = pool == null ? copyOf(parent2, length) : pool.copyOf(parent2);
+    // Apply as many cross-overs as required.
+    T temp = pool == null ? newArray(parent1, length) : pool.take(parent1);
+    for (int i = 0; i < numberOfCrossoverPoints; i++) {
+      // Cross-over index is always greater than zero and less than
+      // the length of the parent so that we always pick a point that
+      // will result in a meaningful cross-over.
+      int crossoverIndex = (1 + rng.nextInt(length - 1));
+      System.arraycopy(offspring1, 0, temp, 0, crossoverIndex);
+      System.arraycopy(offspring2, 0, offspring1, 0, crossoverIndex);
+      System.arraycopy(temp, 0, offspring2, 0, crossoverIndex);
+    }
+    if (pool != null) {
+      pool.recycle(temp);
+    }
+    List<T> result = new ArrayList<>(2);
+    result.add(offspring1);
+    result.add(offspring2);
+    return result;
+  }
+
+
+  private static <T> T copyOf(T array, int length) {
+    T copy = newArray(array, length);
+    System.arraycopy(array, 0, copy, 0, length);
+    return copy;
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private static <T> T newArray(T template, int length) {
+    return (T) Array.newInstance(template.getClass().getComponentType(), length);
+  }
+}
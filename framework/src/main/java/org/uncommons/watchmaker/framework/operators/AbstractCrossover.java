@@ -18,7 +18,9 @@ package org.uncommons.watchmaker.framework.operators;
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
-import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.util.number.IntGenerator;
+import org.uncommons.util.number.ProbabilityGenerator;
+import org.uncommons.util.random.SplittableRNG;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -34,9 +36,9 @@ import java.util.Random;
  *            this cross-over implementation.
  * @author Daniel Dyer
  */
-public abstract class AbstractCrossover<T> implements EvolutionaryOperator<T> {
-  private final NumberGenerator<Integer> crossoverPointsVariable;
-  private final NumberGenerator<Probability> crossoverProbabilityVariable;
+public abstract class AbstractCrossover<T> implements FusibleOperator<T> {
+  private final IntGenerator crossoverPointsVariable;
+  private final ProbabilityGenerator crossoverProbabilityVariable;
 
   /**
    * Sets up a fixed-point cross-over implementation.  Cross-over is
@@ -105,8 +107,8 @@ public abstract class AbstractCrossover<T> implements EvolutionaryOperator<T> {
    */
   protected AbstractCrossover(NumberGenerator<Integer> crossoverPointsVariable,
                               NumberGenerator<Probability> crossoverProbabilityVariable) {
-    this.crossoverPointsVariable = crossoverPointsVariable;
-    this.crossoverProbabilityVariable = crossoverProbabilityVariable;
+    this.crossoverPointsVariable = IntGenerator.of(crossoverPointsVariable);
+    this.crossoverProbabilityVariable = ProbabilityGenerator.of(crossoverProbabilityVariable);
   }
 
 
@@ -115,6 +117,11 @@ public abstract class AbstractCrossover<T> implements EvolutionaryOperator<T> {
    * candidates are chosen randomly and subjected to cross-over to produce
    * a pair of offspring candidates.
    *
+   * <p>If the source of randomness is a {@link SplittableRNG}, the pairs are mated in
+   * parallel, in fixed-size chunks that each have their own generator split from it.
+   * The offspring are then the same however many threads are available, so
+   * {@link #mate(Object, Object, int, Random)} must be safe to call concurrently.</p>
+   *
    * @param selectedCandidates The evolved individuals that have survived to
    *                           be eligible to reproduce.
    * @param rng                A source of randomness used to determine the location of
@@ -128,6 +135,9 @@ public abstract class AbstractCrossover<T> implements EvolutionaryOperator<T> {
     // operations.
     List<T> selectionClone = new ArrayList<>(selectedCandidates);
     Collections.shuffle(selectionClone, rng);
+    if (ParallelBreeding.isParallel(rng)) {
+      return mateInParallel(selectionClone, (SplittableRNG) rng);
+    }
 
     List<T> result = new ArrayList<>(selectedCandidates.size());
     Iterator<T> iterator = selectionClone.iterator();
@@ -137,8 +147,8 @@ public abstract class AbstractCrossover<T> implements EvolutionaryOperator<T> {
         T parent2 = iterator.next();
         // Randomly decide (according to the current cross-over probability)
         // whether to perform cross-over for these 2 parents.
-        int crossoverPoints = crossoverProbabilityVariable.nextValue().nextEvent(rng)
-            ? crossoverPointsVariable.nextValue()
+        int crossoverPoints = crossoverProbabilityVariable.nextEvent(rng)
+            ? crossoverPointsVariable.nextInt()
             : 0;
         if (crossoverPoints > 0) {
           result.addAll(mate(parent1, parent2, crossoverPoints, rng));
@@ -158,9 +168,93 @@ public abstract class AbstractCrossover<T> implements EvolutionaryOperator<T> {
   }
 
 
+  /**
+   * @return 2, since cross-over combines pairs of candidates.
+   */
+  public int getGroupSize() {
+    return 2;
+  }
+
+
+  /**
+   * Mates consecutive pairs of the group's candidates, which have already been shuffled
+   * by the pipeline.  Offspring are owned by the group unless {@link #mate} returned one of
+   * the parents itself, or returned the same object for both offspring.
+   *
+   * @param group The candidates to evolve.
+   * @param rng   A source of randomness.
+   */
+  public void apply(MatingGroup<T> group, Random rng) {
+    for (int i = 0; i + 1 < group.size(); i += 2) {
+      T parent1 = group.get(i);
+      T parent2 = group.get(i + 1);
+      int crossoverPoints = crossoverProbabilityVariable.nextEvent(rng)
+          ? crossoverPointsVariable.nextInt()
+          : 0;
+      if (crossoverPoints > 0) {
+        List<T> offspring = mate(parent1, parent2, crossoverPoints, rng);
+        T offspring1 = offspring.get(0);
+        T offspring2 = offspring.get(1);
+        boolean owned1 = group.isOwned(i);
+        boolean owned2 = group.isOwned(i + 1);
+        // An object returned twice would be modified through both entries.
+        boolean distinct = offspring1 != offspring2;
+        group.set(i, offspring1, distinct && isOwned(offspring1, parent1, owned1, parent2, owned2));
+        group.set(i + 1, offspring2, distinct && isOwned(offspring2, parent1, owned1, parent2, owned2));
+      }
+    }
+  }
+
+
+  private static <T> boolean isOwned(T offspring, T parent1, boolean owned1, T parent2, boolean owned2) {
+    return offspring == parent1 ? owned1 : offspring == parent2 ? owned2 : true;
+  }
+
+
+  /**
+   * Mates consecutive pairs of the shuffled candidates in parallel.  The cross-over
+   * variables are sampled up front, in pair order, because they may have their own
+   * sources of randomness that must not be shared between threads.
+   */
+  private List<T> mateInParallel(List<T> parents, SplittableRNG rng) {
+    int pairCount = parents.size() / 2;
+    double[] probabilities = new double[pairCount];
+    int[] points = new int[pairCount];
+    for (int i = 0; i < pairCount; i++) {
+      probabilities[i] = crossoverProbabilityVariable.nextProbability();
+      points[i] = crossoverPointsVariable.nextInt();
+    }
+    List<T> result = ParallelBreeding.applyInChunks(pairCount, ParallelBreeding.CHUNK_SIZE / 2, rng,
+        (start, end, chunkRng) -> {
+          List<T> offspring = new ArrayList<>(2 * (end - start));
+          for (int i = start; i < end; i++) {
+            T parent1 = parents.get(2 * i);
+            T parent2 = parents.get(2 * i + 1);
+            boolean crossover = probabilities[i] == 1 || chunkRng.nextDouble() < probabilities[i];
+            if (crossover && points[i] > 0) {
+              offspring.addAll(mate(parent1, parent2, points[i], chunkRng));
+            } else {
+              offspring.add(parent1);
+              offspring.add(parent2);
+            }
+          }
+          return offspring;
+        });
+    if (parents.size() % 2 != 0) {
+      // The last candidate has no partner, so leave it unmodified.
+      result.add(parents.get(parents.size() - 1));
+    }
+    return result;
+  }
+
+
   /**
    * Perform cross-over on a pair of parents to generate a pair of offspring.
    *
+   * <p>In a fused {@link EvolutionPipeline}, offspring that are not the parents themselves
+   * are modified in place by later stages, so they must be new objects to which the
+   * implementation keeps no references.</p>
+   *
    * @param parent1                 One of two individuals that provides the source material
    *                                for generating offspring.
    * @param parent2                 One of two individuals that provides the source material
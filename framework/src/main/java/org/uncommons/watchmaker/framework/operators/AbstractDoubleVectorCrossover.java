@@ -0,0 +1,97 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Base class for cross-over operators that combine two {@link DoubleVector}s element by
+ * element.  The offspring are written directly into their final arrays, which are then
+ * clamped to the bounds, if there are any.
+ */
+public abstract class AbstractDoubleVectorCrossover extends AbstractCrossover<DoubleVector> {
+  private final VectorBounds bounds;
+
+
+  /**
+   * @param bounds                       The permitted range of each element, or null
+   *                                     if offspring are not restricted.
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  protected AbstractDoubleVectorCrossover(VectorBounds bounds,
+                                          NumberGenerator<Probability> crossoverProbabilityVariable) {
+    // There are no cross-over points, so the count only acts as a flag.
+    super(new ConstantGenerator<>(1), crossoverProbabilityVariable);
+    this.bounds = bounds;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected List<DoubleVector> mate(DoubleVector parent1,
+                                    DoubleVector parent2,
+                                    int numberOfCrossoverPoints,
+                                    Random rng) {
+    int size = parent1.size();
+    if (parent2.size() != size) {
+      throw new IllegalArgumentException("Cannot perform cross-over with different length parents.");
+    }
+    if (bounds != null && bounds.size() != size) {
+      throw new IllegalArgumentException("Parents do not match the bounds.");
+    }
+    double[] offspring1 = new double[size];
+    double[] offspring2 = new double[size];
+    mate(parent1, parent2, offspring1, offspring2, rng);
+    if (bounds != null) {
+      for (int i = 0; i < size; i++) {
+        offspring1[i] = bounds.clamp(i, offspring1[i]);
+        offspring2[i] = bounds.clamp(i, offspring2[i]);
+      }
+    }
+    List<DoubleVector> result = new ArrayList<>(2);
+    result.add(DoubleVector.wrap(offspring1));
+    result.add(DoubleVector.wrap(offspring2));
+    return result;
+  }
+
+
+  /**
+   * Fills in two offspring from two parents of the same size.
+   *
+   * @param parent1    The first parent.
+   * @param parent2    The second parent.
+   * @param offspring1 The array to fill with the first offspring.
+   * @param offspring2 The array to fill with the second offspring.
+   * @param rng        A source of randomness.
+   */
+  protected abstract void mate(DoubleVector parent1,
+                               DoubleVector parent2,
+                               double[] offspring1,
+                               double[] offspring2,
+                               Random rng);
+}
@@ -0,0 +1,128 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.number.ProbabilityGenerator;
+import org.uncommons.util.random.BlockRNG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generic base class for mutation operators that mutate each gene of a fixed-length
+ * genome independently with the same probability.  The genes to mutate are chosen by a
+ * {@link MutationKernel}, so the cost of mutation is proportional to the number of genes
+ * changed rather than to the length of the genome, and candidates that are not mutated
+ * at all are not copied.
+ *
+ * @param <T> The type of evolved candidate.
+ */
+public abstract class AbstractGeneMutation<T> implements FusibleOperator<T> {
+  private final ProbabilityGenerator mutationProbability;
+
+
+  /**
+   * @param mutationProbability The (possibly variable) probability that a given gene is
+   *                            mutated.  A value is drawn once for each candidate mutated.
+   */
+  protected AbstractGeneMutation(NumberGenerator<Probability> mutationProbability) {
+    this.mutationProbability = ProbabilityGenerator.of(mutationProbability);
+  }
+
+
+  public List<T> apply(List<T> selectedCandidates, Random rng) {
+    List<T> mutatedPopulation = new ArrayList<>(selectedCandidates.size());
+    BlockRNG blockRNG = BlockRNG.wrap(rng);
+    for (T candidate : selectedCandidates) {
+      mutatedPopulation.add(mutate(candidate, blockRNG));
+    }
+    return mutatedPopulation;
+  }
+
+
+  /**
+   * @return 1, since each candidate is mutated independently.
+   */
+  public int getGroupSize() {
+    return 1;
+  }
+
+
+  /**
+   * Mutates each candidate in the group.  Candidates owned by the group are mutated in
+   * place rather than copied.
+   *
+   * @param group The candidates to evolve.
+   * @param rng   A source of randomness.
+   */
+  public void apply(MatingGroup<T> group, Random rng) {
+    BlockRNG blockRNG = BlockRNG.wrap(rng);
+    for (int i = 0; i < group.size(); i++) {
+      T candidate = group.get(i);
+      boolean owned = group.isOwned(i);
+      T mutated = mutate(candidate, owned, blockRNG);
+      group.set(i, mutated, owned || mutated != candidate);
+    }
+  }
+
+
+  private T mutate(T candidate, Random rng) {
+    return mutate(candidate, false, rng);
+  }
+
+
+  private T mutate(T candidate, boolean inPlace, Random rng) {
+    List<T> mutated = new ArrayList<>(1); // Holds the copy, once one is needed.
+    if (inPlace) {
+      mutated.add(candidate);
+    }
+    MutationKernel.forEachMutation(getLength(candidate), mutationProbability.nextProbability(), rng, i -> {
+      if (mutated.isEmpty()) {
+        mutated.add(copy(candidate));
+      }
+      mutateGene(mutated.get(0), i, rng);
+    });
+    return mutated.isEmpty() ? candidate : mutated.get(0);
+  }
+
+
+  /**
+   * @param candidate A candidate.
+   * @return The number of genes in the candidate.
+   */
+  protected abstract int getLength(T candidate);
+
+
+  /**
+   * @param candidate A candidate that is about to be mutated.
+   * @return A copy of the candidate that can be modified without affecting the original.
+   */
+  protected abstract T copy(T candidate);
+
+
+  /**
+   * Mutates a single gene of a copy returned by {@link #copy(Object)}, or of a candidate
+   * owned by a fused pipeline's {@link MatingGroup}.
+   *
+   * @param candidate The copy to modify.
+   * @param index     The position of the gene to mutate.
+   * @param rng       A source of randomness.
+   */
+  protected abstract void mutateGene(T candidate, int index, Random rng);
+}
@@ -0,0 +1,82 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.permutation.IntPermutation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Base class for cross-over operators that combine two {@link IntPermutation}s into two
+ * offspring that are also permutations.  Parents are copied into per-thread working
+ * arrays and the offspring are built directly in their final arrays, so that
+ * implementations can work with plain {@code int} indexing and no other allocation.
+ */
+public abstract class AbstractPermutationCrossover extends AbstractCrossover<IntPermutation> {
+  /**
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  protected AbstractPermutationCrossover(NumberGenerator<Probability> crossoverProbabilityVariable) {
+    // The number of cross-over points is fixed by each algorithm, so it only acts as a flag.
+    super(new ConstantGenerator<>(2), crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected List<IntPermutation> mate(IntPermutation parent1,
+                                      IntPermutation parent2,
+                                      int numberOfCrossoverPoints,
+                                      Random rng) {
+    if (parent1.size() != parent2.size()) {
+      throw new IllegalArgumentException("Cannot perform cross-over with different length parents.");
+    }
+    int size = parent1.size();
+    int[] order1 = PermutationScratch.get(PermutationScratch.PARENT1, size);
+    int[] order2 = PermutationScratch.get(PermutationScratch.PARENT2, size);
+    parent1.copyTo(order1);
+    parent2.copyTo(order2);
+    int[] offspring1 = new int[size];
+    int[] offspring2 = new int[size];
+    mate(order1, order2, offspring1, offspring2, rng);
+    List<IntPermutation> result = new ArrayList<>(2);
+    result.add(IntPermutation.wrap(offspring1));
+    result.add(IntPermutation.wrap(offspring2));
+    return result;
+  }
+
+
+  /**
+   * Fills in two offspring from two parents.  The parent arrays may be longer than the
+   * offspring; only their first {@code offspring1.length} elements are meaningful.
+   *
+   * @param parent1    The first parent.  May be modified.
+   * @param parent2    The second parent.  May be modified.
+   * @param offspring1 The array to fill with the first offspring.
+   * @param offspring2 The array to fill with the second offspring.
+   * @param rng        A source of randomness.
+   */
+  protected abstract void mate(int[] parent1, int[] parent2, int[] offspring1, int[] offspring2, Random rng);
+}
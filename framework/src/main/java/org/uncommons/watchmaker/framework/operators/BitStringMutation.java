@@ -19,6 +19,8 @@ import org.uncommons.maths.binary.BitString;
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
+import org.uncommons.util.number.IntGenerator;
+import org.uncommons.util.number.ProbabilityGenerator;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 
 import java.util.ArrayList;
@@ -33,8 +35,8 @@ import java.util.Random;
  * @see org.uncommons.maths.binary.BitString
  */
 public class BitStringMutation implements EvolutionaryOperator<BitString> {
-  private final NumberGenerator<Probability> mutationProbability;
-  private final NumberGenerator<Integer> mutationCount;
+  private final ProbabilityGenerator mutationProbability;
+  private final IntGenerator mutationCount;
 
 
   /**
@@ -60,8 +62,8 @@ public class BitStringMutation implements EvolutionaryOperator<BitString> {
    */
   public BitStringMutation(NumberGenerator<Probability> mutationProbability,
                            NumberGenerator<Integer> mutationCount) {
-    this.mutationProbability = mutationProbability;
-    this.mutationCount = mutationCount;
+    this.mutationProbability = ProbabilityGenerator.of(mutationProbability);
+    this.mutationCount = IntGenerator.of(mutationCount);
   }
 
 
@@ -84,9 +86,9 @@ public class BitStringMutation implements EvolutionaryOperator<BitString> {
    * @return The mutated bit string.
    */
   private BitString mutateBitString(BitString bitString, Random rng) {
-    if (mutationProbability.nextValue().nextEvent(rng)) {
+    if (mutationProbability.nextEvent(rng)) {
       BitString mutatedBitString = bitString.clone();
-      int mutations = mutationCount.nextValue();
+      int mutations = mutationCount.nextInt();
       for (int i = 0; i < mutations; i++) {
         mutatedBitString.flipBit(rng.nextInt(mutatedBitString.getLength()));
       }
@@ -18,17 +18,13 @@ package org.uncommons.watchmaker.framework.operators;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-
 /**
  * Cross-over with a configurable number of points (fixed or random) for
  * arrays of primitive bytes.
  *
  * @author Daniel Dyer
  */
-public class ByteArrayCrossover extends AbstractCrossover<byte[]> {
+public class ByteArrayCrossover extends AbstractArrayCrossover<byte[]> {
   /**
    * Default is single-point cross-over, applied to all parents.
    */
@@ -92,37 +88,4 @@ public class ByteArrayCrossover extends AbstractCrossover<byte[]> {
                             NumberGenerator<Probability> crossoverProbabilityVariable) {
     super(crossoverPointsVariable, crossoverProbabilityVariable);
   }
-
-
-  /**
-   * {@inheritDoc}
-   */
-  @Override
-  protected List<byte[]> mate(byte[] parent1,
-                              byte[] parent2,
-                              int numberOfCrossoverPoints,
-                              Random rng) {
-    if (parent1.length != parent2.length) {
-      throw new IllegalArgumentException("Cannot perform cross-over with different length parents.");
-    }
-    byte[] offspring1 = new byte[parent1.length];
-    System.arraycopy(parent1, 0, offspring1, 0, parent1.length);
-    byte[] offspring2 = new byte[parent2.length];
-    System.arraycopy(parent2, 0, offspring2, 0, parent2.length);
-    // Apply as many cross-overs as required.
-    byte[] temp = new byte[parent1.length];
-    for (int i = 0; i < numberOfCrossoverPoints; i++) {
-      // Cross-over index is always greater than zero and less than
-      // the length of the parent so that we always pick a point that
-      // will result in a meaningful cross-over.
-      int crossoverIndex = (1 + rng.nextInt(parent1.length - 1));
-      System.arraycopy(offspring1, 0, temp, 0, crossoverIndex);
-      System.arraycopy(offspring2, 0, offspring1, 0, crossoverIndex);
-      System.arraycopy(temp, 0, offspring2, 0, crossoverIndex);
-    }
-    List<byte[]> result = new ArrayList<>(2);
-    result.add(offspring1);
-    result.add(offspring2);
-    return result;
-  }
 }
@@ -0,0 +1,62 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * Mutation of individual elements of arrays of primitive bytes.  Each mutated element
+ * is replaced by a random byte.
+ */
+public class ByteArrayMutation extends AbstractGeneMutation<byte[]> {
+  /**
+   * @param mutationProbability The probability that a given element is replaced.
+   */
+  public ByteArrayMutation(Probability mutationProbability) {
+    this(new ConstantGenerator<>(mutationProbability));
+  }
+
+
+  /**
+   * @param mutationProbability The (possibly variable) probability that a given element
+   *                            is replaced.  A value is drawn once for each array mutated.
+   */
+  public ByteArrayMutation(NumberGenerator<Probability> mutationProbability) {
+    super(mutationProbability);
+  }
+
+
+  @Override
+  protected int getLength(byte[] candidate) {
+    return candidate.length;
+  }
+
+
+  @Override
+  protected byte[] copy(byte[] candidate) {
+    return candidate.clone();
+  }
+
+
+  @Override
+  protected void mutateGene(byte[] candidate, int index, Random rng) {
+    candidate[index] = (byte) rng.nextInt();
+  }
+}
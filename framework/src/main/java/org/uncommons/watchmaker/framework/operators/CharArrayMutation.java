@@ -0,0 +1,68 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * Mutation of individual elements of arrays of primitive chars.  Each mutated element
+ * is replaced by a character drawn from an alphabet.
+ */
+public class CharArrayMutation extends AbstractGeneMutation<char[]> {
+  private final char[] alphabet;
+
+
+  /**
+   * @param alphabet            The permitted values for each element.
+   * @param mutationProbability The probability that a given element is replaced.
+   */
+  public CharArrayMutation(char[] alphabet, Probability mutationProbability) {
+    this(alphabet, new ConstantGenerator<>(mutationProbability));
+  }
+
+
+  /**
+   * @param alphabet            The permitted values for each element.
+   * @param mutationProbability The (possibly variable) probability that a given element
+   *                            is replaced.  A value is drawn once for each array mutated.
+   */
+  public CharArrayMutation(char[] alphabet, NumberGenerator<Probability> mutationProbability) {
+    super(mutationProbability);
+    this.alphabet = alphabet.clone();
+  }
+
+
+  @Override
+  protected int getLength(char[] candidate) {
+    return candidate.length;
+  }
+
+
+  @Override
+  protected char[] copy(char[] candidate) {
+    return candidate.clone();
+  }
+
+
+  @Override
+  protected void mutateGene(char[] candidate, int index, Random rng) {
+    candidate[index] = alphabet[rng.nextInt(alphabet.length)];
+  }
+}
@@ -0,0 +1,124 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.list.ChunkedList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Variable-point cross-over for {@link ChunkedList}s.  Produces the same offspring as
+ * {@link ListCrossover} given the same random numbers, but each cross-over point is
+ * applied with {@link ChunkedList#splice(ChunkedList, int, int)}, so the offspring share
+ * every chunk that does not straddle a cross-over point with a parent instead of copying
+ * the whole list.
+ *
+ * @param <T> The component type of the lists that are combined.
+ */
+public class ChunkedListCrossover<T> extends AbstractCrossover<ChunkedList<T>> {
+  /**
+   * Default is single-point cross-over, applied to all parents.
+   */
+  public ChunkedListCrossover() {
+    this(1);
+  }
+
+
+  /**
+   * Cross-over with a fixed number of cross-over points.
+   *
+   * @param crossoverPoints The constant number of cross-over points
+   *                        to use for all cross-over operations.
+   */
+  public ChunkedListCrossover(int crossoverPoints) {
+    super(crossoverPoints);
+  }
+
+
+  /**
+   * Cross-over with a fixed number of cross-over points.  Cross-over
+   * may or may not be applied to a given pair of parents depending on
+   * the {@code crossoverProbability}.
+   *
+   * @param crossoverPoints      The constant number of cross-over points
+   *                             to use for all cross-over operations.
+   * @param crossoverProbability The probability that, once selected,
+   *                             a pair of parents will be subjected to cross-over rather than
+   *                             being copied, unchanged, into the output population.
+   */
+  public ChunkedListCrossover(int crossoverPoints, Probability crossoverProbability) {
+    super(crossoverPoints, crossoverProbability);
+  }
+
+
+  /**
+   * Cross-over with a variable number of cross-over points.
+   *
+   * @param crossoverPointsVariable A random variable that provides a number
+   *                                of cross-over points for each cross-over operation.
+   */
+  public ChunkedListCrossover(NumberGenerator<Integer> crossoverPointsVariable) {
+    super(crossoverPointsVariable);
+  }
+
+
+  /**
+   * Cross-over with a variable number of cross-over points.  Cross-over
+   * may or may not be applied to a given pair of parents depending on
+   * the {@code crossoverProbability}.
+   *
+   * @param crossoverPointsVariable      A random variable that provides a number
+   *                                     of cross-over points for each cross-over operation.
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public ChunkedListCrossover(NumberGenerator<Integer> crossoverPointsVariable,
+                              NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(crossoverPointsVariable, crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected List<ChunkedList<T>> mate(ChunkedList<T> parent1,
+                                      ChunkedList<T> parent2,
+                                      int numberOfCrossoverPoints,
+                                      Random rng) {
+    ChunkedList<T> offspring1 = parent1;
+    ChunkedList<T> offspring2 = parent2;
+    int max = Math.min(parent1.size(), parent2.size());
+    // Don't perform cross-over if there aren't at least 2 elements in each list.
+    if (max > 1) {
+      for (int i = 0; i < numberOfCrossoverPoints; i++) {
+        int crossoverIndex = 1 + rng.nextInt(max - 1);
+        ChunkedList<T> swapped = offspring1.splice(offspring2, 0, crossoverIndex);
+        offspring2 = offspring2.splice(offspring1, 0, crossoverIndex);
+        offspring1 = swapped;
+      }
+    }
+    List<ChunkedList<T>> result = new ArrayList<>(2);
+    result.add(offspring1);
+    result.add(offspring2);
+    return result;
+  }
+}
@@ -0,0 +1,97 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.util.list.ChunkedList;
+import org.uncommons.util.number.IntGenerator;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The {@link ChunkedList} counterpart of {@link ListOrderMutation}: each mutation swaps
+ * a random element with the one a random distance away.  Given the same random numbers
+ * it makes the same swaps, but a mutated candidate copies only the chunks that contain
+ * swapped elements and shares the rest with its parent.  Candidates that draw no
+ * mutations are returned unchanged.
+ *
+ * @param <T> The component type of the lists that are mutated.
+ */
+public class ChunkedListOrderMutation<T> implements EvolutionaryOperator<ChunkedList<T>> {
+  private final IntGenerator mutationCountVariable;
+  private final IntGenerator mutationAmountVariable;
+
+
+  /**
+   * Default is one mutation per candidate.
+   */
+  public ChunkedListOrderMutation() {
+    this(1, 1);
+  }
+
+
+  /**
+   * @param mutationCount  The constant number of mutations
+   *                       to apply to each individual in the population.
+   * @param mutationAmount The constant number of positions by
+   *                       which a list element will be displaced as a result of mutation.
+   */
+  public ChunkedListOrderMutation(int mutationCount, int mutationAmount) {
+    this(new ConstantGenerator<>(mutationCount),
+        new ConstantGenerator<>(mutationAmount));
+  }
+
+
+  /**
+   * @param mutationCount  A random variable that provides a number
+   *                       of mutations that will be applied to each individual.
+   * @param mutationAmount A random variable that provides a number
+   *                       of positions by which to displace an element when mutating.
+   */
+  public ChunkedListOrderMutation(NumberGenerator<Integer> mutationCount,
+                                  NumberGenerator<Integer> mutationAmount) {
+    this.mutationCountVariable = IntGenerator.of(mutationCount);
+    this.mutationAmountVariable = IntGenerator.of(mutationAmount);
+  }
+
+
+  public List<ChunkedList<T>> apply(List<ChunkedList<T>> selectedCandidates, Random rng) {
+    List<ChunkedList<T>> result = new ArrayList<>(selectedCandidates.size());
+    for (ChunkedList<T> candidate : selectedCandidates) {
+      int mutationCount = Math.abs(mutationCountVariable.nextInt());
+      if (mutationCount == 0) {
+        result.add(candidate);
+        continue;
+      }
+      ChunkedList.Editor<T> editor = candidate.edit();
+      for (int i = 0; i < mutationCount; i++) {
+        int fromIndex = rng.nextInt(editor.size());
+        int mutationAmount = mutationAmountVariable.nextInt();
+        int toIndex = (fromIndex + mutationAmount) % editor.size();
+        if (toIndex < 0) {
+          toIndex += editor.size();
+        }
+        editor.swap(fromIndex, toIndex);
+      }
+      result.add(editor.build());
+    }
+    return result;
+  }
+}
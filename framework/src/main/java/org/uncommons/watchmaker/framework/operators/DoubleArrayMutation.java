@@ -0,0 +1,73 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * Mutation of individual elements of arrays of primitive doubles.  Each mutated element
+ * is perturbed by a normally-distributed amount.
+ */
+public class DoubleArrayMutation extends AbstractGeneMutation<double[]> {
+  private final double standardDeviation;
+
+
+  /**
+   * @param standardDeviation   The standard deviation of the perturbation applied to each
+   *                            mutated element.
+   * @param mutationProbability The probability that a given element is perturbed.
+   */
+  public DoubleArrayMutation(double standardDeviation, Probability mutationProbability) {
+    this(standardDeviation, new ConstantGenerator<>(mutationProbability));
+  }
+
+
+  /**
+   * @param standardDeviation   The standard deviation of the perturbation applied to each
+   *                            mutated element.
+   * @param mutationProbability The (possibly variable) probability that a given element
+   *                            is perturbed.  A value is drawn once for each array mutated.
+   */
+  public DoubleArrayMutation(double standardDeviation, NumberGenerator<Probability> mutationProbability) {
+    super(mutationProbability);
+    if (standardDeviation <= 0) {
+      throw new IllegalArgumentException("Standard deviation must be positive.");
+    }
+    this.standardDeviation = standardDeviation;
+  }
+
+
+  @Override
+  protected int getLength(double[] candidate) {
+    return candidate.length;
+  }
+
+
+  @Override
+  protected double[] copy(double[] candidate) {
+    return candidate.clone();
+  }
+
+
+  @Override
+  protected void mutateGene(double[] candidate, int index, Random rng) {
+    candidate[index] += standardDeviation * rng.nextGaussian();
+  }
+}
@@ -0,0 +1,76 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.vector.DoubleVector;
+
+import java.util.Random;
+
+/**
+ * Whole arithmetic cross-over for {@link DoubleVector}s.  For each pair of parents a
+ * weight <i>a</i> is drawn uniformly from [0, 1), and the offspring are
+ * <i>a</i>&middot;p1 + (1-<i>a</i>)&middot;p2 and (1-<i>a</i>)&middot;p1 + <i>a</i>&middot;p2.
+ * Offspring always lie between their parents, so no bounds are needed.
+ */
+public class DoubleVectorArithmeticCrossover extends AbstractDoubleVectorCrossover {
+  /**
+   * Creates a cross-over operator with a cross-over probability of 1.
+   */
+  public DoubleVectorArithmeticCrossover() {
+    this(Probability.ONE);
+  }
+
+
+  /**
+   * @param crossoverProbability The probability that cross-over will be performed
+   *                             for any given pair.
+   */
+  public DoubleVectorArithmeticCrossover(Probability crossoverProbability) {
+    this(new ConstantGenerator<>(crossoverProbability));
+  }
+
+
+  /**
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public DoubleVectorArithmeticCrossover(NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(null, crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void mate(DoubleVector parent1,
+                      DoubleVector parent2,
+                      double[] offspring1,
+                      double[] offspring2,
+                      Random rng) {
+    double weight = rng.nextDouble();
+    for (int i = 0; i < offspring1.length; i++) {
+      double a = parent1.get(i);
+      double b = parent2.get(i);
+      offspring1[i] = weight * a + (1 - weight) * b;
+      offspring2[i] = (1 - weight) * a + weight * b;
+    }
+  }
+}
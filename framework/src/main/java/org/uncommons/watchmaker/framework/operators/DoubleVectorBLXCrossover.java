@@ -0,0 +1,84 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+
+import java.util.Random;
+
+/**
+ * Blend cross-over (BLX-&alpha;) for {@link DoubleVector}s.  Each element of each
+ * offspring is drawn uniformly from the interval spanned by the parents' values,
+ * extended on both sides by &alpha; times its width.
+ */
+public class DoubleVectorBLXCrossover extends AbstractDoubleVectorCrossover {
+  private final double alpha;
+
+
+  /**
+   * Creates an unbounded cross-over operator with a cross-over probability of 1.
+   *
+   * @param alpha The proportion by which the parents' interval is extended on each
+   *              side.  0.5 is a common choice.
+   */
+  public DoubleVectorBLXCrossover(double alpha) {
+    this(alpha, null, new ConstantGenerator<>(Probability.ONE));
+  }
+
+
+  /**
+   * @param alpha                        The proportion by which the parents' interval is
+   *                                     extended on each side.
+   * @param bounds                       The permitted range of each element, or null
+   *                                     if offspring are not restricted.
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public DoubleVectorBLXCrossover(double alpha,
+                                  VectorBounds bounds,
+                                  NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(bounds, crossoverProbabilityVariable);
+    if (alpha < 0) {
+      throw new IllegalArgumentException("Alpha must be non-negative.");
+    }
+    this.alpha = alpha;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void mate(DoubleVector parent1,
+                      DoubleVector parent2,
+                      double[] offspring1,
+                      double[] offspring2,
+                      Random rng) {
+    for (int i = 0; i < offspring1.length; i++) {
+      double low = Math.min(parent1.get(i), parent2.get(i));
+      double width = Math.abs(parent1.get(i) - parent2.get(i));
+      double start = low - alpha * width;
+      double range = (1 + 2 * alpha) * width;
+      offspring1[i] = start + rng.nextDouble() * range;
+      offspring2[i] = start + rng.nextDouble() * range;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.random.ZigguratGaussian;
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+
+import java.util.Random;
+
+/**
+ * Gaussian mutation for {@link DoubleVector}s.  Each element is independently perturbed,
+ * with some probability, by a normally-distributed amount sampled with
+ * {@link ZigguratGaussian}.
+ */
+public class DoubleVectorGaussianMutation extends AbstractGeneMutation<DoubleVector> {
+  private final double standardDeviation;
+  private final VectorBounds bounds;
+
+
+  /**
+   * Creates an unbounded mutation operator.
+   *
+   * @param standardDeviation   The standard deviation of the perturbation.
+   * @param mutationProbability The probability that a given element is perturbed.
+   */
+  public DoubleVectorGaussianMutation(double standardDeviation, Probability mutationProbability) {
+    this(standardDeviation, null, new ConstantGenerator<>(mutationProbability));
+  }
+
+
+  /**
+   * @param standardDeviation   The standard deviation of the perturbation.
+   * @param bounds              The permitted range of each element, or null if mutants
+   *                            are not restricted.
+   * @param mutationProbability The (possibly variable) probability that a given element
+   *                            is perturbed.  A value is drawn once for each vector mutated.
+   */
+  public DoubleVectorGaussianMutation(double standardDeviation,
+                                      VectorBounds bounds,
+                                      NumberGenerator<Probability> mutationProbability) {
+    super(mutationProbability);
+    if (standardDeviation <= 0) {
+      throw new IllegalArgumentException("Standard deviation must be positive.");
+    }
+    this.standardDeviation = standardDeviation;
+    this.bounds = bounds;
+  }
+
+
+  @Override
+  protected int getLength(DoubleVector candidate) {
+    return candidate.size();
+  }
+
+
+  @Override
+  protected DoubleVector copy(DoubleVector candidate) {
+    return candidate.clone();
+  }
+
+
+  @Override
+  protected void mutateGene(DoubleVector candidate, int index, Random rng) {
+    double value = candidate.get(index) + standardDeviation * ZigguratGaussian.nextGaussian(rng);
+    candidate.set(index, bounds == null ? value : bounds.clamp(index, value));
+  }
+}
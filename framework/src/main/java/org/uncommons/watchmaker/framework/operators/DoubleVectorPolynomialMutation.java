@@ -0,0 +1,106 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+
+import java.util.Random;
+
+/**
+ * Polynomial mutation for bounded {@link DoubleVector}s, as described by Deb.  Each
+ * element is independently perturbed, with some probability, by an amount drawn from a
+ * polynomial distribution scaled to the element's range, such that the result always
+ * lies within the bounds.  Higher distribution indices give smaller perturbations.
+ */
+public class DoubleVectorPolynomialMutation extends AbstractGeneMutation<DoubleVector> {
+  private final double distributionIndex;
+  private final VectorBounds bounds;
+
+
+  /**
+   * @param distributionIndex   The non-negative distribution index, typically 20.
+   * @param bounds              The permitted range of each element.
+   * @param mutationProbability The probability that a given element is perturbed.
+   *                            One divided by the vector length is a common choice.
+   */
+  public DoubleVectorPolynomialMutation(double distributionIndex,
+                                        VectorBounds bounds,
+                                        Probability mutationProbability) {
+    this(distributionIndex, bounds, new ConstantGenerator<>(mutationProbability));
+  }
+
+
+  /**
+   * @param distributionIndex   The non-negative distribution index, typically 20.
+   * @param bounds              The permitted range of each element.
+   * @param mutationProbability The (possibly variable) probability that a given element
+   *                            is perturbed.  A value is drawn once for each vector mutated.
+   */
+  public DoubleVectorPolynomialMutation(double distributionIndex,
+                                        VectorBounds bounds,
+                                        NumberGenerator<Probability> mutationProbability) {
+    super(mutationProbability);
+    if (distributionIndex < 0) {
+      throw new IllegalArgumentException("Distribution index must be non-negative.");
+    }
+    if (bounds == null) {
+      throw new IllegalArgumentException("Polynomial mutation requires bounds.");
+    }
+    this.distributionIndex = distributionIndex;
+    this.bounds = bounds;
+  }
+
+
+  @Override
+  protected int getLength(DoubleVector candidate) {
+    return candidate.size();
+  }
+
+
+  @Override
+  protected DoubleVector copy(DoubleVector candidate) {
+    if (candidate.size() != bounds.size()) {
+      throw new IllegalArgumentException("Candidate does not match the bounds.");
+    }
+    return candidate.clone();
+  }
+
+
+  @Override
+  protected void mutateGene(DoubleVector candidate, int index, Random rng) {
+    double minimum = bounds.getMinimum(index);
+    double range = bounds.getMaximum(index) - minimum;
+    if (range == 0) {
+      return;
+    }
+    double value = candidate.get(index);
+    double u = rng.nextDouble();
+    double power = distributionIndex + 1;
+    double delta;
+    if (u < 0.5) {
+      double xy = 1 - (value - minimum) / range;
+      delta = Math.pow(2 * u + (1 - 2 * u) * Math.pow(xy, power), 1 / power) - 1;
+    } else {
+      double xy = 1 - (bounds.getMaximum(index) - value) / range;
+      delta = 1 - Math.pow(2 * (1 - u) + 2 * (u - 0.5) * Math.pow(xy, power), 1 / power);
+    }
+    candidate.set(index, bounds.clamp(index, value + delta * range));
+  }
+}
@@ -0,0 +1,94 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+
+import java.util.Random;
+
+/**
+ * Simulated binary cross-over (SBX) for {@link DoubleVector}s, as described by Deb and
+ * Agrawal.  Each pair of elements is spread symmetrically about its mean by a factor drawn
+ * from a distribution that mimics the effect of single-point cross-over on binary
+ * encodings.  Higher distribution indices keep offspring closer to their parents.
+ * Every element is recombined.
+ */
+public class DoubleVectorSBXCrossover extends AbstractDoubleVectorCrossover {
+  private final double exponent;
+
+
+  /**
+   * Creates an unbounded cross-over operator with a cross-over probability of 1.
+   *
+   * @param distributionIndex The non-negative distribution index, typically between 2
+   *                          and 20.
+   */
+  public DoubleVectorSBXCrossover(double distributionIndex) {
+    this(distributionIndex, null, new ConstantGenerator<>(Probability.ONE));
+  }
+
+
+  /**
+   * @param distributionIndex            The non-negative distribution index, typically
+   *                                     between 2 and 20.
+   * @param bounds                       The permitted range of each element, or null
+   *                                     if offspring are not restricted.
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public DoubleVectorSBXCrossover(double distributionIndex,
+                                  VectorBounds bounds,
+                                  NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(bounds, crossoverProbabilityVariable);
+    if (distributionIndex < 0) {
+      throw new IllegalArgumentException("Distribution index must be non-negative.");
+    }
+    this.exponent = 1 / (distributionIndex + 1);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void mate(DoubleVector parent1,
+                      DoubleVector parent2,
+                      double[] offspring1,
+                      double[] offspring2,
+                      Random rng) {
+    for (int i = 0; i < offspring1.length; i++) {
+      double u = rng.nextDouble();
+      double beta = u <= 0.5
+                    ? Math.pow(2 * u, exponent)
+                    : Math.pow(1 / (2 * (1 - u)), exponent);
+      double a = parent1.get(i);
+      double b = parent2.get(i);
+      if (a == b) {
+        // Avoid rounding error so that genes the parents agree on are inherited exactly.
+        offspring1[i] = a;
+        offspring2[i] = a;
+        continue;
+      }
+      offspring1[i] = 0.5 * ((1 + beta) * a + (1 - beta) * b);
+      offspring2[i] = 0.5 * ((1 - beta) * a + (1 + beta) * b);
+    }
+  }
+}
@@ -15,9 +15,12 @@
 //=============================================================================
 package org.uncommons.watchmaker.framework.operators;
 
+import org.uncommons.util.random.BlockRNG;
+import org.uncommons.util.random.SplittableRNG;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -28,12 +31,32 @@ import java.util.Random;
  * <p>By combining EvolutionPipeline operators with {@link SplitEvolution} operators,
  * elaborate evolutionary schemes can be constructed.</p>
  *
+ * <p>With {@link #setFusedExecution(boolean) fused execution}, each run of consecutive
+ * {@link FusibleOperator}s is applied to one {@link MatingGroup} at a time, so that
+ * candidates created by one stage can be modified in place by the next.</p>
+ *
  * @param <T> The type of evolved candidate that this pipeline operates on.
  * @author Daniel Dyer
  */
 public class EvolutionPipeline<T> implements EvolutionaryOperator<T> {
+  // Whether each operator class implements fusion at least as specifically as apply(List, Random).
+  private static final ClassValue<Boolean> FUSIBLE_CLASSES = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        Class<?> listImplementation = type.getMethod("apply", List.class, Random.class).getDeclaringClass();
+        Class<?> groupImplementation = type.getMethod("apply", MatingGroup.class, Random.class).getDeclaringClass();
+        return listImplementation.isAssignableFrom(groupImplementation);
+      } catch (NoSuchMethodException ex) {
+        throw new IllegalStateException("Operator does not implement apply.", ex);
+      }
+    }
+  };
+
   private final List<EvolutionaryOperator<T>> pipeline;
 
+  private volatile boolean fusedExecution = false;
+
 
   /**
    * Creates a pipeline consisting of the specified operators in
@@ -51,7 +74,40 @@ public class EvolutionPipeline<T> implements EvolutionaryOperator<T> {
 
 
   /**
-   * Applies each operation in the pipeline in turn to the selection.
+   * <p>Enables or disables fused execution.  When enabled, each run of two or more
+   * consecutive {@link FusibleOperator}s is applied to the selection one group at a time,
+   * end-to-end: the selection is shuffled once, divided into groups of the stages'
+   * combined group size (e.g. pairs for cross-over followed by mutation), and every stage
+   * of the run is applied to a group before the next group is started.  Intermediate
+   * lists are not created and candidates created by a stage, such as cross-over
+   * offspring, are mutated in place rather than copied again.  Other stages are applied
+   * to the whole population as usual.</p>
+   *
+   * <p>Fused execution uses the random number generator in a different order, so it
+   * produces different (but equally distributed) results from unfused execution.  It is
+   * disabled by default.</p>
+   *
+   * <p>A fusible operator whose class overrides {@link #apply(List, Random)} without also
+   * overriding {@link FusibleOperator#apply(MatingGroup, Random)} is not fused, because
+   * fusion would bypass the override.</p>
+   *
+   * @param fusedExecution True to fuse consecutive fusible stages.
+   */
+  public void setFusedExecution(boolean fusedExecution) {
+    this.fusedExecution = fusedExecution;
+  }
+
+
+  /**
+   * <p>Applies each operation in the pipeline in turn to the selection.</p>
+   *
+   * <p>If the source of randomness is a {@link SplittableRNG}, the selection is shuffled
+   * and divided into fixed-size chunks that pass through the whole pipeline in parallel,
+   * each with its own generator split from it.  Operators that combine candidates, such
+   * as cross-over, then only combine candidates from the same chunk.  The results are the
+   * same however many threads are available.  The random variables of the operators in
+   * the pipeline must then be constant, because they are sampled from several chunks at
+   * once.</p>
    *
    * @param selectedCandidates The candidates to subjected to evolution.
    * @param rng                A source of randomness used by all stochastic processes in
@@ -59,10 +115,92 @@ public class EvolutionPipeline<T> implements EvolutionaryOperator<T> {
    * @return A list of evolved candidates.
    */
   public List<T> apply(List<T> selectedCandidates, Random rng) {
+    if (ParallelBreeding.isParallel(rng) && selectedCandidates.size() > ParallelBreeding.CHUNK_SIZE) {
+      // Shuffle so that the chunks are not influenced by any ordering artifacts from
+      // previous operations (such as selection strategies that return sorted candidates).
+      List<T> selectionClone = new ArrayList<>(selectedCandidates);
+      Collections.shuffle(selectionClone, rng);
+      return ParallelBreeding.applyInChunks(selectionClone.size(), ParallelBreeding.CHUNK_SIZE, (SplittableRNG) rng,
+          (start, end, chunkRng) -> applySequentially(new ArrayList<>(selectionClone.subList(start, end)), chunkRng));
+    }
+    return applySequentially(selectedCandidates, rng);
+  }
+
+
+  private List<T> applySequentially(List<T> selectedCandidates, Random rng) {
     List<T> population = selectedCandidates;
-    for (EvolutionaryOperator<T> operator : pipeline) {
-      population = operator.apply(population, rng);
+    boolean fused = fusedExecution;
+    int stage = 0;
+    while (stage < pipeline.size()) {
+      int end = stage;
+      while (fused && end < pipeline.size() && isFusible(pipeline.get(end))) {
+        ++end;
+      }
+      if (end - stage > 1) {
+        population = applyFused(pipeline.subList(stage, end), population, rng);
+        stage = end;
+      } else {
+        population = pipeline.get(stage).apply(population, rng);
+        ++stage;
+      }
     }
     return population;
   }
+
+
+  /**
+   * Applies a run of fusible stages to each group of the selection in turn.
+   */
+  @SuppressWarnings("unchecked")
+  private List<T> applyFused(List<EvolutionaryOperator<T>> stages, List<T> selectedCandidates, Random rng) {
+    List<FusibleOperator<T>> operators = new ArrayList<>(stages.size());
+    int groupSize = 1;
+    for (EvolutionaryOperator<T> stage : stages) {
+      FusibleOperator<T> operator = (FusibleOperator<T>) stage;
+      operators.add(operator);
+      groupSize = lowestCommonMultiple(groupSize, operator.getGroupSize());
+    }
+    List<T> candidates = selectedCandidates;
+    if (groupSize > 1) {
+      // Shuffle once for the whole run, as each combining stage would otherwise do.
+      candidates = new ArrayList<>(selectedCandidates);
+      Collections.shuffle(candidates, rng);
+    }
+    Random groupRNG = BlockRNG.wrap(rng);
+    MatingGroup<T> group = new MatingGroup<>(groupSize);
+    List<T> result = new ArrayList<>(candidates.size());
+    for (int start = 0; start < candidates.size(); start += groupSize) {
+      group.reset(candidates, start, Math.min(candidates.size(), start + groupSize));
+      for (FusibleOperator<T> operator : operators) {
+        operator.apply(group, groupRNG);
+      }
+      for (int i = 0; i < group.size(); i++) {
+        result.add(group.get(i));
+      }
+    }
+    return result;
+  }
+
+
+  /**
+   * Fusion replaces an operator's {@link EvolutionaryOperator#apply(List, Random)} method
+   * with its {@link FusibleOperator#apply(MatingGroup, Random)} method.  An operator is
+   * only fused if the latter is implemented by the same class as the former, or by a
+   * subclass of it, so that a subclass that overrides only the former is never bypassed.
+   */
+  private static boolean isFusible(EvolutionaryOperator<?> operator) {
+    return operator instanceof FusibleOperator && FUSIBLE_CLASSES.get(operator.getClass());
+  }
+
+
+  private static int lowestCommonMultiple(int a, int b) {
+    int x = a;
+    int y = b;
+    while (y != 0) {
+      int remainder = x % y;
+      x = y;
+      y = remainder;
+    }
+    return a / x * b;
+  }
 }
@@ -0,0 +1,56 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.Random;
+
+/**
+ * <p>An operator whose effect is local to small groups of candidates, such as mutation
+ * (one candidate) or cross-over (one pair).  When an {@link EvolutionPipeline} has fused
+ * execution enabled, consecutive fusible stages are applied to each {@link MatingGroup}
+ * in turn, end-to-end, instead of each stage processing the whole selection.  This
+ * avoids an intermediate list per stage and lets a stage modify candidates created by
+ * an earlier stage in place, so that, for example, a cross-over child is mutated without
+ * being copied a second time.</p>
+ *
+ * <p>The operator must still never modify a candidate that is not owned by the
+ * group.  The two {@code apply} methods must have the same effect: an operator whose
+ * {@link #apply(java.util.List, Random)} method is overridden by a subclass that does not
+ * also override {@link #apply(MatingGroup, Random)} is not fused.</p>
+ *
+ * @param <T> The type of evolved candidate.
+ */
+public interface FusibleOperator<T> extends EvolutionaryOperator<T> {
+  /**
+   * @return The number of candidates that the operator combines, e.g. 1 for mutation and
+   * 2 for cross-over.
+   */
+  int getGroupSize();
+
+
+  /**
+   * Applies the operator to a group of candidates, replacing each with its result.  The
+   * group's size is a multiple of {@link #getGroupSize()}, except that the last group of
+   * a selection may be smaller; candidates left over are passed on unchanged, as
+   * {@link #apply(java.util.List, Random)} would do.
+   *
+   * @param group The candidates to evolve.
+   * @param rng   A source of randomness.
+   */
+  void apply(MatingGroup<T> group, Random rng);
+}
@@ -18,17 +18,13 @@ package org.uncommons.watchmaker.framework.operators;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-
 /**
  * Cross-over with a configurable number of points (fixed or random) for
  * arrays of primitive ints.
  *
  * @author Daniel Dyer
  */
-public class IntArrayCrossover extends AbstractCrossover<int[]> {
+public class IntArrayCrossover extends AbstractArrayCrossover<int[]> {
   /**
    * Default is single-point cross-over, applied to all parents.
    */
@@ -92,37 +88,4 @@ public class IntArrayCrossover extends AbstractCrossover<int[]> {
                            NumberGenerator<Probability> crossoverProbabilityVariable) {
     super(crossoverPointsVariable, crossoverProbabilityVariable);
   }
-
-
-  /**
-   * {@inheritDoc}
-   */
-  @Override
-  protected List<int[]> mate(int[] parent1,
-                             int[] parent2,
-                             int numberOfCrossoverPoints,
-                             Random rng) {
-    if (parent1.length != parent2.length) {
-      throw new IllegalArgumentException("Cannot perform cross-over with different length parents.");
-    }
-    int[] offspring1 = new int[parent1.length];
-    System.arraycopy(parent1, 0, offspring1, 0, parent1.length);
-    int[] offspring2 = new int[parent2.length];
-    System.arraycopy(parent2, 0, offspring2, 0, parent2.length);
-    // Apply as many cross-overs as required.
-    int[] temp = new int[parent1.length];
-    for (int i = 0; i < numberOfCrossoverPoints; i++) {
-      // Cross-over index is always greater than zero and less than
-      // the length of the parent so that we always pick a point that
-      // will result in a meaningful cross-over.
-      int crossoverIndex = (1 + rng.nextInt(parent1.length - 1));
-      System.arraycopy(offspring1, 0, temp, 0, crossoverIndex);
-      System.arraycopy(offspring2, 0, offspring1, 0, crossoverIndex);
-      System.arraycopy(temp, 0, offspring2, 0, crossoverIndex);
-    }
-    List<int[]> result = new ArrayList<>(2);
-    result.add(offspring1);
-    result.add(offspring2);
-    return result;
-  }
 }
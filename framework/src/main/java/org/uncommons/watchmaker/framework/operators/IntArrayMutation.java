@@ -0,0 +1,75 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * Mutation of individual elements of arrays of primitive ints.  Each mutated element
+ * is replaced by a value chosen uniformly from a fixed range.
+ */
+public class IntArrayMutation extends AbstractGeneMutation<int[]> {
+  private final int minimum;
+  private final int range;
+
+
+  /**
+   * @param minimum             The smallest permitted value of an element.
+   * @param maximum             The largest permitted value of an element.
+   * @param mutationProbability The probability that a given element is replaced.
+   */
+  public IntArrayMutation(int minimum, int maximum, Probability mutationProbability) {
+    this(minimum, maximum, new ConstantGenerator<>(mutationProbability));
+  }
+
+
+  /**
+   * @param minimum             The smallest permitted value of an element.
+   * @param maximum             The largest permitted value of an element.
+   * @param mutationProbability The (possibly variable) probability that a given element
+   *                            is replaced.  A value is drawn once for each array mutated.
+   */
+  public IntArrayMutation(int minimum, int maximum, NumberGenerator<Probability> mutationProbability) {
+    super(mutationProbability);
+    if (maximum < minimum || (long) maximum - minimum >= Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Range must be non-empty and narrower than Integer.MAX_VALUE.");
+    }
+    this.minimum = minimum;
+    this.range = maximum - minimum + 1;
+  }
+
+
+  @Override
+  protected int getLength(int[] candidate) {
+    return candidate.length;
+  }
+
+
+  @Override
+  protected int[] copy(int[] candidate) {
+    return candidate.clone();
+  }
+
+
+  @Override
+  protected void mutateGene(int[] candidate, int index, Random rng) {
+    candidate[index] = minimum + rng.nextInt(range);
+  }
+}
@@ -0,0 +1,90 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * Cycle Cross-over (CX) for {@link org.uncommons.util.permutation.IntPermutation}s.  The
+ * positions are partitioned into cycles such that the two parents have the same
+ * elements at the positions of each cycle.  The offspring take alternate cycles from
+ * alternate parents, so that every element stays at a position that it occupies in one
+ * of the parents.  This operator uses no randomness beyond the decision to cross over.
+ */
+public class IntPermutationCycleCrossover extends AbstractPermutationCrossover {
+  /**
+   * Creates a cross-over operator with a cross-over probability of 1.
+   */
+  public IntPermutationCycleCrossover() {
+    this(Probability.ONE);
+  }
+
+
+  /**
+   * Creates a cross-over operator with the specified cross-over probability.
+   *
+   * @param crossoverProbability The probability that cross-over will be performed
+   *                             for any given pair.
+   */
+  public IntPermutationCycleCrossover(Probability crossoverProbability) {
+    this(new ConstantGenerator<>(crossoverProbability));
+  }
+
+
+  /**
+   * Creates a cross-over operator where cross-over may or may not be applied to a
+   * given pair of parents depending on the {@code crossoverProbability}.
+   *
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public IntPermutationCycleCrossover(NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void mate(int[] parent1, int[] parent2, int[] offspring1, int[] offspring2, Random rng) {
+    int size = offspring1.length;
+    int[] positions1 = PermutationScratch.get(PermutationScratch.POSITIONS1, size);
+    int[] marks = PermutationScratch.get(PermutationScratch.MARKS, size);
+    for (int i = 0; i < size; i++) {
+      positions1[parent1[i]] = i;
+      marks[i] = 0;
+    }
+    boolean swap = false;
+    for (int start = 0; start < size; start++) {
+      if (marks[start] == 0) {
+        int index = start;
+        do {
+          marks[index] = 1;
+          offspring1[index] = swap ? parent2[index] : parent1[index];
+          offspring2[index] = swap ? parent1[index] : parent2[index];
+          index = positions1[parent2[index]];
+        } while (index != start);
+        swap = !swap;
+      }
+    }
+  }
+}
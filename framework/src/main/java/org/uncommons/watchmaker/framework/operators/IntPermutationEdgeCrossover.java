@@ -0,0 +1,165 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>Edge Recombination Cross-over (ERX) for {@link org.uncommons.util.permutation.IntPermutation}s
+ * that represent tours, in which the last element is adjacent to the first.  The offspring
+ * are built to use, as far as possible, only edges that are present in one of the parents.
+ * The first offspring starts with the first element of the first parent and the second
+ * with the first element of the second parent.  Each subsequent element is the unused
+ * neighbour (in either parent) of the previous element that has the fewest unused
+ * neighbours of its own, with ties broken randomly, or a random unused element if there
+ * is no such neighbour.</p>
+ *
+ * <p>The edge table holds at most four neighbours per element in a flat array, and unused
+ * elements are kept in an indexed list, so building each offspring takes linear time.</p>
+ */
+public class IntPermutationEdgeCrossover extends AbstractPermutationCrossover {
+  /**
+   * Creates a cross-over operator with a cross-over probability of 1.
+   */
+  public IntPermutationEdgeCrossover() {
+    this(Probability.ONE);
+  }
+
+
+  /**
+   * Creates a cross-over operator with the specified cross-over probability.
+   *
+   * @param crossoverProbability The probability that cross-over will be performed
+   *                             for any given pair.
+   */
+  public IntPermutationEdgeCrossover(Probability crossoverProbability) {
+    this(new ConstantGenerator<>(crossoverProbability));
+  }
+
+
+  /**
+   * Creates a cross-over operator where cross-over may or may not be applied to a
+   * given pair of parents depending on the {@code crossoverProbability}.
+   *
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public IntPermutationEdgeCrossover(NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void mate(int[] parent1, int[] parent2, int[] offspring1, int[] offspring2, Random rng) {
+    int size = offspring1.length;
+    // The neighbours of element e are at [4e, 4e + counts[e]).
+    int[] neighbours = PermutationScratch.get(PermutationScratch.NEIGHBOURS, 4 * size);
+    int[] counts = PermutationScratch.get(PermutationScratch.POSITIONS1, size);
+    Arrays.fill(counts, 0, size, 0);
+    addEdges(parent1, size, neighbours, counts);
+    addEdges(parent2, size, neighbours, counts);
+    build(parent1[0], neighbours, counts, offspring1, rng);
+    build(parent2[0], neighbours, counts, offspring2, rng);
+  }
+
+
+  private static void addEdges(int[] parent, int size, int[] neighbours, int[] counts) {
+    for (int i = 0; i < size; i++) {
+      int element = parent[i];
+      addNeighbour(element, parent[(i + size - 1) % size], neighbours, counts);
+      addNeighbour(element, parent[(i + 1) % size], neighbours, counts);
+    }
+  }
+
+
+  private static void addNeighbour(int element, int neighbour, int[] neighbours, int[] counts) {
+    if (element == neighbour) {
+      return; // Only possible for a single-element tour.
+    }
+    int base = 4 * element;
+    for (int i = 0; i < counts[element]; i++) {
+      if (neighbours[base + i] == neighbour) {
+        return;
+      }
+    }
+    neighbours[base + counts[element]++] = neighbour;
+  }
+
+
+  private static void build(int first, int[] neighbours, int[] counts, int[] offspring, Random rng) {
+    int size = offspring.length;
+    // Unused elements in any order, with each element's index in that list (or -1 once it
+    // has been used) so that used elements can be removed in constant time.
+    int[] unused = PermutationScratch.get(PermutationScratch.UNUSED, size);
+    int[] unusedIndex = PermutationScratch.get(PermutationScratch.POSITIONS2, size);
+    for (int i = 0; i < size; i++) {
+      unused[i] = i;
+      unusedIndex[i] = i;
+    }
+    int unusedCount = size;
+    int current = first;
+    for (int position = 0; position < size; position++) {
+      offspring[position] = current;
+      // Remove the current element from the unused list.
+      int index = unusedIndex[current];
+      int last = unused[--unusedCount];
+      unused[index] = last;
+      unusedIndex[last] = index;
+      unusedIndex[current] = -1;
+      if (unusedCount == 0) {
+        break;
+      }
+
+      int next = -1;
+      int fewest = Integer.MAX_VALUE;
+      int ties = 0;
+      for (int i = 0; i < counts[current]; i++) {
+        int candidate = neighbours[4 * current + i];
+        if (unusedIndex[candidate] >= 0) {
+          int remaining = countUnusedNeighbours(candidate, neighbours, counts, unusedIndex);
+          if (remaining < fewest) {
+            next = candidate;
+            fewest = remaining;
+            ties = 1;
+          } else if (remaining == fewest && rng.nextInt(++ties) == 0) {
+            next = candidate;
+          }
+        }
+      }
+      current = next >= 0 ? next : unused[rng.nextInt(unusedCount)];
+    }
+  }
+
+
+  private static int countUnusedNeighbours(int element, int[] neighbours, int[] counts, int[] unusedIndex) {
+    int count = 0;
+    for (int i = 0; i < counts[element]; i++) {
+      if (unusedIndex[neighbours[4 * element + i]] >= 0) {
+        ++count;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,90 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.util.number.IntGenerator;
+import org.uncommons.util.permutation.IntPermutation;
+import org.uncommons.util.random.BlockRNG;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Insertion mutation for {@link IntPermutation}s.  A single mutation removes a random
+ * element and re-inserts it at a random position, shifting the elements in between by
+ * one place.  Candidates that receive no mutations are not copied.
+ */
+public class IntPermutationInsertionMutation implements EvolutionaryOperator<IntPermutation> {
+  private final IntGenerator mutationCountVariable;
+
+
+  /**
+   * Default is one mutation per candidate.
+   */
+  public IntPermutationInsertionMutation() {
+    this(1);
+  }
+
+
+  /**
+   * @param mutationCount The constant number of mutations
+   *                      to apply to each individual in the population.
+   */
+  public IntPermutationInsertionMutation(int mutationCount) {
+    this(new ConstantGenerator<>(mutationCount));
+  }
+
+
+  /**
+   * @param mutationCount A random variable (typically from a Poisson distribution) that
+   *                      provides a number of mutations that will be applied to each
+   *                      individual.
+   */
+  public IntPermutationInsertionMutation(NumberGenerator<Integer> mutationCount) {
+    this.mutationCountVariable = IntGenerator.of(mutationCount);
+  }
+
+
+  public List<IntPermutation> apply(List<IntPermutation> selectedCandidates, Random rng) {
+    List<IntPermutation> result = new ArrayList<>(selectedCandidates.size());
+    BlockRNG blockRNG = BlockRNG.wrap(rng);
+    for (IntPermutation candidate : selectedCandidates) {
+      int mutationCount = Math.abs(mutationCountVariable.nextInt());
+      if (mutationCount == 0) {
+        result.add(candidate);
+        continue;
+      }
+      int[] order = candidate.toArray();
+      for (int i = 0; i < mutationCount; i++) {
+        int fromIndex = blockRNG.nextInt(order.length);
+        int toIndex = blockRNG.nextInt(order.length);
+        int item = order[fromIndex];
+        if (fromIndex < toIndex) {
+          System.arraycopy(order, fromIndex + 1, order, fromIndex, toIndex - fromIndex);
+        } else {
+          System.arraycopy(order, toIndex, order, toIndex + 1, fromIndex - toIndex);
+        }
+        order[toIndex] = item;
+      }
+      result.add(IntPermutation.wrap(order));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,83 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.number.ProbabilityGenerator;
+import org.uncommons.util.permutation.IntPermutation;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An evolutionary operator that randomly reverses a subsection of an
+ * {@link IntPermutation}, with the same behaviour as {@link ListInversion}.  For a tour,
+ * this is the 2-opt move.
+ */
+public class IntPermutationInversion implements EvolutionaryOperator<IntPermutation> {
+  private final ProbabilityGenerator inversionProbability;
+
+
+  /**
+   * @param inversionProbability The probability that an individual permutation will have
+   *                             some subsection inverted.
+   */
+  public IntPermutationInversion(Probability inversionProbability) {
+    this(new ConstantGenerator<>(inversionProbability));
+  }
+
+
+  /**
+   * @param inversionProbability A variable that controls the probability that an
+   *                             individual permutation will have some subsection inverted.
+   */
+  public IntPermutationInversion(NumberGenerator<Probability> inversionProbability) {
+    this.inversionProbability = ProbabilityGenerator.of(inversionProbability);
+  }
+
+
+  public List<IntPermutation> apply(List<IntPermutation> selectedCandidates, Random rng) {
+    List<IntPermutation> result = new ArrayList<>(selectedCandidates.size());
+    for (IntPermutation candidate : selectedCandidates) {
+      if (inversionProbability.nextEvent(rng)) {
+        int[] order = candidate.toArray();
+        int length = order.length;
+        int start = rng.nextInt(length);
+        int offset = 2 + rng.nextInt(length - 2); // Make sure segment length is at least 2.
+        int end = (start + offset) % length;
+        int segmentLength = end - start;
+        if (segmentLength < 0) {
+          segmentLength += length;
+        }
+        for (int i = 0; i < segmentLength / 2; i++) {
+          int a = (start + i) % length;
+          int b = (end - i + length) % length;
+          int item = order[a];
+          order[a] = order[b];
+          order[b] = item;
+        }
+        result.add(IntPermutation.wrap(order));
+      } else {
+        result.add(candidate);
+      }
+    }
+    return result;
+  }
+}
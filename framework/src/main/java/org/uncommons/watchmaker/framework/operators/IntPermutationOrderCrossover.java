@@ -0,0 +1,97 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Order Cross-over (OX) for {@link org.uncommons.util.permutation.IntPermutation}s.  Each
+ * offspring keeps a randomly chosen (possibly wrapping) segment of one parent in place
+ * and fills the remaining positions, starting after the segment, with the other
+ * elements in the order that they appear in the other parent, also starting after the
+ * segment.  This preserves the relative order of elements rather than their absolute
+ * positions.
+ */
+public class IntPermutationOrderCrossover extends AbstractPermutationCrossover {
+  /**
+   * Creates a cross-over operator with a cross-over probability of 1.
+   */
+  public IntPermutationOrderCrossover() {
+    this(Probability.ONE);
+  }
+
+
+  /**
+   * Creates a cross-over operator with the specified cross-over probability.
+   *
+   * @param crossoverProbability The probability that cross-over will be performed
+   *                             for any given pair.
+   */
+  public IntPermutationOrderCrossover(Probability crossoverProbability) {
+    this(new ConstantGenerator<>(crossoverProbability));
+  }
+
+
+  /**
+   * Creates a cross-over operator where cross-over may or may not be applied to a
+   * given pair of parents depending on the {@code crossoverProbability}.
+   *
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public IntPermutationOrderCrossover(NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void mate(int[] parent1, int[] parent2, int[] offspring1, int[] offspring2, Random rng) {
+    int size = offspring1.length;
+    int start = rng.nextInt(size);
+    int length = rng.nextInt(size);
+    fill(parent1, parent2, offspring1, start, length);
+    fill(parent2, parent1, offspring2, start, length);
+  }
+
+
+  private static void fill(int[] kept, int[] donor, int[] offspring, int start, int length) {
+    int size = offspring.length;
+    int[] marks = PermutationScratch.get(PermutationScratch.MARKS, size);
+    Arrays.fill(marks, 0, size, 0);
+    for (int i = 0; i < length; i++) {
+      int index = (start + i) % size;
+      offspring[index] = kept[index];
+      marks[kept[index]] = 1;
+    }
+    int next = (start + length) % size;
+    for (int i = 0; i < size; i++) {
+      int item = donor[(start + length + i) % size];
+      if (marks[item] == 0) {
+        offspring[next] = item;
+        next = (next + 1) % size;
+      }
+    }
+  }
+}
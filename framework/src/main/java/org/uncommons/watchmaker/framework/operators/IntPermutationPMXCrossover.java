@@ -0,0 +1,106 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * Partially Mapped Cross-over (PMX) for {@link org.uncommons.util.permutation.IntPermutation}s,
+ * producing the same offspring as {@link ListOrderCrossover} does for lists.  Instead of
+ * mapping tables, each offspring keeps an index of where every element is, and each
+ * element copied from the other parent is swapped with the element that it displaces.
+ */
+public class IntPermutationPMXCrossover extends AbstractPermutationCrossover {
+  /**
+   * Creates a cross-over operator with a cross-over probability of 1.
+   */
+  public IntPermutationPMXCrossover() {
+    this(Probability.ONE);
+  }
+
+
+  /**
+   * Creates a cross-over operator with the specified cross-over probability.
+   *
+   * @param crossoverProbability The probability that cross-over will be performed
+   *                             for any given pair.
+   */
+  public IntPermutationPMXCrossover(Probability crossoverProbability) {
+    this(new ConstantGenerator<>(crossoverProbability));
+  }
+
+
+  /**
+   * Creates a cross-over operator where cross-over may or may not be applied to a
+   * given pair of parents depending on the {@code crossoverProbability}.
+   *
+   * @param crossoverProbabilityVariable The probability that, once selected,
+   *                                     a pair of parents will be subjected to cross-over rather than
+   *                                     being copied, unchanged, into the output population.
+   */
+  public IntPermutationPMXCrossover(NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void mate(int[] parent1, int[] parent2, int[] offspring1, int[] offspring2, Random rng) {
+    int size = offspring1.length;
+    int[] positions1 = PermutationScratch.get(PermutationScratch.POSITIONS1, size);
+    int[] positions2 = PermutationScratch.get(PermutationScratch.POSITIONS2, size);
+    for (int i = 0; i < size; i++) {
+      offspring1[i] = parent1[i];
+      offspring2[i] = parent2[i];
+      positions1[parent1[i]] = i;
+      positions2[parent2[i]] = i;
+    }
+
+    int point1 = rng.nextInt(size);
+    int point2 = rng.nextInt(size);
+    int length = point2 - point1;
+    if (length < 0) {
+      length += size;
+    }
+    for (int i = 0; i < length; i++) {
+      int index = (i + point1) % size;
+      int item1 = parent1[index];
+      int item2 = parent2[index];
+      exchange(offspring1, positions1, index, item2);
+      exchange(offspring2, positions2, index, item1);
+    }
+  }
+
+
+  /**
+   * Puts an element at a position, moving the element that was there to the position
+   * that the first element vacates.
+   */
+  private static void exchange(int[] offspring, int[] positions, int index, int item) {
+    int displaced = offspring[index];
+    int from = positions[item];
+    offspring[from] = displaced;
+    positions[displaced] = from;
+    offspring[index] = item;
+    positions[item] = index;
+  }
+}
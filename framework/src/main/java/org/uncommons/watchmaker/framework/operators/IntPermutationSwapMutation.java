@@ -0,0 +1,97 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.util.number.IntGenerator;
+import org.uncommons.util.permutation.IntPermutation;
+import org.uncommons.util.random.BlockRNG;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Swap mutation for {@link IntPermutation}s, with the same behaviour as
+ * {@link ListOrderMutation}: a single mutation swaps a random element with the
+ * element a given number of positions after it (wrapping around).  Candidates that
+ * receive no mutations are not copied.
+ */
+public class IntPermutationSwapMutation implements EvolutionaryOperator<IntPermutation> {
+  private final IntGenerator mutationCountVariable;
+  private final IntGenerator mutationAmountVariable;
+
+
+  /**
+   * Default is one mutation per candidate, swapping adjacent elements.
+   */
+  public IntPermutationSwapMutation() {
+    this(1, 1);
+  }
+
+
+  /**
+   * @param mutationCount  The constant number of mutations
+   *                       to apply to each individual in the population.
+   * @param mutationAmount The constant number of positions by
+   *                       which an element will be displaced as a result of mutation.
+   */
+  public IntPermutationSwapMutation(int mutationCount, int mutationAmount) {
+    this(new ConstantGenerator<>(mutationCount),
+        new ConstantGenerator<>(mutationAmount));
+  }
+
+
+  /**
+   * @param mutationCount  A random variable that provides a number
+   *                       of mutations that will be applied to each individual.
+   * @param mutationAmount A random variable that provides a number
+   *                       of positions by which to displace an element when mutating.
+   */
+  public IntPermutationSwapMutation(NumberGenerator<Integer> mutationCount,
+                                    NumberGenerator<Integer> mutationAmount) {
+    this.mutationCountVariable = IntGenerator.of(mutationCount);
+    this.mutationAmountVariable = IntGenerator.of(mutationAmount);
+  }
+
+
+  public List<IntPermutation> apply(List<IntPermutation> selectedCandidates, Random rng) {
+    List<IntPermutation> result = new ArrayList<>(selectedCandidates.size());
+    BlockRNG blockRNG = BlockRNG.wrap(rng);
+    for (IntPermutation candidate : selectedCandidates) {
+      int mutationCount = Math.abs(mutationCountVariable.nextInt());
+      if (mutationCount == 0) {
+        result.add(candidate);
+        continue;
+      }
+      int[] order = candidate.toArray();
+      for (int i = 0; i < mutationCount; i++) {
+        int fromIndex = blockRNG.nextInt(order.length);
+        int toIndex = (fromIndex + mutationAmountVariable.nextInt()) % order.length;
+        if (toIndex < 0) {
+          toIndex += order.length;
+        }
+        int item = order[fromIndex];
+        order[fromIndex] = order[toIndex];
+        order[toIndex] = item;
+      }
+      result.add(IntPermutation.wrap(order));
+    }
+    return result;
+  }
+}
@@ -18,6 +18,7 @@ package org.uncommons.watchmaker.framework.operators;
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
+import org.uncommons.util.number.ProbabilityGenerator;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 
 import java.util.ArrayList;
@@ -32,7 +33,7 @@ import java.util.Random;
  * @author Daniel Dyer
  */
 public class ListInversion<T> implements EvolutionaryOperator<List<T>> {
-  private final NumberGenerator<Probability> inversionProbability;
+  private final ProbabilityGenerator inversionProbability;
 
 
   /**
@@ -49,14 +50,14 @@ public class ListInversion<T> implements EvolutionaryOperator<List<T>> {
    *                             individual list will have some subsection inverted.
    */
   public ListInversion(NumberGenerator<Probability> inversionProbability) {
-    this.inversionProbability = inversionProbability;
+    this.inversionProbability = ProbabilityGenerator.of(inversionProbability);
   }
 
 
   public List<List<T>> apply(List<List<T>> selectedCandidates, Random rng) {
     List<List<T>> result = new ArrayList<>(selectedCandidates.size());
     for (List<T> candidate : selectedCandidates) {
-      if (inversionProbability.nextValue().nextEvent(rng)) {
+      if (inversionProbability.nextEvent(rng)) {
         List<T> newCandidate = new ArrayList<>(candidate);
         int length = newCandidate.size();
         int start = rng.nextInt(length);
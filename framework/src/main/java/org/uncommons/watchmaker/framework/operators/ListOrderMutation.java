@@ -17,6 +17,7 @@ package org.uncommons.watchmaker.framework.operators;
 
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.util.number.IntGenerator;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 
 import java.util.ArrayList;
@@ -38,8 +39,8 @@ import java.util.Random;
  * @author Daniel Dyer
  */
 public class ListOrderMutation<T> implements EvolutionaryOperator<List<T>> {
-  private final NumberGenerator<Integer> mutationCountVariable;
-  private final NumberGenerator<Integer> mutationAmountVariable;
+  private final IntGenerator mutationCountVariable;
+  private final IntGenerator mutationAmountVariable;
 
   /**
    * Default is one mutation per candidate.
@@ -72,8 +73,8 @@ public class ListOrderMutation<T> implements EvolutionaryOperator<List<T>> {
    */
   public ListOrderMutation(NumberGenerator<Integer> mutationCount,
                            NumberGenerator<Integer> mutationAmount) {
-    this.mutationCountVariable = mutationCount;
-    this.mutationAmountVariable = mutationAmount;
+    this.mutationCountVariable = IntGenerator.of(mutationCount);
+    this.mutationAmountVariable = IntGenerator.of(mutationAmount);
   }
 
 
@@ -81,10 +82,10 @@ public class ListOrderMutation<T> implements EvolutionaryOperator<List<T>> {
     List<List<T>> result = new ArrayList<>(selectedCandidates.size());
     for (List<T> candidate : selectedCandidates) {
       List<T> newCandidate = new ArrayList<>(candidate);
-      int mutationCount = Math.abs(mutationCountVariable.nextValue());
+      int mutationCount = Math.abs(mutationCountVariable.nextInt());
       for (int i = 0; i < mutationCount; i++) {
         int fromIndex = rng.nextInt(newCandidate.size());
-        int mutationAmount = mutationAmountVariable.nextValue();
+        int mutationAmount = mutationAmountVariable.nextInt();
         int toIndex = (fromIndex + mutationAmount) % newCandidate.size();
         if (toIndex < 0) {
           toIndex += newCandidate.size();
@@ -0,0 +1,110 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import java.util.List;
+
+/**
+ * A few candidates that pass through the fused stages of an {@link EvolutionPipeline}
+ * together.  Each entry records whether the pipeline owns the candidate: an owned
+ * candidate was created by an earlier stage for this group and is referenced nowhere
+ * else, so a later stage may modify it in place instead of copying it.  Candidates that
+ * came from the selection are never owned.
+ *
+ * @param <T> The type of evolved candidate.
+ */
+public final class MatingGroup<T> {
+  private final Object[] candidates;
+  private final boolean[] owned;
+  private int size = 0;
+
+
+  /**
+   * @param capacity The maximum number of candidates in the group.
+   */
+  MatingGroup(int capacity) {
+    this.candidates = new Object[capacity];
+    this.owned = new boolean[capacity];
+  }
+
+
+  /**
+   * Fills the group with selected candidates, none of which is owned.
+   *
+   * @param source The selected candidates.
+   * @param start  The index of the first candidate to include.
+   * @param end    The index after the last candidate to include.
+   */
+  void reset(List<T> source, int start, int end) {
+    size = end - start;
+    for (int i = 0; i < size; i++) {
+      candidates[i] = source.get(start + i);
+      owned[i] = false;
+    }
+  }
+
+
+  /**
+   * @return The number of candidates in the group.  This is usually the pipeline's group
+   * size, but may be smaller for the last group of a selection.
+   */
+  public int size() {
+    return size;
+  }
+
+
+  /**
+   * @param index The position of a candidate in the group.
+   * @return The candidate.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    checkIndex(index);
+    return (T) candidates[index];
+  }
+
+
+  /**
+   * @param index The position of a candidate in the group.
+   * @return True if the candidate may be modified in place.
+   */
+  public boolean isOwned(int index) {
+    checkIndex(index);
+    return owned[index];
+  }
+
+
+  /**
+   * Replaces a candidate with the result of a stage.
+   *
+   * @param index     The position of the candidate in the group.
+   * @param candidate The new candidate.
+   * @param owned     True if the new candidate was created by the stage and is not
+   *                  referenced anywhere else, or is an owned candidate modified in place.
+   */
+  public void set(int index, T candidate, boolean owned) {
+    checkIndex(index);
+    candidates[index] = candidate;
+    this.owned[index] = owned;
+  }
+
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.binary.PackedBitString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cross-over with a configurable number of points (fixed or random) for
+ * packed bit strings.  As with {@link BitStringCrossover}, each cross-over point
+ * exchanges the parents' bits below that point, but the segments between points are
+ * exchanged a word at a time, in a single pass over the parents however many points
+ * there are.
+ *
+ * @see PackedBitString
+ */
+public class PackedBitStringCrossover extends AbstractCrossover<PackedBitString> {
+  /**
+   * Default is single-point cross-over, applied to all parents.
+   */
+  public PackedBitStringCrossover() {
+    this(1);
+  }
+
+
+  /**
+   * Cross-over with a fixed number of cross-over points.
+   *
+   * @param crossoverPoints The constant number of cross-over points
+   *                        to use for all cross-over operations.
+   */
+  public PackedBitStringCrossover(int crossoverPoints) {
+    super(crossoverPoints);
+  }
+
+
+  /**
+   * Cross-over with a fixed number of cross-over points.  Cross-over
+   * may or may not be applied to a given pair of parents depending on
+   * the {@code crossoverProbability}.
+   *
+   * @param crossoverPoints      The constant number of cross-over points
+   *                             to use for all cross-over operations.
+   * @param crossoverProbability The probability that, once selected,
+   *                             a pair of parents will be subjected to cross-over rather than
+   *                             being copied, unchanged, into the output population.
+   */
+  public PackedBitStringCrossover(int crossoverPoints, Probability crossoverProbability) {
+    super(crossoverPoints, crossoverProbability);
+  }
+
+
+  /**
+   * Cross-over with a variable number of cross-over points.
+   *
+   * @param crossoverPointsVariable A random variable that provides a number
+   *                                of cross-over points for each cross-over operation.
+   */
+  public PackedBitStringCrossover(NumberGenerator<Integer> crossoverPointsVariable) {
+    super(crossoverPointsVariable);
+  }
+
+
+  /**
+   * Sets up a cross-over implementation that uses a variable number of cross-over
+   * points.  Cross-over is applied to a proportion of selected parent pairs, with
+   * the remainder copied unchanged into the output population.
+   *
+   * @param crossoverPointsVariable      A variable that provides a (possibly constant,
+   *                                     possibly random) number of cross-over points for each cross-over operation.
+   * @param crossoverProbabilityVariable A variable that controls the probability
+   *                                     that, once selected, a pair of parents will be subjected to cross-over rather
+   *                                     than being copied, unchanged, into the output population.
+   */
+  public PackedBitStringCrossover(NumberGenerator<Integer> crossoverPointsVariable,
+                                  NumberGenerator<Probability> crossoverProbabilityVariable) {
+    super(crossoverPointsVariable, crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected List<PackedBitString> mate(PackedBitString parent1,
+                                       PackedBitString parent2,
+                                       int numberOfCrossoverPoints,
+                                       Random rng) {
+    if (parent1.getLength() != parent2.getLength()) {
+      throw new IllegalArgumentException("Cannot perform cross-over with different length parents.");
+    }
+    PackedBitString offspring1 = parent1.clone();
+    PackedBitString offspring2 = parent2.clone();
+    // Each cross-over swaps the prefix up to its point, so a bit ends up swapped if an
+    // odd number of points lie above it.  Sorting the points lets the affected segments
+    // be swapped directly.
+    int[] points = new int[numberOfCrossoverPoints];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = 1 + rng.nextInt(parent1.getLength() - 1);
+    }
+    Arrays.sort(points);
+    int start = 0;
+    for (int i = 0; i < points.length; i++) {
+      if ((points.length - i) % 2 == 1) {
+        offspring1.swapSubstring(offspring2, start, points[i] - start);
+      }
+      start = points[i];
+    }
+    List<PackedBitString> result = new ArrayList<>(2);
+    result.add(offspring1);
+    result.add(offspring2);
+    return result;
+  }
+}
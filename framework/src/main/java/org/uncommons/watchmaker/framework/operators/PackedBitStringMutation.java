@@ -0,0 +1,92 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.binary.PackedBitString;
+import org.uncommons.util.number.IntGenerator;
+import org.uncommons.util.number.ProbabilityGenerator;
+import org.uncommons.util.random.BlockRNG;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mutation of individual bits in a {@link PackedBitString}, with the same behaviour as
+ * {@link BitStringMutation}.  The positions of all of the flips for a candidate are drawn
+ * in one block and then applied together.
+ *
+ * @see PackedBitString
+ */
+public class PackedBitStringMutation implements EvolutionaryOperator<PackedBitString> {
+  private final ProbabilityGenerator mutationProbability;
+  private final IntGenerator mutationCount;
+
+
+  /**
+   * Creates a mutation operator for packed bit strings with the specified probability that
+   * a given bit string will be mutated, with exactly one bit being flipped.
+   *
+   * @param mutationProbability The probability of a candidate being mutated.
+   */
+  public PackedBitStringMutation(Probability mutationProbability) {
+    this(new ConstantGenerator<>(mutationProbability),
+        new ConstantGenerator<>(1));
+  }
+
+
+  /**
+   * @param mutationProbability The (possibly variable) probability of a candidate
+   *                            bit string being mutated at all.
+   * @param mutationCount       The (possibly variable) number of bits that will be flipped
+   *                            on any candidate bit string that is selected for mutation.
+   */
+  public PackedBitStringMutation(NumberGenerator<Probability> mutationProbability,
+                                 NumberGenerator<Integer> mutationCount) {
+    this.mutationProbability = ProbabilityGenerator.of(mutationProbability);
+    this.mutationCount = IntGenerator.of(mutationCount);
+  }
+
+
+  public List<PackedBitString> apply(List<PackedBitString> selectedCandidates, Random rng) {
+    List<PackedBitString> mutatedPopulation = new ArrayList<>(selectedCandidates.size());
+    BlockRNG blockRNG = BlockRNG.wrap(rng);
+    for (PackedBitString b : selectedCandidates) {
+      mutatedPopulation.add(mutateBitString(b, blockRNG));
+    }
+    return mutatedPopulation;
+  }
+
+
+  private PackedBitString mutateBitString(PackedBitString bitString, BlockRNG rng) {
+    if (mutationProbability.nextEvent(rng)) {
+      int mutations = mutationCount.nextInt();
+      if (mutations <= 0 || bitString.getLength() == 0) {
+        return bitString;
+      }
+      int[] positions = new int[mutations];
+      rng.nextInts(positions, bitString.getLength());
+      PackedBitString mutatedBitString = bitString.clone();
+      mutatedBitString.flipBits(positions);
+      return mutatedBitString;
+    }
+    return bitString;
+  }
+}
@@ -0,0 +1,82 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.binary.PackedBitString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Uniform cross-over for packed bit strings.  Each bit of the offspring is taken from
+ * either parent with equal probability, using one random 64-bit mask per word.
+ *
+ * @see PackedBitString
+ */
+public class PackedBitStringUniformCrossover extends AbstractCrossover<PackedBitString> {
+  /**
+   * Uniform cross-over applied to all parents.
+   */
+  public PackedBitStringUniformCrossover() {
+    this(Probability.ONE);
+  }
+
+
+  /**
+   * @param crossoverProbability The probability that, once selected,
+   *                             a pair of parents will be subjected to cross-over rather than
+   *                             being copied, unchanged, into the output population.
+   */
+  public PackedBitStringUniformCrossover(Probability crossoverProbability) {
+    this(new ConstantGenerator<>(crossoverProbability));
+  }
+
+
+  /**
+   * @param crossoverProbabilityVariable A variable that controls the probability
+   *                                     that, once selected, a pair of parents will be subjected to cross-over rather
+   *                                     than being copied, unchanged, into the output population.
+   */
+  public PackedBitStringUniformCrossover(NumberGenerator<Probability> crossoverProbabilityVariable) {
+    // Uniform cross-over has no cross-over points, so the count is only a flag.
+    super(new ConstantGenerator<>(1), crossoverProbabilityVariable);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected List<PackedBitString> mate(PackedBitString parent1,
+                                       PackedBitString parent2,
+                                       int numberOfCrossoverPoints,
+                                       Random rng) {
+    if (parent1.getLength() != parent2.getLength()) {
+      throw new IllegalArgumentException("Cannot perform cross-over with different length parents.");
+    }
+    PackedBitString offspring1 = parent1.clone();
+    PackedBitString offspring2 = parent2.clone();
+    offspring1.swapRandomBits(offspring2, rng);
+    List<PackedBitString> result = new ArrayList<>(2);
+    result.add(offspring1);
+    result.add(offspring2);
+    return result;
+  }
+}
@@ -0,0 +1,109 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.uncommons.util.number.ParallelSampling;
+import org.uncommons.util.random.SplittableRNG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Support for compound operators that evolve a population in parallel when they are
+ * given a {@link SplittableRNG}.  Work is divided into chunks of a fixed size, and each
+ * chunk is given its own generator, split from the caller's in chunk order.  The results
+ * therefore depend only on the caller's generator, never on the number of threads.
+ *
+ * <p>Operators share their random variables between chunks.  A variable that is not
+ * constant has its own source of randomness, which cannot be split, so such variables
+ * must be sampled by the caller before the work is divided.  Sampling one from inside
+ * a chunk fails with an {@link IllegalStateException} (see {@link ParallelSampling}).</p>
+ */
+final class ParallelBreeding {
+  /**
+   * The number of items in each chunk.  Chunks are processed in parallel with each other
+   * and sequentially within themselves.
+   */
+  static final int CHUNK_SIZE = 256;
+
+
+  private ParallelBreeding() {
+    // Prevent instantiation.
+  }
+
+
+  /**
+   * Operation applied to one chunk of work.
+   *
+   * @param <R> The type of result produced for each item.
+   */
+  interface ChunkOperation<R> {
+    /**
+     * @param start The index of the first item in the chunk.
+     * @param end   The index after the last item in the chunk.
+     * @param rng   The chunk's own source of randomness.
+     * @return The results for the chunk.
+     */
+    List<R> apply(int start, int end, Random rng);
+  }
+
+
+  /**
+   * @param rng The source of randomness passed to an operator.
+   * @return True if the operator should evolve its candidates in parallel.
+   */
+  static boolean isParallel(Random rng) {
+    return rng instanceof SplittableRNG;
+  }
+
+
+  /**
+   * Applies an operation to each chunk of a range of items, in parallel, and concatenates
+   * the results in chunk order.
+   *
+   * @param size      The number of items.
+   * @param chunkSize The maximum number of items in each chunk.
+   * @param rng       The generator from which each chunk's generator is split.
+   * @param operation The operation to apply to each chunk.
+   * @param <R>       The type of result.
+   * @return The combined results.
+   */
+  static <R> List<R> applyInChunks(int size, int chunkSize, SplittableRNG rng, ChunkOperation<R> operation) {
+    int chunkCount = (size + chunkSize - 1) / chunkSize;
+    if (chunkCount <= 1) {
+      SplittableRNG chunkRng = rng.split();
+      return ParallelSampling.restrict(() -> operation.apply(0, size, chunkRng));
+    }
+    // Split sequentially, so that each chunk's generator is independent of scheduling.
+    List<SplittableRNG> generators = new ArrayList<>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      generators.add(rng.split());
+    }
+    List<List<R>> results = IntStream.range(0, chunkCount)
+        .parallel()
+        .mapToObj(i -> ParallelSampling.restrict(
+            () -> operation.apply(i * chunkSize, Math.min(size, (i + 1) * chunkSize), generators.get(i))))
+        .collect(Collectors.toList());
+    List<R> combined = new ArrayList<>(size);
+    for (List<R> result : results) {
+      combined.addAll(result);
+    }
+    return combined;
+  }
+}
@@ -0,0 +1,55 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+/**
+ * Per-thread working arrays for the {@link org.uncommons.util.permutation.IntPermutation}
+ * operators, so that mating a pair of parents does not allocate position indices or
+ * marker arrays.  Each array is identified by a slot; an operator must not use a slot
+ * that an operator it calls is also using.  Arrays are grown as needed, so they may be
+ * longer than requested, and are not cleared between uses.
+ */
+final class PermutationScratch {
+  static final int PARENT1 = 0;
+  static final int PARENT2 = 1;
+  static final int POSITIONS1 = 2;
+  static final int POSITIONS2 = 3;
+  static final int MARKS = 4;
+  static final int NEIGHBOURS = 5;
+  static final int UNUSED = 6;
+  private static final int SLOTS = 7;
+
+  private static final ThreadLocal<int[][]> ARRAYS = ThreadLocal.withInitial(() -> new int[SLOTS][0]);
+
+
+  private PermutationScratch() {
+    // Prevent instantiation.
+  }
+
+
+  /**
+   * @param slot The identity of the array.
+   * @param size The minimum length required.
+   * @return This thread's array for the slot, with undefined contents.
+   */
+  static int[] get(int slot, int size) {
+    int[][] arrays = ARRAYS.get();
+    if (arrays[slot].length < size) {
+      arrays[slot] = new int[Math.max(size, arrays[slot].length * 2)];
+    }
+    return arrays[slot];
+  }
+}
@@ -18,6 +18,7 @@ package org.uncommons.watchmaker.framework.operators;
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
+import org.uncommons.util.number.ProbabilityGenerator;
 import org.uncommons.watchmaker.framework.CandidateFactory;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 
@@ -37,7 +38,7 @@ import java.util.Random;
  */
 public class Replacement<T> implements EvolutionaryOperator<T> {
   private final CandidateFactory<T> factory;
-  private final NumberGenerator<Probability> replacementProbability;
+  private final ProbabilityGenerator replacementProbability;
 
 
   /**
@@ -70,7 +71,7 @@ public class Replacement<T> implements EvolutionaryOperator<T> {
   public Replacement(CandidateFactory<T> factory,
                      NumberGenerator<Probability> replacementProbability) {
     this.factory = factory;
-    this.replacementProbability = replacementProbability;
+    this.replacementProbability = ProbabilityGenerator.of(replacementProbability);
   }
 
 
@@ -87,7 +88,7 @@ public class Replacement<T> implements EvolutionaryOperator<T> {
   public List<T> apply(List<T> selectedCandidates, Random rng) {
     List<T> output = new ArrayList<>(selectedCandidates.size());
     for (T candidate : selectedCandidates) {
-      output.add(replacementProbability.nextValue().nextEvent(rng)
+      output.add(replacementProbability.nextEvent(rng)
           ? factory.generateRandomCandidate(rng)
           : candidate);
     }
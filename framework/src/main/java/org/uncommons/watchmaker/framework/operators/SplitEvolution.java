@@ -17,6 +17,8 @@ package org.uncommons.watchmaker.framework.operators;
 
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.util.number.DoubleGenerator;
+import org.uncommons.util.random.SplittableRNG;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 
 import java.util.ArrayList;
@@ -46,7 +48,7 @@ import java.util.Random;
 public class SplitEvolution<T> implements EvolutionaryOperator<T> {
   private final EvolutionaryOperator<T> operator1;
   private final EvolutionaryOperator<T> operator2;
-  private final NumberGenerator<Double> weightVariable;
+  private final DoubleGenerator weightVariable;
 
   /**
    * @param operator1 The operator that will apply to the first part of the
@@ -81,7 +83,7 @@ public class SplitEvolution<T> implements EvolutionaryOperator<T> {
                         NumberGenerator<Double> weightVariable) {
     this.operator1 = operator1;
     this.operator2 = operator2;
-    this.weightVariable = weightVariable;
+    this.weightVariable = DoubleGenerator.of(weightVariable);
   }
 
 
@@ -90,6 +92,11 @@ public class SplitEvolution<T> implements EvolutionaryOperator<T> {
    * to the remainder.  Returns a list combining the output of both.  Which
    * candidates are submitted to which stream is determined randomly.
    *
+   * <p>If the source of randomness is a {@link SplittableRNG}, the two streams are
+   * evolved in parallel, each with its own generator split from it.  As for the chunks
+   * of any other parallel operator, the delegate operators must then only use constant
+   * random variables (see {@link org.uncommons.util.number.ParallelSampling}).</p>
+   *
    * @param selectedCandidates A list of the candidates that survived to be
    *                           eligible for evolution.
    * @param rng                A source of randomness passed to each of the two delegate
@@ -97,7 +104,7 @@ public class SplitEvolution<T> implements EvolutionaryOperator<T> {
    * @return The combined results from the two streams of evolution.
    */
   public List<T> apply(List<T> selectedCandidates, Random rng) {
-    double ratio = weightVariable.nextValue();
+    double ratio = weightVariable.nextDouble();
     int size = (int) Math.round(ratio * selectedCandidates.size());
 
     // Shuffle the collection before applying each operation so that the
@@ -109,8 +116,17 @@ public class SplitEvolution<T> implements EvolutionaryOperator<T> {
     List<T> list1 = selectionClone.subList(0, size);
     List<T> list2 = selectionClone.subList(size, selectedCandidates.size());
     List<T> result = new ArrayList<>(selectedCandidates.size());
-    result.addAll(operator1.apply(list1, rng));
-    result.addAll(operator2.apply(list2, rng));
+    if (ParallelBreeding.isParallel(rng)) {
+      // Each stream is a chunk of its own, so it gets its own generator and the same
+      // restrictions on sampling shared random variables as any other parallel chunk.
+      result.addAll(ParallelBreeding.applyInChunks(2,
+          1,
+          (SplittableRNG) rng,
+          (start, end, chunkRng) -> start == 0 ? operator1.apply(list1, chunkRng) : operator2.apply(list2, chunkRng)));
+    } else {
+      result.addAll(operator1.apply(list1, rng));
+      result.addAll(operator2.apply(list2, rng));
+    }
     return result;
   }
 }
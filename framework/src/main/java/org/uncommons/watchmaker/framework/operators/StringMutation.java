@@ -18,6 +18,7 @@ package org.uncommons.watchmaker.framework.operators;
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
+import org.uncommons.util.number.ProbabilityGenerator;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 
 import java.util.ArrayList;
@@ -26,13 +27,15 @@ import java.util.Random;
 
 /**
  * Mutation of individual characters in a string according to some
- * probability.
+ * probability.  The positions to mutate are chosen by a {@link MutationKernel},
+ * so the cost of mutating long strings at low probabilities is proportional to
+ * the number of characters changed.
  *
  * @author Daniel Dyer
  */
 public class StringMutation implements EvolutionaryOperator<String> {
   private final char[] alphabet;
-  private final NumberGenerator<Probability> mutationProbability;
+  private final ProbabilityGenerator mutationProbability;
 
   /**
    * Creates a mutation operator that is applied with the given
@@ -53,12 +56,13 @@ public class StringMutation implements EvolutionaryOperator<String> {
    *
    * @param alphabet            The permitted values for each character in a string.
    * @param mutationProbability The (possibly variable) probability that a
-   *                            given character is changed.
+   *                            given character is changed.  A value is drawn once
+   *                            for each string mutated.
    */
   public StringMutation(char[] alphabet,
                         NumberGenerator<Probability> mutationProbability) {
     this.alphabet = alphabet.clone();
-    this.mutationProbability = mutationProbability;
+    this.mutationProbability = ProbabilityGenerator.of(mutationProbability);
   }
 
 
@@ -78,15 +82,14 @@ public class StringMutation implements EvolutionaryOperator<String> {
    *
    * @param s   The string to mutate.
    * @param rng A source of randomness.
-   * @return The mutated string.
+   * @return The mutated string, or the original if no characters were changed.
    */
   private String mutateString(String s, Random rng) {
-    StringBuilder buffer = new StringBuilder(s);
-    for (int i = 0; i < buffer.length(); i++) {
-      if (mutationProbability.nextValue().nextEvent(rng)) {
-        buffer.setCharAt(i, alphabet[rng.nextInt(alphabet.length)]);
-      }
-    }
-    return buffer.toString();
+    char[] characters = s.toCharArray();
+    int mutations = MutationKernel.forEachMutation(characters.length,
+        mutationProbability.nextProbability(),
+        rng,
+        i -> characters[i] = alphabet[rng.nextInt(alphabet.length)]);
+    return mutations == 0 ? s : new String(characters);
   }
 }
@@ -0,0 +1,551 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.uncommons.util.concurrent.ConfigurableThreadFactory;
+import org.uncommons.watchmaker.framework.BatchFitnessEvaluator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <p>Fitness evaluator for fitness functions that are implemented by an external
+ * program, such as a simulator.  Rather than launching a process for every
+ * evaluation, the evaluator keeps a pool of long-lived child processes and streams
+ * candidates to them.</p>
+ *
+ * <p>The protocol is line-based so that the external program can be written in any
+ * language.  Each request is written to the child's standard input as a line
+ * containing a numeric request ID, a single space and the text form of the candidate.
+ * For each request, the child writes a line containing the request ID, a single space
+ * and the fitness score to its standard output.  Responses may be written in any order.
+ * A response whose score cannot be parsed as a number fails the evaluation, with the
+ * rest of the line used as the error message, and so does a negative score.  The
+ * child's standard error is passed through to this JVM's standard error.</p>
+ *
+ * <p>Requests are written in batches and each child may have several requests
+ * outstanding, up to a configurable limit, so that children never wait for input.
+ * Each child has its own writer thread, so a child that stops reading its input only
+ * holds up its own requests.  A child that exits, breaks the protocol or (if a request
+ * timeout is set) takes too long to answer a request is killed and restarted, and its
+ * outstanding requests are re-sent.  A candidate that has been outstanding on three
+ * children that failed is assumed to be the cause and its evaluation fails.</p>
+ *
+ * <p>External programs only see the candidate itself, not the rest of the population.</p>
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ */
+public class ExternalProcessFitnessEvaluator<T> implements BatchFitnessEvaluator<T>, Closeable {
+  private static final int DEFAULT_MAX_OUTSTANDING = 8;
+  private static final int DEFAULT_BATCH_SIZE = 16;
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int MAX_FAILURE_LENGTH = 1000;
+
+  private final List<String> command;
+  private final Function<? super T, String> formatter;
+  private final boolean natural;
+  private final int maxOutstanding;
+  private final int batchSize;
+  private final long requestTimeout;
+
+  private final ConfigurableThreadFactory threadFactory = new ConfigurableThreadFactory(
+      "ExternalProcessFitnessEvaluator",
+      Thread.NORM_PRIORITY,
+      true);
+  private final AtomicLong requestIds = new AtomicLong();
+  private final ScheduledExecutorService watchdog;
+
+  // Guards all of the mutable state below.  Also used to signal waiting evaluation requests.
+  private final Object lock = new Object();
+  private final List<ChildProcess> children = new ArrayList<>();
+  private final Deque<Request> pending = new ArrayDeque<>();
+  private int restartCount = 0;
+  // Children that died without answering a single request, since the last one that did.
+  private int consecutiveFailedStarts = 0;
+  private boolean closed = false;
+
+
+  /**
+   * Creates an evaluator with one child process per available processor, each allowed
+   * eight outstanding requests.
+   *
+   * @param command   The command line used to launch each child process.
+   * @param formatter Converts a candidate to the single line of text sent to the child.
+   * @param natural   Whether the external fitness function produces natural fitness scores.
+   * @throws IOException If the child processes cannot be started.
+   */
+  public ExternalProcessFitnessEvaluator(List<String> command,
+                                         Function<? super T, String> formatter,
+                                         boolean natural) throws IOException {
+    this(command, formatter, natural, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_OUTSTANDING,
+        DEFAULT_BATCH_SIZE);
+  }
+
+
+  /**
+   * @param command        The command line used to launch each child process.
+   * @param formatter      Converts a candidate to the single line of text sent to the child.
+   * @param natural        Whether the external fitness function produces natural fitness scores.
+   * @param processCount   The number of child processes to keep running.
+   * @param maxOutstanding The maximum number of requests sent to a child that it has not
+   *                       yet answered.
+   * @param batchSize      The maximum number of requests written to a child before flushing.
+   * @throws IOException If the child processes cannot be started.
+   */
+  public ExternalProcessFitnessEvaluator(List<String> command,
+                                         Function<? super T, String> formatter,
+                                         boolean natural,
+                                         int processCount,
+                                         int maxOutstanding,
+                                         int batchSize) throws IOException {
+    this(command, formatter, natural, processCount, maxOutstanding, batchSize, 0);
+  }
+
+
+  /**
+   * @param command        The command line used to launch each child process.
+   * @param formatter      Converts a candidate to the single line of text sent to the child.
+   * @param natural        Whether the external fitness function produces natural fitness scores.
+   * @param processCount   The number of child processes to keep running.
+   * @param maxOutstanding The maximum number of requests sent to a child that it has not
+   *                       yet answered.
+   * @param batchSize      The maximum number of requests written to a child before flushing.
+   * @param requestTimeout The number of milliseconds after which a child that has not
+   *                       answered a request is killed and restarted, or zero to wait
+   *                       indefinitely.  The time includes any wait for the requests sent
+   *                       before it, so allow for a full set of outstanding requests.
+   * @throws IOException If the child processes cannot be started.
+   */
+  public ExternalProcessFitnessEvaluator(List<String> command,
+                                         Function<? super T, String> formatter,
+                                         boolean natural,
+                                         int processCount,
+                                         int maxOutstanding,
+                                         int batchSize,
+                                         long requestTimeout) throws IOException {
+    if (command.isEmpty()) {
+      throw new IllegalArgumentException("Command must not be empty.");
+    }
+    if (processCount <= 0 || maxOutstanding <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("Process count, outstanding limit and batch size must be positive.");
+    }
+    if (requestTimeout < 0) {
+      throw new IllegalArgumentException("Request timeout must not be negative.");
+    }
+    this.command = new ArrayList<>(command);
+    this.formatter = formatter;
+    this.natural = natural;
+    this.maxOutstanding = maxOutstanding;
+    this.batchSize = batchSize;
+    this.requestTimeout = requestTimeout;
+    if (requestTimeout > 0) {
+      watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory);
+      long interval = Math.max(1, requestTimeout / 4);
+      watchdog.scheduleWithFixedDelay(this::expireRequests, interval, interval, TimeUnit.MILLISECONDS);
+    } else {
+      watchdog = null;
+    }
+    try {
+      for (int i = 0; i < processCount; i++) {
+        children.add(startChild());
+      }
+    } catch (IOException ex) {
+      close();
+      throw ex;
+    }
+  }
+
+
+  /**
+   * @return The number of times that a child process has been replaced because it
+   * exited, broke the protocol or timed out.
+   */
+  public int getRestartCount() {
+    synchronized (lock) {
+      return restartCount;
+    }
+  }
+
+
+  /**
+   * Evaluates a single candidate.  Where possible, engines use
+   * {@link #evaluateBatch(List, List)} instead.
+   */
+  public double getFitness(T candidate, List<? extends T> population) {
+    return evaluateBatch(Collections.singletonList(candidate), population)[0];
+  }
+
+
+  /**
+   * Sends the candidates to the child processes and blocks until every score has been
+   * received.  If the calling thread is interrupted while waiting, the interrupt flag is
+   * restored and any scores that have not yet been received are returned as zero.
+   *
+   * @throws IllegalArgumentException If the text form of a candidate spans more than one line.
+   * @throws IllegalStateException    If the external program reports an error, repeatedly
+   *                                  crashes on a candidate or cannot be restarted, or if this
+   *                                  evaluator is closed while waiting.
+   */
+  public double[] evaluateBatch(List<? extends T> candidates, List<? extends T> population) {
+    Job job = new Job(candidates.size());
+    List<Request> requests = new ArrayList<>(candidates.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      String text = formatter.apply(candidates.get(i));
+      if (text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+        throw new IllegalArgumentException("Text of candidate " + i + " must be a single line.");
+      }
+      requests.add(new Request(job, i, text));
+    }
+
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("ExternalProcessFitnessEvaluator has been closed.");
+      }
+      if (children.isEmpty()) {
+        throw new IllegalStateException("Evaluator processes keep failing on start-up.");
+      }
+      pending.addAll(requests);
+      dispatch();
+      try {
+        while (job.remaining > 0 && job.failure == null && !closed) {
+          lock.wait();
+        }
+      } catch (InterruptedException ex) {
+        // Restore the interrupted status, allows methods further up the call-stack
+        // to abort processing if appropriate.
+        Thread.currentThread().interrupt();
+        pending.removeIf(request -> request.job == job);
+        return job.scores;
+      }
+      if (job.remaining > 0) {
+        pending.removeIf(request -> request.job == job);
+        throw new IllegalStateException(job.failure != null
+                                        ? "External fitness evaluation failed: " + job.failure
+                                        : "ExternalProcessFitnessEvaluator has been closed.");
+      }
+    }
+    return job.scores;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isNatural() {
+    return natural;
+  }
+
+
+  /**
+   * Closes the standard input of each child process, giving it a moment to exit
+   * cleanly before destroying it, and fails any evaluations that are still waiting.
+   */
+  public void close() {
+    List<ChildProcess> stopping;
+    synchronized (lock) {
+      closed = true;
+      stopping = new ArrayList<>(children);
+      children.clear();
+      lock.notifyAll();
+    }
+    if (watchdog != null) {
+      watchdog.shutdownNow();
+    }
+    for (ChildProcess child : stopping) {
+      child.stop();
+    }
+  }
+
+
+  private ChildProcess startChild() throws IOException {
+    ProcessBuilder builder = new ProcessBuilder(command);
+    builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+    ChildProcess child = new ChildProcess(builder.start());
+    child.writer.start();
+    threadFactory.newThread(child::readResponses).start();
+    return child;
+  }
+
+
+  /**
+   * Queues pending requests for children that have spare capacity, one batch per child
+   * at a time so that work is spread evenly.  Must be called while holding the lock.
+   */
+  private void dispatch() {
+    long now = System.currentTimeMillis();
+    boolean progress = true;
+    while (progress && !pending.isEmpty()) {
+      progress = false;
+      for (ChildProcess child : children) {
+        int count = Math.min(batchSize, maxOutstanding - child.outstanding.size());
+        if (count > 0 && !pending.isEmpty()) {
+          List<Request> batch = new ArrayList<>(count);
+          while (batch.size() < count && !pending.isEmpty()) {
+            Request request = pending.poll();
+            request.sent = now;
+            child.outstanding.put(request.id, request);
+            batch.add(request);
+          }
+          child.outbox.add(batch);
+          progress = true;
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Replaces any child whose oldest outstanding request has been waiting longer than
+   * the request timeout.
+   */
+  private void expireRequests() {
+    synchronized (lock) {
+      long now = System.currentTimeMillis();
+      for (ChildProcess child : new ArrayList<>(children)) {
+        Iterator<Request> oldest = child.outstanding.values().iterator();
+        if (oldest.hasNext() && now - oldest.next().sent > requestTimeout) {
+          childFailed(child);
+        }
+      }
+      dispatch();
+    }
+  }
+
+
+  /**
+   * Replaces a child that has exited, broken the protocol or timed out and re-queues
+   * its outstanding requests.  Children that repeatedly die before answering anything are
+   * not replaced, so that a broken command does not cause endless restarts.  Must be
+   * called while holding the lock.
+   */
+  private void childFailed(ChildProcess child) {
+    if (!children.remove(child)) {
+      return;
+    }
+    child.writer.interrupt();
+    child.process.destroyForcibly();
+    List<Request> outstanding = new ArrayList<>(child.outstanding.values());
+    child.outstanding.clear();
+    Collections.reverse(outstanding);
+    for (Request request : outstanding) {
+      if (++request.attempts >= MAX_ATTEMPTS) {
+        request.job.failure = "Evaluator process crashed or timed out " + MAX_ATTEMPTS + " times on candidate "
+                              + request.index + ".";
+        lock.notifyAll();
+      } else if (request.job.failure == null) {
+        pending.addFirst(request);
+      }
+    }
+    consecutiveFailedStarts = child.answered ? 0 : consecutiveFailedStarts + 1;
+    if (closed) {
+      return;
+    }
+    String failure = null;
+    if (consecutiveFailedStarts < MAX_ATTEMPTS) {
+      try {
+        children.add(startChild());
+        ++restartCount;
+      } catch (IOException ex) {
+        failure = "Could not restart evaluator process: " + ex.getMessage();
+      }
+    } else {
+      failure = "Evaluator processes keep failing on start-up.";
+    }
+    if (children.isEmpty()) {
+      for (Request request : pending) {
+        request.job.failure = failure;
+      }
+      pending.clear();
+      lock.notifyAll();
+    }
+  }
+
+
+  /**
+   * The scores for one call to {@link #evaluateBatch(List, List)}.
+   */
+  private static final class Job {
+    private final double[] scores;
+    private int remaining;
+    private String failure;
+
+    Job(int size) {
+      this.scores = new double[size];
+      this.remaining = size;
+    }
+  }
+
+
+  /**
+   * A single candidate to be evaluated.
+   */
+  private final class Request {
+    private final long id = requestIds.getAndIncrement();
+    private final Job job;
+    private final int index;
+    private final String text;
+    private int attempts = 0;
+    // When the request was last queued for a child.
+    private long sent;
+
+    Request(Job job, int index, String text) {
+      this.job = job;
+      this.index = index;
+      this.text = text;
+    }
+  }
+
+
+  /**
+   * A running instance of the external program.
+   */
+  private final class ChildProcess {
+    private final Process process;
+    private final Writer in;
+    private final BufferedReader out;
+    private final BlockingQueue<List<Request>> outbox = new LinkedBlockingQueue<>();
+    private final Thread writer = threadFactory.newThread(this::writeRequests);
+    // Requests written to this child that it has not answered, in the order they were sent.
+    private final Map<Long, Request> outstanding = new LinkedHashMap<>();
+    private boolean answered = false;
+
+    ChildProcess(Process process) {
+      this.process = process;
+      this.in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+      this.out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Writes queued batches to the child's standard input without holding the lock,
+     * until the child fails or is stopped.
+     */
+    void writeRequests() {
+      try {
+        while (true) {
+          List<Request> batch = outbox.take();
+          for (Request request : batch) {
+            in.write(Long.toString(request.id));
+            in.write(' ');
+            in.write(request.text);
+            in.write('\n');
+          }
+          in.flush();
+        }
+      } catch (InterruptedException ex) {
+        // Stopped or replaced, nothing more to write.
+        return;
+      } catch (IOException ex) {
+        // Treated the same as the process exiting.
+      }
+      synchronized (lock) {
+        childFailed(this);
+        dispatch();
+      }
+    }
+
+
+    void readResponses() {
+      try {
+        String line;
+        while ((line = out.readLine()) != null) {
+          int separator = line.indexOf(' ');
+          if (separator < 0) {
+            break;
+          }
+          long id = Long.parseLong(line.substring(0, separator));
+          String result = line.substring(separator + 1).trim();
+          complete(id, result);
+        }
+      } catch (IOException | NumberFormatException ex) {
+        // Treated the same as the process exiting.
+      }
+      synchronized (lock) {
+        childFailed(this);
+        dispatch();
+      }
+    }
+
+
+    private void complete(long id, String result) {
+      synchronized (lock) {
+        answered = true;
+        Request request = outstanding.remove(id);
+        if (request != null && request.job.failure == null) {
+          try {
+            double score = Double.parseDouble(result);
+            if (score >= 0) {
+              request.job.scores[request.index] = score;
+              request.job.remaining--;
+            } else {
+              request.job.failure = "Invalid fitness score for candidate " + request.index + ": " + score;
+            }
+          } catch (NumberFormatException ex) {
+            request.job.failure = result.length() > MAX_FAILURE_LENGTH
+                                  ? result.substring(0, MAX_FAILURE_LENGTH)
+                                  : result;
+          }
+          lock.notifyAll();
+        }
+        dispatch();
+      }
+    }
+
+
+    /**
+     * Closes the child's standard input once the writer thread has stopped, so that it
+     * can exit cleanly, and destroys it if it has not exited a second later.
+     */
+    void stop() {
+      writer.interrupt();
+      try {
+        writer.join(1000);
+        if (!writer.isAlive()) {
+          in.close();
+        }
+        if (!process.waitFor(1, TimeUnit.SECONDS)) {
+          process.destroy();
+        }
+      } catch (IOException ex) {
+        process.destroy();
+      } catch (InterruptedException ex) {
+        process.destroy();
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,595 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.uncommons.util.concurrent.ConfigurableThreadFactory;
+import org.uncommons.watchmaker.framework.BatchFitnessEvaluator;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Fitness evaluator that farms evaluations out to {@link RemoteFitnessWorker}s
+ * running in other JVMs.  The evaluator listens on a TCP port and workers may
+ * connect (and disconnect) at any time, including while a generation is being
+ * evaluated.</p>
+ *
+ * <p>Each population is split into batches of candidates that are encoded once
+ * and streamed to the connected workers.  Several batches may be outstanding on
+ * each worker at once so that workers do not sit idle while waiting for their next
+ * batch to arrive.  Workers are sent heartbeats and any worker that goes quiet for
+ * too long, or whose connection fails, is dropped and its outstanding batches are
+ * re-dispatched to the remaining workers.  Messages are written to each worker by a
+ * thread dedicated to that worker, so a worker that stops reading cannot hold up the
+ * others; it is dropped once a write has been blocked for longer than the heartbeat
+ * timeout.  If no workers are connected, evaluation waits until one connects.</p>
+ *
+ * <p>Workers evaluate each candidate in the context of the batch it was sent with
+ * rather than the whole population, so fitness functions that rely on the
+ * population argument should not be evaluated remotely.</p>
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ * @see RemoteFitnessWorker
+ */
+public class RemoteFitnessEvaluator<T> implements BatchFitnessEvaluator<T>, Closeable {
+  private static final int DEFAULT_BATCH_SIZE = 16;
+  private static final int DEFAULT_PIPELINE_DEPTH = 2;
+  private static final long DEFAULT_HEARTBEAT_INTERVAL = 1000;
+  private static final long DEFAULT_HEARTBEAT_TIMEOUT = 10000;
+
+  private final CandidateCodec<T> codec;
+  private final boolean natural;
+  private final int batchSize;
+  private final int pipelineDepth;
+  private final long heartbeatTimeout;
+
+  private final ServerSocket serverSocket;
+  private final ConfigurableThreadFactory threadFactory = new ConfigurableThreadFactory("RemoteFitnessEvaluator",
+      Thread.NORM_PRIORITY,
+      true);
+  private final ScheduledExecutorService heartbeatTimer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+  private final AtomicLong batchIds = new AtomicLong();
+
+  // Guards all of the mutable state below.  Also used to signal waiting evaluation requests.
+  private final Object lock = new Object();
+  private final List<WorkerConnection> workers = new ArrayList<>();
+  private final Deque<Batch> pending = new ArrayDeque<>();
+  private boolean closed = false;
+
+
+  /**
+   * Creates an evaluator that sends batches of {@literal 16} candidates, allows two outstanding
+   * batches per worker thread and drops workers that have not responded for ten seconds.
+   *
+   * @param port    The port to listen on for worker connections, or zero to use any free port.
+   * @param codec   Encodes candidates for transmission to workers.
+   * @param natural Whether the remote fitness function produces natural fitness scores.
+   * @throws IOException If the server socket cannot be opened.
+   */
+  public RemoteFitnessEvaluator(int port,
+                                CandidateCodec<T> codec,
+                                boolean natural) throws IOException {
+    this(port, codec, natural, DEFAULT_BATCH_SIZE, DEFAULT_PIPELINE_DEPTH, DEFAULT_HEARTBEAT_INTERVAL,
+        DEFAULT_HEARTBEAT_TIMEOUT);
+  }
+
+
+  /**
+   * @param port              The port to listen on for worker connections, or zero to use any free port.
+   * @param codec             Encodes candidates for transmission to workers.
+   * @param natural           Whether the remote fitness function produces natural fitness scores.
+   * @param batchSize         The maximum number of candidates sent to a worker in one message.
+   * @param pipelineDepth     The maximum number of outstanding batches per worker thread.
+   * @param heartbeatInterval The number of milliseconds between heartbeats sent to each worker.
+   * @param heartbeatTimeout  The number of milliseconds of silence after which a worker is
+   *                          considered dead.
+   * @throws IOException If the server socket cannot be opened.
+   */
+  public RemoteFitnessEvaluator(int port,
+                                CandidateCodec<T> codec,
+                                boolean natural,
+                                int batchSize,
+                                int pipelineDepth,
+                                long heartbeatInterval,
+                                long heartbeatTimeout) throws IOException {
+    if (batchSize <= 0 || pipelineDepth <= 0) {
+      throw new IllegalArgumentException("Batch size and pipeline depth must be positive.");
+    }
+    if (heartbeatInterval <= 0 || heartbeatTimeout <= heartbeatInterval) {
+      throw new IllegalArgumentException("Heartbeat timeout must be longer than the heartbeat interval.");
+    }
+    this.codec = codec;
+    this.natural = natural;
+    this.batchSize = batchSize;
+    this.pipelineDepth = pipelineDepth;
+    this.heartbeatTimeout = heartbeatTimeout;
+    this.serverSocket = new ServerSocket(port);
+    threadFactory.newThread(this::acceptWorkers).start();
+    heartbeatTimer.scheduleAtFixedRate(this::checkWorkers,
+        heartbeatInterval,
+        heartbeatInterval,
+        TimeUnit.MILLISECONDS);
+  }
+
+
+  /**
+   * @return The port on which this evaluator accepts worker connections.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+
+  /**
+   * @return The number of workers that are currently connected.
+   */
+  public int getWorkerCount() {
+    synchronized (lock) {
+      return workers.size();
+    }
+  }
+
+
+  /**
+   * Evaluates a single candidate remotely.  Where possible, engines use
+   * {@link #evaluateBatch(List, List)} instead.
+   */
+  public double getFitness(T candidate, List<? extends T> population) {
+    return evaluateBatch(Collections.singletonList(candidate), population)[0];
+  }
+
+
+  /**
+   * Splits the candidates into batches, dispatches them to the connected workers and
+   * blocks until every score has been received.
+   *
+   * @throws IllegalStateException If a worker fails to evaluate a candidate, if this
+   *                               evaluator is closed while waiting or if the calling thread is
+   *                               interrupted while waiting (in which case its interrupt flag is
+   *                               restored).
+   */
+  public double[] evaluateBatch(List<? extends T> candidates, List<? extends T> population) {
+    Job job = new Job(candidates.size());
+    List<Batch> batches = new ArrayList<>((candidates.size() + batchSize - 1) / batchSize);
+    for (int offset = 0; offset < candidates.size(); offset += batchSize) {
+      List<? extends T> subList = candidates.subList(offset, Math.min(offset + batchSize, candidates.size()));
+      batches.add(new Batch(job, offset, subList.size(), encode(subList)));
+    }
+
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("RemoteFitnessEvaluator has been closed.");
+      }
+      pending.addAll(batches);
+      dispatch();
+      try {
+        while (job.remaining > 0 && job.failure == null && !closed) {
+          lock.wait();
+        }
+      } catch (InterruptedException ex) {
+        // Restore the interrupted status, allows methods further up the call-stack
+        // to abort processing if appropriate.
+        Thread.currentThread().interrupt();
+        pending.removeIf(batch -> batch.job == job);
+        throw new IllegalStateException("Interrupted while waiting for remote fitness evaluation.", ex);
+      }
+      if (job.remaining > 0) {
+        pending.removeIf(batch -> batch.job == job);
+        throw new IllegalStateException(job.failure != null
+                                        ? "Remote fitness evaluation failed: " + job.failure
+                                        : "RemoteFitnessEvaluator has been closed.");
+      }
+    }
+    return job.scores;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isNatural() {
+    return natural;
+  }
+
+
+  /**
+   * Stops accepting workers, tells connected workers to shut down and fails any
+   * evaluations that are still waiting for results.
+   */
+  public void close() throws IOException {
+    heartbeatTimer.shutdownNow();
+    serverSocket.close();
+    List<WorkerConnection> stopping;
+    synchronized (lock) {
+      closed = true;
+      stopping = new ArrayList<>(workers);
+      for (WorkerConnection worker : stopping) {
+        worker.stop();
+      }
+      workers.clear();
+      lock.notifyAll();
+    }
+    // Give the workers a chance to receive the stop message, but don't wait for ever.
+    long deadline = System.currentTimeMillis() + heartbeatTimeout;
+    for (WorkerConnection worker : stopping) {
+      worker.awaitStop(deadline);
+    }
+  }
+
+
+  /**
+   * Encodes a batch message once so that it can be re-sent cheaply if it has to be
+   * re-dispatched.  The batch ID is written separately at send time.
+   */
+  private byte[] encode(List<? extends T> candidates) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(candidates.size());
+      for (T candidate : candidates) {
+        codec.encode(candidate, out);
+      }
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+
+  private void acceptWorkers() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        // A slow or silent client must not stop other workers from joining.
+        threadFactory.newThread(() -> handshake(socket)).start();
+      } catch (IOException ex) {
+        // The server socket has been closed.
+      }
+    }
+  }
+
+
+  /**
+   * Reads a new worker's greeting and, if it is valid, adds the worker to the pool.  A
+   * client that does not complete the greeting within the heartbeat timeout is dropped.
+   */
+  private void handshake(Socket socket) {
+    try {
+      socket.setTcpNoDelay(true);
+      socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, heartbeatTimeout));
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      if (in.readByte() != RemoteProtocol.HELLO) {
+        socket.close();
+        return;
+      }
+      int capacity = Math.max(1, in.readInt());
+      // From now on silence is detected by the heartbeat check.
+      socket.setSoTimeout(0);
+      WorkerConnection worker = new WorkerConnection(socket, in, capacity);
+      synchronized (lock) {
+        if (closed) {
+          worker.close();
+          return;
+        }
+        workers.add(worker);
+        worker.start();
+        dispatch();
+      }
+    } catch (IOException ex) {
+      // The client failed during the handshake, carry on without it.
+      try {
+        socket.close();
+      } catch (IOException closeException) {
+        // Nothing useful can be done, the connection is being discarded anyway.
+      }
+    }
+  }
+
+
+  /**
+   * Sends pending batches to workers that have spare capacity, one batch per worker
+   * at a time so that work is spread evenly.  Must be called while holding the lock.
+   */
+  private void dispatch() {
+    boolean progress = true;
+    while (progress && !pending.isEmpty()) {
+      progress = false;
+      for (WorkerConnection worker : new ArrayList<>(workers)) {
+        if (pending.isEmpty()) {
+          break;
+        }
+        if (worker.inFlight.size() < worker.capacity * pipelineDepth) {
+          Batch batch = pending.poll();
+          worker.inFlight.put(batch.id, batch);
+          worker.send(out -> {
+            out.writeByte(RemoteProtocol.BATCH);
+            out.writeLong(batch.id);
+            out.write(batch.payload);
+          });
+          progress = true;
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Removes a worker and puts its outstanding batches back at the front of the
+   * queue.  Must be called while holding the lock.
+   */
+  private void workerLost(WorkerConnection worker) {
+    if (workers.remove(worker)) {
+      worker.close();
+      List<Batch> outstanding = new ArrayList<>(worker.inFlight.values());
+      Collections.reverse(outstanding);
+      for (Batch batch : outstanding) {
+        if (!batch.done && !closed) {
+          pending.addFirst(batch);
+        }
+      }
+      worker.inFlight.clear();
+    }
+  }
+
+
+  private void checkWorkers() {
+    synchronized (lock) {
+      long now = System.currentTimeMillis();
+      for (WorkerConnection worker : new ArrayList<>(workers)) {
+        long writeStarted = worker.writeStarted;
+        if (now - worker.lastHeard > heartbeatTimeout
+            || (writeStarted != 0 && now - writeStarted > heartbeatTimeout)) {
+          workerLost(worker);
+        } else if (worker.outbox.isEmpty()) {
+          // Anything already queued shows the worker that the master is alive.
+          worker.send(out -> out.writeByte(RemoteProtocol.HEARTBEAT));
+        }
+      }
+      dispatch();
+    }
+  }
+
+
+  /**
+   * The scores for one call to {@link #evaluateBatch(List, List)}.
+   */
+  private static final class Job {
+    private final double[] scores;
+    private int remaining;
+    private String failure;
+
+    Job(int size) {
+      this.scores = new double[size];
+      this.remaining = size;
+    }
+  }
+
+
+  /**
+   * A contiguous run of candidates from a job, encoded ready for transmission.
+   */
+  private final class Batch {
+    private final long id = batchIds.getAndIncrement();
+    private final Job job;
+    private final int offset;
+    private final int size;
+    private final byte[] payload;
+    private boolean done = false;
+
+    Batch(Job job, int offset, int size, byte[] payload) {
+      this.job = job;
+      this.offset = offset;
+      this.size = size;
+      this.payload = payload;
+    }
+  }
+
+
+  /**
+   * A message queued for a worker's writer thread.
+   */
+  private interface Message {
+    void writeTo(DataOutputStream out) throws IOException;
+  }
+
+
+  /**
+   * The master's end of the connection to one worker.
+   */
+  private final class WorkerConnection {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final int capacity;
+    // Batches sent to this worker that have not been answered, in the order they were sent.
+    private final Map<Long, Batch> inFlight = new LinkedHashMap<>();
+    // Messages waiting to be written.  Only the writer thread touches the socket's output.
+    private final BlockingQueue<Message> outbox = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile long lastHeard = System.currentTimeMillis();
+    // When the writer started the write that it is blocked on, or zero if it is idle.
+    private volatile long writeStarted = 0;
+    private volatile boolean stopping = false;
+
+    WorkerConnection(Socket socket, DataInputStream in, int capacity) throws IOException {
+      this.socket = socket;
+      this.in = in;
+      this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      this.capacity = capacity;
+      this.writer = threadFactory.newThread(this::writeMessages);
+    }
+
+
+    void start() {
+      writer.start();
+      threadFactory.newThread(this::readResponses).start();
+    }
+
+
+    /**
+     * Queues a message for the writer thread.  Never blocks.
+     */
+    void send(Message message) {
+      outbox.add(message);
+    }
+
+
+    /**
+     * Queues the stop message, after which the writer closes the connection.
+     */
+    void stop() {
+      stopping = true;
+      send(out -> out.writeByte(RemoteProtocol.STOP));
+    }
+
+
+    /**
+     * Waits for the writer to send the stop message, closing the connection regardless
+     * once the deadline has passed.
+     */
+    void awaitStop(long deadline) {
+      try {
+        writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      close();
+    }
+
+
+    private void writeMessages() {
+      try {
+        while (true) {
+          Message message = outbox.take();
+          writeStarted = System.currentTimeMillis();
+          message.writeTo(out);
+          if (outbox.isEmpty()) {
+            out.flush();
+            if (stopping) {
+              close();
+              return;
+            }
+          }
+          writeStarted = 0;
+        }
+      } catch (InterruptedException ex) {
+        // The connection has been closed.
+      } catch (IOException ex) {
+        synchronized (lock) {
+          workerLost(this);
+          dispatch();
+        }
+      }
+    }
+
+
+    void readResponses() {
+      try {
+        while (true) {
+          byte type = in.readByte();
+          lastHeard = System.currentTimeMillis();
+          if (type == RemoteProtocol.RESULT) {
+            long id = in.readLong();
+            int count = in.readInt();
+            if (count < 0 || count > batchSize) {
+              throw new IOException("Invalid score count from fitness worker: " + count);
+            }
+            double[] scores = new double[count];
+            for (int i = 0; i < scores.length; i++) {
+              scores[i] = in.readDouble();
+            }
+            complete(id, scores, null);
+          } else if (type == RemoteProtocol.FAILURE) {
+            long id = in.readLong();
+            complete(id, null, in.readUTF());
+          } else if (type != RemoteProtocol.HEARTBEAT) {
+            throw new IOException("Unexpected message from fitness worker.");
+          }
+        }
+      } catch (IOException ex) {
+        synchronized (lock) {
+          workerLost(this);
+          dispatch();
+        }
+      }
+    }
+
+
+    /**
+     * Records a worker's response.
+     *
+     * @throws IOException If the worker has returned the wrong number of scores for
+     *                     the batch, in which case the batch is left in flight so that it is
+     *                     re-dispatched when this worker is dropped.
+     */
+    private void complete(long id, double[] scores, String failure) throws IOException {
+      synchronized (lock) {
+        Batch batch = inFlight.get(id);
+        if (batch != null && scores != null && scores.length != batch.size) {
+          throw new IOException("Expected " + batch.size + " scores from fitness worker, received "
+                                + scores.length + ".");
+        }
+        inFlight.remove(id);
+        if (batch != null && !batch.done) {
+          batch.done = true;
+          if (failure != null) {
+            batch.job.failure = failure;
+          } else {
+            System.arraycopy(scores, 0, batch.job.scores, batch.offset, batch.size);
+            batch.job.remaining -= batch.size;
+          }
+          lock.notifyAll();
+        }
+        dispatch();
+      }
+    }
+
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException ex) {
+        // Nothing useful can be done, the worker is being discarded anyway.
+      }
+      if (Thread.currentThread() != writer) {
+        writer.interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,190 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.uncommons.util.concurrent.ConfigurableThreadFactory;
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Evaluates candidates on behalf of a {@link RemoteFitnessEvaluator}.  A worker
+ * connects to the evaluator, receives batches of encoded candidates, scores them
+ * with the wrapped fitness function on its own thread pool and sends the scores
+ * back.  Batches are evaluated concurrently, one batch per thread.
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ * @see RemoteFitnessEvaluator
+ */
+public class RemoteFitnessWorker<T> {
+  private final FitnessEvaluator<? super T> fitnessEvaluator;
+  private final CandidateCodec<T> codec;
+  private final int threadCount;
+
+  private volatile Socket socket;
+  private volatile boolean disconnected = false;
+
+
+  /**
+   * Creates a worker that uses as many threads as there are available processors.
+   *
+   * @param fitnessEvaluator The fitness function used to score candidates.
+   * @param codec            Decodes candidates received from the master.
+   */
+  public RemoteFitnessWorker(FitnessEvaluator<? super T> fitnessEvaluator,
+                             CandidateCodec<T> codec) {
+    this(fitnessEvaluator, codec, Runtime.getRuntime().availableProcessors());
+  }
+
+
+  /**
+   * @param fitnessEvaluator The fitness function used to score candidates.
+   * @param codec            Decodes candidates received from the master.
+   * @param threadCount      The number of batches to evaluate concurrently.
+   */
+  public RemoteFitnessWorker(FitnessEvaluator<? super T> fitnessEvaluator,
+                             CandidateCodec<T> codec,
+                             int threadCount) {
+    if (threadCount <= 0) {
+      throw new IllegalArgumentException("Thread count must be positive.");
+    }
+    this.fitnessEvaluator = fitnessEvaluator;
+    this.codec = codec;
+    this.threadCount = threadCount;
+  }
+
+
+  /**
+   * Connects to a {@link RemoteFitnessEvaluator} and evaluates candidates until the
+   * evaluator is closed or this worker is {@link #disconnect() disconnected}.  This
+   * method blocks the calling thread for the lifetime of the worker.
+   *
+   * @param host The host on which the evaluator is running.
+   * @param port The port on which the evaluator accepts workers.
+   * @throws IOException If the connection cannot be established or fails unexpectedly.
+   */
+  public void run(String host, int port) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+        new ConfigurableThreadFactory("RemoteFitnessWorker", Thread.NORM_PRIORITY, true));
+    try (Socket socket = new Socket(host, port)) {
+      this.socket = socket;
+      socket.setTcpNoDelay(true);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      out.writeByte(RemoteProtocol.HELLO);
+      out.writeInt(threadCount);
+      out.flush();
+
+      while (!disconnected) {
+        byte type = in.readByte();
+        if (type == RemoteProtocol.BATCH) {
+          long id = in.readLong();
+          int count = in.readInt();
+          List<T> batch = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            batch.add(codec.decode(in));
+          }
+          executor.execute(() -> evaluate(id, Collections.unmodifiableList(batch), out));
+        } else if (type == RemoteProtocol.HEARTBEAT) {
+          synchronized (out) {
+            out.writeByte(RemoteProtocol.HEARTBEAT);
+            out.flush();
+          }
+        } else if (type == RemoteProtocol.STOP) {
+          break;
+        } else {
+          throw new IOException("Unexpected message from fitness evaluation master.");
+        }
+      }
+    } catch (EOFException ex) {
+      // The master closed the connection without saying goodbye, there is nothing more to do.
+    } catch (IOException ex) {
+      if (!disconnected) {
+        throw ex;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Drops the connection to the master immediately, abandoning any batches that are
+   * in progress.  The master re-dispatches those batches to other workers.
+   */
+  public void disconnect() {
+    disconnected = true;
+    Socket socket = this.socket;
+    if (socket != null) {
+      try {
+        socket.close();
+      } catch (IOException ex) {
+        // Already closed.
+      }
+    }
+  }
+
+
+  /**
+   * Scores one batch and sends the results.  The batch doubles as the population
+   * argument passed to the fitness function.
+   */
+  private void evaluate(long id, List<T> batch, DataOutputStream out) {
+    double[] scores = new double[batch.size()];
+    String failure = null;
+    try {
+      for (int i = 0; i < scores.length; i++) {
+        scores[i] = fitnessEvaluator.getFitness(batch.get(i), batch);
+      }
+    } catch (RuntimeException ex) {
+      failure = ex.toString();
+    }
+    if (Thread.currentThread().isInterrupted()) {
+      return; // The worker is shutting down, nobody is waiting for the result.
+    }
+    try {
+      synchronized (out) {
+        if (failure == null) {
+          out.writeByte(RemoteProtocol.RESULT);
+          out.writeLong(id);
+          out.writeInt(scores.length);
+          for (double score : scores) {
+            out.writeDouble(score);
+          }
+        } else {
+          out.writeByte(RemoteProtocol.FAILURE);
+          out.writeLong(id);
+          out.writeUTF(failure);
+        }
+        out.flush();
+      }
+    } catch (IOException ex) {
+      // The connection has gone, the main loop will notice and shut the worker down.
+    }
+  }
+}
@@ -0,0 +1,57 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+/**
+ * Message types shared by {@link RemoteFitnessEvaluator} and {@link RemoteFitnessWorker}.
+ * Every message is a single type byte followed by a type-specific payload.
+ */
+final class RemoteProtocol {
+  /**
+   * Worker to master: the number of batches the worker can evaluate concurrently.
+   */
+  static final byte HELLO = 1;
+
+  /**
+   * Master to worker: a batch ID, a candidate count and the encoded candidates.
+   */
+  static final byte BATCH = 2;
+
+  /**
+   * Worker to master: a batch ID, a score count and the scores.
+   */
+  static final byte RESULT = 3;
+
+  /**
+   * Worker to master: a batch ID and a description of why evaluation failed.
+   */
+  static final byte FAILURE = 4;
+
+  /**
+   * Sent by the master to check that a worker is alive, and echoed by the worker.
+   */
+  static final byte HEARTBEAT = 5;
+
+  /**
+   * Master to worker: the master is shutting down.
+   */
+  static final byte STOP = 6;
+
+
+  private RemoteProtocol() {
+    // Prevents instantiation of utility class.
+  }
+}
@@ -0,0 +1,422 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.uncommons.watchmaker.framework.BatchFitnessEvaluator;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Fitness evaluator that hands candidates to {@link SharedMemoryFitnessWorker}
+ * processes on the same host through a memory-mapped file.  This avoids the network
+ * stack and most of the copying involved in {@link RemoteFitnessEvaluator}, which
+ * makes out-of-process evaluation viable for fitness functions that are too cheap to
+ * justify a TCP round trip but must still be isolated (for example, because they
+ * depend on unstable native code).</p>
+ *
+ * <p>The file is divided into one region per worker, each containing a ring of
+ * slots.  Candidates are encoded directly into a free slot and the worker writes
+ * the scores back into the same slot.  Every worker can have as many batches
+ * outstanding as its region has slots.  Workers write a heartbeat into their region
+ * and a region whose heartbeat lapses is treated as dead: its outstanding batches are
+ * re-dispatched to the other workers and the region is not used again until its
+ * worker (or a new one that attaches to it) has acknowledged that it starts over from
+ * the next batch.  If no workers are attached, evaluation waits until one attaches.</p>
+ *
+ * <p>As with {@link RemoteFitnessEvaluator}, workers evaluate each candidate in the
+ * context of its batch rather than the whole population.</p>
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ * @see SharedMemoryFitnessWorker
+ */
+public class SharedMemoryFitnessEvaluator<T> implements BatchFitnessEvaluator<T>, Closeable {
+  private static final int DEFAULT_SLOT_COUNT = 4;
+  private static final int DEFAULT_SLOT_SIZE = 64 * 1024;
+  private static final int DEFAULT_BATCH_SIZE = 64;
+  private static final long DEFAULT_HEARTBEAT_TIMEOUT = 5000;
+  private static final long POLL_NANOS = 20000;
+
+  private final CandidateCodec<T> codec;
+  private final boolean natural;
+  private final int slotCount;
+  private final int slotSize;
+  private final int batchSize;
+  private final long heartbeatTimeout;
+
+  private final RandomAccessFile file;
+  private final MappedByteBuffer buffer;
+  private final List<Region> regions;
+  private volatile boolean closed = false;
+
+
+  /**
+   * Creates an evaluator with four 64KB slots per worker, batches of up to 64 candidates
+   * and a five second heartbeat timeout.
+   *
+   * @param path        The file to map.  It is created if it does not exist and overwritten
+   *                    if it does.
+   * @param workerCount The maximum number of workers that can attach at once.
+   * @param codec       Encodes candidates for the workers.
+   * @param natural     Whether the fitness function used by the workers produces natural
+   *                    fitness scores.
+   * @throws IOException If the file cannot be created or mapped.
+   */
+  public SharedMemoryFitnessEvaluator(Path path,
+                                      int workerCount,
+                                      CandidateCodec<T> codec,
+                                      boolean natural) throws IOException {
+    this(path, workerCount, codec, natural, DEFAULT_SLOT_COUNT, DEFAULT_SLOT_SIZE, DEFAULT_BATCH_SIZE,
+        DEFAULT_HEARTBEAT_TIMEOUT);
+  }
+
+
+  /**
+   * @param path             The file to map.  It is created if it does not exist and overwritten
+   *                         if it does.
+   * @param workerCount      The maximum number of workers that can attach at once.
+   * @param codec            Encodes candidates for the workers.
+   * @param natural          Whether the fitness function used by the workers produces natural
+   *                         fitness scores.
+   * @param slotCount        The number of slots in each worker's ring, which is also the maximum
+   *                         number of outstanding batches per worker.
+   * @param slotSize         The number of bytes of candidate data that a slot can hold.
+   * @param batchSize        The maximum number of candidates in a slot.
+   * @param heartbeatTimeout The number of milliseconds after which a worker that has not
+   *                         updated its heartbeat is considered dead.
+   * @throws IOException If the file cannot be created or mapped.
+   */
+  public SharedMemoryFitnessEvaluator(Path path,
+                                      int workerCount,
+                                      CandidateCodec<T> codec,
+                                      boolean natural,
+                                      int slotCount,
+                                      int slotSize,
+                                      int batchSize,
+                                      long heartbeatTimeout) throws IOException {
+    if (workerCount <= 0 || slotCount <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("Worker count, slot count and batch size must be positive.");
+    }
+    if (slotSize < 8) {
+      throw new IllegalArgumentException("Slot size must be at least 8 bytes.");
+    }
+    if (heartbeatTimeout <= 0) {
+      throw new IllegalArgumentException("Heartbeat timeout must be positive.");
+    }
+    long size = SharedMemoryLayout.fileSize(workerCount, slotCount, slotSize);
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Shared memory file would exceed 2GB.");
+    }
+    this.codec = codec;
+    this.natural = natural;
+    this.slotCount = slotCount;
+    this.slotSize = slotSize;
+    this.batchSize = Math.min(batchSize, slotSize / 8); // Scores are written back into the same space.
+    this.heartbeatTimeout = heartbeatTimeout;
+
+    this.file = new RandomAccessFile(path.toFile(), "rw");
+    file.setLength(0); // Discard the contents of any previous run.
+    file.setLength(size);
+    this.buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    buffer.putInt(SharedMemoryLayout.REGION_COUNT_OFFSET, workerCount);
+    buffer.putInt(SharedMemoryLayout.SLOT_COUNT_OFFSET, slotCount);
+    buffer.putInt(SharedMemoryLayout.SLOT_SIZE_OFFSET, slotSize);
+    buffer.putInt(SharedMemoryLayout.HEARTBEAT_INTERVAL_OFFSET, (int) Math.max(1, heartbeatTimeout / 4));
+
+    this.regions = new ArrayList<>(workerCount);
+    for (int i = 0; i < workerCount; i++) {
+      Region region = new Region(SharedMemoryLayout.regionOffset(i, slotCount, slotSize));
+      SharedMemoryLayout.publishEpoch(buffer, region.offset, region.epoch, region.nextSequence);
+      regions.add(region);
+    }
+    buffer.putInt(SharedMemoryLayout.MAGIC_OFFSET, SharedMemoryLayout.MAGIC);
+  }
+
+
+  /**
+   * @return The number of workers whose heartbeat is current.
+   */
+  public int getWorkerCount() {
+    long now = System.currentTimeMillis();
+    int count = 0;
+    for (Region region : regions) {
+      if (region.isAlive(now)) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+
+  /**
+   * Evaluates a single candidate in a worker process.  Where possible, engines use
+   * {@link #evaluateBatch(List, List)} instead.
+   */
+  public double getFitness(T candidate, List<? extends T> population) {
+    return evaluateBatch(Collections.singletonList(candidate), population)[0];
+  }
+
+
+  /**
+   * Writes the candidates into free slots and polls for the scores until all have been
+   * returned.  If the calling thread is interrupted while waiting, the interrupt flag is
+   * restored and any scores that have not yet been received are returned as zero.
+   *
+   * @throws IllegalArgumentException If a single encoded candidate does not fit in a slot.
+   * @throws IllegalStateException    If a worker fails to evaluate a candidate or if this
+   *                                  evaluator is closed while waiting.
+   */
+  public synchronized double[] evaluateBatch(List<? extends T> candidates, List<? extends T> population) {
+    Job job = new Job(candidates);
+    Deque<int[]> pending = new ArrayDeque<>();
+    if (!candidates.isEmpty()) {
+      pending.add(new int[]{0, candidates.size()});
+    }
+    while (job.remaining > 0) {
+      if (closed) {
+        throw new IllegalStateException("SharedMemoryFitnessEvaluator has been closed.");
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        return job.scores;
+      }
+      long now = System.currentTimeMillis();
+      boolean progress = false;
+      for (Region region : regions) {
+        progress |= collect(region, job);
+        boolean alive = region.isAlive(now);
+        long acknowledged = SharedMemoryLayout.readAcknowledged(buffer, region.offset);
+        if (alive && acknowledged == region.epoch) {
+          while (!pending.isEmpty() && region.outstanding.size() < slotCount) {
+            dispatch(region, pending, job);
+            progress = true;
+          }
+        } else if (alive ? acknowledged == SharedMemoryLayout.ATTACHING : !region.outstanding.isEmpty()) {
+          reclaim(region, pending, job);
+        }
+      }
+      if (job.failure != null) {
+        throw new IllegalStateException("Remote fitness evaluation failed: " + job.failure);
+      }
+      if (!progress) {
+        LockSupport.parkNanos(POLL_NANOS);
+      }
+    }
+    return job.scores;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isNatural() {
+    return natural;
+  }
+
+
+  /**
+   * Signals attached workers to stop and releases the file.  Evaluations that are
+   * waiting for results fail.
+   */
+  public void close() throws IOException {
+    closed = true;
+    buffer.putInt(SharedMemoryLayout.CLOSED_OFFSET, 1);
+    buffer.force();
+    file.close();
+  }
+
+
+  /**
+   * Encodes as many candidates from the head of the pending queue as fit into the next
+   * slot of the region and hands the slot to the worker.
+   */
+  private void dispatch(Region region, Deque<int[]> pending, Job job) {
+    int[] range = pending.poll();
+    long sequence = region.nextSequence;
+    int slot = slotOffset(region, sequence);
+    int dataStart = slot + SharedMemoryLayout.SLOT_HEADER_SIZE;
+    SharedMemoryLayout.SlotOutputStream stream = new SharedMemoryLayout.SlotOutputStream(buffer,
+        dataStart,
+        dataStart + slotSize);
+    DataOutputStream out = new DataOutputStream(stream);
+    int index = range[0];
+    try {
+      while (index < range[1] && index - range[0] < batchSize) {
+        int mark = stream.getPosition();
+        try {
+          codec.encode(job.candidates.get(index), out);
+        } catch (SharedMemoryLayout.SlotFullException ex) {
+          if (index == range[0]) {
+            pending.addFirst(range);
+            throw new IllegalArgumentException("Candidate does not fit in a slot of " + slotSize + " bytes.");
+          }
+          stream.setPosition(mark);
+          break;
+        }
+        ++index;
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    if (index < range[1]) {
+      pending.addFirst(new int[]{index, range[1]});
+    }
+
+    buffer.putLong(slot + SharedMemoryLayout.SEQUENCE_OFFSET, sequence);
+    buffer.putInt(slot + SharedMemoryLayout.COUNT_OFFSET, index - range[0]);
+    buffer.putInt(slot + SharedMemoryLayout.LENGTH_OFFSET, stream.getPosition() - dataStart);
+    SharedMemoryLayout.publishState(buffer, slot, slotSize, SharedMemoryLayout.READY);
+    region.nextSequence = sequence + 1;
+    region.outstanding.put(sequence, new Outstanding(job, range[0], index));
+  }
+
+
+  /**
+   * Reads any scores that the region's worker has written back, in the order that the
+   * batches were dispatched.  Results for batches from an abandoned job are discarded.
+   */
+  private boolean collect(Region region, Job job) {
+    boolean progress = false;
+    Iterator<Map.Entry<Long, Outstanding>> iterator = region.outstanding.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Long, Outstanding> entry = iterator.next();
+      int slot = slotOffset(region, entry.getKey());
+      int state = SharedMemoryLayout.readState(buffer, slot, slotSize);
+      boolean finished = state == SharedMemoryLayout.DONE || state == SharedMemoryLayout.FAILED;
+      if (!finished || buffer.getLong(slot + SharedMemoryLayout.SEQUENCE_OFFSET) != entry.getKey()) {
+        break;
+      }
+      Outstanding batch = entry.getValue();
+      if (batch.job == job) {
+        int dataStart = slot + SharedMemoryLayout.SLOT_HEADER_SIZE;
+        if (state == SharedMemoryLayout.DONE) {
+          for (int i = batch.from; i < batch.to; i++) {
+            job.scores[i] = buffer.getDouble(dataStart + (i - batch.from) * 8);
+          }
+          job.remaining -= batch.to - batch.from;
+        } else {
+          try {
+            job.failure = new DataInputStream(new SharedMemoryLayout.SlotInputStream(buffer,
+                dataStart,
+                dataStart + slotSize)).readUTF();
+          } catch (IOException ex) {
+            job.failure = "Unreadable failure message.";
+          }
+        }
+      }
+      SharedMemoryLayout.publishState(buffer, slot, slotSize, SharedMemoryLayout.EMPTY);
+      iterator.remove();
+      progress = true;
+    }
+    return progress;
+  }
+
+
+  /**
+   * Takes back the outstanding batches of a dead or newly attached worker so that they
+   * can be sent elsewhere, and starts a new epoch.  The slots are left as they are: a
+   * worker that was only paused may still be writing to them, so the region is not used
+   * again until the worker has acknowledged the new epoch and skipped to the next batch.
+   */
+  private void reclaim(Region region, Deque<int[]> pending, Job job) {
+    List<Outstanding> batches = new ArrayList<>(region.outstanding.values());
+    Collections.reverse(batches);
+    for (Outstanding batch : batches) {
+      if (batch.job == job) {
+        pending.addFirst(new int[]{batch.from, batch.to});
+      }
+    }
+    region.outstanding.clear();
+    ++region.epoch;
+    SharedMemoryLayout.publishEpoch(buffer, region.offset, region.epoch, region.nextSequence);
+  }
+
+
+  private int slotOffset(Region region, long sequence) {
+    return SharedMemoryLayout.slotOffset(region.offset, sequence, slotCount, slotSize);
+  }
+
+
+  /**
+   * The scores for one call to {@link #evaluateBatch(List, List)}.
+   */
+  private final class Job {
+    private final List<? extends T> candidates;
+    private final double[] scores;
+    private int remaining;
+    private String failure;
+
+    Job(List<? extends T> candidates) {
+      this.candidates = candidates;
+      this.scores = new double[candidates.size()];
+      this.remaining = candidates.size();
+    }
+  }
+
+
+  /**
+   * A range of candidates that has been written to a slot and not yet collected.
+   */
+  private final class Outstanding {
+    private final Job job;
+    private final int from;
+    private final int to;
+
+    Outstanding(Job job, int from, int to) {
+      this.job = job;
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+
+  /**
+   * The master's view of one worker's region.
+   */
+  private final class Region {
+    private final int offset;
+    // Batches in this region's slots, keyed and ordered by sequence number.
+    private final Map<Long, Outstanding> outstanding = new LinkedHashMap<>();
+    private long nextSequence = 0;
+    private long epoch = 0;
+
+    Region(int offset) {
+      this.offset = offset;
+    }
+
+
+    boolean isAlive(long now) {
+      long heartbeat = buffer.getLong(offset + SharedMemoryLayout.HEARTBEAT_OFFSET);
+      return heartbeat != 0 && now - heartbeat <= heartbeatTimeout;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.uncommons.util.concurrent.ConfigurableThreadFactory;
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.codec.CandidateCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Evaluates candidates on behalf of a {@link SharedMemoryFitnessEvaluator}.  The worker
+ * attaches to one region of the evaluator's memory-mapped file, takes batches from the
+ * region's slots in order, scores them with the wrapped fitness function and writes the
+ * scores back into the same slots.  Each worker evaluates one batch at a time; run one
+ * worker per region for parallelism.
+ *
+ * @param <T> The type of evolvable entity that can be evaluated.
+ * @see SharedMemoryFitnessEvaluator
+ */
+public class SharedMemoryFitnessWorker<T> {
+  private static final long MIN_IDLE_NANOS = 10000;
+  private static final long MAX_IDLE_NANOS = 1000000;
+  // Leaves room for the length prefix and multi-byte characters when writing failure messages.
+  private static final int MAX_FAILURE_LENGTH = 1000;
+
+  private final FitnessEvaluator<? super T> fitnessEvaluator;
+  private final CandidateCodec<T> codec;
+  private volatile boolean disconnected = false;
+
+
+  /**
+   * @param fitnessEvaluator The fitness function used to score candidates.
+   * @param codec            Decodes candidates written by the evaluator.
+   */
+  public SharedMemoryFitnessWorker(FitnessEvaluator<? super T> fitnessEvaluator,
+                                   CandidateCodec<T> codec) {
+    this.fitnessEvaluator = fitnessEvaluator;
+    this.codec = codec;
+  }
+
+
+  /**
+   * Attaches to a region of the evaluator's file and evaluates candidates until the
+   * evaluator is closed or this worker is {@link #disconnect() disconnected}.  This
+   * method blocks the calling thread for the lifetime of the worker.
+   *
+   * @param path   The file created by the {@link SharedMemoryFitnessEvaluator}.
+   * @param region The index of the region to attach to.  No other worker may be
+   *               attached to the same region.
+   * @throws IOException If the file cannot be mapped or was not created by an evaluator.
+   */
+  public void run(Path path, int region) throws IOException {
+    MappedByteBuffer buffer;
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+    }
+    if (buffer.capacity() < SharedMemoryLayout.FILE_HEADER_SIZE
+        || buffer.getInt(SharedMemoryLayout.MAGIC_OFFSET) != SharedMemoryLayout.MAGIC) {
+      throw new IOException("Not a shared memory evaluation file: " + path);
+    }
+    if (region < 0 || region >= buffer.getInt(SharedMemoryLayout.REGION_COUNT_OFFSET)) {
+      throw new IllegalArgumentException("Region index out of range: " + region);
+    }
+    int slotCount = buffer.getInt(SharedMemoryLayout.SLOT_COUNT_OFFSET);
+    int slotSize = buffer.getInt(SharedMemoryLayout.SLOT_SIZE_OFFSET);
+    int regionOffset = SharedMemoryLayout.regionOffset(region, slotCount, slotSize);
+
+    // Anything already in the region belongs to a previous worker.  Ask the evaluator
+    // to take it back and wait for the new epoch before taking any batches.
+    long[] record = SharedMemoryLayout.readEpoch(buffer, regionOffset);
+    while (record == null && !disconnected && buffer.getInt(SharedMemoryLayout.CLOSED_OFFSET) == 0) {
+      LockSupport.parkNanos(MIN_IDLE_NANOS); // Caught the evaluator part way through a reclaim.
+      record = SharedMemoryLayout.readEpoch(buffer, regionOffset);
+    }
+    long epoch = record == null ? SharedMemoryLayout.UNKNOWN : record[0];
+    SharedMemoryLayout.publishAcknowledged(buffer, regionOffset, SharedMemoryLayout.ATTACHING);
+    long sequence = -1; // Nothing to take until the evaluator has started the new epoch.
+    ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+        new ConfigurableThreadFactory("SharedMemoryFitnessWorker", Thread.NORM_PRIORITY, true));
+    heartbeat.scheduleAtFixedRate(
+        () -> buffer.putLong(regionOffset + SharedMemoryLayout.HEARTBEAT_OFFSET, System.currentTimeMillis()),
+        0,
+        buffer.getInt(SharedMemoryLayout.HEARTBEAT_INTERVAL_OFFSET),
+        TimeUnit.MILLISECONDS);
+    try {
+      long idleNanos = MIN_IDLE_NANOS;
+      while (!disconnected && buffer.getInt(SharedMemoryLayout.CLOSED_OFFSET) == 0) {
+        record = SharedMemoryLayout.readEpoch(buffer, regionOffset);
+        if (record != null && record[0] != epoch) {
+          // The evaluator has taken back this region's batches (after a missed heartbeat
+          // or because this worker has just attached), skip to the next one it writes.
+          epoch = record[0];
+          sequence = record[1];
+          SharedMemoryLayout.publishAcknowledged(buffer, regionOffset, epoch);
+        }
+        int slot = SharedMemoryLayout.slotOffset(regionOffset, Math.max(sequence, 0), slotCount, slotSize);
+        if (sequence >= 0
+            && SharedMemoryLayout.readState(buffer, slot, slotSize) == SharedMemoryLayout.READY
+            && buffer.getLong(slot + SharedMemoryLayout.SEQUENCE_OFFSET) == sequence) {
+          evaluate(buffer, slot, slotSize);
+          ++sequence;
+          idleNanos = MIN_IDLE_NANOS;
+        } else {
+          LockSupport.parkNanos(idleNanos);
+          idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+        }
+      }
+    } finally {
+      heartbeat.shutdownNow();
+      try {
+        heartbeat.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      // A zero heartbeat tells the evaluator straight away that this region is detached.
+      buffer.putLong(regionOffset + SharedMemoryLayout.HEARTBEAT_OFFSET, 0);
+    }
+  }
+
+
+  /**
+   * Stops evaluating after the current batch and detaches from the file.
+   */
+  public void disconnect() {
+    disconnected = true;
+  }
+
+
+  /**
+   * Scores one slot's batch and writes the scores over the candidate data.  The batch
+   * doubles as the population argument passed to the fitness function.
+   */
+  private void evaluate(MappedByteBuffer buffer, int slot, int slotSize) throws IOException {
+    int dataStart = slot + SharedMemoryLayout.SLOT_HEADER_SIZE;
+    int count = buffer.getInt(slot + SharedMemoryLayout.COUNT_OFFSET);
+    int length = buffer.getInt(slot + SharedMemoryLayout.LENGTH_OFFSET);
+    DataInputStream in = new DataInputStream(new SharedMemoryLayout.SlotInputStream(buffer,
+        dataStart,
+        dataStart + length));
+    List<T> batch = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      batch.add(codec.decode(in));
+    }
+    batch = Collections.unmodifiableList(batch);
+
+    double[] scores = new double[count];
+    try {
+      for (int i = 0; i < count; i++) {
+        scores[i] = fitnessEvaluator.getFitness(batch.get(i), batch);
+      }
+    } catch (RuntimeException ex) {
+      String message = ex.toString();
+      if (message.length() > MAX_FAILURE_LENGTH) {
+        message = message.substring(0, MAX_FAILURE_LENGTH);
+      }
+      DataOutputStream out = new DataOutputStream(new SharedMemoryLayout.SlotOutputStream(buffer,
+          dataStart,
+          dataStart + slotSize));
+      try {
+        out.writeUTF(message);
+      } catch (SharedMemoryLayout.SlotFullException full) {
+        out = new DataOutputStream(new SharedMemoryLayout.SlotOutputStream(buffer, dataStart, dataStart + slotSize));
+        out.writeUTF("");
+      }
+      SharedMemoryLayout.publishState(buffer, slot, slotSize, SharedMemoryLayout.FAILED);
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(dataStart + i * 8, scores[i]);
+    }
+    SharedMemoryLayout.publishState(buffer, slot, slotSize, SharedMemoryLayout.DONE);
+  }
+}
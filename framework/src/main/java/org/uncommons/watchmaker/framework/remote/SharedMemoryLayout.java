@@ -0,0 +1,346 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Layout of the memory-mapped file shared by {@link SharedMemoryFitnessEvaluator}
+ * and {@link SharedMemoryFitnessWorker}.  The file starts with a header, followed by
+ * one region per worker.  Each region has its own header and a ring of fixed-size
+ * slots:</p>
+ *
+ * <pre>
+ * file header:   magic, region count, slot count, slot size, heartbeat interval, closed flag
+ * region header: worker heartbeat, acknowledged epoch and its checksum (written by the worker),
+ *                epoch, next sequence number and their checksum (written by the master)
+ * slot:          sequence number, state, candidate count, data length, checksum, data
+ * </pre>
+ *
+ * <p>Slot ownership is handed back and forth through the state field, so every field
+ * has a single writer at any one time and no atomic read-modify-write operations are
+ * needed.  The master fills an empty slot and marks it {@link #READY}; the worker
+ * decodes the candidates, overwrites the data area with their scores and marks the
+ * slot {@link #DONE} (or {@link #FAILED}, with a message in the data area); the master
+ * then reads the scores and marks the slot {@link #EMPTY} again.</p>
+ *
+ * <p>The epoch keeps master and worker in step when the master takes batches back
+ * from a region, either because the worker missed its heartbeat or because a new
+ * worker attached and asked for a fresh start by acknowledging {@link #ATTACHING}.
+ * The master then advances the epoch and stops writing to the region until the worker
+ * has acknowledged the new epoch.  A worker that sees the epoch change abandons the
+ * batch it was working on and resumes at the master's next sequence number.</p>
+ *
+ * <p>Plain buffer accesses give no guarantee about the order in which another process
+ * sees the writes, so every hand-over carries a CRC-32 checksum of the data that goes
+ * with it.  A slot state is only acted on once the checksum matches the slot's header
+ * and data, and the epoch records are only believed once they match their checksums.
+ * A reader that sees a partial update simply polls again.  The states and records must
+ * therefore only be accessed through the methods of this class.</p>
+ */
+final class SharedMemoryLayout {
+  static final int MAGIC = 0x574D534D;
+
+  static final int EMPTY = 0;
+  static final int READY = 1;
+  static final int DONE = 2;
+  static final int FAILED = 3;
+
+  // File header offsets.
+  static final int MAGIC_OFFSET = 0;
+  static final int REGION_COUNT_OFFSET = 4;
+  static final int SLOT_COUNT_OFFSET = 8;
+  static final int SLOT_SIZE_OFFSET = 12;
+  static final int HEARTBEAT_INTERVAL_OFFSET = 16;
+  static final int CLOSED_OFFSET = 20;
+  static final int FILE_HEADER_SIZE = 64;
+
+  // Region header offsets, relative to the start of the region.
+  static final int HEARTBEAT_OFFSET = 0;
+  static final int ACKNOWLEDGED_EPOCH_OFFSET = 8;
+  static final int ACKNOWLEDGED_CHECKSUM_OFFSET = 16;
+  static final int EPOCH_OFFSET = 24;
+  static final int NEXT_SEQUENCE_OFFSET = 32;
+  static final int EPOCH_CHECKSUM_OFFSET = 40;
+  static final int REGION_HEADER_SIZE = 64;
+
+  // Acknowledged by a newly attached worker to ask the master for a new epoch.
+  static final long ATTACHING = -1;
+  // Returned for an acknowledgement that is only partly visible.
+  static final long UNKNOWN = Long.MIN_VALUE;
+
+  // Slot header offsets, relative to the start of the slot.
+  static final int SEQUENCE_OFFSET = 0;
+  static final int STATE_OFFSET = 8;
+  static final int COUNT_OFFSET = 12;
+  static final int LENGTH_OFFSET = 16;
+  static final int CHECKSUM_OFFSET = 20;
+  static final int SLOT_HEADER_SIZE = 32;
+
+
+  private SharedMemoryLayout() {
+    // Prevents instantiation of utility class.
+  }
+
+
+  static long fileSize(int regionCount, int slotCount, int slotSize) {
+    return FILE_HEADER_SIZE + (long) regionCount * regionSize(slotCount, slotSize);
+  }
+
+
+  static int regionOffset(int region, int slotCount, int slotSize) {
+    return FILE_HEADER_SIZE + region * regionSize(slotCount, slotSize);
+  }
+
+
+  static int slotOffset(int regionOffset, long sequence, int slotCount, int slotSize) {
+    return regionOffset + REGION_HEADER_SIZE + (int) (sequence % slotCount) * slotStride(slotSize);
+  }
+
+
+  private static int regionSize(int slotCount, int slotSize) {
+    return REGION_HEADER_SIZE + slotCount * slotStride(slotSize);
+  }
+
+
+  /**
+   * Slots are padded to a multiple of eight bytes so that every header field is
+   * naturally aligned and cannot be torn by a concurrent write.
+   */
+  private static int slotStride(int slotSize) {
+    return SLOT_HEADER_SIZE + ((slotSize + 7) & ~7);
+  }
+
+
+  /**
+   * Hands a slot over to the other side.  The slot's header and data must have been
+   * written already; the checksum that covers them is written before the new state.
+   * An {@link #EMPTY} slot needs no checksum because only its owner looks at it.
+   *
+   * @param slotSize The number of bytes of data that the slot can hold.
+   */
+  static void publishState(ByteBuffer buffer, int slotOffset, int slotSize, int state) {
+    if (state != EMPTY) {
+      buffer.putInt(slotOffset + CHECKSUM_OFFSET, slotChecksum(buffer, slotOffset, slotSize, state));
+    }
+    buffer.putInt(slotOffset + STATE_OFFSET, state);
+  }
+
+
+  /**
+   * Reads a slot state.  A state whose checksum does not (yet) match the slot's contents
+   * is reported as {@link #EMPTY}, so the caller waits and polls again.
+   *
+   * @param slotSize The number of bytes of data that the slot can hold.
+   */
+  static int readState(ByteBuffer buffer, int slotOffset, int slotSize) {
+    int state = buffer.getInt(slotOffset + STATE_OFFSET);
+    if (state != READY && state != DONE && state != FAILED) {
+      return EMPTY;
+    }
+    int checksum = buffer.getInt(slotOffset + CHECKSUM_OFFSET);
+    return checksum == slotChecksum(buffer, slotOffset, slotSize, state) ? state : EMPTY;
+  }
+
+
+  /**
+   * The checksum of a slot's sequence number, count and length, the state that is being
+   * handed over and the data that goes with that state: the encoded candidates for
+   * {@link #READY}, the scores for {@link #DONE} and the message for {@link #FAILED}.
+   */
+  private static int slotChecksum(ByteBuffer buffer, int slotOffset, int slotSize, int state) {
+    int count = buffer.getInt(slotOffset + COUNT_OFFSET);
+    int length = buffer.getInt(slotOffset + LENGTH_OFFSET);
+    int dataStart = slotOffset + SLOT_HEADER_SIZE;
+    long dataLength;
+    if (state == READY) {
+      dataLength = length;
+    } else if (state == DONE) {
+      dataLength = count * 8L;
+    } else {
+      dataLength = 2 + (buffer.getShort(dataStart) & 0xFFFF);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(ByteBuffer.allocate(20)
+        .putLong(buffer.getLong(slotOffset + SEQUENCE_OFFSET))
+        .putInt(state)
+        .putInt(count)
+        .putInt(length)
+        .array());
+    if (dataLength >= 0 && dataLength <= slotSize) {
+      ByteBuffer data = buffer.duplicate();
+      data.limit(dataStart + (int) dataLength).position(dataStart);
+      crc.update(data);
+    } else {
+      crc.update(0xFF); // A partly-written header, make sure that the checksum doesn't match.
+    }
+    return (int) crc.getValue();
+  }
+
+
+  /**
+   * Writes the region's epoch together with the sequence number of the next batch
+   * that the master will write to the region.
+   */
+  static void publishEpoch(ByteBuffer buffer, int regionOffset, long epoch, long nextSequence) {
+    buffer.putLong(regionOffset + EPOCH_OFFSET, epoch);
+    buffer.putLong(regionOffset + NEXT_SEQUENCE_OFFSET, nextSequence);
+    buffer.putInt(regionOffset + EPOCH_CHECKSUM_OFFSET, checksum(epoch, nextSequence));
+  }
+
+
+  /**
+   * @return The region's epoch and next sequence number, or null if the record is only
+   * partly visible.
+   */
+  static long[] readEpoch(ByteBuffer buffer, int regionOffset) {
+    long epoch = buffer.getLong(regionOffset + EPOCH_OFFSET);
+    long nextSequence = buffer.getLong(regionOffset + NEXT_SEQUENCE_OFFSET);
+    int checksum = buffer.getInt(regionOffset + EPOCH_CHECKSUM_OFFSET);
+    return checksum == checksum(epoch, nextSequence) ? new long[]{epoch, nextSequence} : null;
+  }
+
+
+  /**
+   * Writes the epoch that the region's worker has acknowledged.
+   */
+  static void publishAcknowledged(ByteBuffer buffer, int regionOffset, long epoch) {
+    buffer.putLong(regionOffset + ACKNOWLEDGED_EPOCH_OFFSET, epoch);
+    buffer.putInt(regionOffset + ACKNOWLEDGED_CHECKSUM_OFFSET, checksum(epoch));
+  }
+
+
+  /**
+   * @return The epoch that the region's worker has acknowledged, or {@link #UNKNOWN}
+   * if the acknowledgement is only partly visible.
+   */
+  static long readAcknowledged(ByteBuffer buffer, int regionOffset) {
+    long epoch = buffer.getLong(regionOffset + ACKNOWLEDGED_EPOCH_OFFSET);
+    int checksum = buffer.getInt(regionOffset + ACKNOWLEDGED_CHECKSUM_OFFSET);
+    return checksum == checksum(epoch) ? epoch : UNKNOWN;
+  }
+
+
+  private static int checksum(long... values) {
+    ByteBuffer bytes = ByteBuffer.allocate(values.length * 8);
+    for (long value : values) {
+      bytes.putLong(value);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes.array());
+    return (int) crc.getValue();
+  }
+
+
+  /**
+   * Writes directly into a region of the mapped buffer.
+   */
+  static final class SlotOutputStream extends OutputStream {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    SlotOutputStream(ByteBuffer buffer, int position, int limit) {
+      this.buffer = buffer;
+      this.position = position;
+      this.limit = limit;
+    }
+
+
+    @Override
+    public void write(int b) throws IOException {
+      if (position >= limit) {
+        throw new SlotFullException();
+      }
+      buffer.put(position++, (byte) b);
+    }
+
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      if (position + length > limit) {
+        throw new SlotFullException();
+      }
+      for (int i = 0; i < length; i++) {
+        buffer.put(position++, bytes[offset + i]);
+      }
+    }
+
+
+    int getPosition() {
+      return position;
+    }
+
+
+    void setPosition(int position) {
+      this.position = position;
+    }
+  }
+
+
+  /**
+   * Reads directly from a region of the mapped buffer.
+   */
+  static final class SlotInputStream extends InputStream {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    SlotInputStream(ByteBuffer buffer, int position, int limit) {
+      this.buffer = buffer;
+      this.position = position;
+      this.limit = limit;
+    }
+
+
+    @Override
+    public int read() {
+      return position < limit ? buffer.get(position++) & 0xFF : -1;
+    }
+
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (position >= limit) {
+        return -1;
+      }
+      int count = Math.min(length, limit - position);
+      for (int i = 0; i < count; i++) {
+        bytes[offset + i] = buffer.get(position++);
+      }
+      return count;
+    }
+  }
+
+
+  /**
+   * Thrown when an encoded candidate does not fit in the remaining space of a slot.
+   */
+  static final class SlotFullException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    SlotFullException() {
+      super("Slot is full.");
+    }
+  }
+}
@@ -0,0 +1,28 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+/**
+ * Distributes fitness evaluations to worker processes, either over TCP or, for
+ * workers on the same host, through a memory-mapped file.  A
+ * {@link org.uncommons.watchmaker.framework.remote.RemoteFitnessEvaluator} is passed
+ * to an evolution engine in place of the real fitness function and any number of
+ * {@link org.uncommons.watchmaker.framework.remote.RemoteFitnessWorker}s, each
+ * wrapping the real fitness function, connect to it.  The shared-memory equivalents are
+ * {@link org.uncommons.watchmaker.framework.remote.SharedMemoryFitnessEvaluator} and
+ * {@link org.uncommons.watchmaker.framework.remote.SharedMemoryFitnessWorker}.
+ * {@link org.uncommons.watchmaker.framework.remote.ExternalProcessFitnessEvaluator}
+ * drives a pool of external, non-Java programs over their standard input and output.
+ */
+package org.uncommons.watchmaker.framework.remote;
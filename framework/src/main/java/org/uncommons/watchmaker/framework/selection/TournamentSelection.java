@@ -18,6 +18,7 @@ package org.uncommons.watchmaker.framework.selection;
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
 import org.uncommons.maths.random.Probability;
+import org.uncommons.util.number.ProbabilityGenerator;
 import org.uncommons.watchmaker.framework.EvaluatedCandidate;
 import org.uncommons.watchmaker.framework.SelectionStrategy;
 
@@ -34,7 +35,7 @@ import java.util.Random;
  * @author Daniel Dyer
  */
 public class TournamentSelection implements SelectionStrategy<Object> {
-  private final NumberGenerator<Probability> selectionProbability;
+  private final ProbabilityGenerator selectionProbability;
 
   private String description = "Tournament Selection";
 
@@ -48,7 +49,7 @@ public class TournamentSelection implements SelectionStrategy<Object> {
    *                             of the fittest candidate being selected in any given tournament.
    */
   public TournamentSelection(NumberGenerator<Probability> selectionProbability) {
-    this.selectionProbability = selectionProbability;
+    this.selectionProbability = ProbabilityGenerator.of(selectionProbability);
   }
 
 
@@ -75,6 +76,9 @@ public class TournamentSelection implements SelectionStrategy<Object> {
                             boolean naturalFitnessScores,
                             int selectionSize,
                             Random rng) {
+    if (!isFullyEvaluated(population)) {
+      return selectLazily(population, naturalFitnessScores, selectionSize, rng);
+    }
     List<S> selection = new ArrayList<>(selectionSize);
     for (int i = 0; i < selectionSize; i++) {
       // Pick two candidates at random.
@@ -82,23 +86,70 @@ public class TournamentSelection implements SelectionStrategy<Object> {
       EvaluatedCandidate<S> candidate2 = population.get(rng.nextInt(population.size()));
 
       // Use a random value to decide wether to select the fitter individual or the weaker one.
-      boolean selectFitter = selectionProbability.nextValue().nextEvent(rng);
-      if (selectFitter == naturalFitnessScores) {
-        // Select the fitter candidate.
-        selection.add(candidate2.getFitness() > candidate1.getFitness()
-            ? candidate2.getCandidate()
-            : candidate1.getCandidate());
-      } else {
-        // Select the less fit candidate.
-        selection.add(candidate2.getFitness() > candidate1.getFitness()
-            ? candidate1.getCandidate()
-            : candidate2.getCandidate());
-      }
+      boolean selectFitter = selectionProbability.nextEvent(rng);
+      selection.add(choose(candidate1, candidate2, selectFitter, naturalFitnessScores));
     }
     return selection;
   }
 
 
+  /**
+   * Draws every tournament before comparing any fitness scores, so that lazily evaluated
+   * candidates can be evaluated together.  The random choices are made in the same order
+   * as for a fully evaluated population.
+   */
+  private <S> List<S> selectLazily(List<EvaluatedCandidate<S>> population,
+                                   boolean naturalFitnessScores,
+                                   int selectionSize,
+                                   Random rng) {
+    List<EvaluatedCandidate<S>> contestants = new ArrayList<>(2 * selectionSize);
+    boolean[] selectFitterChoices = new boolean[selectionSize];
+    for (int i = 0; i < selectionSize; i++) {
+      contestants.add(population.get(rng.nextInt(population.size())));
+      contestants.add(population.get(rng.nextInt(population.size())));
+      selectFitterChoices[i] = selectionProbability.nextEvent(rng);
+    }
+    EvaluatedCandidate.evaluateAll(contestants);
+
+    List<S> selection = new ArrayList<>(selectionSize);
+    for (int i = 0; i < selectionSize; i++) {
+      selection.add(choose(contestants.get(2 * i),
+                           contestants.get(2 * i + 1),
+                           selectFitterChoices[i],
+                           naturalFitnessScores));
+    }
+    return selection;
+  }
+
+
+  private static boolean isFullyEvaluated(List<? extends EvaluatedCandidate<?>> population) {
+    for (EvaluatedCandidate<?> candidate : population) {
+      if (!candidate.isEvaluated()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  private static <S> S choose(EvaluatedCandidate<S> candidate1,
+                              EvaluatedCandidate<S> candidate2,
+                              boolean selectFitter,
+                              boolean naturalFitnessScores) {
+    if (selectFitter == naturalFitnessScores) {
+      // Select the fitter candidate.
+      return candidate2.getFitness() > candidate1.getFitness()
+          ? candidate2.getCandidate()
+          : candidate1.getCandidate();
+    } else {
+      // Select the less fit candidate.
+      return candidate2.getFitness() > candidate1.getFitness()
+          ? candidate1.getCandidate()
+          : candidate2.getCandidate();
+    }
+  }
+
+
   /**
    * {@inheritDoc}
    */
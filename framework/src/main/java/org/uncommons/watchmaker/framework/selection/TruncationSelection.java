@@ -17,6 +17,7 @@ package org.uncommons.watchmaker.framework.selection;
 
 import org.uncommons.maths.number.ConstantGenerator;
 import org.uncommons.maths.number.NumberGenerator;
+import org.uncommons.util.number.DoubleGenerator;
 import org.uncommons.watchmaker.framework.EvaluatedCandidate;
 import org.uncommons.watchmaker.framework.SelectionStrategy;
 
@@ -34,7 +35,7 @@ import java.util.Random;
  */
 public class TruncationSelection implements SelectionStrategy<Object> {
   private static final DecimalFormat PERCENT_FORMAT = new DecimalFormat("#0.###%");
-  private final NumberGenerator<Double> selectionRatio;
+  private final DoubleGenerator selectionRatio;
 
   private String description = "Truncation Selection";
 
@@ -48,7 +49,7 @@ public class TruncationSelection implements SelectionStrategy<Object> {
    *                       the proportion of the population that is retained in any given selection.
    */
   public TruncationSelection(NumberGenerator<Double> selectionRatio) {
-    this.selectionRatio = selectionRatio;
+    this.selectionRatio = DoubleGenerator.of(selectionRatio);
   }
 
 
@@ -87,7 +88,7 @@ public class TruncationSelection implements SelectionStrategy<Object> {
                             Random rng) {
     List<S> selection = new ArrayList<>(selectionSize);
 
-    double ratio = selectionRatio.nextValue();
+    double ratio = selectionRatio.nextDouble();
     assert ratio < 1 && ratio > 0 : "Selection ratio out-of-range: " + ratio;
 
     int eligibleCount = (int) Math.round(ratio * population.size());
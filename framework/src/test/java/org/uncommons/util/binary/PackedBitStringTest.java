@@ -0,0 +1,132 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.binary;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.binary.BitString;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+import java.util.Random;
+
+/**
+ * Unit test for {@link PackedBitString}.
+ */
+public class PackedBitStringTest {
+  @Test
+  public void testSameBitsAsBitString() {
+    Random rng = new MersenneTwisterRNG();
+    for (int length : new int[]{1, 63, 64, 65, 200}) {
+      BitString bitString = new BitString(length, rng);
+      PackedBitString packed = PackedBitString.fromBitString(bitString);
+      assert packed.getLength() == length : "Wrong length: " + packed.getLength();
+      assert packed.toString().equals(bitString.toString()) : "Wrong bits: " + packed;
+      assert packed.countSetBits() == bitString.countSetBits() : "Wrong set bit count.";
+      assert packed.toBitString().equals(bitString) : "Round trip changed bits.";
+      assert new PackedBitString(bitString.toString()).equals(packed) : "Parsing changed bits.";
+    }
+  }
+
+
+  @Test
+  public void testEmpty() {
+    PackedBitString packed = new PackedBitString("");
+    assert packed.getLength() == 0 : "Wrong length: " + packed.getLength();
+    assert packed.countSetBits() == 0 : "Wrong set bit count.";
+    assert packed.nextSetBit(0) == -1 : "Empty string has no set bits.";
+  }
+
+
+  @Test
+  public void testRandomBitsWithinLength() {
+    PackedBitString packed = new PackedBitString(70, new MersenneTwisterRNG());
+    assert packed.nextSetBit(70) == -1 : "Unused bits should be clear.";
+    for (int i = packed.nextSetBit(0); i >= 0; i = packed.nextSetBit(i + 1)) {
+      assert packed.getBit(i) : "Bit " + i + " should be set.";
+    }
+  }
+
+
+  @Test
+  public void testFlipBits() {
+    PackedBitString packed = new PackedBitString(130);
+    packed.flipBits(0, 64, 129, 64);
+    assert packed.toString().equals("1" + repeat('0', 128) + "1") : "Wrong bits: " + packed;
+    assert packed.countUnsetBits() == 128 : "Wrong unset bit count.";
+  }
+
+
+  @Test
+  public void testSwapSubstring() {
+    PackedBitString zeros = new PackedBitString(200);
+    PackedBitString ones = new PackedBitString(repeat('1', 200));
+    zeros.swapSubstring(ones, 60, 80);
+    for (int i = 0; i < 200; i++) {
+      boolean inside = i >= 60 && i < 140;
+      assert zeros.getBit(i) == inside : "Wrong bit " + i + " after swap.";
+      assert ones.getBit(i) != inside : "Wrong bit " + i + " in other string after swap.";
+    }
+  }
+
+
+  @Test
+  public void testSwapRandomBits() {
+    PackedBitString zeros = new PackedBitString(1000);
+    PackedBitString ones = new PackedBitString(repeat('1', 1000));
+    zeros.swapRandomBits(ones, new MersenneTwisterRNG());
+    assert zeros.countSetBits() + ones.countSetBits() == 1000 : "Bits were lost or created.";
+    assert zeros.countMatchingBits(ones) == 0 : "Swapped strings should be complements.";
+    assert Math.abs(zeros.countSetBits() - 500) < 100 : "Swap not uniform: " + zeros.countSetBits();
+  }
+
+
+  @Test
+  public void testCountMatchingBits() {
+    PackedBitString a = new PackedBitString("1100110011");
+    PackedBitString b = new PackedBitString("1010101010");
+    assert a.countMatchingBits(b) == 5 : "Wrong match count: " + a.countMatchingBits(b);
+  }
+
+
+  @Test
+  public void testClone() {
+    PackedBitString original = new PackedBitString("0101");
+    PackedBitString clone = original.clone();
+    assert clone.equals(original) : "Clone should be equal.";
+    clone.flipBit(0);
+    assert original.toString().equals("0101") : "Clone should not share storage.";
+  }
+
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testInvalidIndex() {
+    new PackedBitString(64).getBit(64);
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDifferentLengths() {
+    new PackedBitString(10).swapSubstring(new PackedBitString(11), 0, 5);
+  }
+
+
+  private static String repeat(char c, int count) {
+    StringBuilder buffer = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      buffer.append(c);
+    }
+    return buffer.toString();
+  }
+}
@@ -0,0 +1,97 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.concurrent;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Unit test for {@link ConcurrencyLimiter}.
+ */
+public class ConcurrencyLimiterTest {
+  @Test
+  public void testLimit() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+    List<CompletableFuture<Integer>> operations = new ArrayList<>();
+    List<Integer> startOrder = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      CompletableFuture<Integer> operation = new CompletableFuture<>();
+      operations.add(operation);
+      int index = i;
+      results.add(limiter.submit(() -> {
+        startOrder.add(index);
+        return operation;
+      }));
+    }
+    assert limiter.getActiveCount() == 2 : "Wrong active count: " + limiter.getActiveCount();
+    assert limiter.getQueuedCount() == 3 : "Wrong queued count: " + limiter.getQueuedCount();
+
+    operations.get(1).complete(1);
+    assert results.get(1).get() == 1 : "Wrong result.";
+    assert startOrder.size() == 3 && startOrder.get(2) == 2 : "Queued operations should start in order.";
+    assert limiter.getActiveCount() == 2 : "Freed permit should be reused.";
+
+    for (CompletableFuture<Integer> operation : operations) {
+      operation.complete(0);
+    }
+    assert startOrder.size() == 5 : "All operations should have started.";
+    assert limiter.getActiveCount() == 0 : "All permits should be released.";
+  }
+
+
+  /**
+   * Operations that complete immediately must not start queued operations recursively.
+   */
+  @Test
+  public void testSynchronousCompletion() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 100000; i++) {
+      int value = i;
+      results.add(limiter.submit(() -> CompletableFuture.completedFuture(value)));
+    }
+    assert results.get(99999).join() == 99999 : "Wrong result.";
+    assert limiter.getActiveCount() == 0 : "All permits should be released.";
+  }
+
+
+  @Test
+  public void testFailureReleasesPermit() throws InterruptedException {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+    CompletableFuture<Integer> failed = limiter.submit(() -> {
+      throw new IllegalStateException("Failed to start.");
+    });
+    try {
+      failed.get();
+      assert false : "Failure should be reported.";
+    } catch (ExecutionException ex) {
+      assert ex.getCause() instanceof IllegalStateException : "Wrong exception: " + ex.getCause();
+    }
+    assert limiter.getActiveCount() == 0 : "Permit should be released after failure.";
+    assert limiter.submit(() -> CompletableFuture.completedFuture(1)).join() == 1 : "Wrong result.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidLimit() {
+    new ConcurrencyLimiter(0);
+  }
+}
@@ -0,0 +1,121 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.list;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for {@link ChunkedList}.
+ */
+public class ChunkedListTest {
+  @Test
+  public void testCopyOf() {
+    for (int size : new int[]{0, 1, ChunkedList.CHUNK_SIZE, ChunkedList.CHUNK_SIZE + 1, 1000}) {
+      List<Integer> elements = sequence(size, 0);
+      ChunkedList<Integer> list = ChunkedList.copyOf(elements);
+      assert list.size() == size : "Wrong size: " + list.size();
+      assert list.equals(elements) : "Wrong elements for size " + size;
+      assert list.hashCode() == elements.hashCode() : "Wrong hash code for size " + size;
+    }
+  }
+
+
+  @Test
+  public void testWithSharesUnchangedChunks() {
+    ChunkedList<Integer> list = ChunkedList.copyOf(sequence(1000, 0));
+    ChunkedList<Integer> changed = list.with(500, -1);
+    assert list.get(500) == 500 : "Original list was modified.";
+    assert changed.get(500) == -1 : "Element was not replaced.";
+    List<Integer> expected = sequence(1000, 0);
+    expected.set(500, -1);
+    assert changed.equals(expected) : "Wrong elements: " + changed;
+    int chunks = (1000 + ChunkedList.CHUNK_SIZE - 1) / ChunkedList.CHUNK_SIZE;
+    assert changed.countSharedChunks(list) == chunks - 1 : "Only one chunk should be copied.";
+  }
+
+
+  @Test
+  public void testEditor() {
+    ChunkedList<Integer> list = ChunkedList.copyOf(sequence(200, 0));
+    ChunkedList.Editor<Integer> editor = list.edit();
+    editor.swap(0, 199);
+    editor.set(1, -1);
+    editor.set(2, -2);
+    ChunkedList<Integer> edited = editor.build();
+    List<Integer> expected = sequence(200, 0);
+    expected.set(0, 199);
+    expected.set(199, 0);
+    expected.set(1, -1);
+    expected.set(2, -2);
+    assert edited.equals(expected) : "Wrong elements: " + edited;
+    assert list.equals(sequence(200, 0)) : "Original list was modified.";
+    int chunks = (200 + ChunkedList.CHUNK_SIZE - 1) / ChunkedList.CHUNK_SIZE;
+    assert edited.countSharedChunks(list) == chunks - 2 : "Only the first and last chunks should be copied.";
+  }
+
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testEditorCannotBeReused() {
+    ChunkedList.Editor<Integer> editor = ChunkedList.copyOf(sequence(10, 0)).edit();
+    editor.build();
+    editor.set(0, 1);
+  }
+
+
+  @Test
+  public void testSplice() {
+    ChunkedList<Integer> list1 = ChunkedList.copyOf(sequence(1000, 0));
+    ChunkedList<Integer> list2 = ChunkedList.copyOf(sequence(700, 10000));
+    int[][] ranges = {{0, 0}, {0, 1}, {0, 700}, {3, 5}, {60, 70}, {64, 640}, {100, 699}};
+    for (int[] range : ranges) {
+      ChunkedList<Integer> spliced = list1.splice(list2, range[0], range[1]);
+      List<Integer> expected = sequence(1000, 0);
+      for (int i = range[0]; i < range[1]; i++) {
+        expected.set(i, list2.get(i));
+      }
+      assert spliced.equals(expected) : "Wrong elements for range " + range[0] + "-" + range[1];
+    }
+    // Whole chunks inside the range come from the other list and the rest from this one.
+    ChunkedList<Integer> aligned = list1.splice(list2, 64, 640);
+    assert aligned.countSharedChunks(list2) == 9 : "Chunks inside range should be shared.";
+    assert aligned.countSharedChunks(list1) == aligned.size() / ChunkedList.CHUNK_SIZE + 1 - 9
+        : "Chunks outside range should be shared.";
+  }
+
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testSpliceBeyondOtherList() {
+    ChunkedList.copyOf(sequence(100, 0)).splice(ChunkedList.copyOf(sequence(50, 0)), 0, 51);
+  }
+
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testImmutable() {
+    ChunkedList.copyOf(sequence(10, 0)).set(0, 1);
+  }
+
+
+  private static List<Integer> sequence(int size, int start) {
+    List<Integer> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(start + i);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,50 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.number;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.number.AdjustableNumberGenerator;
+import org.uncommons.maths.number.ConstantGenerator;
+
+/**
+ * Unit test for {@link IntGenerator} and {@link DoubleGenerator} adapters.
+ */
+public class IntGeneratorTest {
+  @Test
+  public void testConstant() {
+    IntGenerator generator = IntGenerator.of(new ConstantGenerator<>(5));
+    assert generator.nextInt() == 5 : "Wrong value.";
+    assert DoubleGenerator.of(new ConstantGenerator<>(0.25)).nextDouble() == 0.25 : "Wrong value.";
+  }
+
+
+  /**
+   * Non-constant generators must be consulted for every value.
+   */
+  @Test
+  public void testVariable() {
+    AdjustableNumberGenerator<Integer> variable = new AdjustableNumberGenerator<>(1);
+    IntGenerator generator = IntGenerator.of(variable);
+    assert generator.nextInt() == 1 : "Wrong value.";
+    variable.setValue(2);
+    assert generator.nextInt() == 2 : "Adjusted value not used.";
+
+    AdjustableNumberGenerator<Double> doubleVariable = new AdjustableNumberGenerator<>(1.5);
+    DoubleGenerator doubleGenerator = DoubleGenerator.of(doubleVariable);
+    doubleVariable.setValue(2.5);
+    assert doubleGenerator.nextDouble() == 2.5 : "Adjusted value not used.";
+  }
+}
@@ -0,0 +1,57 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.number;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.number.AdjustableNumberGenerator;
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.maths.random.Probability;
+
+import java.util.Random;
+
+/**
+ * Unit test for {@link ProbabilityGenerator}.
+ */
+public class ProbabilityGeneratorTest {
+  /**
+   * Events must consume random values exactly as {@link Probability#nextEvent(Random)} does,
+   * so that switching operators to primitive generators doesn't change their results.
+   */
+  @Test
+  public void testSameEventsAsProbability() {
+    for (Probability probability : new Probability[]{Probability.ZERO, new Probability(0.3), Probability.ONE}) {
+      Random rng1 = new MersenneTwisterRNG(new byte[16]);
+      Random rng2 = new MersenneTwisterRNG(new byte[16]);
+      ProbabilityGenerator generator = ProbabilityGenerator.of(new ConstantGenerator<>(probability));
+      for (int i = 0; i < 100; i++) {
+        assert generator.nextEvent(rng1) == probability.nextEvent(rng2) : "Different event for " + probability;
+      }
+      assert rng1.nextInt() == rng2.nextInt() : "Different number of random values consumed.";
+    }
+  }
+
+
+  @Test
+  public void testVariable() {
+    AdjustableNumberGenerator<Probability> variable = new AdjustableNumberGenerator<>(Probability.ZERO);
+    ProbabilityGenerator generator = ProbabilityGenerator.of(variable);
+    assert generator.nextProbability() == 0 : "Wrong probability.";
+    variable.setValue(Probability.ONE);
+    assert generator.nextProbability() == 1 : "Adjusted value not used.";
+    assert generator.nextEvent(new Random()) : "Certain event did not occur.";
+  }
+}
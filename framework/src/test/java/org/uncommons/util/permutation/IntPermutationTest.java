@@ -0,0 +1,64 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.permutation;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+/**
+ * Unit test for {@link IntPermutation}.
+ */
+public class IntPermutationTest {
+  @Test
+  public void testRandom() {
+    IntPermutation permutation = IntPermutation.random(100, new MersenneTwisterRNG());
+    assert permutation.size() == 100 : "Wrong size: " + permutation.size();
+    // The constructor checks that the elements form a permutation.
+    assert new IntPermutation(permutation.toArray()).equals(permutation) : "Copy should be equal.";
+  }
+
+
+  @Test
+  public void testInverse() {
+    IntPermutation permutation = new IntPermutation(2, 0, 3, 1);
+    int[] positions = permutation.inverse();
+    for (int i = 0; i < permutation.size(); i++) {
+      assert positions[permutation.get(i)] == i : "Wrong position for " + permutation.get(i);
+    }
+  }
+
+
+  @Test
+  public void testDefensiveCopy() {
+    int[] order = {0, 1, 2};
+    IntPermutation permutation = new IntPermutation(order);
+    order[0] = 2;
+    permutation.toArray()[1] = 0;
+    assert permutation.equals(IntPermutation.identity(3)) : "Permutation should not share its array.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDuplicateElement() {
+    new IntPermutation(0, 1, 1);
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testElementOutOfRange() {
+    new IntPermutation(0, 1, 3);
+  }
+}
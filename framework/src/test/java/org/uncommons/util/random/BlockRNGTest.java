@@ -0,0 +1,124 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.random;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+import java.util.Random;
+
+/**
+ * Unit test for {@link BlockRNG}.
+ */
+public class BlockRNGTest {
+  @Test
+  public void testRepeatable() {
+    BlockRNG rng1 = new BlockRNG(new MersenneTwisterRNG(new byte[16]));
+    BlockRNG rng2 = new BlockRNG(new MersenneTwisterRNG(new byte[16]));
+    for (int i = 0; i < 2000; i++) {
+      assert rng1.nextInt() == rng2.nextInt() : "Same source should give same sequence.";
+    }
+  }
+
+
+  /**
+   * The shared generator should only be used once per block.
+   */
+  @Test
+  public void testSourceCallsPerBlock() {
+    final int[] calls = new int[1];
+    BlockRNG rng = new BlockRNG(new Random(1) {
+      @Override
+      public long nextLong() {
+        ++calls[0];
+        return super.nextLong();
+      }
+    });
+    for (int i = 0; i < 1000; i++) {
+      rng.nextInt(10);
+    }
+    assert calls[0] == 2 : "Wrong number of calls to the shared generator: " + calls[0];
+  }
+
+
+  @Test
+  public void testBoundedInts() {
+    BlockRNG rng = new BlockRNG(new MersenneTwisterRNG(new byte[16]));
+    int[] counts = new int[7];
+    int[] values = new int[70000];
+    rng.nextInts(values, counts.length);
+    for (int value : values) {
+      assert value >= 0 && value < counts.length : "Value out of range: " + value;
+      ++counts[value];
+    }
+    for (int count : counts) {
+      assert Math.abs(count - 10000) < 500 : "Values not uniformly distributed: " + count;
+    }
+  }
+
+
+  @Test
+  public void testDoubles() {
+    BlockRNG rng = new BlockRNG(new MersenneTwisterRNG(new byte[16]));
+    double[] values = new double[10000];
+    rng.nextDoubles(values);
+    double sum = 0;
+    for (double value : values) {
+      assert value >= 0 && value < 1 : "Value out of range: " + value;
+      sum += value;
+    }
+    assert Math.abs(sum / values.length - 0.5) < 0.02 : "Wrong mean: " + sum / values.length;
+  }
+
+
+  @Test
+  public void testBernoulli() {
+    BlockRNG rng = new BlockRNG(new MersenneTwisterRNG(new byte[16]));
+    int successes = 0;
+    for (int i = 0; i < 10000; i++) {
+      successes += rng.nextBernoulli(0.1) ? 1 : 0;
+    }
+    assert Math.abs(successes - 1000) < 100 : "Wrong number of successes: " + successes;
+  }
+
+
+  @Test
+  public void testPoisson() {
+    BlockRNG rng = new BlockRNG(new MersenneTwisterRNG(new byte[16]));
+    for (double mean : new double[]{0, 0.5, 4, 100}) {
+      long sum = 0;
+      for (int i = 0; i < 10000; i++) {
+        int count = rng.nextPoisson(mean);
+        assert count >= 0 : "Negative count.";
+        sum += count;
+      }
+      double sampleMean = sum / 10000.0;
+      assert Math.abs(sampleMean - mean) <= 0.05 * mean + 0.01 : "Wrong mean for " + mean + ": " + sampleMean;
+    }
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidBound() {
+    new BlockRNG(new Random()).nextInt(0);
+  }
+
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testSetSeed() {
+    new BlockRNG(new Random()).setSeed(2);
+  }
+}
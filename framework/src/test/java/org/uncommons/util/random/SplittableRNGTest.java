@@ -0,0 +1,69 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.random;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link SplittableRNG}.
+ */
+public class SplittableRNGTest {
+  @Test
+  public void testRepeatable() {
+    SplittableRNG rng1 = new SplittableRNG(42);
+    SplittableRNG rng2 = new SplittableRNG(42);
+    for (int i = 0; i < 100; i++) {
+      assert rng1.nextLong() == rng2.nextLong() : "Same seed should give same sequence.";
+      assert rng1.nextGaussian() == rng2.nextGaussian() : "Same seed should give same sequence.";
+    }
+  }
+
+
+  /**
+   * Generators split in the same order from identically seeded parents should match,
+   * whichever order they are then used in.
+   */
+  @Test
+  public void testSplitRepeatable() {
+    SplittableRNG parent1 = new SplittableRNG(7);
+    SplittableRNG parent2 = new SplittableRNG(7);
+    SplittableRNG[] children1 = {parent1.split(), parent1.split()};
+    SplittableRNG[] children2 = {parent2.split(), parent2.split()};
+    long last = children2[1].nextLong();
+    long first = children2[0].nextLong();
+    assert children1[0].nextLong() == first : "Split generators should be repeatable.";
+    assert children1[1].nextLong() == last : "Split generators should be repeatable.";
+    assert first != last : "Split generators should be independent.";
+  }
+
+
+  @Test
+  public void testBounds() {
+    SplittableRNG rng = SplittableRNG.from(new SplittableRNG(1));
+    for (int i = 0; i < 1000; i++) {
+      int value = rng.nextInt(10);
+      assert value >= 0 && value < 10 : "Value out of range: " + value;
+      double real = rng.nextDouble();
+      assert real >= 0 && real < 1 : "Value out of range: " + real;
+    }
+  }
+
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testSetSeed() {
+    new SplittableRNG(1).setSeed(2);
+  }
+}
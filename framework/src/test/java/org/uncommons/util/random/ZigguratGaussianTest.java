@@ -0,0 +1,63 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.random;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+
+import java.util.Random;
+
+/**
+ * Unit test for {@link ZigguratGaussian}.
+ */
+public class ZigguratGaussianTest {
+  @Test
+  public void testDistribution() {
+    Random rng = new MersenneTwisterRNG();
+    int samples = 200000;
+    double sum = 0;
+    double sumOfSquares = 0;
+    int beyondOne = 0;
+    int beyondTwo = 0;
+    int beyondTail = 0;
+    for (int i = 0; i < samples; i++) {
+      double x = ZigguratGaussian.nextGaussian(rng);
+      sum += x;
+      sumOfSquares += x * x;
+      double magnitude = Math.abs(x);
+      beyondOne += magnitude > 1 ? 1 : 0;
+      beyondTwo += magnitude > 2 ? 1 : 0;
+      beyondTail += magnitude > 3.5 ? 1 : 0;
+    }
+    double mean = sum / samples;
+    double variance = sumOfSquares / samples - mean * mean;
+    assert Math.abs(mean) < 0.01 : "Wrong mean: " + mean;
+    assert Math.abs(variance - 1) < 0.02 : "Wrong variance: " + variance;
+    // Expected proportions are 0.3173, 0.0455 and 0.000465.
+    assert Math.abs(beyondOne / (double) samples - 0.3173) < 0.005 : "Wrong proportion beyond 1: " + beyondOne;
+    assert Math.abs(beyondTwo / (double) samples - 0.0455) < 0.002 : "Wrong proportion beyond 2: " + beyondTwo;
+    assert beyondTail > 50 && beyondTail < 140 : "Wrong number of tail samples: " + beyondTail;
+  }
+
+
+  @Test
+  public void testBlockRNGUsesZiggurat() {
+    long seed = new MersenneTwisterRNG().nextLong();
+    double expected = ZigguratGaussian.nextGaussian(new BlockRNG(new Random(seed)));
+    double actual = new BlockRNG(new Random(seed)).nextGaussian();
+    assert actual == expected : "Block generator should sample with the ziggurat method.";
+  }
+}
@@ -0,0 +1,50 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.util.vector;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link DoubleVector} and {@link VectorBounds}.
+ */
+public class DoubleVectorTest {
+  @Test
+  public void testCopies() {
+    double[] values = {1, 2, 3};
+    DoubleVector vector = new DoubleVector(values);
+    values[0] = 5;
+    DoubleVector clone = vector.clone();
+    clone.set(1, 7);
+    assert vector.equals(new DoubleVector(1, 2, 3)) : "Vector should not share storage: " + vector;
+    assert clone.equals(new DoubleVector(1, 7, 3)) : "Wrong clone: " + clone;
+    assert vector.hashCode() == new DoubleVector(1, 2, 3).hashCode() : "Equal vectors should have equal hashes.";
+  }
+
+
+  @Test
+  public void testClamp() {
+    VectorBounds bounds = new VectorBounds(new double[]{0, -1}, new double[]{1, 1});
+    assert bounds.clamp(0, 2) == 1 : "Value above range should be clamped.";
+    assert bounds.clamp(1, -3) == -1 : "Value below range should be clamped.";
+    assert bounds.clamp(1, 0.5) == 0.5 : "Value in range should be unchanged.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvertedBounds() {
+    VectorBounds.uniform(3, 1, 0);
+  }
+}
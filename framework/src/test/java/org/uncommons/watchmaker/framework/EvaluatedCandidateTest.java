@@ -17,6 +17,10 @@ package org.uncommons.watchmaker.framework;
 
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Unit test for the simple {@link EvaluatedCandidate} class.  Ensures that
  * the equals and hashCode methods function correctly.
@@ -93,4 +97,43 @@ public class EvaluatedCandidateTest {
   public void testNegativeFitness() {
     new EvaluatedCandidate<>("ABC", -1); // Should throw an exception.
   }
+
+
+  /**
+   * A lazily evaluated candidate is evaluated when its fitness is first read, and only
+   * then.
+   */
+  @Test
+  public void testLazyEvaluation() {
+    AtomicInteger evaluations = new AtomicInteger();
+    FitnessEvaluator<String> evaluator = new FitnessEvaluator<String>() {
+      public double getFitness(String candidate, List<? extends String> population) {
+        evaluations.incrementAndGet();
+        return candidate.length();
+      }
+
+
+      public boolean isNatural() {
+        return true;
+      }
+    };
+    EvaluationCounters counters = new EvaluationCounters();
+    List<EvaluatedCandidate<String>> candidates = new LazyEvaluation<String>(evaluator,
+        Arrays.asList("A", "BB", "CCC"), null, counters).defer(Arrays.asList("A", "BB", "CCC"));
+    assert !candidates.get(1).isEvaluated() : "Candidate should not be evaluated yet.";
+    assert evaluations.get() == 0 : "Nothing should be evaluated yet.";
+    assert candidates.get(1).getFitness() == 2 : "Wrong fitness.";
+    assert candidates.get(1).getFitness() == 2 : "Wrong fitness.";
+    assert candidates.get(1).isEvaluated() : "Candidate should now be evaluated.";
+    assert evaluations.get() == 1 : "Fitness should be memoized.";
+    EvaluatedCandidate.evaluateAll(Arrays.asList(candidates.get(0), candidates.get(1), candidates.get(0)));
+    assert evaluations.get() == 2 : "Only the unevaluated candidate should be evaluated: " + evaluations.get();
+    assert !candidates.get(2).isEvaluated() : "Unread candidate should not be evaluated.";
+    EvaluatedCandidate<String> unread = candidates.get(2);
+    assert unread.equals(unread) && !unread.equals(new EvaluatedCandidate<>("DDD", 3))
+        : "Lazily evaluated candidate should only be equal to itself.";
+    assert unread.hashCode() == unread.hashCode() : "Hash code should be stable.";
+    assert !unread.isEvaluated() : "Equality and hashing should not evaluate a candidate.";
+    assert counters.snapshot().getEvaluationCount() == 2 : "Wrong evaluation count.";
+  }
 }
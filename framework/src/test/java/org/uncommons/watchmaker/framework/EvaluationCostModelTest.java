@@ -0,0 +1,69 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for {@link EvaluationCostModel}.
+ */
+public class EvaluationCostModelTest {
+  @Test
+  public void testCalibration() {
+    EvaluationCostModel<String> model = new EvaluationCostModel<>(String::length);
+    assert model.predictNanos(5) == 5 : "Uncalibrated model should return the estimate.";
+    for (int i = 0; i < 20; i++) {
+      assert !model.isCalibrated() || i >= 10 : "Calibrated too early.";
+      model.record(i, 1000 + 50 * i);
+    }
+    assert model.isCalibrated() : "Model should be calibrated.";
+    double prediction = model.predictNanos(30);
+    assert Math.abs(prediction - 2500) < 1e-6 : "Wrong prediction: " + prediction;
+  }
+
+
+  /**
+   * Estimates that don't correlate with evaluation time should all be given the
+   * same prediction.
+   */
+  @Test
+  public void testUselessEstimator() {
+    EvaluationCostModel<String> model = new EvaluationCostModel<>(String::length);
+    for (int i = 0; i < 20; i++) {
+      model.record(i, 2000 - 10 * i);
+    }
+    assert model.predictNanos(0) == model.predictNanos(100) : "Prediction should be constant.";
+    assert model.predictNanos(0) > 0 : "Prediction should be the mean time.";
+  }
+
+
+  @Test
+  public void testLongestFirst() {
+    List<Integer> order = EvaluationCostModel.longestFirst(new double[]{1, 3, 2, 3, 0});
+    assert order.equals(Arrays.asList(1, 3, 2, 0, 4)) : "Wrong order: " + order;
+  }
+
+
+  @Test
+  public void testEstimate() {
+    EvaluationCostModel<String> model = new EvaluationCostModel<>(String::length);
+    double[] estimates = model.estimate(Arrays.asList("a", "abc", ""));
+    assert Arrays.equals(estimates, new double[]{1, 3, 0}) : "Wrong estimates: " + Arrays.toString(estimates);
+  }
+}
@@ -0,0 +1,77 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link EvaluationStrategySelector}.
+ */
+public class EvaluationStrategySelectorTest {
+  /**
+   * Runs a complete trial in which each strategy takes the given time per candidate.
+   */
+  private static void runTrial(EvaluationStrategySelector selector, long single, long chunked, long perCandidate) {
+    for (int i = 0; i < 6; i++) {
+      EvaluationStrategy strategy = selector.next();
+      long nanosPerCandidate = strategy == EvaluationStrategy.SINGLE_THREADED
+          ? single
+          : strategy == EvaluationStrategy.CHUNKED ? chunked : perCandidate;
+      selector.record(strategy, 10, nanosPerCandidate * 10);
+    }
+  }
+
+
+  @Test
+  public void testFastestChosen() {
+    EvaluationStrategySelector selector = new EvaluationStrategySelector();
+    runTrial(selector, 300, 100, 200);
+    assert selector.next() == EvaluationStrategy.CHUNKED : "Fastest strategy not chosen: " + selector.next();
+    for (int i = 0; i < 50; i++) {
+      selector.record(EvaluationStrategy.CHUNKED, 10, 1000);
+    }
+    assert selector.next() == EvaluationStrategy.CHUNKED : "Choice should be stable.";
+  }
+
+
+  /**
+   * If evaluations get much more expensive, the strategies should be compared again.
+   */
+  @Test
+  public void testDrift() {
+    EvaluationStrategySelector selector = new EvaluationStrategySelector();
+    runTrial(selector, 100, 200, 300);
+    assert selector.next() == EvaluationStrategy.SINGLE_THREADED : "Fastest strategy not chosen.";
+    for (int i = 0; i < 10 && selector.next() == EvaluationStrategy.SINGLE_THREADED; i++) {
+      selector.record(EvaluationStrategy.SINGLE_THREADED, 10, 10000);
+    }
+    runTrial(selector, 1000, 800, 400);
+    assert selector.next() == EvaluationStrategy.PER_CANDIDATE : "Strategies not compared again.";
+  }
+
+
+  @Test
+  public void testPeriodicRecheck() {
+    EvaluationStrategySelector selector = new EvaluationStrategySelector();
+    runTrial(selector, 100, 200, 300);
+    for (int i = 0; i < 100; i++) {
+      assert selector.next() == EvaluationStrategy.SINGLE_THREADED : "Re-checked too early.";
+      selector.record(EvaluationStrategy.SINGLE_THREADED, 10, 1000);
+    }
+    runTrial(selector, 300, 200, 100);
+    assert selector.next() == EvaluationStrategy.PER_CANDIDATE : "Strategies not compared again.";
+  }
+}
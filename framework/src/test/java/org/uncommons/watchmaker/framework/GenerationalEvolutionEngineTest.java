@@ -17,14 +17,31 @@ package org.uncommons.watchmaker.framework;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.factories.AbstractCandidateFactory;
+import org.uncommons.watchmaker.framework.factories.StringFactory;
 import org.uncommons.watchmaker.framework.factories.StubIntegerFactory;
+import org.uncommons.watchmaker.framework.operators.EvolutionPipeline;
+import org.uncommons.watchmaker.framework.operators.IntArrayCrossover;
+import org.uncommons.watchmaker.framework.operators.StringCrossover;
+import org.uncommons.watchmaker.framework.operators.StringMutation;
 import org.uncommons.watchmaker.framework.selection.RouletteWheelSelection;
+import org.uncommons.watchmaker.framework.selection.TournamentSelection;
 import org.uncommons.watchmaker.framework.termination.ElapsedTime;
 import org.uncommons.watchmaker.framework.termination.GenerationCount;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unit test for the {@link GenerationalEvolutionEngine} class.
@@ -136,6 +153,533 @@ public class GenerationalEvolutionEngineTest {
   }
 
 
+  /**
+   * A candidate whose evaluation hangs must be given the penalty score, and its
+   * evaluation must be interrupted, without stalling the rest of the generation.
+   */
+  @Test(timeOut = 10000)
+  public void testEvaluationTimeout() throws InterruptedException {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    GenerationalEvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        new IntegerZeroMaker(),
+        new FitnessEvaluator<Integer>() {
+          public double getFitness(Integer candidate, List<? extends Integer> population) {
+            if (candidate == 13) {
+              try {
+                Thread.sleep(60000);
+              } catch (InterruptedException ex) {
+                interrupted.countDown();
+              }
+            }
+            return candidate;
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG());
+    engine.setEvaluationTimeout(100, TimeUnit.MILLISECONDS, 0);
+    List<Integer> seeds = new ArrayList<>(2);
+    seeds.add(13);
+    seeds.add(11);
+    List<EvaluatedCandidate<Integer>> population = engine.evolvePopulation(10, 0, seeds, new GenerationCount(1));
+    assert population.get(0).getCandidate() == 11 : "Timed-out candidate should not be the fittest.";
+    for (EvaluatedCandidate<Integer> candidate : population) {
+      if (candidate.getCandidate() == 13) {
+        assert candidate.getFitness() == 0 : "Timed-out candidate should get the penalty score.";
+      }
+    }
+    EvaluationMetrics metrics = engine.getEvaluationMetrics();
+    assert metrics.getEvaluationCount() == 10 : "Wrong evaluation count: " + metrics;
+    assert metrics.getTimeoutCount() == 1 : "Wrong timeout count: " + metrics;
+    assert interrupted.await(5, TimeUnit.SECONDS) : "Hung evaluation should have been interrupted.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeTimeoutPenalty() {
+    new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        new IntegerZeroMaker(),
+        new IntegerEvaluator(),
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG()).setEvaluationTimeout(1, TimeUnit.SECONDS, -1);
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidSpeculationSettings() {
+    new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        new IntegerZeroMaker(),
+        new IntegerEvaluator(),
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG()).setSpeculativeExecution(0.75, 0.9, 0.5);
+  }
+
+
+  /**
+   * Asynchronous evaluations are all started from the request thread and complete on
+   * a single timer thread, subject to the concurrency limit.
+   */
+  @Test(timeOut = 10000)
+  public void testAsyncEvaluation() {
+    ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    try {
+      AtomicInteger inFlight = new AtomicInteger();
+      AtomicInteger maxInFlight = new AtomicInteger();
+      GenerationalEvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+          new IntegerZeroMaker(),
+          new AsyncFitnessEvaluator<Integer>() {
+            public CompletionStage<Double> getFitnessAsync(Integer candidate, List<? extends Integer> population) {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              CompletableFuture<Double> fitness = new CompletableFuture<>();
+              timer.schedule(() -> {
+                inFlight.decrementAndGet();
+                fitness.complete((double) candidate);
+              }, 20, TimeUnit.MILLISECONDS);
+              return fitness;
+            }
+
+
+            public boolean isNatural() {
+              return true;
+            }
+          },
+          new RouletteWheelSelection(),
+          FrameworkTestUtils.getRNG());
+      engine.setMaxConcurrentAsyncEvaluations(100);
+      List<Integer> seeds = new ArrayList<>(1);
+      seeds.add(7);
+      List<EvaluatedCandidate<Integer>> population = engine.evolvePopulation(500, 1, seeds, new GenerationCount(2));
+      assert population.get(0).getFitness() == 7 : "Elite candidate should be preserved.";
+      assert maxInFlight.get() == 100 : "Concurrency limit not applied: " + maxInFlight.get();
+      assert engine.getEvaluationMetrics().getEvaluationCount() == 1000 : "Wrong evaluation count.";
+    } finally {
+      timer.shutdownNow();
+    }
+  }
+
+
+  @Test(timeOut = 10000)
+  public void testAsyncEvaluationTimeout() {
+    CompletableFuture<Double> neverCompletes = new CompletableFuture<>();
+    GenerationalEvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        new IntegerZeroMaker(),
+        new AsyncFitnessEvaluator<Integer>() {
+          public CompletionStage<Double> getFitnessAsync(Integer candidate, List<? extends Integer> population) {
+            return candidate == 13 ? neverCompletes : CompletableFuture.completedFuture((double) candidate);
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG());
+    engine.setEvaluationTimeout(50, TimeUnit.MILLISECONDS, 0);
+    List<Integer> seeds = new ArrayList<>(1);
+    seeds.add(13);
+    List<EvaluatedCandidate<Integer>> population = engine.evolvePopulation(10, 0, seeds, new GenerationCount(1));
+    assert population.get(population.size() - 1).getFitness() == 0 : "Timed-out candidate should get penalty.";
+    assert engine.getEvaluationMetrics().getTimeoutCount() == 1 : "Wrong timeout count.";
+    assert neverCompletes.isCancelled() : "Timed-out evaluation should be cancelled.";
+  }
+
+
+  /**
+   * Batch evaluators should be given the candidates in descending order of estimated
+   * cost, with the scores matched back to the right candidates.
+   */
+  @Test
+  public void testCostOrderedBatch() {
+    List<List<? extends Integer>> batches = new ArrayList<>();
+    GenerationalEvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        new IntegerZeroMaker(),
+        new BatchFitnessEvaluator<Integer>() {
+          public double[] evaluateBatch(List<? extends Integer> candidates, List<? extends Integer> population) {
+            batches.add(new ArrayList<>(candidates));
+            double[] scores = new double[candidates.size()];
+            for (int i = 0; i < scores.length; i++) {
+              scores[i] = candidates.get(i);
+            }
+            return scores;
+          }
+
+
+          public double getFitness(Integer candidate, List<? extends Integer> population) {
+            return candidate;
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG());
+    engine.setEvaluationCostEstimator(candidate -> candidate);
+    List<Integer> seeds = new ArrayList<>(3);
+    seeds.add(3);
+    seeds.add(9);
+    seeds.add(5);
+    List<EvaluatedCandidate<Integer>> population = engine.evolvePopulation(10, 0, seeds, new GenerationCount(1));
+    for (EvaluatedCandidate<Integer> evaluated : population) {
+      assert evaluated.getFitness() == evaluated.getCandidate() : "Score matched to wrong candidate.";
+    }
+    List<? extends Integer> batch = batches.get(0);
+    for (int i = 1; i < batch.size(); i++) {
+      assert batch.get(i - 1) >= batch.get(i) : "Batch not in descending order of cost: " + batch;
+    }
+  }
+
+
+  @Test
+  public void testAutoEvaluationStrategy() {
+    GenerationalEvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        new IntegerZeroMaker(),
+        new IntegerEvaluator(),
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG());
+    engine.setEvaluationStrategy(EvaluationStrategy.AUTO);
+    List<Integer> seeds = new ArrayList<>(1);
+    seeds.add(11);
+    // Enough generations to try every strategy and then use the chosen one.
+    List<EvaluatedCandidate<Integer>> population = engine.evolvePopulation(50, 1, seeds, new GenerationCount(10));
+    assert population.size() == 50 : "Wrong population size.";
+    assert population.get(0).getCandidate() == 11 : "Elite candidate should be preserved.";
+    for (EvaluatedCandidate<Integer> evaluated : population) {
+      assert evaluated.getFitness() == evaluated.getCandidate() : "Wrong fitness.";
+    }
+    assert engine.getEvaluationMetrics().getEvaluationCount() == 500 : "Wrong evaluation count.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullEvaluationStrategy() {
+    GenerationalEvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        new IntegerZeroMaker(),
+        new IntegerEvaluator(),
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG());
+    engine.setEvaluationStrategy(null);
+  }
+
+
+  /**
+   * With parallel breeding, runs with the same seed should have identical results.
+   */
+  @Test
+  public void testParallelBreedingRepeatable() {
+    List<List<EvaluatedCandidate<String>>> results = new ArrayList<>(2);
+    for (int run = 0; run < 2; run++) {
+      char[] alphabet = "ABC".toCharArray();
+      List<EvolutionaryOperator<String>> operators = new ArrayList<>(2);
+      operators.add(new StringCrossover());
+      operators.add(new StringMutation(alphabet, new Probability(0.1)));
+      GenerationalEvolutionEngine<String> engine = new GenerationalEvolutionEngine<>(new StringFactory(alphabet, 10),
+          new EvolutionPipeline<>(operators),
+          new FitnessEvaluator<String>() {
+            public double getFitness(String candidate, List<? extends String> population) {
+              return candidate.replace("A", "").length();
+            }
+
+
+            public boolean isNatural() {
+              return true;
+            }
+          },
+          new TournamentSelection(new Probability(0.8)),
+          new MersenneTwisterRNG(new byte[16]));
+      engine.setParallelBreeding(true);
+      results.add(engine.evolvePopulation(600, 2, new GenerationCount(5)));
+    }
+    assert results.get(0).equals(results.get(1)) : "Parallel breeding should be repeatable.";
+  }
+
+
+  /**
+   * With parallel initialisation and streaming evaluation, runs with the same seed should
+   * have identical results and every candidate should be evaluated exactly once.
+   */
+  @Test
+  public void testParallelInitialisation() {
+    List<List<EvaluatedCandidate<int[]>>> results = new ArrayList<>(2);
+    for (int run = 0; run < 2; run++) {
+      GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+          new IntArrayCrossover(),
+          new IntArraySum(),
+          new TournamentSelection(new Probability(0.8)),
+          new MersenneTwisterRNG(new byte[16]));
+      engine.setParallelInitialisation(true);
+      engine.setStreamingInitialEvaluation(true);
+      results.add(engine.evolvePopulation(200, 2, new GenerationCount(3)));
+      assert engine.getEvaluationMetrics().getEvaluationCount() == 200 * 3
+          : "Wrong evaluation count: " + engine.getEvaluationMetrics().getEvaluationCount();
+    }
+    for (int i = 0; i < 200; i++) {
+      EvaluatedCandidate<int[]> candidate1 = results.get(0).get(i);
+      EvaluatedCandidate<int[]> candidate2 = results.get(1).get(i);
+      assert Arrays.equals(candidate1.getCandidate(), candidate2.getCandidate())
+          : "Parallel initialisation should be repeatable.";
+      assert candidate1.getFitness() == candidate2.getFitness() : "Fitness should be repeatable.";
+    }
+  }
+
+
+  /**
+   * Streaming evaluation cannot pass the whole population, so it must not be used for
+   * fitness functions that may depend on it.
+   */
+  @Test
+  public void testStreamingWithPopulationDependentEvaluator() {
+    AtomicInteger smallestPopulation = new AtomicInteger(Integer.MAX_VALUE);
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        new IntArrayCrossover(),
+        new FitnessEvaluator<int[]>() {
+          public double getFitness(int[] candidate, List<? extends int[]> population) {
+            smallestPopulation.accumulateAndGet(population.size(), Math::min);
+            return new IntArraySum().getFitness(candidate, population);
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setParallelInitialisation(true);
+    engine.setStreamingInitialEvaluation(true);
+    engine.evolvePopulation(100, 2, new GenerationCount(1));
+    assert smallestPopulation.get() == 100 : "Evaluator should see the population: " + smallestPopulation.get();
+  }
+
+
+  /**
+   * With pipelined evaluation, each generation is still complete and correctly scored,
+   * and fitness functions see the candidate's batch as the population.
+   */
+  @Test
+  public void testPipelinedEvaluation() {
+    AtomicInteger largestPopulation = new AtomicInteger();
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        new IntArrayCrossover(),
+        new FitnessEvaluator<int[]>() {
+          public double getFitness(int[] candidate, List<? extends int[]> population) {
+            largestPopulation.accumulateAndGet(population.size(), Math::max);
+            return new IntArraySum().getFitness(candidate, population);
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+
+
+          public boolean dependsOnPopulation() {
+            return false;
+          }
+        },
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setPipelinedEvaluation(16);
+    engine.addEvolutionObserver(data -> {
+      if (data.getGenerationNumber() == 0) {
+        // Only the initial population is evaluated as a whole.
+        largestPopulation.set(0);
+      }
+    });
+    List<EvaluatedCandidate<int[]>> population = engine.evolvePopulation(100, 3, new GenerationCount(5));
+    assert population.size() == 100 : "Wrong population size: " + population.size();
+    for (EvaluatedCandidate<int[]> candidate : population) {
+      assert candidate.getFitness() == new IntArraySum().getFitness(candidate.getCandidate(), null)
+          : "Wrong fitness for candidate.";
+    }
+    assert largestPopulation.get() == 16 : "Evaluator should see batches: " + largestPopulation.get();
+    assert engine.getEvaluationMetrics().getEvaluationCount() == 500
+        : "Wrong evaluation count: " + engine.getEvaluationMetrics().getEvaluationCount();
+  }
+
+
+  /**
+   * Pipelining cannot pass the whole generation, so it must not be used for fitness
+   * functions that may depend on it.
+   */
+  @Test
+  public void testPipeliningWithPopulationDependentEvaluator() {
+    AtomicInteger smallestPopulation = new AtomicInteger(Integer.MAX_VALUE);
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        new IntArrayCrossover(),
+        new FitnessEvaluator<int[]>() {
+          public double getFitness(int[] candidate, List<? extends int[]> population) {
+            smallestPopulation.accumulateAndGet(population.size(), Math::min);
+            return new IntArraySum().getFitness(candidate, population);
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setPipelinedEvaluation(16);
+    engine.evolvePopulation(100, 3, new GenerationCount(3));
+    assert smallestPopulation.get() == 100 : "Evaluator should see the generation: " + smallestPopulation.get();
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativePipelineBatchSize() {
+    new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        new IntArrayCrossover(),
+        new IntArraySum(),
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG()).setPipelinedEvaluation(-1);
+  }
+
+
+  /**
+   * With lazy evaluation and small tournaments, some offspring are never evaluated, but
+   * the final population is complete, correctly scored and sorted.
+   */
+  @Test
+  public void testLazyEvaluation() {
+    AtomicInteger evaluations = new AtomicInteger();
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        new IntArrayCrossover(),
+        new FitnessEvaluator<int[]>() {
+          public double getFitness(int[] candidate, List<? extends int[]> population) {
+            evaluations.incrementAndGet();
+            return new IntArraySum().getFitness(candidate, population);
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setLazyEvaluation(true);
+    List<EvaluatedCandidate<int[]>> population = engine.evolvePopulation(200, 2, new GenerationCount(10));
+    // Each tournament samples two candidates, so about 1 - e^-2 of each generation is read.
+    assert evaluations.get() < 200 * 10 * 0.95 : "Too many evaluations: " + evaluations.get();
+    assert evaluations.get() == engine.getEvaluationMetrics().getEvaluationCount()
+        : "Evaluation count should match evaluations.";
+    for (int i = 0; i < population.size(); i++) {
+      EvaluatedCandidate<int[]> candidate = population.get(i);
+      assert candidate.isEvaluated() : "Final population should be evaluated.";
+      assert candidate.getFitness() == new IntArraySum().getFitness(candidate.getCandidate(), null)
+          : "Wrong fitness for candidate.";
+      assert i == 0 || candidate.getFitness() <= population.get(i - 1).getFitness() : "Not sorted.";
+    }
+  }
+
+
+  @Test
+  public void testGenomeRecycling() {
+    GenomePool pool = new GenomePool(100);
+    pool.setDebugChecks(true);
+    IntArrayCrossover crossover = new IntArrayCrossover();
+    crossover.setGenomePool(pool);
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        crossover,
+        new IntArraySum(),
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setGenomePool(pool);
+    List<EvaluatedCandidate<int[]>> population = engine.evolvePopulation(50, 2, new GenerationCount(20));
+    assert pool.getReuseCount() > 0 : "Genomes should have been reused.";
+    for (EvaluatedCandidate<int[]> candidate : population) {
+      pool.checkNotRecycled(candidate.getCandidate());
+      assert candidate.getFitness() == new IntArraySum().getFitness(candidate.getCandidate(), null)
+          : "Recycled genome changed a candidate's contents.";
+    }
+  }
+
+
+  /**
+   * Recycling must be suspended when the cache of a caching fitness evaluator, even one
+   * that is wrapped by another evaluator, would otherwise return the scores of recycled
+   * genomes' previous contents.
+   */
+  @Test
+  public void testGenomePoolWithCachingEvaluator() {
+    GenomePool pool = new GenomePool(100);
+    pool.setDebugChecks(true);
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        new IntArrayCrossover(),
+        new RacingFitnessEvaluator<>(new CachingFitnessEvaluator<>(new IntArraySum()), 2, 2, 2, 0.95),
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setGenomePool(pool);
+    engine.evolvePopulation(50, 2, new GenerationCount(10));
+    // Only the engine has the pool, so it should still be empty.
+    pool.take(new int[100]);
+    assert pool.getReuseCount() == 0 : "Genomes should not be recycled with a caching evaluator.";
+  }
+
+
+  /**
+   * Deferred elite candidates are evaluated against the generation that bred them, so
+   * recycling must be suspended while lazy evaluation is on.
+   */
+  @Test
+  public void testGenomePoolWithLazyEvaluation() {
+    GenomePool pool = new GenomePool(100);
+    pool.setDebugChecks(true);
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        new IntArrayCrossover(),
+        new IntArraySum(),
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setGenomePool(pool);
+    engine.setLazyEvaluation(true);
+    engine.evolvePopulation(50, 2, new GenerationCount(10));
+    // Only the engine has the pool, so it should still be empty.
+    pool.take(new int[100]);
+    assert pool.getReuseCount() == 0 : "Genomes should not be recycled with lazy evaluation.";
+  }
+
+
+  /**
+   * An operator that re-introduces candidates from an earlier generation must be caught
+   * when those candidates have been recycled.
+   */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testRecycledGenomeReused() {
+    GenomePool pool = new GenomePool(100);
+    pool.setDebugChecks(true);
+    EvolutionaryOperator<int[]> resurrection = new EvolutionaryOperator<int[]>() {
+      private List<int[]> first = null;
+
+      public List<int[]> apply(List<int[]> selectedCandidates, Random rng) {
+        if (first == null) {
+          first = selectedCandidates;
+        } else if (first != selectedCandidates) {
+          return first;
+        }
+        List<int[]> copies = new ArrayList<>(selectedCandidates.size());
+        for (int[] candidate : selectedCandidates) {
+          copies.add(candidate.clone());
+        }
+        return copies;
+      }
+    };
+    GenerationalEvolutionEngine<int[]> engine = new GenerationalEvolutionEngine<>(new IntArrayFactory(),
+        resurrection,
+        new IntArraySum(),
+        new TournamentSelection(new Probability(0.8)),
+        FrameworkTestUtils.getRNG());
+    engine.setGenomePool(pool);
+    engine.evolvePopulation(20, 0, new GenerationCount(5));
+  }
+
+
   /**
    * Trivial test operator that mutates all integers into zeroes.
    */
@@ -148,4 +692,36 @@ public class GenerationalEvolutionEngineTest {
       return result;
     }
   }
+
+
+  private static final class IntArrayFactory extends AbstractCandidateFactory<int[]> {
+    public int[] generateRandomCandidate(Random rng) {
+      int[] candidate = new int[100];
+      for (int i = 0; i < candidate.length; i++) {
+        candidate[i] = rng.nextInt(10);
+      }
+      return candidate;
+    }
+  }
+
+
+  private static final class IntArraySum implements FitnessEvaluator<int[]> {
+    public double getFitness(int[] candidate, List<? extends int[]> population) {
+      int sum = 0;
+      for (int value : candidate) {
+        sum += value;
+      }
+      return sum;
+    }
+
+
+    public boolean isNatural() {
+      return true;
+    }
+
+
+    public boolean dependsOnPopulation() {
+      return false;
+    }
+  }
 }
@@ -0,0 +1,100 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * Unit test for {@link GenomePool}.
+ */
+public class GenomePoolTest {
+  @Test
+  public void testReuse() {
+    GenomePool pool = new GenomePool(10);
+    int[] genome = {1, 2, 3};
+    pool.recycle(genome);
+    assert pool.take(new int[2]) != genome : "Arrays of a different length should not be reused.";
+    assert pool.take(new long[3]) != (Object) genome : "Arrays of a different type should not be reused.";
+    int[] copy = pool.copyOf(new int[]{4, 5, 6});
+    assert copy == genome : "Pooled array should be reused.";
+    assert Arrays.equals(copy, new int[]{4, 5, 6}) : "Wrong contents: " + Arrays.toString(copy);
+    assert pool.getReuseCount() == 1 : "Wrong reuse count: " + pool.getReuseCount();
+    assert pool.take(new int[3]) != genome : "Array should only be handed out once.";
+  }
+
+
+  @Test
+  public void testCapacity() {
+    GenomePool pool = new GenomePool(1);
+    pool.recycle(new double[5]);
+    pool.recycle(new double[5]); // Dropped, because the pool is full.
+    pool.take(new double[5]);
+    pool.take(new double[5]);
+    assert pool.getReuseCount() == 1 : "Only one array should have been pooled.";
+  }
+
+
+  @Test
+  public void testObjectArraysCleared() {
+    GenomePool pool = new GenomePool(1);
+    String[] genome = {"a", "b"};
+    pool.recycle(genome);
+    String[] reused = pool.take(new String[2]);
+    assert reused == genome : "Pooled array should be reused.";
+    assert reused[0] == null && reused[1] == null : "Pooled arrays should not retain their elements.";
+  }
+
+
+  @Test
+  public void testNonArraysIgnored() {
+    GenomePool pool = new GenomePool(1);
+    pool.setDebugChecks(true);
+    pool.recycle("Not an array");
+    pool.checkNotRecycled("Not an array");
+  }
+
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testDoubleRecycle() {
+    GenomePool pool = new GenomePool(10);
+    pool.setDebugChecks(true);
+    byte[] genome = new byte[4];
+    pool.recycle(genome);
+    pool.recycle(genome);
+  }
+
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testCopyAfterRecycle() {
+    GenomePool pool = new GenomePool(10);
+    pool.setDebugChecks(true);
+    char[] genome = new char[4];
+    pool.recycle(genome);
+    pool.copyOf(genome);
+  }
+
+
+  @Test
+  public void testDebugChecksDisabled() {
+    GenomePool pool = new GenomePool(10);
+    pool.setDebugChecks(false);
+    char[] genome = new char[4];
+    pool.recycle(genome);
+    pool.checkNotRecycled(genome); // Not detected without debug checks.
+  }
+}
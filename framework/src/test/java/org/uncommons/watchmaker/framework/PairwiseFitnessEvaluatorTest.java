@@ -0,0 +1,224 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.watchmaker.framework.factories.StubIntegerFactory;
+import org.uncommons.watchmaker.framework.selection.RouletteWheelSelection;
+import org.uncommons.watchmaker.framework.termination.GenerationCount;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit test for the {@link PairwiseFitnessEvaluator} class.
+ */
+public class PairwiseFitnessEvaluatorTest {
+  /**
+   * The batch scores should match playing each candidate against the population one at
+   * a time, with every pair played only once.  The population spans several tiles.
+   */
+  @Test
+  public void testMatchesSingleEvaluation() {
+    List<Integer> population = createPopulation(150);
+    ContestEvaluator evaluator = new ContestEvaluator(true);
+    double[] scores = evaluator.evaluateBatch(population, population);
+    assert evaluator.getGames() == 150 * 149 / 2 : "Each pair should be played once: " + evaluator.getGames();
+    for (int i = 0; i < population.size(); i++) {
+      double expected = evaluator.getFitness(population.get(i), population);
+      assert Math.abs(scores[i] - expected) < 1e-9 : "Wrong score " + scores[i] + ", expected " + expected;
+    }
+  }
+
+
+  /**
+   * Every pair must be played exactly once whether the tiles can be paired up evenly
+   * in each round or one of them has to sit a round out.
+   */
+  @Test
+  public void testTileRounds() {
+    for (int size : new int[]{256, 420}) {
+      List<Integer> population = createPopulation(size);
+      ContestEvaluator evaluator = new ContestEvaluator(true);
+      double[] scores = evaluator.evaluateBatch(population, population);
+      assert evaluator.getGames() == size * (size - 1) / 2 : "Each pair should be played once: " + evaluator.getGames();
+      for (int i = 0; i < population.size(); i++) {
+        double expected = evaluator.getFitness(population.get(i), population);
+        assert Math.abs(scores[i] - expected) < 1e-9 : "Wrong score " + scores[i] + ", expected " + expected;
+      }
+    }
+  }
+
+
+  /**
+   * Without an override for the opponent's score, the reverse interaction is played.
+   */
+  @Test
+  public void testAsymmetricGame() {
+    List<Integer> population = createPopulation(20);
+    ContestEvaluator evaluator = new ContestEvaluator(false);
+    double[] scores = evaluator.evaluateBatch(population, population);
+    assert evaluator.getGames() == 20 * 19 : "Both directions should be played: " + evaluator.getGames();
+    for (int i = 0; i < population.size(); i++) {
+      double expected = evaluator.getFitness(population.get(i), population);
+      assert Math.abs(scores[i] - expected) < 1e-9 : "Wrong score " + scores[i] + ", expected " + expected;
+    }
+  }
+
+
+  /**
+   * Scores should be matched to candidates when the batch is a reordered subset of the
+   * population, and pairs between members that are not being evaluated are not played.
+   */
+  @Test
+  public void testSubsetOfPopulation() {
+    List<Integer> population = createPopulation(100);
+    List<Integer> candidates = new ArrayList<>();
+    candidates.add(population.get(70));
+    candidates.add(population.get(3));
+    ContestEvaluator evaluator = new ContestEvaluator(true);
+    double[] scores = evaluator.evaluateBatch(candidates, population);
+    assert evaluator.getGames() == 2 * 99 - 1 : "Unneeded pairs should be skipped: " + evaluator.getGames();
+    for (int i = 0; i < candidates.size(); i++) {
+      double expected = evaluator.getFitness(candidates.get(i), population);
+      assert Math.abs(scores[i] - expected) < 1e-9 : "Wrong score " + scores[i] + ", expected " + expected;
+    }
+  }
+
+
+  /**
+   * Sampling opponents should bound the number of games and give each candidate the mean
+   * of the games that it took part in.
+   */
+  @Test
+  public void testSampledOpponents() {
+    List<Integer> population = createPopulation(200);
+    ContestEvaluator evaluator = new ContestEvaluator(5, new MersenneTwisterRNG());
+    double[] scores = evaluator.evaluateBatch(population, population);
+    assert evaluator.getGames() <= 200 * 5 : "Too many games: " + evaluator.getGames();
+    assert evaluator.getGames() >= 200 * 5 / 2 : "Too few games: " + evaluator.getGames();
+    for (double score : scores) {
+      assert score >= 0 && score <= 1 : "Score out of range: " + score;
+    }
+  }
+
+
+  @Test
+  public void testSampledOpponentsRepeatable() {
+    List<Integer> population = createPopulation(100);
+    MersenneTwisterRNG rng = new MersenneTwisterRNG();
+    double[] first = new ContestEvaluator(3, new MersenneTwisterRNG(rng.getSeed())).evaluateBatch(population, population);
+    double[] second = new ContestEvaluator(3, new MersenneTwisterRNG(rng.getSeed())).evaluateBatch(population, population);
+    for (int i = 0; i < first.length; i++) {
+      assert first[i] == second[i] : "Same seed should give the same scores.";
+    }
+  }
+
+
+  /**
+   * If the population is too small to sample from, every pair is played.
+   */
+  @Test
+  public void testSmallPopulationWithSampling() {
+    List<Integer> population = createPopulation(4);
+    ContestEvaluator evaluator = new ContestEvaluator(5, new MersenneTwisterRNG());
+    evaluator.evaluateBatch(population, population);
+    assert evaluator.getGames() == 6 : "Every pair should be played: " + evaluator.getGames();
+  }
+
+
+  @Test
+  public void testNoOpponents() {
+    List<Integer> population = Collections.singletonList(5);
+    double[] scores = new ContestEvaluator(true).evaluateBatch(population, population);
+    assert scores[0] == 0 : "Candidate without opponents should score zero.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testCandidateNotInPopulation() {
+    new ContestEvaluator(true).evaluateBatch(Collections.singletonList(1000), createPopulation(3));
+  }
+
+
+  @Test
+  public void testEngineEvaluation() {
+    EvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        (selected, rng) -> selected,
+        new ContestEvaluator(true),
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG());
+    List<EvaluatedCandidate<Integer>> population = engine.evolvePopulation(20, 0, new GenerationCount(2));
+    assert population.size() == 20 : "Wrong population size: " + population.size();
+  }
+
+
+  /**
+   * Distinct Integer instances, so that identity and equality differ for equal values.
+   * The values are above the range that {@link Integer#valueOf(int)} caches.
+   */
+  private static List<Integer> createPopulation(int size) {
+    Random rng = FrameworkTestUtils.getRNG();
+    List<Integer> population = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      population.add(Integer.valueOf(200 + rng.nextInt(50)));
+    }
+    return population;
+  }
+
+
+  /**
+   * The larger value wins (scores 1) and ties score a half each.  For the asymmetric
+   * variant, the opponent's score is found by playing again.
+   */
+  private static final class ContestEvaluator extends PairwiseFitnessEvaluator<Integer> {
+    private final boolean constantSum;
+    private final AtomicInteger games = new AtomicInteger();
+
+    ContestEvaluator(boolean constantSum) {
+      this.constantSum = constantSum;
+    }
+
+    ContestEvaluator(int opponents, Random rng) {
+      super(opponents, rng);
+      this.constantSum = true;
+    }
+
+    @Override
+    protected double getScore(Integer candidate, Integer opponent) {
+      games.incrementAndGet();
+      int comparison = candidate.compareTo(opponent);
+      return comparison > 0 ? 1 : comparison == 0 ? 0.5 : 0;
+    }
+
+    @Override
+    protected double getOpponentScore(Integer candidate, Integer opponent, double score) {
+      return constantSum ? 1 - score : super.getOpponentScore(candidate, opponent, score);
+    }
+
+    public boolean isNatural() {
+      return true;
+    }
+
+    int getGames() {
+      return games.get();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit test for {@link ParallelFitnessEvaluation}.  Uses its own worker so that the
+ * tests have spare threads regardless of how many processors are available.
+ */
+public class ParallelFitnessEvaluationTest {
+  private FitnessEvaluationWorker worker;
+
+
+  @BeforeClass
+  public void startWorker() {
+    worker = new FitnessEvaluationWorker(4, true);
+  }
+
+
+  @AfterClass
+  public void stopWorker() {
+    worker.shutdown();
+  }
+
+
+  private static List<Integer> createPopulation(int size) {
+    List<Integer> population = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      population.add(i);
+    }
+    return population;
+  }
+
+
+  @Test
+  public void testEvaluate() {
+    EvaluationCounters counters = new EvaluationCounters();
+    List<EvaluatedCandidate<Integer>> evaluated = new ParallelFitnessEvaluation<Integer>(worker,
+        new IntegerEvaluator(),
+        counters,
+        0,
+        0,
+        null,
+        null).evaluate(createPopulation(50));
+    for (int i = 0; i < evaluated.size(); i++) {
+      assert evaluated.get(i).getCandidate() == i : "Results must be in population order.";
+      assert evaluated.get(i).getFitness() == i : "Wrong fitness.";
+    }
+  }
+
+
+  @Test
+  public void testChunked() {
+    List<EvaluatedCandidate<Integer>> evaluated = new ParallelFitnessEvaluation<Integer>(worker,
+        new IntegerEvaluator(),
+        new EvaluationCounters(),
+        0,
+        0,
+        null,
+        null).evaluateChunked(createPopulation(37));
+    assert evaluated.size() == 37 : "Wrong number of results.";
+    for (int i = 0; i < evaluated.size(); i++) {
+      assert evaluated.get(i).getCandidate() == i : "Results must be in population order.";
+      assert evaluated.get(i).getFitness() == i : "Wrong fitness.";
+    }
+  }
+
+
+  /**
+   * Chunks balanced by estimated cost must still cover the whole population, even
+   * when every estimate is the same.
+   */
+  @Test
+  public void testCostBalancedChunks() {
+    for (EvaluationCostEstimator<Integer> estimator : Arrays.<EvaluationCostEstimator<Integer>>asList(
+        candidate -> candidate,
+        candidate -> 0)) {
+      EvaluationCostModel<Integer> costModel = new EvaluationCostModel<>(estimator);
+      List<EvaluatedCandidate<Integer>> evaluated = new ParallelFitnessEvaluation<Integer>(worker,
+          new IntegerEvaluator(),
+          new EvaluationCounters(),
+          0,
+          0,
+          null,
+          costModel).evaluateChunked(createPopulation(100));
+      for (int i = 0; i < evaluated.size(); i++) {
+        assert evaluated.get(i).getCandidate() == i : "Results must be in population order.";
+      }
+      assert costModel.isCalibrated() : "Measured times should have been recorded.";
+    }
+  }
+
+
+  /**
+   * With a cost estimator, the most expensive candidates should be evaluated first and
+   * the estimates calibrated against the measured times.
+   */
+  @Test(timeOut = 10000)
+  public void testLongestFirst() {
+    // A single thread makes the start order observable.
+    FitnessEvaluationWorker singleThread = new FitnessEvaluationWorker(1, true);
+    try {
+      List<Integer> startOrder = Collections.synchronizedList(new ArrayList<>());
+      FitnessEvaluator<Integer> evaluator = new FitnessEvaluator<Integer>() {
+        public double getFitness(Integer candidate, List<? extends Integer> population) {
+          startOrder.add(candidate);
+          return candidate;
+        }
+
+
+        public boolean isNatural() {
+          return true;
+        }
+      };
+      EvaluationCostModel<Integer> costModel = new EvaluationCostModel<>(candidate -> candidate % 7);
+      List<EvaluatedCandidate<Integer>> evaluated = new ParallelFitnessEvaluation<Integer>(singleThread,
+          evaluator,
+          new EvaluationCounters(),
+          0,
+          0,
+          null,
+          costModel).evaluate(createPopulation(30));
+      for (int i = 0; i < evaluated.size(); i++) {
+        assert evaluated.get(i).getCandidate() == i : "Results must be in population order.";
+      }
+      for (int i = 1; i < startOrder.size(); i++) {
+        assert startOrder.get(i - 1) % 7 >= startOrder.get(i) % 7 : "Not longest first: " + startOrder;
+      }
+      assert costModel.isCalibrated() : "Measured times should have been recorded.";
+    } finally {
+      singleThread.shutdown();
+    }
+  }
+
+
+  /**
+   * An evaluation that stalls for reasons unrelated to the candidate should be
+   * re-submitted, and the copy's result used.
+   */
+  @Test(timeOut = 10000)
+  public void testSpeculativeExecution() {
+    AtomicBoolean firstAttempt = new AtomicBoolean(true);
+    FitnessEvaluator<Integer> evaluator = new FitnessEvaluator<Integer>() {
+      public double getFitness(Integer candidate, List<? extends Integer> population) {
+        try {
+          Thread.sleep(candidate == 13 && firstAttempt.getAndSet(false) ? 60000 : 2);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        return candidate;
+      }
+
+
+      public boolean isNatural() {
+        return true;
+      }
+    };
+    EvaluationCounters counters = new EvaluationCounters();
+    List<EvaluatedCandidate<Integer>> evaluated = new ParallelFitnessEvaluation<Integer>(worker,
+        evaluator,
+        counters,
+        0,
+        0,
+        new ParallelFitnessEvaluation.Speculation(0.5, 0.9, 2),
+        null).evaluate(createPopulation(20));
+    assert evaluated.get(13).getFitness() == 13 : "Wrong fitness for re-submitted candidate.";
+    EvaluationMetrics metrics = counters.snapshot();
+    assert metrics.getSpeculativeLaunchCount() >= 1 : "Straggler was not re-submitted: " + metrics;
+    assert metrics.getSpeculativeWinCount() == 1 : "Copy should have won: " + metrics;
+  }
+
+
+  @Test(timeOut = 10000, expectedExceptions = IllegalStateException.class)
+  public void testEvaluationFailure() {
+    new ParallelFitnessEvaluation<Integer>(worker,
+        new FitnessEvaluator<Integer>() {
+          public double getFitness(Integer candidate, List<? extends Integer> population) {
+            throw new IllegalArgumentException("Bad candidate.");
+          }
+
+
+          public boolean isNatural() {
+            return true;
+          }
+        },
+        new EvaluationCounters(),
+        0,
+        0,
+        new ParallelFitnessEvaluation.Speculation(0.5, 0.9, 2),
+        null).evaluate(createPopulation(5));
+  }
+}
@@ -0,0 +1,199 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework;
+
+import org.testng.annotations.Test;
+import org.uncommons.watchmaker.framework.factories.StubIntegerFactory;
+import org.uncommons.watchmaker.framework.selection.RouletteWheelSelection;
+import org.uncommons.watchmaker.framework.termination.GenerationCount;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit test for the {@link RacingFitnessEvaluator} class.
+ */
+public class RacingFitnessEvaluatorTest {
+  private static final List<Integer> CANDIDATES = Arrays.asList(0, 10, 20, 30, 40, 50, 51);
+
+
+  /**
+   * Candidates that are clearly worse than the best should stop after the minimum number
+   * of samples, while the two close contenders are sampled until they are separated.
+   */
+  @Test
+  public void testRacing() {
+    NoisySampler sampler = new NoisySampler(true);
+    RacingFitnessEvaluator<Integer> evaluator = new RacingFitnessEvaluator<>(sampler, 2, 30, 1, 0.95);
+    ConfidenceInterval[] estimates = evaluator.estimateBatch(CANDIDATES, CANDIDATES);
+    assert estimates.length == CANDIDATES.size() : "Wrong number of estimates: " + estimates.length;
+    for (int i = 0; i < 5; i++) {
+      assert estimates[i].getSampleCount() == 2 : "Clearly poor candidate sampled too often: " + estimates[i];
+      assert sampler.getSamples(CANDIDATES.get(i)) == 2 : "Sample count does not match the sampler.";
+    }
+    assert estimates[5].getSampleCount() > 2 : "Close contender not sampled enough: " + estimates[5];
+    assert estimates[6].getSampleCount() > 2 : "Close contender not sampled enough: " + estimates[6];
+    for (ConfidenceInterval estimate : estimates) {
+      assert estimate.getLowerBound() <= estimate.getMean() : "Mean below interval: " + estimate;
+      assert estimate.getUpperBound() >= estimate.getMean() : "Mean above interval: " + estimate;
+      assert estimate.getSampleCount() <= 30 : "Too many samples: " + estimate;
+    }
+    assert evaluator.getSamplesTaken() == sampler.getTotalSamples() : "Wrong total samples.";
+    assert evaluator.getSamplesTaken() < CANDIDATES.size() * 30 : "Racing did not save any samples.";
+  }
+
+
+  /**
+   * For non-natural scores the contenders are the candidates with the lowest scores
+   * (here the same candidates, whose scores are subtracted from 100).
+   */
+  @Test
+  public void testNonNatural() {
+    NoisySampler sampler = new NoisySampler(false);
+    RacingFitnessEvaluator<Integer> evaluator = new RacingFitnessEvaluator<>(sampler, 2, 30, 1, 0.95);
+    assert !evaluator.isNatural() : "Racing evaluator should have the sampler's natural-ness.";
+    ConfidenceInterval[] estimates = evaluator.estimateBatch(CANDIDATES, CANDIDATES);
+    assert estimates[0].getSampleCount() == 2 : "Clearly poor candidate sampled too often: " + estimates[0];
+    assert estimates[5].getSampleCount() > 2 : "Close contender not sampled enough: " + estimates[5];
+    assert estimates[6].getSampleCount() > 2 : "Close contender not sampled enough: " + estimates[6];
+  }
+
+
+  /**
+   * If every candidate is a contender there is nothing to race.
+   */
+  @Test
+  public void testAllContenders() {
+    NoisySampler sampler = new NoisySampler(true);
+    RacingFitnessEvaluator<Integer> evaluator = new RacingFitnessEvaluator<>(sampler, 3, 30, 10, 0.95);
+    double[] scores = evaluator.evaluateBatch(CANDIDATES, CANDIDATES);
+    assert scores.length == CANDIDATES.size() : "Wrong number of scores: " + scores.length;
+    assert sampler.getTotalSamples() == 3 * CANDIDATES.size() : "Only minimum samples should be taken.";
+  }
+
+
+  @Test
+  public void testSingleCandidate() {
+    NoisySampler sampler = new NoisySampler(true);
+    RacingFitnessEvaluator<Integer> evaluator = new RacingFitnessEvaluator<>(sampler, 2, 20, 1, 0.95);
+    double fitness = evaluator.getFitness(40, Collections.singletonList(40));
+    assert sampler.getSamples(40) == 20 : "Single evaluation should take the maximum number of samples.";
+    assert Math.abs(fitness - 40) < 1 : "Mean too far from true fitness: " + fitness;
+  }
+
+
+  /**
+   * Candidates evaluated by an engine should carry their confidence intervals.
+   */
+  @Test
+  public void testEngineConfidenceIntervals() {
+    RacingFitnessEvaluator<Integer> evaluator = new RacingFitnessEvaluator<>(new NoisySampler(true), 2, 10, 2, 0.9);
+    EvolutionEngine<Integer> engine = new GenerationalEvolutionEngine<>(new StubIntegerFactory(),
+        (selected, rng) -> selected,
+        evaluator,
+        new RouletteWheelSelection(),
+        FrameworkTestUtils.getRNG());
+    List<EvaluatedCandidate<Integer>> population = engine.evolvePopulation(10, 1, new GenerationCount(2));
+    for (EvaluatedCandidate<Integer> candidate : population) {
+      ConfidenceInterval interval = candidate.getConfidenceInterval();
+      assert interval != null : "Missing confidence interval.";
+      assert candidate.getFitness() == interval.getMean() : "Fitness should be the mean of the estimate.";
+    }
+  }
+
+
+  @Test
+  public void testExactScoreHasNoInterval() {
+    assert new EvaluatedCandidate<>("A", 1).getConfidenceInterval() == null : "Exact score should have no interval.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidSampleCounts() {
+    new RacingFitnessEvaluator<>(new NoisySampler(true), 5, 4, 1, 0.95);
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidConfidenceLevel() {
+    new RacingFitnessEvaluator<>(new NoisySampler(true), 2, 4, 1, 1);
+  }
+
+
+  @Test
+  public void testNormalQuantile() {
+    double z = RacingFitnessEvaluator.normalQuantile(0.975);
+    assert Math.abs(z - 1.959964) < 1e-5 : "Wrong quantile: " + z;
+    z = RacingFitnessEvaluator.normalQuantile(0.01);
+    assert Math.abs(z + 2.326348) < 1e-5 : "Wrong quantile: " + z;
+  }
+
+
+  @Test
+  public void testStudentQuantile() {
+    double t = RacingFitnessEvaluator.studentQuantile(0.975, 1);
+    assert Math.abs(t - 12.7062) < 1e-4 : "Wrong quantile: " + t;
+    t = RacingFitnessEvaluator.studentQuantile(0.975, 2);
+    assert Math.abs(t - 4.3027) < 1e-4 : "Wrong quantile: " + t;
+    t = RacingFitnessEvaluator.studentQuantile(0.975, 3);
+    assert Math.abs(t - 3.1824) / 3.1824 < 0.01 : "Wrong quantile: " + t;
+    t = RacingFitnessEvaluator.studentQuantile(0.975, 20);
+    assert Math.abs(t - 2.0860) < 1e-3 : "Wrong quantile: " + t;
+  }
+
+
+  /**
+   * Each sample is the candidate's value (or 100 minus it, for non-natural scores) plus
+   * Gaussian noise with a standard deviation of one.  Each candidate has its own seeded
+   * noise sequence, so results do not depend on the order of parallel sampling.
+   */
+  private static final class NoisySampler implements FitnessEvaluator<Integer> {
+    private final boolean natural;
+    private final Map<Integer, Random> noise = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> samples = new ConcurrentHashMap<>();
+
+    NoisySampler(boolean natural) {
+      this.natural = natural;
+    }
+
+    public double getFitness(Integer candidate, List<? extends Integer> population) {
+      samples.computeIfAbsent(candidate, key -> new AtomicInteger()).incrementAndGet();
+      Random rng = noise.computeIfAbsent(candidate, key -> new Random(key));
+      double value = natural ? candidate : 100 - candidate;
+      synchronized (rng) {
+        return Math.max(0, value + rng.nextGaussian());
+      }
+    }
+
+    public boolean isNatural() {
+      return natural;
+    }
+
+    int getSamples(Integer candidate) {
+      AtomicInteger count = samples.get(candidate);
+      return count == null ? 0 : count.get();
+    }
+
+    long getTotalSamples() {
+      return samples.values().stream().mapToLong(AtomicInteger::get).sum();
+    }
+  }
+}
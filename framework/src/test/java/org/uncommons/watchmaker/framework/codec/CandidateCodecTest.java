@@ -0,0 +1,115 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.codec;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.binary.BitString;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Round-trip tests for the {@link CandidateCodec} implementations.
+ */
+public class CandidateCodecTest {
+  private static <T> T roundTrip(CandidateCodec<T> codec, T candidate) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    codec.encode(candidate, out);
+    // Write a trailing marker to check that decoding consumes exactly the encoded bytes.
+    out.writeInt(42);
+    out.flush();
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    T decoded = codec.decode(in);
+    assert in.readInt() == 42 : "Decoding consumed the wrong number of bytes.";
+    return decoded;
+  }
+
+
+  @Test
+  public void testStringCodec() throws IOException {
+    assert roundTrip(new StringCodec(), "WATCHMAKER").equals("WATCHMAKER") : "Wrong string.";
+    assert roundTrip(new StringCodec(), "").isEmpty() : "Wrong empty string.";
+  }
+
+
+  @Test
+  public void testBitStringCodec() throws IOException {
+    // Length deliberately not a multiple of 8.
+    BitString bits = new BitString(21, FrameworkTestUtils.getRNG());
+    assert roundTrip(new BitStringCodec(), bits).equals(bits) : "Wrong bit string.";
+  }
+
+
+  @Test
+  public void testPrimitiveArrayCodecs() throws IOException {
+    int[] ints = {3, -1, Integer.MAX_VALUE};
+    assert Arrays.equals(roundTrip(new IntArrayCodec(), ints), ints) : "Wrong int array.";
+    double[] doubles = {0.5, -2, Double.NaN};
+    assert Arrays.equals(roundTrip(new DoubleArrayCodec(), doubles), doubles) : "Wrong double array.";
+    byte[] bytes = {1, 2, -3};
+    assert Arrays.equals(roundTrip(new ByteArrayCodec(), bytes), bytes) : "Wrong byte array.";
+  }
+
+
+  @Test
+  public void testSerializableCodec() throws IOException {
+    ArrayList<String> list = new ArrayList<>(Arrays.asList("A", "B"));
+    @SuppressWarnings("unchecked")
+    SerializableCodec<ArrayList<String>> codec = new SerializableCodec<>((Class<ArrayList<String>>) (Class<?>) ArrayList.class);
+    assert roundTrip(codec, list).equals(list) : "Wrong list.";
+  }
+
+
+  /**
+   * A corrupt or hostile length prefix must be rejected before anything is allocated.
+   */
+  @Test(expectedExceptions = IOException.class)
+  public void testInvalidLength() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new DataOutputStream(bytes).writeInt(-1);
+    new IntArrayCodec().decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+
+  /**
+   * Classes that are not on the allow-list must not be deserialized.
+   */
+  @Test(expectedExceptions = IOException.class)
+  public void testSerializableCodecRejectsUnlistedClass() throws IOException {
+    ArrayList<Object> list = new ArrayList<>(Arrays.<Object>asList("A", new Date()));
+    @SuppressWarnings("unchecked")
+    SerializableCodec<ArrayList<Object>> codec = new SerializableCodec<>((Class<ArrayList<Object>>) (Class<?>) ArrayList.class);
+    roundTrip(codec, list);
+  }
+
+
+  @Test
+  public void testSerializableCodecAllowedClass() throws IOException {
+    ArrayList<Object> list = new ArrayList<>(Arrays.<Object>asList("A", new Date(0)));
+    @SuppressWarnings("unchecked")
+    SerializableCodec<ArrayList<Object>> codec = new SerializableCodec<>((Class<ArrayList<Object>>) (Class<?>) ArrayList.class,
+        Date.class);
+    assert roundTrip(codec, list).equals(list) : "Wrong list.";
+  }
+}
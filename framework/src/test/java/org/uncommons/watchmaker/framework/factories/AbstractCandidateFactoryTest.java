@@ -0,0 +1,70 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.factories;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.util.random.SplittableRNG;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Unit test for the streaming initial population of {@link AbstractCandidateFactory}.
+ */
+public class AbstractCandidateFactoryTest {
+  private static final byte[] SEED = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+
+
+  @Test
+  public void testSequentialStreamMatchesList() {
+    List<Integer> seeds = Arrays.asList(-1, -2);
+    List<Integer> expected = new RandomIntegerFactory().generateInitialPopulation(100, seeds,
+        new MersenneTwisterRNG(SEED));
+    List<Integer> streamed = new RandomIntegerFactory().streamInitialPopulation(100, seeds,
+        new MersenneTwisterRNG(SEED)).collect(Collectors.toList());
+    assert streamed.equals(expected) : "Sequential stream should match generated population.";
+  }
+
+
+  @Test
+  public void testParallelStreamRepeatable() {
+    List<Integer> seeds = Arrays.asList(-1, -2);
+    List<Integer> population1 = new RandomIntegerFactory().streamInitialPopulation(1000, seeds,
+        new SplittableRNG(42)).collect(Collectors.toList());
+    List<Integer> population2 = new RandomIntegerFactory().streamInitialPopulation(1000, seeds,
+        new SplittableRNG(42)).collect(Collectors.toList());
+    assert population1.size() == 1000 : "Wrong population size: " + population1.size();
+    assert population1.subList(0, 2).equals(seeds) : "Seed candidates should come first.";
+    assert population1.equals(population2) : "Parallel stream should be repeatable.";
+    assert population1.stream().skip(2).distinct().count() > 990 : "Chunks should not repeat values.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTooManySeedCandidates() {
+    new RandomIntegerFactory().streamInitialPopulation(1, Arrays.asList(1, 2), new SplittableRNG(42));
+  }
+
+
+  private static final class RandomIntegerFactory extends AbstractCandidateFactory<Integer> {
+    public Integer generateRandomCandidate(Random rng) {
+      return rng.nextInt(Integer.MAX_VALUE);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.islands;
+
+import org.testng.annotations.Test;
+import org.uncommons.watchmaker.framework.PopulationData;
+import org.uncommons.watchmaker.framework.codec.StringCodec;
+import org.uncommons.watchmaker.framework.termination.ElapsedTime;
+import org.uncommons.watchmaker.framework.termination.GenerationCount;
+import org.uncommons.watchmaker.framework.termination.TargetFitness;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unit test for the {@link IslandCoordinator} and {@link IslandNode} classes.
+ * All nodes connect to the coordinator on localhost.
+ */
+public class IslandCoordinatorTest {
+  @Test(timeOut = 30000)
+  public void testInProcessNodes() throws Exception {
+    try (IslandCoordinator<String> coordinator = new IslandCoordinator<>(0, 2, new StringCodec(), true)) {
+      final int[] observedEpochCount = new int[1];
+      final Set<Integer> observedIslands = ConcurrentHashMap.newKeySet();
+      coordinator.addEvolutionObserver(new IslandEvolutionObserver<String>() {
+        public void populationUpdate(PopulationData<? extends String> data) {
+          assert data.getPopulationSize() == 3 * 10 : "Wrong global population size: " + data.getPopulationSize();
+          assert data.getGenerationNumber() == observedEpochCount[0] : "Epochs out of order.";
+          observedEpochCount[0]++;
+        }
+
+
+        public void islandPopulationUpdate(int islandIndex, PopulationData<? extends String> data) {
+          observedIslands.add(islandIndex);
+        }
+      });
+
+      List<Thread> nodeThreads = new ArrayList<>(2);
+      // One node with a single island, one with two islands.
+      for (int islandCount = 1; islandCount <= 2; islandCount++) {
+        IslandNode<String> node = IslandNodeLauncher.createNode(islandCount);
+        Thread thread = new Thread(() -> {
+          try {
+            node.run("localhost", coordinator.getPort());
+          } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+          }
+        });
+        thread.start();
+        nodeThreads.add(thread);
+      }
+
+      GenerationCount condition = new GenerationCount(4);
+      String result = coordinator.evolve(10, 1, 5, 2, condition);
+      assert result.length() == IslandNodeLauncher.TARGET.length() : "Wrong result length: " + result;
+      assert observedEpochCount[0] == 4 : "Observer should be notified once per epoch, was " + observedEpochCount[0];
+      assert observedIslands.size() == 3 : "Island updates should be numbered across nodes: " + observedIslands;
+      assert coordinator.getSatisfiedTerminationConditions().get(0) == condition : "Wrong condition.";
+
+      for (Thread thread : nodeThreads) {
+        thread.join(10000);
+        assert !thread.isAlive() : "Node did not stop.";
+      }
+    }
+  }
+
+
+  /**
+   * Runs each node in its own JVM to make sure that nothing relies on shared state.
+   */
+  @Test(timeOut = 60000)
+  public void testSeparateProcesses() throws Exception {
+    try (IslandCoordinator<String> coordinator = new IslandCoordinator<>(0, 2, new StringCodec(), true)) {
+      String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+      List<Process> processes = new ArrayList<>(2);
+      try {
+        for (int i = 0; i < 2; i++) {
+          processes.add(new ProcessBuilder(java,
+              "-cp",
+              System.getProperty("java.class.path"),
+              IslandNodeLauncher.class.getName(),
+              "localhost",
+              String.valueOf(coordinator.getPort()),
+              "2").inheritIO().start());
+        }
+        String result = coordinator.evolve(20,
+            1,
+            5,
+            2,
+            new TargetFitness(IslandNodeLauncher.TARGET.length(), true),
+            new ElapsedTime(30000));
+        assert result.length() == IslandNodeLauncher.TARGET.length() : "Wrong result length: " + result;
+        for (Process process : processes) {
+          process.waitFor();
+          assert process.exitValue() == 0 : "Node process failed.";
+        }
+      } finally {
+        for (Process process : processes) {
+          process.destroy();
+        }
+      }
+    }
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNoTerminationConditions() throws IOException {
+    try (IslandCoordinator<String> coordinator = new IslandCoordinator<>(0, 1, new StringCodec(), true)) {
+      coordinator.evolve(10, 0, 5, 1);
+    }
+  }
+
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testGetSatisfiedTerminationConditionsBeforeStart() throws IOException {
+    try (IslandCoordinator<String> coordinator = new IslandCoordinator<>(0, 1, new StringCodec(), true)) {
+      coordinator.getSatisfiedTerminationConditions();
+    }
+  }
+}
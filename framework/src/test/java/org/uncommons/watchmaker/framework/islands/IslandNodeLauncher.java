@@ -0,0 +1,83 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.islands;
+
+import org.uncommons.maths.random.Probability;
+import org.uncommons.maths.random.XORShiftRNG;
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.codec.StringCodec;
+import org.uncommons.watchmaker.framework.factories.StringFactory;
+import org.uncommons.watchmaker.framework.operators.StringMutation;
+import org.uncommons.watchmaker.framework.selection.TournamentSelection;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Creates island nodes that evolve a short target string.  Used by
+ * {@link IslandCoordinatorTest}, both in-process and as the entry point of
+ * separate node processes.
+ */
+public final class IslandNodeLauncher {
+  static final String TARGET = "WATCHMAKER";
+  private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+  private IslandNodeLauncher() {
+    // Prevent instantiation.
+  }
+
+
+  static IslandNode<String> createNode(int islandCount) {
+    return new IslandNode<>(islandCount,
+        new RingMigration(),
+        new StringFactory(ALPHABET, TARGET.length()),
+        new StringMutation(ALPHABET, new Probability(0.1)),
+        new MatchingCharactersEvaluator(),
+        new TournamentSelection(new Probability(0.9)),
+        new StringCodec(),
+        new XORShiftRNG());
+  }
+
+
+  /**
+   * @param args The coordinator's host and port, and the number of islands to host.
+   * @throws IOException If the node cannot connect to the coordinator.
+   */
+  public static void main(String[] args) throws IOException {
+    createNode(Integer.parseInt(args[2])).run(args[0], Integer.parseInt(args[1]));
+  }
+
+
+  /**
+   * Natural fitness function that counts the characters in the correct position.
+   */
+  static final class MatchingCharactersEvaluator implements FitnessEvaluator<String> {
+    public double getFitness(String candidate, List<? extends String> population) {
+      int matches = 0;
+      for (int i = 0; i < candidate.length(); i++) {
+        if (candidate.charAt(i) == TARGET.charAt(i)) {
+          ++matches;
+        }
+      }
+      return matches;
+    }
+
+
+    public boolean isNatural() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import org.testng.annotations.Test;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Unit test for {@link GenomeView} and {@link GenomeStore}.
+ */
+public class GenomeViewTest {
+  @Test
+  public void testGenomesAreIndependent() {
+    GenomeStore store = GenomeStore.allocateDirect(13, 3);
+    GenomeView genome = new GenomeView(store);
+    for (int i = 0; i < 3; i++) {
+      genome.moveTo(i);
+      for (int j = 0; j < 13; j++) {
+        genome.setByte(j, (byte) (i * 13 + j));
+      }
+    }
+    for (int i = 0; i < 3; i++) {
+      byte[] bytes = genome.moveTo(i).toByteArray();
+      assert bytes.length == 13 : "Wrong length: " + bytes.length;
+      for (int j = 0; j < 13; j++) {
+        assert bytes[j] == (byte) (i * 13 + j) : "Wrong byte " + j + " of genome " + i;
+      }
+    }
+  }
+
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testAccessBeyondGenome() {
+    // The slot is padded to 16 bytes, but only 13 belong to the genome.
+    new GenomeView(GenomeStore.allocateDirect(13, 2)).moveTo(0).getByte(13);
+  }
+
+
+  @Test
+  public void testCopyFrom() {
+    GenomeStore store = GenomeStore.allocateDirect(21, 2);
+    GenomeView source = new GenomeView(store).moveTo(0);
+    new RandomGenomeFactory().initialise(source, FrameworkTestUtils.getRNG());
+    GenomeView target = new GenomeView(store).moveTo(1);
+    target.copyFrom(source);
+    assert Arrays.equals(source.toByteArray(), target.toByteArray()) : "Copy differs.";
+  }
+
+
+  @Test
+  public void testSwapBits() {
+    Random rng = FrameworkTestUtils.getRNG();
+    GenomeStore store = GenomeStore.allocateDirect(25, 2);
+    GenomeView genome1 = new GenomeView(store).moveTo(0);
+    GenomeView genome2 = new GenomeView(store).moveTo(1);
+    for (int trial = 0; trial < 100; trial++) {
+      new RandomGenomeFactory().initialise(genome1, rng);
+      new RandomGenomeFactory().initialise(genome2, rng);
+      boolean[] bits1 = bits(genome1);
+      boolean[] bits2 = bits(genome2);
+      int from = rng.nextInt(genome1.getBitCount());
+      int to = from + rng.nextInt(genome1.getBitCount() - from + 1);
+      genome1.swapBits(genome2, from, to);
+      for (int i = 0; i < bits1.length; i++) {
+        boolean swapped = i >= from && i < to;
+        assert genome1.getBit(i) == (swapped ? bits2[i] : bits1[i]) : "Wrong bit " + i + " in first genome.";
+        assert genome2.getBit(i) == (swapped ? bits1[i] : bits2[i]) : "Wrong bit " + i + " in second genome.";
+      }
+    }
+  }
+
+
+  @Test
+  public void testCountSetBits() {
+    GenomeView genome = new GenomeView(GenomeStore.allocateDirect(11, 1)).moveTo(0);
+    new RandomGenomeFactory().initialise(genome, FrameworkTestUtils.getRNG());
+    int expected = 0;
+    for (boolean bit : bits(genome)) {
+      expected += bit ? 1 : 0;
+    }
+    assert genome.countSetBits() == expected : "Wrong count: " + genome.countSetBits();
+  }
+
+
+  @Test
+  public void testMappedStore() throws IOException {
+    Path file = Files.createTempFile("genomes", ".bin");
+    try {
+      GenomeView genome = new GenomeView(GenomeStore.map(file, 8, 4)).moveTo(3);
+      genome.setInt(1, 12345);
+      // A second mapping of the same file sees the same contents.
+      GenomeView reopened = new GenomeView(GenomeStore.map(file, 8, 4)).moveTo(3);
+      assert reopened.getInt(1) == 12345 : "Wrong value: " + reopened.getInt(1);
+      assert Files.size(file) == 32 : "Wrong file size: " + Files.size(file);
+    } finally {
+      file.toFile().deleteOnExit();
+    }
+  }
+
+
+  private static boolean[] bits(GenomeView genome) {
+    boolean[] bits = new boolean[genome.getBitCount()];
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = genome.getBit(i);
+    }
+    return bits;
+  }
+}
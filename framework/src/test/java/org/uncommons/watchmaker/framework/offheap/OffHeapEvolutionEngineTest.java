@@ -0,0 +1,112 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.offheap;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.termination.GenerationCount;
+
+import java.util.Arrays;
+
+/**
+ * Unit test for {@link OffHeapEvolutionEngine}.
+ */
+public class OffHeapEvolutionEngineTest {
+  private static final byte[] SEED = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+
+
+  @Test
+  public void testOneMaxImproves() {
+    OffHeapEvolutionEngine engine = createEngine();
+    double[] firstBest = new double[1];
+    engine.addEvolutionObserver(data -> {
+      if (data.getGenerationNumber() == 0) {
+        firstBest[0] = data.getBestCandidateFitness();
+      }
+    });
+    OffHeapPopulation population = engine.evolvePopulation(600, 5, new GenerationCount(30));
+    double best = population.getFitness(population.getBestIndex());
+    assert best > firstBest[0] : "Fitness did not improve: " + best + " <= " + firstBest[0];
+    assert best == new GenomeView(population.getStore()).moveTo(population.getBestIndex()).countSetBits()
+        : "Stored fitness does not match genome.";
+    assert engine.getSatisfiedTerminationConditions().size() == 1 : "Wrong termination conditions.";
+  }
+
+
+  @Test
+  public void testReproducible() {
+    byte[] result1 = createEngine().evolve(600, 2, new GenerationCount(5));
+    byte[] result2 = createEngine().evolve(600, 2, new GenerationCount(5));
+    assert Arrays.equals(result1, result2) : "Same seed gave different results.";
+  }
+
+
+  @Test
+  public void testElitesSurvive() {
+    OffHeapEvolutionEngine engine = createEngine();
+    double[] previousBest = {-1};
+    engine.addEvolutionObserver(data -> {
+      assert data.getBestCandidateFitness() >= previousBest[0] : "Elite genome was lost.";
+      previousBest[0] = data.getBestCandidateFitness();
+    });
+    engine.evolve(101, 1, new GenerationCount(10));
+  }
+
+
+  /**
+   * The elite must be the fittest scores in order, with equal scores ordered by index,
+   * for both natural and non-natural scores.
+   */
+  @Test
+  public void testFittest() {
+    double[] fitness = {3, 7, 1, 7, 5, 0, 9, 2, 5, -1};
+    int[] natural = OffHeapEvolutionEngine.fittest(fitness, 9, 5, true);
+    assert Arrays.equals(natural, new int[]{6, 1, 3, 4, 8}) : "Wrong natural elite: " + Arrays.toString(natural);
+    int[] nonNatural = OffHeapEvolutionEngine.fittest(fitness, fitness.length, 4, false);
+    assert Arrays.equals(nonNatural, new int[]{9, 5, 2, 7}) : "Wrong non-natural elite: " + Arrays.toString(nonNatural);
+    assert OffHeapEvolutionEngine.fittest(fitness, fitness.length, 0, true).length == 0 : "Elite should be empty.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidEliteCount() {
+    createEngine().evolve(10, 10, new GenerationCount(1));
+  }
+
+
+  private static OffHeapEvolutionEngine createEngine() {
+    return new OffHeapEvolutionEngine(40,
+                                      new RandomGenomeFactory(),
+                                      new PointCrossover(GeneType.BIT, 2),
+                                      new GeneMutation(GeneType.BIT, new Probability(0.002)),
+                                      new OneMax(),
+                                      new Probability(0.8),
+                                      new MersenneTwisterRNG(SEED));
+  }
+
+
+  private static final class OneMax implements GenomeFitnessEvaluator {
+    public double getFitness(GenomeView genome) {
+      return genome.countSetBits();
+    }
+
+
+    public boolean isNatural() {
+      return true;
+    }
+  }
+}
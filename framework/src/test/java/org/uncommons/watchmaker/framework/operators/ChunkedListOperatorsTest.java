@@ -0,0 +1,91 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.random.MersenneTwisterRNG;
+import org.uncommons.maths.random.PoissonGenerator;
+import org.uncommons.util.list.ChunkedList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that {@link ChunkedListCrossover} and {@link ChunkedListOrderMutation} produce
+ * the same offspring as {@link ListCrossover} and {@link ListOrderMutation}.
+ */
+public class ChunkedListOperatorsTest {
+  private static final byte[] SEED = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+
+
+  @Test
+  public void testCrossoverMatchesListCrossover() {
+    List<List<Integer>> population = createPopulation(20, 1000);
+    List<List<Integer>> expected = new ListCrossover<Integer>(3).apply(population, new MersenneTwisterRNG(SEED));
+    List<ChunkedList<Integer>> actual = new ChunkedListCrossover<Integer>(3).apply(toChunked(population),
+                                                                                 new MersenneTwisterRNG(SEED));
+    assert actual.equals(expected) : "Offspring differ from ListCrossover.";
+  }
+
+
+  @Test
+  public void testMutationMatchesListOrderMutation() {
+    List<List<Integer>> population = createPopulation(20, 1000);
+    Random rng1 = new MersenneTwisterRNG(SEED);
+    Random rng2 = new MersenneTwisterRNG(SEED);
+    List<List<Integer>> expected = new ListOrderMutation<Integer>(new PoissonGenerator(2, rng1),
+                                                                  new ConstantGenerator<>(5))
+        .apply(population, rng1);
+    List<ChunkedList<Integer>> actual = new ChunkedListOrderMutation<Integer>(new PoissonGenerator(2, rng2),
+                                                                              new ConstantGenerator<>(5))
+        .apply(toChunked(population), rng2);
+    assert actual.equals(expected) : "Offspring differ from ListOrderMutation.";
+  }
+
+
+  @Test
+  public void testUnmutatedCandidateIsShared() {
+    List<ChunkedList<Integer>> population = toChunked(createPopulation(1, 100));
+    List<ChunkedList<Integer>> mutated = new ChunkedListOrderMutation<Integer>(0, 1)
+        .apply(population, new MersenneTwisterRNG(SEED));
+    assert mutated.get(0) == population.get(0) : "Candidate without mutations should not be copied.";
+  }
+
+
+  private static List<List<Integer>> createPopulation(int size, int length) {
+    Random rng = new MersenneTwisterRNG(SEED);
+    List<List<Integer>> population = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      List<Integer> candidate = new ArrayList<>(length);
+      for (int j = 0; j < length; j++) {
+        candidate.add(rng.nextInt());
+      }
+      population.add(candidate);
+    }
+    return population;
+  }
+
+
+  private static List<ChunkedList<Integer>> toChunked(List<List<Integer>> population) {
+    List<ChunkedList<Integer>> chunked = new ArrayList<>(population.size());
+    for (List<Integer> candidate : population) {
+      chunked.add(ChunkedList.copyOf(candidate));
+    }
+    return chunked;
+  }
+}
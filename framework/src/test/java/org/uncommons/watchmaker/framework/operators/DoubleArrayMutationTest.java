@@ -0,0 +1,52 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for mutation of double arrays.
+ */
+public class DoubleArrayMutationTest {
+  @Test
+  public void testMutation() {
+    DoubleArrayMutation mutation = new DoubleArrayMutation(0.1, new Probability(0.5));
+    double[] original = new double[1000];
+    List<double[]> population = mutation.apply(Arrays.asList(original), FrameworkTestUtils.getRNG());
+    double[] mutated = population.get(0);
+    assert mutated.length == 1000 : "Individual size changed after mutation: " + mutated.length;
+    int changed = 0;
+    for (double value : mutated) {
+      if (value != 0) {
+        ++changed;
+        assert Math.abs(value) < 1 : "Perturbation too large: " + value;
+      }
+    }
+    assert changed > 400 && changed < 600 : "Wrong number of mutations: " + changed;
+    assert Arrays.equals(original, new double[1000]) : "Original candidate was modified.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNonPositiveStandardDeviation() {
+    new DoubleArrayMutation(0, Probability.EVENS);
+  }
+}
@@ -0,0 +1,115 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.factories.DoubleVectorFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for the cross-over operators for {@link DoubleVector}s.
+ */
+public class DoubleVectorCrossoverTest {
+  private final VectorBounds bounds = VectorBounds.uniform(20, -1, 1);
+
+
+  @Test
+  public void testArithmeticCrossover() {
+    DoubleVector parent1 = new DoubleVector(0, 10);
+    DoubleVector parent2 = new DoubleVector(4, 2);
+    List<DoubleVector> offspring = new DoubleVectorArithmeticCrossover().apply(Arrays.asList(parent1, parent2),
+        FrameworkTestUtils.getRNG());
+    for (int i = 0; i < 2; i++) {
+      double sum = offspring.get(0).get(i) + offspring.get(1).get(i);
+      double expected = parent1.get(i) + parent2.get(i);
+      assert Math.abs(sum - expected) < 1e-9 : "Arithmetic cross-over should preserve the sum.";
+      double low = Math.min(parent1.get(i), parent2.get(i));
+      double high = Math.max(parent1.get(i), parent2.get(i));
+      for (DoubleVector child : offspring) {
+        assert child.get(i) >= low && child.get(i) <= high : "Offspring outside parents: " + child;
+      }
+    }
+  }
+
+
+  @Test
+  public void testSBXCrossover() {
+    DoubleVector parent1 = new DoubleVector(1, -2, 0.5);
+    DoubleVector parent2 = new DoubleVector(3, 4, 0.5);
+    List<DoubleVector> offspring = new DoubleVectorSBXCrossover(2).apply(Arrays.asList(parent1, parent2),
+        FrameworkTestUtils.getRNG());
+    for (int i = 0; i < 3; i++) {
+      // SBX spreads the offspring symmetrically about the parents' mean.
+      double mean = (offspring.get(0).get(i) + offspring.get(1).get(i)) / 2;
+      assert Math.abs(mean - (parent1.get(i) + parent2.get(i)) / 2) < 1e-9 : "Offspring not centred on parents.";
+    }
+    assert offspring.get(0).get(2) == 0.5 : "Identical parent values should be unchanged.";
+  }
+
+
+  @Test
+  public void testBoundedCrossovers() {
+    List<EvolutionaryOperator<DoubleVector>> operators = Arrays.asList(
+        new DoubleVectorSBXCrossover(0.5, bounds, new ConstantGenerator<>(Probability.ONE)),
+        new DoubleVectorBLXCrossover(2, bounds, new ConstantGenerator<>(Probability.ONE)));
+    for (EvolutionaryOperator<DoubleVector> operator : operators) {
+      List<DoubleVector> population = new DoubleVectorFactory(bounds).generateInitialPopulation(10,
+          FrameworkTestUtils.getRNG());
+      for (int generation = 0; generation < 20; generation++) {
+        population = operator.apply(population, FrameworkTestUtils.getRNG());
+        for (DoubleVector candidate : population) {
+          for (int i = 0; i < candidate.size(); i++) {
+            assert candidate.get(i) >= -1 && candidate.get(i) <= 1 : "Offspring out of bounds: " + candidate;
+          }
+        }
+      }
+    }
+  }
+
+
+  @Test
+  public void testBLXRange() {
+    DoubleVector parent1 = new DoubleVector(new double[100]);
+    double[] ones = new double[100];
+    Arrays.fill(ones, 1);
+    DoubleVector parent2 = new DoubleVector(ones);
+    List<DoubleVector> offspring = new DoubleVectorBLXCrossover(0.5).apply(Arrays.asList(parent1, parent2),
+        FrameworkTestUtils.getRNG());
+    boolean outside = false;
+    for (DoubleVector child : offspring) {
+      for (int i = 0; i < child.size(); i++) {
+        assert child.get(i) >= -0.5 && child.get(i) <= 1.5 : "Offspring outside blend interval: " + child.get(i);
+        outside |= child.get(i) < 0 || child.get(i) > 1;
+      }
+    }
+    assert outside : "BLX-0.5 should sometimes explore beyond the parents.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDifferentLengthParents() {
+    new DoubleVectorArithmeticCrossover().apply(Arrays.asList(new DoubleVector(2), new DoubleVector(3)),
+        FrameworkTestUtils.getRNG());
+  }
+}
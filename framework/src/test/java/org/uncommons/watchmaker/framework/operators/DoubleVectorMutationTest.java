@@ -0,0 +1,85 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.vector.DoubleVector;
+import org.uncommons.util.vector.VectorBounds;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.factories.DoubleVectorFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for the mutation operators for {@link DoubleVector}s.
+ */
+public class DoubleVectorMutationTest {
+  @Test
+  public void testGaussianMutation() {
+    DoubleVector original = new DoubleVector(2000);
+    DoubleVector mutant = new DoubleVectorGaussianMutation(0.5, Probability.ONE).apply(Arrays.asList(original),
+        FrameworkTestUtils.getRNG()).get(0);
+    double sumOfSquares = 0;
+    for (int i = 0; i < mutant.size(); i++) {
+      sumOfSquares += mutant.get(i) * mutant.get(i);
+    }
+    double deviation = Math.sqrt(sumOfSquares / mutant.size());
+    assert Math.abs(deviation - 0.5) < 0.05 : "Wrong standard deviation: " + deviation;
+    assert original.equals(new DoubleVector(2000)) : "Original candidate was modified.";
+  }
+
+
+  @Test
+  public void testBoundedGaussianMutation() {
+    VectorBounds bounds = VectorBounds.uniform(50, 0, 1);
+    DoubleVectorGaussianMutation mutation = new DoubleVectorGaussianMutation(10, bounds,
+        new ConstantGenerator<>(Probability.ONE));
+    DoubleVector mutant = mutation.apply(Arrays.asList(new DoubleVector(50)), FrameworkTestUtils.getRNG()).get(0);
+    for (int i = 0; i < mutant.size(); i++) {
+      assert mutant.get(i) >= 0 && mutant.get(i) <= 1 : "Mutant out of bounds: " + mutant.get(i);
+    }
+  }
+
+
+  @Test
+  public void testPolynomialMutation() {
+    VectorBounds bounds = VectorBounds.uniform(100, -5, 5);
+    DoubleVectorPolynomialMutation mutation = new DoubleVectorPolynomialMutation(20, bounds, Probability.ONE);
+    List<DoubleVector> population = new DoubleVectorFactory(bounds).generateInitialPopulation(10,
+        FrameworkTestUtils.getRNG());
+    List<DoubleVector> mutants = mutation.apply(population, FrameworkTestUtils.getRNG());
+    double totalChange = 0;
+    for (int c = 0; c < population.size(); c++) {
+      for (int i = 0; i < 100; i++) {
+        double value = mutants.get(c).get(i);
+        assert value >= -5 && value <= 5 : "Mutant out of bounds: " + value;
+        totalChange += Math.abs(value - population.get(c).get(i));
+      }
+    }
+    double meanChange = totalChange / 1000;
+    // A distribution index of 20 gives small perturbations relative to the range of 10.
+    assert meanChange > 0 && meanChange < 1 : "Unexpected mean perturbation: " + meanChange;
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testPolynomialMutationWithoutBounds() {
+    new DoubleVectorPolynomialMutation(20, null, Probability.EVENS);
+  }
+}
@@ -16,12 +16,18 @@
 package org.uncommons.watchmaker.framework.operators;
 
 import org.testng.annotations.Test;
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.random.Probability;
 import org.uncommons.watchmaker.framework.EvolutionaryOperator;
 import org.uncommons.watchmaker.framework.FrameworkTestUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 /**
  * Unit test for compound, sequential evolutionary schemes.
@@ -63,4 +69,151 @@ public class EvolutionPipelineTest {
     List<EvolutionaryOperator<String>> operators = Collections.emptyList();
     new EvolutionPipeline<>(operators); // Should throw an IllegalArgumentException.
   }
+
+
+  /**
+   * With fused execution, cross-over children are mutated in place, so mutation makes no
+   * copies of its own, and the selected candidates are still left untouched.
+   */
+  @Test
+  public void testFusedExecution() {
+    for (boolean fused : new boolean[]{false, true}) {
+      List<int[]> population = createIntArrays(20, 10);
+      List<int[]> original = new ArrayList<>(population.size());
+      for (int[] candidate : population) {
+        original.add(candidate.clone());
+      }
+      CountingMutation mutation = new CountingMutation();
+      EvolutionPipeline<int[]> pipeline = new EvolutionPipeline<>(
+          Arrays.<EvolutionaryOperator<int[]>>asList(new IntArrayCrossover(), mutation));
+      pipeline.setFusedExecution(fused);
+      List<int[]> evolved = pipeline.apply(population, FrameworkTestUtils.getRNG());
+      assert evolved.size() == population.size() : "Wrong population size: " + evolved.size();
+      for (int i = 0; i < population.size(); i++) {
+        assert Arrays.equals(population.get(i), original.get(i)) : "Selected candidate was modified.";
+      }
+      for (int[] candidate : evolved) {
+        for (int gene : candidate) {
+          assert gene < 0 : "Gene was not mutated: " + gene;
+        }
+      }
+      int expectedCopies = fused ? 0 : population.size();
+      assert mutation.copies == expectedCopies : "Wrong number of copies: " + mutation.copies;
+    }
+  }
+
+
+  /**
+   * Stages that cannot be fused are applied to the whole population between the runs of
+   * fused stages, and an odd candidate left over by cross-over is copied before mutation.
+   */
+  @Test
+  public void testFusedExecutionWithUnfusableStage() {
+    List<int[]> population = createIntArrays(11, 10);
+    int[] first = population.get(0).clone();
+    EvolutionPipeline<int[]> pipeline = new EvolutionPipeline<>(
+        Arrays.<EvolutionaryOperator<int[]>>asList(new IdentityOperator<int[]>(),
+                                                   new IntArrayCrossover(),
+                                                   new CountingMutation()));
+    pipeline.setFusedExecution(true);
+    List<int[]> evolved = pipeline.apply(population, FrameworkTestUtils.getRNG());
+    assert evolved.size() == 11 : "Wrong population size: " + evolved.size();
+    assert Arrays.equals(population.get(0), first) : "Selected candidate was modified.";
+    for (int[] candidate : evolved) {
+      assert candidate[0] < 0 : "Candidate was not mutated.";
+      for (int[] selected : population) {
+        assert candidate != selected : "Selected candidate passed through unchanged.";
+      }
+    }
+  }
+
+
+  /**
+   * An offspring object that cross-over returns twice must not be owned by the group, or
+   * mutation would modify both offspring in place through the same object.
+   */
+  @Test
+  public void testFusedExecutionWithAliasedOffspring() {
+    List<int[]> population = createIntArrays(10, 10);
+    EvolutionaryOperator<int[]> crossover = new AbstractCrossover<int[]>(1) {
+      @Override
+      protected List<int[]> mate(int[] parent1, int[] parent2, int numberOfCrossoverPoints, Random rng) {
+        int[] offspring = parent1.clone();
+        return Arrays.asList(offspring, offspring);
+      }
+    };
+    EvolutionPipeline<int[]> pipeline = new EvolutionPipeline<>(
+        Arrays.<EvolutionaryOperator<int[]>>asList(crossover, new CountingMutation()));
+    pipeline.setFusedExecution(true);
+    List<int[]> evolved = pipeline.apply(population, FrameworkTestUtils.getRNG());
+    Set<int[]> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+    distinct.addAll(evolved);
+    assert distinct.size() == evolved.size() : "Mutated offspring share the same object.";
+  }
+
+
+  /**
+   * A subclass that overrides only the list form of apply must not be bypassed by fusion.
+   */
+  @Test
+  public void testFusedExecutionWithOverriddenApply() {
+    List<int[]> population = createIntArrays(10, 10);
+    int[] calls = new int[1];
+    EvolutionaryOperator<int[]> crossover = new IntArrayCrossover() {
+      @Override
+      public List<int[]> apply(List<int[]> selectedCandidates, Random rng) {
+        ++calls[0];
+        return super.apply(selectedCandidates, rng);
+      }
+    };
+    EvolutionPipeline<int[]> pipeline = new EvolutionPipeline<>(
+        Arrays.<EvolutionaryOperator<int[]>>asList(crossover, new CountingMutation()));
+    pipeline.setFusedExecution(true);
+    List<int[]> evolved = pipeline.apply(population, FrameworkTestUtils.getRNG());
+    assert evolved.size() == population.size() : "Wrong population size: " + evolved.size();
+    assert calls[0] == 1 : "Overridden apply method was bypassed.";
+  }
+
+
+  private static List<int[]> createIntArrays(int count, int length) {
+    List<int[]> population = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int[] candidate = new int[length];
+      Arrays.fill(candidate, i + 1);
+      population.add(candidate);
+    }
+    return population;
+  }
+
+
+  /**
+   * Negates every gene and counts the candidates that it has to copy.
+   */
+  private static final class CountingMutation extends AbstractGeneMutation<int[]> {
+    private int copies = 0;
+
+
+    CountingMutation() {
+      super(new ConstantGenerator<>(Probability.ONE));
+    }
+
+
+    @Override
+    protected int getLength(int[] candidate) {
+      return candidate.length;
+    }
+
+
+    @Override
+    protected int[] copy(int[] candidate) {
+      ++copies;
+      return candidate.clone();
+    }
+
+
+    @Override
+    protected void mutateGene(int[] candidate, int index, Random rng) {
+      candidate[index] = -Math.abs(candidate[index]);
+    }
+  }
 }
@@ -0,0 +1,64 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for mutation of int arrays.
+ */
+public class IntArrayMutationTest {
+  @Test
+  public void testMutation() {
+    IntArrayMutation mutation = new IntArrayMutation(-5, 5, new Probability(0.3));
+    int[] original = new int[100];
+    List<int[]> population = Arrays.asList(original, new int[100]);
+    boolean changed = false;
+    for (int i = 0; i < 20; i++) {
+      population = mutation.apply(population, FrameworkTestUtils.getRNG());
+      assert population.size() == 2 : "Population size changed after mutation: " + population.size();
+      for (int[] individual : population) {
+        assert individual.length == 100 : "Individual size changed after mutation: " + individual.length;
+        for (int value : individual) {
+          assert value >= -5 && value <= 5 : "Mutation introduced invalid value: " + value;
+          changed |= value != 0;
+        }
+      }
+    }
+    assert changed : "Nothing was mutated.";
+    assert Arrays.equals(original, new int[100]) : "Original candidate was modified.";
+  }
+
+
+  @Test
+  public void testZeroProbability() {
+    IntArrayMutation mutation = new IntArrayMutation(0, 1, Probability.ZERO);
+    int[] individual = {1, 0, 1};
+    List<int[]> population = mutation.apply(Arrays.asList(individual), FrameworkTestUtils.getRNG());
+    assert population.get(0) == individual : "Unmutated candidate should not be copied.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testEmptyRange() {
+    new IntArrayMutation(1, 0, Probability.EVENS);
+  }
+}
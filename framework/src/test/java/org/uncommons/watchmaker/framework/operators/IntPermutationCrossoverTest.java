@@ -0,0 +1,196 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.util.permutation.IntPermutation;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.factories.IntPermutationFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit test for the cross-over operators for {@link IntPermutation}s.
+ */
+public class IntPermutationCrossoverTest {
+  private final List<EvolutionaryOperator<IntPermutation>> operators = Arrays.asList(
+      new IntPermutationPMXCrossover(),
+      new IntPermutationOrderCrossover(),
+      new IntPermutationCycleCrossover(),
+      new IntPermutationEdgeCrossover());
+
+
+  /**
+   * All of the operators must produce valid permutations.
+   */
+  @Test
+  public void testValidOffspring() {
+    for (EvolutionaryOperator<IntPermutation> operator : operators) {
+      List<IntPermutation> population = new IntPermutationFactory(50).generateInitialPopulation(10,
+          FrameworkTestUtils.getRNG());
+      for (int i = 0; i < 20; i++) {
+        population = operator.apply(population, FrameworkTestUtils.getRNG());
+        assert population.size() == 10 : "Population size changed: " + population.size();
+        for (IntPermutation candidate : population) {
+          // The checking constructor rejects anything that is not a permutation.
+          new IntPermutation(candidate.toArray());
+        }
+      }
+    }
+  }
+
+
+  /**
+   * PMX on permutations must produce the same offspring as on lists, given the same
+   * random choices.
+   */
+  @Test
+  public void testSameOffspringAsListOrderCrossover() {
+    for (long seed = 0; seed < 20; seed++) {
+      IntPermutation parent1 = IntPermutation.random(30, FrameworkTestUtils.getRNG());
+      IntPermutation parent2 = IntPermutation.random(30, FrameworkTestUtils.getRNG());
+      List<List<Integer>> lists = Arrays.asList(toList(parent1), toList(parent2));
+      List<List<Integer>> expected = new ListOrderCrossover<Integer>().apply(lists, new Random(seed));
+      List<IntPermutation> actual = new IntPermutationPMXCrossover().apply(Arrays.asList(parent1, parent2),
+          new Random(seed));
+      for (int i = 0; i < 2; i++) {
+        assert toList(actual.get(i)).equals(expected.get(i)) : "Offspring differ for seed " + seed;
+      }
+    }
+  }
+
+
+  /**
+   * Order cross-over keeps a segment of one parent in place and fills the other
+   * positions, from the end of the segment, in the order of the other parent.
+   */
+  @Test
+  public void testOrderCrossover() {
+    for (long seed = 0; seed < 20; seed++) {
+      List<IntPermutation> parents = Arrays.asList(IntPermutation.random(25, FrameworkTestUtils.getRNG()),
+          IntPermutation.random(25, FrameworkTestUtils.getRNG()));
+      // Replay the random choices that the operator will make.
+      Random replay = new Random(seed);
+      List<IntPermutation> shuffled = new ArrayList<>(parents);
+      Collections.shuffle(shuffled, replay);
+      int start = replay.nextInt(25);
+      int length = replay.nextInt(25);
+
+      List<IntPermutation> offspring = new IntPermutationOrderCrossover().apply(parents, new Random(seed));
+      for (int i = 0; i < 2; i++) {
+        IntPermutation kept = shuffled.get(i);
+        IntPermutation donor = shuffled.get(1 - i);
+        List<Integer> segment = new ArrayList<>();
+        for (int j = 0; j < length; j++) {
+          segment.add(kept.get((start + j) % 25));
+        }
+        List<Integer> expected = new ArrayList<>(segment);
+        for (int j = 0; j < 25; j++) {
+          int item = donor.get((start + length + j) % 25);
+          if (!segment.contains(item)) {
+            expected.add(item);
+          }
+        }
+        // The expected list starts at the segment; rotate it into place.
+        Collections.rotate(expected, start);
+        assert toList(offspring.get(i)).equals(expected) : "Wrong offspring for seed " + seed;
+      }
+    }
+  }
+
+
+  /**
+   * Cycle cross-over keeps every element at a position it has in one of the parents,
+   * and the offspring are complementary.
+   */
+  @Test
+  public void testCycleCrossoverPositions() {
+    IntPermutation parent1 = IntPermutation.random(40, FrameworkTestUtils.getRNG());
+    IntPermutation parent2 = IntPermutation.random(40, FrameworkTestUtils.getRNG());
+    List<IntPermutation> offspring = new IntPermutationCycleCrossover().apply(Arrays.asList(parent1, parent2),
+        FrameworkTestUtils.getRNG());
+    for (int i = 0; i < 40; i++) {
+      int a = offspring.get(0).get(i);
+      int b = offspring.get(1).get(i);
+      assert (a == parent1.get(i) && b == parent2.get(i)) || (a == parent2.get(i) && b == parent1.get(i))
+          : "Element moved to a position that neither parent has at index " + i;
+    }
+  }
+
+
+  /**
+   * With identical parents, every edge is shared, so edge recombination reproduces the
+   * parents' tour.
+   */
+  @Test
+  public void testEdgeCrossoverIdenticalParents() {
+    IntPermutation parent = IntPermutation.random(60, FrameworkTestUtils.getRNG());
+    List<IntPermutation> offspring = new IntPermutationEdgeCrossover().apply(Arrays.asList(parent, parent),
+        FrameworkTestUtils.getRNG());
+    for (IntPermutation child : offspring) {
+      assert countSharedEdges(child, parent) == 60 : "Offspring should use only the parents' edges.";
+    }
+  }
+
+
+  @Test
+  public void testEdgeCrossoverPrefersParentEdges() {
+    IntPermutation parent1 = IntPermutation.random(200, FrameworkTestUtils.getRNG());
+    IntPermutation parent2 = IntPermutation.random(200, FrameworkTestUtils.getRNG());
+    List<IntPermutation> offspring = new IntPermutationEdgeCrossover().apply(Arrays.asList(parent1, parent2),
+        FrameworkTestUtils.getRNG());
+    for (IntPermutation child : offspring) {
+      int inherited = countSharedEdges(child, parent1) + countSharedEdges(child, parent2);
+      // A random tour would share about 4 edges with two random parents.
+      assert inherited > 180 : "Too few inherited edges: " + inherited;
+    }
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDifferentLengthParents() {
+    new IntPermutationPMXCrossover().apply(Arrays.asList(IntPermutation.identity(5), IntPermutation.identity(6)),
+        FrameworkTestUtils.getRNG());
+  }
+
+
+  private static int countSharedEdges(IntPermutation tour, IntPermutation other) {
+    int[] positions = other.inverse();
+    int size = tour.size();
+    int shared = 0;
+    for (int i = 0; i < size; i++) {
+      int distance = Math.abs(positions[tour.get(i)] - positions[tour.get((i + 1) % size)]);
+      if (distance == 1 || distance == size - 1) {
+        ++shared;
+      }
+    }
+    return shared;
+  }
+
+
+  private static List<Integer> toList(IntPermutation permutation) {
+    List<Integer> list = new ArrayList<>(permutation.size());
+    for (int i = 0; i < permutation.size(); i++) {
+      list.add(permutation.get(i));
+    }
+    return list;
+  }
+}
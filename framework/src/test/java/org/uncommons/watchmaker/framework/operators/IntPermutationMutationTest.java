@@ -0,0 +1,95 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.permutation.IntPermutation;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.factories.IntPermutationFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for the mutation operators for {@link IntPermutation}s.
+ */
+public class IntPermutationMutationTest {
+  @Test
+  public void testValidMutants() {
+    List<EvolutionaryOperator<IntPermutation>> operators = Arrays.asList(
+        new IntPermutationSwapMutation(3, 5),
+        new IntPermutationInsertionMutation(3),
+        new IntPermutationInversion(Probability.ONE));
+    for (EvolutionaryOperator<IntPermutation> operator : operators) {
+      List<IntPermutation> population = new IntPermutationFactory(30).generateInitialPopulation(5,
+          FrameworkTestUtils.getRNG());
+      for (int i = 0; i < 20; i++) {
+        population = operator.apply(population, FrameworkTestUtils.getRNG());
+        for (IntPermutation candidate : population) {
+          // The checking constructor rejects anything that is not a permutation.
+          new IntPermutation(candidate.toArray());
+        }
+      }
+    }
+  }
+
+
+  @Test
+  public void testSwapMutation() {
+    IntPermutation original = IntPermutation.identity(10);
+    IntPermutation mutant = new IntPermutationSwapMutation().apply(Arrays.asList(original),
+        FrameworkTestUtils.getRNG()).get(0);
+    int displaced = 0;
+    for (int i = 0; i < 10; i++) {
+      if (mutant.get(i) != i) {
+        ++displaced;
+        int next = (i + 1) % 10;
+        int previous = (i + 9) % 10;
+        assert mutant.get(i) == next || mutant.get(i) == previous : "Element moved too far.";
+      }
+    }
+    assert displaced == 2 : "Exactly two adjacent elements should be swapped.";
+    assert original.equals(IntPermutation.identity(10)) : "Original candidate was modified.";
+  }
+
+
+  @Test
+  public void testInsertionMutation() {
+    IntPermutation mutant = new IntPermutationInsertionMutation().apply(Arrays.asList(IntPermutation.identity(20)),
+        FrameworkTestUtils.getRNG()).get(0);
+    // Removing the moved element must leave the others in order.
+    int descents = 0;
+    for (int i = 1; i < 20; i++) {
+      if (mutant.get(i) < mutant.get(i - 1)) {
+        ++descents;
+      }
+    }
+    assert descents <= 1 : "Insertion should move a single element: " + mutant;
+  }
+
+
+  @Test
+  public void testNoMutation() {
+    IntPermutation original = IntPermutation.identity(10);
+    List<IntPermutation> population = Arrays.asList(original);
+    assert new IntPermutationSwapMutation(0, 1).apply(population, FrameworkTestUtils.getRNG()).get(0) == original
+        : "Unmutated candidate should not be copied.";
+    assert new IntPermutationInversion(Probability.ZERO).apply(population, FrameworkTestUtils.getRNG()).get(0)
+        == original : "Unmutated candidate should not be copied.";
+  }
+}
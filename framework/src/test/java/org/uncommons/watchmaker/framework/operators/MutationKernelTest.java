@@ -0,0 +1,88 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit test for {@link MutationKernel}.
+ */
+public class MutationKernelTest {
+  @Test
+  public void testMutationCount() {
+    Random rng = FrameworkTestUtils.getRNG();
+    int total = 0;
+    for (int i = 0; i < 100; i++) {
+      total += MutationKernel.forEachMutation(10000, 0.01, rng, position -> { });
+    }
+    // Expected mean is 100 per genome, with a standard deviation of 1 over 100 genomes.
+    double mean = total / 100.0;
+    assert Math.abs(mean - 100) < 5 : "Wrong mean number of mutations: " + mean;
+  }
+
+
+  @Test
+  public void testPositionsAscendingAndInRange() {
+    List<Integer> positions = new ArrayList<>();
+    int count = MutationKernel.forEachMutation(1000, 0.2, FrameworkTestUtils.getRNG(), positions::add);
+    assert count == positions.size() : "Wrong count: " + count;
+    int previous = -1;
+    for (int position : positions) {
+      assert position > previous : "Positions not strictly ascending: " + positions;
+      assert position < 1000 : "Position out of range: " + position;
+      previous = position;
+    }
+  }
+
+
+  @Test
+  public void testPositionDistribution() {
+    // Every gene should be mutated equally often, including the first and the last.
+    Random rng = FrameworkTestUtils.getRNG();
+    int[] hits = new int[10];
+    for (int i = 0; i < 10000; i++) {
+      MutationKernel.forEachMutation(hits.length, 0.3, rng, position -> hits[position]++);
+    }
+    for (int position = 0; position < hits.length; position++) {
+      assert Math.abs(hits[position] - 3000) < 200 : "Position " + position + " mutated " + hits[position] + " times.";
+    }
+  }
+
+
+  @Test
+  public void testZeroProbability() {
+    int count = MutationKernel.forEachMutation(1000, 0, FrameworkTestUtils.getRNG(), position -> {
+      throw new AssertionError("No gene should be mutated.");
+    });
+    assert count == 0 : "Wrong count: " + count;
+  }
+
+
+  @Test
+  public void testCertainMutation() {
+    List<Integer> positions = new ArrayList<>();
+    int count = MutationKernel.forEachMutation(50, 1, FrameworkTestUtils.getRNG(), positions::add);
+    assert count == 50 : "Wrong count: " + count;
+    for (int i = 0; i < 50; i++) {
+      assert positions.get(i) == i : "Every gene should be mutated in order.";
+    }
+  }
+}
@@ -0,0 +1,111 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.util.binary.PackedBitString;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.factories.PackedBitStringFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit test for cross-over applied to packed bit strings.
+ */
+public class PackedBitStringCrossoverTest {
+  @Test
+  public void testCrossover() {
+    EvolutionaryOperator<PackedBitString> operator = new PackedBitStringCrossover(3);
+    List<PackedBitString> population = new PackedBitStringFactory(300).generateInitialPopulation(2,
+        FrameworkTestUtils.getRNG());
+    // Cross-over must preserve all genetic material and not introduce anything new.
+    int totalSetBits = population.get(0).countSetBits() + population.get(1).countSetBits();
+    for (int i = 0; i < 50; i++) {
+      population = operator.apply(population, FrameworkTestUtils.getRNG());
+      int setBits = population.get(0).countSetBits() + population.get(1).countSetBits();
+      assert setBits == totalSetBits : "Total number of set bits in population changed during cross-over.";
+    }
+  }
+
+
+  /**
+   * Each cross-over point should swap the parents' bits below it, so a bit is swapped if
+   * an odd number of the points lie above it.
+   */
+  @Test
+  public void testSwappedSegments() {
+    for (int points = 1; points <= 4; points++) {
+      PackedBitString zeros = new PackedBitString(150);
+      PackedBitString ones = zeros.clone();
+      ones.flipBits(range(150));
+      // Replay the cross-over points that the operator will draw.
+      Random replay = new Random(points);
+      List<PackedBitString> parents = Arrays.asList(zeros, ones);
+      Collections.shuffle(new ArrayList<>(parents), replay);
+      int[] crossoverPoints = new int[points];
+      for (int i = 0; i < points; i++) {
+        crossoverPoints[i] = 1 + replay.nextInt(149);
+      }
+      List<PackedBitString> offspring = new PackedBitStringCrossover(points).apply(parents, new Random(points));
+      assert offspring.get(0).countMatchingBits(offspring.get(1)) == 0 : "Offspring should be complements.";
+      // The top bit is never swapped, so this is the offspring of the all-zeros parent.
+      PackedBitString first = offspring.get(0).getBit(149) ? offspring.get(1) : offspring.get(0);
+      for (int bit = 0; bit < 150; bit++) {
+        int above = 0;
+        for (int point : crossoverPoints) {
+          if (point > bit) {
+            ++above;
+          }
+        }
+        assert first.getBit(bit) == (above % 2 == 1) : "Wrong bit " + bit + " with " + points + " points.";
+      }
+    }
+  }
+
+
+  @Test
+  public void testUniformCrossover() {
+    EvolutionaryOperator<PackedBitString> operator = new PackedBitStringUniformCrossover();
+    List<PackedBitString> population = Arrays.asList(new PackedBitString(1000),
+        new PackedBitString(1000).clone());
+    population.get(1).flipBits(range(1000));
+    population = operator.apply(population, FrameworkTestUtils.getRNG());
+    int setBits = population.get(0).countSetBits();
+    assert setBits + population.get(1).countSetBits() == 1000 : "Bits were lost or created.";
+    assert setBits > 400 && setBits < 600 : "Uniform cross-over should take about half of each parent.";
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDifferentLengthParents() {
+    List<PackedBitString> population = Arrays.asList(new PackedBitString(32), new PackedBitString(33));
+    new PackedBitStringCrossover().apply(population, FrameworkTestUtils.getRNG());
+  }
+
+
+  private static int[] range(int length) {
+    int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = i;
+    }
+    return values;
+  }
+}
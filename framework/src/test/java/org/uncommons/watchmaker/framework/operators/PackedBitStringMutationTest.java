@@ -0,0 +1,61 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.number.ConstantGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.binary.PackedBitString;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for mutation of packed bit strings.
+ */
+public class PackedBitStringMutationTest {
+  @Test
+  public void testSingleBitMutation() {
+    PackedBitString original = new PackedBitString(100);
+    EvolutionaryOperator<PackedBitString> mutation = new PackedBitStringMutation(Probability.ONE);
+    List<PackedBitString> population = mutation.apply(Arrays.asList(original), FrameworkTestUtils.getRNG());
+    assert population.get(0).countSetBits() == 1 : "Exactly one bit should be flipped.";
+    assert original.countSetBits() == 0 : "Original candidate was modified.";
+  }
+
+
+  @Test
+  public void testMultipleBitMutation() {
+    EvolutionaryOperator<PackedBitString> mutation = new PackedBitStringMutation(
+        new ConstantGenerator<>(Probability.ONE), new ConstantGenerator<>(5));
+    PackedBitString original = new PackedBitString(1000000);
+    PackedBitString mutated = mutation.apply(Arrays.asList(original), FrameworkTestUtils.getRNG()).get(0);
+    // Flips may coincide, so the count is odd and at most 5.
+    int setBits = mutated.countSetBits();
+    assert setBits % 2 == 1 && setBits <= 5 : "Wrong number of flipped bits: " + setBits;
+  }
+
+
+  @Test
+  public void testZeroProbability() {
+    PackedBitString original = new PackedBitString(100);
+    EvolutionaryOperator<PackedBitString> mutation = new PackedBitStringMutation(Probability.ZERO);
+    List<PackedBitString> population = mutation.apply(Arrays.asList(original), FrameworkTestUtils.getRNG());
+    assert population.get(0) == original : "Unmutated candidate should not be copied.";
+  }
+}
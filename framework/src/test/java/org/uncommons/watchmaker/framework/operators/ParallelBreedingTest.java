@@ -0,0 +1,139 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.operators;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.DiscreteUniformGenerator;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.util.random.SplittableRNG;
+import org.uncommons.watchmaker.framework.EvolutionaryOperator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.factories.StringFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit test for parallel breeding with a {@link SplittableRNG}.
+ */
+public class ParallelBreedingTest {
+  private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+
+  private static EvolutionaryOperator<String> createScheme() {
+    List<EvolutionaryOperator<String>> operators = new ArrayList<>(2);
+    operators.add(new StringCrossover(2, new Probability(0.8)));
+    operators.add(new StringMutation(ALPHABET, new Probability(0.05)));
+    return new SplitEvolution<>(new EvolutionPipeline<>(operators),
+        new StringMutation(ALPHABET, new Probability(0.2)),
+        0.9);
+  }
+
+
+  /**
+   * Applies the scheme using a pool with the specified number of threads.
+   */
+  private static List<String> breed(List<String> population, int threads) throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.submit(() -> createScheme().apply(population, new SplittableRNG(99))).get();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+
+  /**
+   * The offspring must depend only on the generator, not on the number of threads.
+   */
+  @Test
+  public void testThreadCountIndependence() throws Exception {
+    List<String> population = new StringFactory(ALPHABET, 20).generateInitialPopulation(2001,
+        FrameworkTestUtils.getRNG());
+    List<String> offspring1 = breed(population, 1);
+    List<String> offspring4 = breed(population, 4);
+    assert offspring1.size() == population.size() : "Wrong offspring count: " + offspring1.size();
+    assert offspring1.equals(offspring4) : "Offspring should not depend on the number of threads.";
+    assert !offspring1.equals(population) : "Population should have evolved.";
+  }
+
+
+  /**
+   * With an odd number of parents, the unpaired parent must be carried over.
+   */
+  @Test
+  public void testOddCrossover() throws ExecutionException, InterruptedException {
+    List<String> population = new ArrayList<>(ParallelBreeding.CHUNK_SIZE * 3 + 1);
+    for (int i = 0; i < ParallelBreeding.CHUNK_SIZE * 3 + 1; i++) {
+      population.add(i % 2 == 0 ? "AAAA" : "BBBB");
+    }
+    List<String> offspring = new StringCrossover().apply(population, new SplittableRNG(5));
+    assert offspring.size() == population.size() : "Wrong offspring count: " + offspring.size();
+    int aCount = 0;
+    for (String candidate : offspring) {
+      assert candidate.length() == 4 : "Wrong length: " + candidate;
+      for (char c : candidate.toCharArray()) {
+        aCount += c == 'A' ? 1 : 0;
+      }
+    }
+    assert aCount == 4 * (ParallelBreeding.CHUNK_SIZE * 3 / 2 + 1) : "Genetic material should be conserved.";
+  }
+
+
+  /**
+   * A random variable with its own source of randomness is shared by all of the chunks
+   * of a pipeline, so it must be rejected rather than sampled from several threads.
+   */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testRandomVariableInChunks() {
+    List<EvolutionaryOperator<String>> operators = new ArrayList<>(2);
+    operators.add(new StringCrossover(new DiscreteUniformGenerator(1, 3, FrameworkTestUtils.getRNG())));
+    operators.add(new StringMutation(ALPHABET, new Probability(0.05)));
+    List<String> population = new StringFactory(ALPHABET, 20).generateInitialPopulation(ParallelBreeding.CHUNK_SIZE * 2,
+        FrameworkTestUtils.getRNG());
+    new EvolutionPipeline<>(operators).apply(population, new SplittableRNG(7));
+  }
+
+
+  /**
+   * Cross-over on its own samples its variables before dividing the work, so random
+   * variables are allowed.
+   */
+  @Test
+  public void testRandomVariableBeforeChunks() {
+    List<String> population = new StringFactory(ALPHABET, 20).generateInitialPopulation(ParallelBreeding.CHUNK_SIZE * 2,
+        FrameworkTestUtils.getRNG());
+    List<String> offspring = new StringCrossover(new DiscreteUniformGenerator(1, 3, FrameworkTestUtils.getRNG()))
+        .apply(population, new SplittableRNG(7));
+    assert offspring.size() == population.size() : "Wrong offspring count: " + offspring.size();
+  }
+
+
+  /**
+   * Both streams of a split are parallel chunks, so a random variable used by either
+   * stream must be rejected, and the failure must reach the caller unwrapped.
+   */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testRandomVariableInSplit() {
+    List<String> population = new StringFactory(ALPHABET, 20).generateInitialPopulation(20,
+        FrameworkTestUtils.getRNG());
+    new SplitEvolution<>(new StringMutation(ALPHABET, new Probability(0.05)),
+        new StringCrossover(new DiscreteUniformGenerator(1, 3, FrameworkTestUtils.getRNG())),
+        0.5).apply(population, new SplittableRNG(7));
+  }
+}
@@ -0,0 +1,202 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.testng.annotations.Test;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.factories.StringFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Unit test for {@link ExternalProcessFitnessEvaluator}.  The external program is
+ * another JVM running {@link EvaluatorProcess}.
+ */
+public class ExternalProcessFitnessEvaluatorTest {
+  private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+  private static List<String> command(String mainClass, String... args) {
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(mainClass);
+    command.addAll(Arrays.asList(args));
+    return command;
+  }
+
+
+  private static List<String> createCandidates(int count) {
+    return new StringFactory(ALPHABET, 20).generateInitialPopulation(count, FrameworkTestUtils.getRNG());
+  }
+
+
+  private static double[] expectedScores(List<String> candidates) {
+    return candidates.stream().mapToDouble(EvaluatorProcess::countAs).toArray();
+  }
+
+
+  @Test(timeOut = 30000)
+  public void testEvaluateBatch() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command(EvaluatorProcess.class.getName()), Function.identity(), true, 2, 5, 3)) {
+      List<String> candidates = createCandidates(100);
+      assert Arrays.equals(evaluator.evaluateBatch(candidates, candidates), expectedScores(candidates))
+          : "Wrong scores.";
+      assert evaluator.getFitness("AAB", candidates) == 2 : "Wrong single score.";
+      assert evaluator.getRestartCount() == 0 : "No children should have been restarted.";
+    }
+  }
+
+
+  /**
+   * Children that crash part way through must be restarted and their outstanding
+   * requests re-sent.
+   */
+  @Test(timeOut = 30000)
+  public void testRestartCrashedChildren() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command(EvaluatorProcess.class.getName(), "20"), Function.identity(), true, 2, 4, 2)) {
+      List<String> candidates = createCandidates(60);
+      assert Arrays.equals(evaluator.evaluateBatch(candidates, candidates), expectedScores(candidates))
+          : "Wrong scores.";
+      assert evaluator.getRestartCount() > 0 : "Crashed children should have been restarted.";
+    }
+  }
+
+
+  /**
+   * Children that stop answering must be killed once a request times out, and their
+   * outstanding requests re-sent.
+   */
+  @Test(timeOut = 30000)
+  public void testRestartHungChildren() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command(EvaluatorProcess.class.getName(), "20", "hang"), Function.identity(), true, 2, 4, 2, 2000)) {
+      List<String> candidates = createCandidates(60);
+      assert Arrays.equals(evaluator.evaluateBatch(candidates, candidates), expectedScores(candidates))
+          : "Wrong scores.";
+      assert evaluator.getRestartCount() > 0 : "Hung children should have been restarted.";
+    }
+  }
+
+
+  @Test(timeOut = 30000, expectedExceptions = IllegalStateException.class)
+  public void testPoisonCandidate() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command(EvaluatorProcess.class.getName()), Function.identity(), true, 1, 4, 4)) {
+      List<String> candidates = new ArrayList<>(createCandidates(5));
+      candidates.add(EvaluatorProcess.POISON);
+      evaluator.evaluateBatch(candidates, candidates);
+    }
+  }
+
+
+  @Test(timeOut = 30000, expectedExceptions = IllegalStateException.class)
+  public void testErrorResponse() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command(EvaluatorProcess.class.getName()), Function.identity(), true, 1, 4, 4)) {
+      evaluator.getFitness(EvaluatorProcess.ERROR, new ArrayList<>());
+    }
+  }
+
+
+  @Test(timeOut = 30000, expectedExceptions = IllegalStateException.class)
+  public void testNegativeScore() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command(EvaluatorProcess.class.getName()), Function.identity(), true, 1, 4, 4)) {
+      evaluator.getFitness(EvaluatorProcess.NEGATIVE, new ArrayList<>());
+    }
+  }
+
+
+  @Test(timeOut = 30000, expectedExceptions = IllegalArgumentException.class)
+  public void testMultiLineCandidate() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command(EvaluatorProcess.class.getName()), Function.identity(), true, 1, 4, 4)) {
+      evaluator.getFitness("AB\nCD", new ArrayList<>());
+    }
+  }
+
+
+  /**
+   * A command that never works must not be restarted forever.
+   */
+  @Test(timeOut = 30000, expectedExceptions = IllegalStateException.class)
+  public void testBrokenCommand() throws IOException {
+    try (ExternalProcessFitnessEvaluator<String> evaluator = new ExternalProcessFitnessEvaluator<>(
+        command("org.uncommons.NoSuchClass"), Function.identity(), true, 1, 4, 4)) {
+      List<String> candidates = createCandidates(5);
+      evaluator.evaluateBatch(candidates, candidates);
+    }
+  }
+
+
+  /**
+   * External fitness function that counts 'A's, speaking the line-based protocol.
+   */
+  public static final class EvaluatorProcess {
+    static final String POISON = "POISON";
+    static final String ERROR = "ERROR";
+    static final String NEGATIVE = "NEGATIVE";
+
+    private EvaluatorProcess() {
+      // Prevent instantiation.
+    }
+
+
+    static double countAs(String candidate) {
+      return candidate.chars().filter(c -> c == 'A').count();
+    }
+
+
+    /**
+     * @param args Optionally, the number of requests to answer before exiting abnormally,
+     *             followed by "hang" to stop answering instead of exiting.
+     * @throws IOException If standard input cannot be read.
+     * @throws InterruptedException If interrupted while hanging.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+      int crashAfter = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+      boolean hang = args.length > 1 && args[1].equals("hang");
+      BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+      String line;
+      int answered = 0;
+      while ((line = in.readLine()) != null) {
+        int separator = line.indexOf(' ');
+        String id = line.substring(0, separator);
+        String candidate = line.substring(separator + 1);
+        if (candidate.equals(POISON) || answered == crashAfter) {
+          if (hang) {
+            Thread.sleep(Long.MAX_VALUE);
+          }
+          System.exit(1);
+        }
+        String result = candidate.equals(ERROR) ? "bad candidate" : Double.toString(countAs(candidate));
+        System.out.println(id + ' ' + (candidate.equals(NEGATIVE) ? "-1" : result));
+        System.out.flush();
+        ++answered;
+      }
+    }
+  }
+}
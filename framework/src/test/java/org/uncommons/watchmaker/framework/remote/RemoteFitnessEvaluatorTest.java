@@ -0,0 +1,279 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.testng.annotations.Test;
+import org.uncommons.maths.random.Probability;
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.GenerationalEvolutionEngine;
+import org.uncommons.watchmaker.framework.codec.StringCodec;
+import org.uncommons.watchmaker.framework.factories.StringFactory;
+import org.uncommons.watchmaker.framework.operators.StringMutation;
+import org.uncommons.watchmaker.framework.selection.TournamentSelection;
+import org.uncommons.watchmaker.framework.termination.GenerationCount;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Unit test for {@link RemoteFitnessEvaluator} and {@link RemoteFitnessWorker}.
+ * All workers run on threads in the test JVM and connect over localhost.
+ */
+public class RemoteFitnessEvaluatorTest {
+  private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+  /**
+   * Scores a string by counting its 'A's.
+   */
+  private static final FitnessEvaluator<String> COUNT_AS = new FitnessEvaluator<String>() {
+    public double getFitness(String candidate, List<? extends String> population) {
+      return candidate.chars().filter(c -> c == 'A').count();
+    }
+
+
+    public boolean isNatural() {
+      return true;
+    }
+  };
+
+
+  private static List<String> createCandidates(int count) {
+    return new StringFactory(ALPHABET, 20).generateInitialPopulation(count, FrameworkTestUtils.getRNG());
+  }
+
+
+  private static double[] expectedScores(List<String> candidates) {
+    return candidates.stream().mapToDouble(candidate -> COUNT_AS.getFitness(candidate, candidates)).toArray();
+  }
+
+
+  private static Thread startWorker(RemoteFitnessWorker<String> worker, int port) {
+    Thread thread = new Thread(() -> {
+      try {
+        worker.run("localhost", port);
+      } catch (IOException ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+
+  @Test(timeOut = 20000)
+  public void testEvaluateBatch() throws Exception {
+    RemoteFitnessEvaluator<String> evaluator = new RemoteFitnessEvaluator<>(0, new StringCodec(), true, 7, 2,
+        1000, 10000);
+    Thread worker1;
+    Thread worker2;
+    try {
+      worker1 = startWorker(new RemoteFitnessWorker<>(COUNT_AS, new StringCodec(), 2), evaluator.getPort());
+      worker2 = startWorker(new RemoteFitnessWorker<>(COUNT_AS, new StringCodec(), 1), evaluator.getPort());
+      List<String> candidates = createCandidates(100);
+      double[] scores = evaluator.evaluateBatch(candidates, candidates);
+      assert Arrays.equals(scores, expectedScores(candidates)) : "Wrong scores.";
+      assert evaluator.getFitness("AAB", candidates) == 2 : "Wrong single score.";
+    } finally {
+      evaluator.close();
+    }
+    worker1.join(5000);
+    worker2.join(5000);
+    assert !worker1.isAlive() && !worker2.isAlive() : "Workers should stop when the evaluator is closed.";
+  }
+
+
+  /**
+   * Batches that were outstanding on a worker that disconnects must be re-sent to
+   * another worker.
+   */
+  @Test(timeOut = 20000)
+  public void testRedispatchOnWorkerDeath() throws Exception {
+    try (RemoteFitnessEvaluator<String> evaluator = new RemoteFitnessEvaluator<>(0, new StringCodec(), true, 5, 2,
+        1000, 10000)) {
+      CountDownLatch stuck = new CountDownLatch(1);
+      RemoteFitnessWorker<String> doomedWorker = new RemoteFitnessWorker<>(new FitnessEvaluator<String>() {
+        public double getFitness(String candidate, List<? extends String> population) {
+          stuck.countDown();
+          try {
+            Thread.sleep(60000);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          return 0;
+        }
+
+
+        public boolean isNatural() {
+          return true;
+        }
+      }, new StringCodec(), 1);
+      startWorker(doomedWorker, evaluator.getPort());
+
+      List<String> candidates = createCandidates(40);
+      FutureTask<double[]> evaluation = new FutureTask<>(() -> evaluator.evaluateBatch(candidates, candidates));
+      new Thread(evaluation).start();
+      stuck.await();
+      // A healthy worker joins part way through the evaluation, then the first one dies.
+      startWorker(new RemoteFitnessWorker<>(COUNT_AS, new StringCodec(), 2), evaluator.getPort());
+      doomedWorker.disconnect();
+      assert Arrays.equals(evaluation.get(), expectedScores(candidates)) : "Wrong scores.";
+    }
+  }
+
+
+  /**
+   * A worker that stops responding without closing its connection must be detected
+   * by the heartbeat and its batches re-dispatched.
+   */
+  @Test(timeOut = 20000)
+  public void testHeartbeatTimeout() throws Exception {
+    try (RemoteFitnessEvaluator<String> evaluator = new RemoteFitnessEvaluator<>(0, new StringCodec(), true, 5, 2,
+        100, 500)) {
+      try (Socket silentWorker = new Socket("localhost", evaluator.getPort())) {
+        DataOutputStream out = new DataOutputStream(silentWorker.getOutputStream());
+        out.writeByte(RemoteProtocol.HELLO);
+        out.writeInt(4);
+        out.flush();
+        while (evaluator.getWorkerCount() == 0) {
+          Thread.sleep(10);
+        }
+        List<String> candidates = createCandidates(30);
+        FutureTask<double[]> evaluation = new FutureTask<>(() -> evaluator.evaluateBatch(candidates, candidates));
+        new Thread(evaluation).start();
+        Thread.sleep(200);
+        startWorker(new RemoteFitnessWorker<>(COUNT_AS, new StringCodec(), 1), evaluator.getPort());
+        assert Arrays.equals(evaluation.get(), expectedScores(candidates)) : "Wrong scores.";
+      }
+    }
+  }
+
+
+  /**
+   * A client that connects but never completes the handshake must not stop other
+   * workers from joining.
+   */
+  @Test(timeOut = 20000)
+  public void testSilentClient() throws Exception {
+    try (RemoteFitnessEvaluator<String> evaluator = new RemoteFitnessEvaluator<>(0, new StringCodec(), true, 5, 2,
+        1000, 10000)) {
+      Socket silentClient = new Socket("localhost", evaluator.getPort());
+      try {
+        startWorker(new RemoteFitnessWorker<>(COUNT_AS, new StringCodec(), 1), evaluator.getPort());
+        List<String> candidates = createCandidates(20);
+        assert Arrays.equals(evaluator.evaluateBatch(candidates, candidates), expectedScores(candidates)) : "Wrong scores.";
+      } finally {
+        silentClient.close();
+      }
+    }
+  }
+
+
+  /**
+   * A worker that answers a batch with the wrong number of scores must be dropped and
+   * the batch re-sent to another worker.
+   */
+  @Test(timeOut = 20000)
+  public void testWrongScoreCount() throws Exception {
+    try (RemoteFitnessEvaluator<String> evaluator = new RemoteFitnessEvaluator<>(0, new StringCodec(), true, 5, 1,
+        1000, 10000)) {
+      try (Socket faultyWorker = new Socket("localhost", evaluator.getPort())) {
+        DataOutputStream out = new DataOutputStream(faultyWorker.getOutputStream());
+        DataInputStream in = new DataInputStream(faultyWorker.getInputStream());
+        out.writeByte(RemoteProtocol.HELLO);
+        out.writeInt(1);
+        out.flush();
+        while (evaluator.getWorkerCount() == 0) {
+          Thread.sleep(10);
+        }
+        List<String> candidates = createCandidates(10);
+        FutureTask<double[]> evaluation = new FutureTask<>(() -> evaluator.evaluateBatch(candidates, candidates));
+        new Thread(evaluation).start();
+        byte type = in.readByte();
+        while (type != RemoteProtocol.BATCH) {
+          type = in.readByte();
+        }
+        long id = in.readLong();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+          new StringCodec().decode(in);
+        }
+        out.writeByte(RemoteProtocol.RESULT);
+        out.writeLong(id);
+        out.writeInt(count - 1);
+        for (int i = 0; i < count - 1; i++) {
+          out.writeDouble(1);
+        }
+        out.flush();
+        startWorker(new RemoteFitnessWorker<>(COUNT_AS, new StringCodec(), 1), evaluator.getPort());
+        assert Arrays.equals(evaluation.get(), expectedScores(candidates)) : "Wrong scores.";
+      }
+    }
+  }
+
+
+  @Test(timeOut = 20000, expectedExceptions = IllegalStateException.class)
+  public void testRemoteFailure() throws Exception {
+    try (RemoteFitnessEvaluator<String> evaluator = new RemoteFitnessEvaluator<>(0, new StringCodec(), true)) {
+      startWorker(new RemoteFitnessWorker<>(new FitnessEvaluator<String>() {
+        public double getFitness(String candidate, List<? extends String> population) {
+          throw new IllegalArgumentException("Bad candidate.");
+        }
+
+
+        public boolean isNatural() {
+          return true;
+        }
+      }, new StringCodec(), 1), evaluator.getPort());
+      List<String> candidates = createCandidates(10);
+      evaluator.evaluateBatch(candidates, candidates);
+    }
+  }
+
+
+  /**
+   * Engines hand the whole population to a batch evaluator in a single call.
+   */
+  @Test(timeOut = 20000)
+  public void testEvolutionEngine() throws Exception {
+    try (RemoteFitnessEvaluator<String> evaluator = new RemoteFitnessEvaluator<>(0, new StringCodec(), true)) {
+      startWorker(new RemoteFitnessWorker<>(COUNT_AS, new StringCodec()), evaluator.getPort());
+      GenerationalEvolutionEngine<String> engine = new GenerationalEvolutionEngine<>(new StringFactory(ALPHABET, 20),
+          new StringMutation(ALPHABET, new Probability(0.1)),
+          evaluator,
+          new TournamentSelection(new Probability(0.9)),
+          FrameworkTestUtils.getRNG());
+      List<String> seeds = new ArrayList<>();
+      seeds.add("AAAAAAAAAAAAAAAAAAAA");
+      String result = engine.evolve(20, 1, seeds, new GenerationCount(3));
+      assert result.equals("AAAAAAAAAAAAAAAAAAAA") : "Elite candidate should survive: " + result;
+    }
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidHeartbeatSettings() throws IOException {
+    new RemoteFitnessEvaluator<>(0, new StringCodec(), true, 10, 2, 1000, 1000).close();
+  }
+}
@@ -0,0 +1,309 @@
+//=============================================================================
+// Copyright 2006-2010 Daniel W. Dyer
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//=============================================================================
+package org.uncommons.watchmaker.framework.remote;
+
+import org.testng.annotations.Test;
+import org.uncommons.watchmaker.framework.FitnessEvaluator;
+import org.uncommons.watchmaker.framework.FrameworkTestUtils;
+import org.uncommons.watchmaker.framework.codec.StringCodec;
+import org.uncommons.watchmaker.framework.factories.StringFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Unit test for {@link SharedMemoryFitnessEvaluator} and {@link SharedMemoryFitnessWorker}.
+ */
+public class SharedMemoryFitnessEvaluatorTest {
+  private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+  /**
+   * Scores a string by counting its 'A's.
+   */
+  private static final FitnessEvaluator<String> COUNT_AS = new CountAs(0);
+
+
+  private static List<String> createCandidates(int count) {
+    return new StringFactory(ALPHABET, 20).generateInitialPopulation(count, FrameworkTestUtils.getRNG());
+  }
+
+
+  private static double[] expectedScores(List<String> candidates) {
+    return candidates.stream().mapToDouble(candidate -> COUNT_AS.getFitness(candidate, candidates)).toArray();
+  }
+
+
+  private static SharedMemoryFitnessWorker<String> startWorker(FitnessEvaluator<String> evaluator,
+                                                               Path path,
+                                                               int region) {
+    SharedMemoryFitnessWorker<String> worker = new SharedMemoryFitnessWorker<>(evaluator, new StringCodec());
+    Thread thread = new Thread(() -> {
+      try {
+        worker.run(path, region);
+      } catch (IOException ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return worker;
+  }
+
+
+  @Test(timeOut = 20000)
+  public void testEvaluateBatch() throws Exception {
+    Path path = Files.createTempFile("watchmaker", ".shm");
+    // Small slots so that batches are split by space as well as by count.
+    try (SharedMemoryFitnessEvaluator<String> evaluator = new SharedMemoryFitnessEvaluator<>(path, 2,
+        new StringCodec(), true, 3, 200, 8, 5000)) {
+      startWorker(COUNT_AS, path, 0);
+      startWorker(COUNT_AS, path, 1);
+      List<String> candidates = createCandidates(200);
+      assert Arrays.equals(evaluator.evaluateBatch(candidates, candidates), expectedScores(candidates))
+          : "Wrong scores.";
+      // Slots are reused across calls.
+      candidates = createCandidates(50);
+      assert Arrays.equals(evaluator.evaluateBatch(candidates, candidates), expectedScores(candidates))
+          : "Wrong scores on second call.";
+      assert evaluator.getFitness("AAB", candidates) == 2 : "Wrong single score.";
+      assert evaluator.getWorkerCount() == 2 : "Both workers should be attached.";
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+
+  /**
+   * Batches outstanding on a worker process that dies must be reclaimed and evaluated
+   * by another worker.
+   */
+  @Test(timeOut = 30000)
+  public void testWorkerProcessDeath() throws Exception {
+    Path path = Files.createTempFile("watchmaker", ".shm");
+    Process process = null;
+    try (SharedMemoryFitnessEvaluator<String> evaluator = new SharedMemoryFitnessEvaluator<>(path, 2,
+        new StringCodec(), true, 2, 1024, 5, 500)) {
+      String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+      process = new ProcessBuilder(java,
+          "-cp",
+          System.getProperty("java.class.path"),
+          WorkerProcess.class.getName(),
+          path.toString(),
+          "0",
+          "60000").inheritIO().start();
+      while (evaluator.getWorkerCount() == 0) {
+        Thread.sleep(10);
+      }
+
+      List<String> candidates = createCandidates(40);
+      FutureTask<double[]> evaluation = new FutureTask<>(() -> evaluator.evaluateBatch(candidates, candidates));
+      new Thread(evaluation).start();
+      Thread.sleep(200);
+      process.destroyForcibly().waitFor();
+      startWorker(COUNT_AS, path, 1);
+      assert Arrays.equals(evaluation.get(), expectedScores(candidates)) : "Wrong scores.";
+    } finally {
+      if (process != null) {
+        process.destroyForcibly();
+      }
+      Files.delete(path);
+    }
+  }
+
+
+  /**
+   * A worker that misses its heartbeat while evaluating, but then recovers, must skip
+   * the batches that were taken back from it and carry on with new ones.
+   */
+  @Test(timeOut = 20000)
+  public void testPausedWorkerResumes() throws Exception {
+    Path path = Files.createTempFile("watchmaker", ".shm");
+    try (SharedMemoryFitnessEvaluator<String> evaluator = new SharedMemoryFitnessEvaluator<>(path, 1,
+        new StringCodec(), true, 2, 1024, 5, 300);
+         RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+      // The worker writes one heartbeat when it starts and then none until the test
+      // takes over, which looks like a long pause to the evaluator.
+      buffer.putInt(SharedMemoryLayout.HEARTBEAT_INTERVAL_OFFSET, Integer.MAX_VALUE);
+      CountDownLatch stuck = new CountDownLatch(1);
+      CountDownLatch resume = new CountDownLatch(1);
+      startWorker(new FitnessEvaluator<String>() {
+        public double getFitness(String candidate, List<? extends String> population) {
+          stuck.countDown();
+          try {
+            resume.await();
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          return COUNT_AS.getFitness(candidate, population);
+        }
+
+
+        public boolean isNatural() {
+          return true;
+        }
+      }, path, 0);
+      while (evaluator.getWorkerCount() == 0) {
+        Thread.sleep(10);
+      }
+
+      List<String> candidates = createCandidates(40);
+      FutureTask<double[]> evaluation = new FutureTask<>(() -> evaluator.evaluateBatch(candidates, candidates));
+      new Thread(evaluation).start();
+      stuck.await();
+      Thread.sleep(600); // Long enough for the evaluator to reclaim the region's batches.
+      int heartbeatOffset = SharedMemoryLayout.regionOffset(0, 2, 1024) + SharedMemoryLayout.HEARTBEAT_OFFSET;
+      Thread heartbeat = new Thread(() -> {
+        while (!evaluation.isDone()) {
+          buffer.putLong(heartbeatOffset, System.currentTimeMillis());
+          LockSupport.parkNanos(50000000);
+        }
+      });
+      heartbeat.setDaemon(true);
+      heartbeat.start();
+      resume.countDown();
+      assert Arrays.equals(evaluation.get(), expectedScores(candidates)) : "Wrong scores.";
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+
+  @Test(timeOut = 20000, expectedExceptions = IllegalStateException.class)
+  public void testRemoteFailure() throws Exception {
+    Path path = Files.createTempFile("watchmaker", ".shm");
+    try (SharedMemoryFitnessEvaluator<String> evaluator = new SharedMemoryFitnessEvaluator<>(path, 1,
+        new StringCodec(), true)) {
+      startWorker(new FitnessEvaluator<String>() {
+        public double getFitness(String candidate, List<? extends String> population) {
+          throw new IllegalArgumentException("Bad candidate.");
+        }
+
+
+        public boolean isNatural() {
+          return true;
+        }
+      }, path, 0);
+      List<String> candidates = createCandidates(10);
+      evaluator.evaluateBatch(candidates, candidates);
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+
+  @Test(timeOut = 20000, expectedExceptions = IllegalArgumentException.class)
+  public void testCandidateTooLarge() throws Exception {
+    Path path = Files.createTempFile("watchmaker", ".shm");
+    try (SharedMemoryFitnessEvaluator<String> evaluator = new SharedMemoryFitnessEvaluator<>(path, 1,
+        new StringCodec(), true, 2, 16, 4, 5000)) {
+      startWorker(COUNT_AS, path, 0);
+      while (evaluator.getWorkerCount() == 0) {
+        Thread.sleep(10);
+      }
+      List<String> candidates = Collections.singletonList("AAAAAAAAAAAAAAAAAAAA");
+      evaluator.evaluateBatch(candidates, candidates);
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+
+  /**
+   * A hand-over is only acted on once the checksum matches what the other side wrote,
+   * so a slot whose data is only partly visible must look empty.
+   */
+  @Test
+  public void testPartialSlotIgnored() {
+    int slotSize = 64;
+    ByteBuffer buffer = ByteBuffer.allocate(SharedMemoryLayout.SLOT_HEADER_SIZE + slotSize);
+    buffer.putLong(SharedMemoryLayout.SEQUENCE_OFFSET, 7);
+    buffer.putInt(SharedMemoryLayout.COUNT_OFFSET, 2);
+    buffer.putInt(SharedMemoryLayout.LENGTH_OFFSET, 16);
+    buffer.putLong(SharedMemoryLayout.SLOT_HEADER_SIZE, 42);
+    SharedMemoryLayout.publishState(buffer, 0, slotSize, SharedMemoryLayout.READY);
+    assert SharedMemoryLayout.readState(buffer, 0, slotSize) == SharedMemoryLayout.READY : "Slot should be ready.";
+    buffer.putLong(SharedMemoryLayout.SLOT_HEADER_SIZE + 8, 43);
+    assert SharedMemoryLayout.readState(buffer, 0, slotSize) == SharedMemoryLayout.EMPTY : "Partial data accepted.";
+
+    SharedMemoryLayout.publishEpoch(buffer, 0, 3, 12);
+    assert Arrays.equals(SharedMemoryLayout.readEpoch(buffer, 0), new long[]{3, 12}) : "Wrong epoch record.";
+    buffer.putLong(SharedMemoryLayout.NEXT_SEQUENCE_OFFSET, 13);
+    assert SharedMemoryLayout.readEpoch(buffer, 0) == null : "Partial epoch record accepted.";
+  }
+
+
+  /**
+   * Natural fitness function that counts 'A's, optionally slowly.
+   */
+  private static final class CountAs implements FitnessEvaluator<String> {
+    private final long delay;
+
+    CountAs(long delay) {
+      this.delay = delay;
+    }
+
+
+    public double getFitness(String candidate, List<? extends String> population) {
+      if (delay > 0) {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return candidate.chars().filter(c -> c == 'A').count();
+    }
+
+
+    public boolean isNatural() {
+      return true;
+    }
+  }
+
+
+  /**
+   * Entry point for a worker running in a separate process.
+   */
+  public static final class WorkerProcess {
+    private WorkerProcess() {
+      // Prevent instantiation.
+    }
+
+
+    /**
+     * @param args The shared file, the region index and the time taken per evaluation in milliseconds.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public static void main(String[] args) throws IOException {
+      new SharedMemoryFitnessWorker<>(new CountAs(Long.parseLong(args[2])), new StringCodec())
+          .run(Paths.get(args[0]), Integer.parseInt(args[1]));
+    }
+  }
+}